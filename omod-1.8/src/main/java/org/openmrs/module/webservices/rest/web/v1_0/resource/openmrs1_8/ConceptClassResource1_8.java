@@ -54,6 +54,22 @@ public class ConceptClassResource1_8 extends MetadataDelegatingCrudResource<Conc
 		return conceptClass;
 	}
 	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.MetadataDelegatingCrudResource#isRepresentationCached()
+	 */
+	@Override
+	protected boolean isRepresentationCached() {
+		return true;
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#getVersionToken(java.lang.Object)
+	 */
+	@Override
+	protected String getVersionToken(ConceptClass delegate) {
+		return getAuditVersionToken(delegate);
+	}
+	
 	/**
 	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#purge(java.lang.Object,
 	 *      org.openmrs.module.webservices.rest.web.RequestContext)
@@ -101,6 +101,14 @@ public class ConceptDatatypeResource1_8 extends MetadataDelegatingCrudResource<C
 		return datatype;
 	}
 	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.MetadataDelegatingCrudResource#isRepresentationCached()
+	 */
+	@Override
+	protected boolean isRepresentationCached() {
+		return true;
+	}
+	
 	/**
 	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#purge(java.lang.Object,
 	 *      org.openmrs.module.webservices.rest.web.RequestContext)
@@ -9,29 +9,42 @@
  */
 package org.openmrs.module.webservices.rest.web.v1_0.resource.openmrs1_8;
 
+import org.hibernate.criterion.Criterion;
+import org.hibernate.criterion.Restrictions;
 import org.openmrs.Encounter;
+import org.openmrs.EncounterType;
 import org.openmrs.Obs;
 import org.openmrs.Order;
 import org.openmrs.Patient;
+import org.openmrs.Privilege;
 import org.openmrs.api.EncounterService;
 import org.openmrs.api.context.Context;
 import org.openmrs.module.webservices.rest.web.RequestContext;
 import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest.web.RestUtil;
 import org.openmrs.module.webservices.rest.web.annotation.PropertyGetter;
 import org.openmrs.module.webservices.rest.web.annotation.PropertySetter;
 import org.openmrs.module.webservices.rest.web.annotation.Resource;
+import org.openmrs.module.webservices.rest.web.api.RestHelperService;
 import org.openmrs.module.webservices.rest.web.api.RestService;
 import org.openmrs.module.webservices.rest.web.representation.DefaultRepresentation;
 import org.openmrs.module.webservices.rest.web.representation.FullRepresentation;
 import org.openmrs.module.webservices.rest.web.representation.Representation;
+import org.openmrs.module.webservices.rest.web.resource.api.Exportable;
 import org.openmrs.module.webservices.rest.web.resource.api.PageableResult;
+import org.openmrs.module.webservices.rest.web.resource.impl.CriteriaPaged;
+import org.openmrs.module.webservices.rest.web.resource.impl.CursorPaged;
 import org.openmrs.module.webservices.rest.web.resource.impl.DataDelegatingCrudResource;
 import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingResourceDescription;
 import org.openmrs.module.webservices.rest.web.resource.impl.EmptySearchResult;
 import org.openmrs.module.webservices.rest.web.resource.impl.NeedsPaging;
 import org.openmrs.module.webservices.rest.web.resource.impl.ServiceSearcher;
+import org.openmrs.module.webservices.rest.web.response.ObjectNotFoundException;
 import org.openmrs.module.webservices.rest.web.response.ResponseException;
 
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -41,7 +54,7 @@ import java.util.Set;
  * Resource for Encounters, supporting standard CRUD operations
  */
 @Resource(name = RestConstants.VERSION_1 + "/encounter", supportedClass = Encounter.class, supportedOpenmrsVersions = "1.8.*")
-public class EncounterResource1_8 extends DataDelegatingCrudResource<Encounter> {
+public class EncounterResource1_8 extends DataDelegatingCrudResource<Encounter> implements Exportable {
 	
 	/**
 	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#getRepresentationDescription(org.openmrs.module.webservices.rest.web.representation.Representation)
@@ -210,6 +223,24 @@ public class EncounterResource1_8 extends DataDelegatingCrudResource<Encounter>
 			    Patient.class)).getByUniqueId(patientUuid);
 			if (patient == null)
 				return new EmptySearchResult();
+			if (context.getCursor() != null) {
+				RestUtil.requirePrivilege(RestUtil.getViewPrivilege("Encounters"));
+				List<Criterion> restrictions = new ArrayList<Criterion>();
+				restrictions.add(Restrictions.eq("patient", patient));
+				restrictions.add(Restrictions.eq("voided", false));
+				Integer lastId = CursorPaged.getLastId(context);
+				if (lastId != null) {
+					restrictions.add(Restrictions.gt("encounterId", lastId));
+				}
+				Criterion viewable = getViewableEncounterTypesRestriction();
+				if (viewable != null) {
+					restrictions.add(viewable);
+				}
+				List<Encounter> page = Context.getService(RestHelperService.class).getObjectsByCriteria(Encounter.class,
+				    restrictions, Collections.singletonList(org.hibernate.criterion.Order.asc("encounterId")), 0,
+				    context.getLimit() + 1);
+				return new CursorPaged<Encounter>(context, page);
+			}
 			List<Encounter> encs = Context.getEncounterService().getEncountersByPatient(patient);
 			return new NeedsPaging<Encounter>(encs, context);
 		}
@@ -218,4 +249,80 @@ public class EncounterResource1_8 extends DataDelegatingCrudResource<Encounter>
 		    context.getParameter("q"), context);
 	}
 	
+	/**
+	 * Exports the encounters that are not voided, optionally only those of a patient or cohort, of
+	 * an encounterType and with an encounterDatetime from fromdate to todate
+	 * 
+	 * @see org.openmrs.module.webservices.rest.web.resource.api.Exportable#getExportQuery(org.openmrs.module.webservices.rest.web.RequestContext)
+	 */
+	@Override
+	public CriteriaPaged<Encounter> getExportQuery(RequestContext context) throws ResponseException {
+		CriteriaPaged<Encounter> query = new CriteriaPaged<Encounter>(context, Encounter.class, RestUtil
+		        .getViewPrivilege("Encounters")).add(Restrictions.eq("voided", false));
+		ExportRestrictions.addPatientRestrictions(query, "patient", context);
+		ExportRestrictions.addDateRestrictions(query, "encounterDatetime", context);
+		
+		String encounterTypeUuid = context.getParameter("encounterType");
+		if (encounterTypeUuid != null) {
+			EncounterType encounterType = ((EncounterTypeResource1_8) Context.getService(RestService.class)
+			        .getResourceBySupportedClass(EncounterType.class)).getByUniqueId(encounterTypeUuid);
+			if (encounterType == null) {
+				throw new ObjectNotFoundException();
+			}
+			query.add(Restrictions.eq("encounterType.id", encounterType.getId()));
+		}
+		Criterion viewable = getViewableEncounterTypesRestriction();
+		if (viewable != null) {
+			query.add(viewable);
+		}
+		return query;
+	}
+	
+	/**
+	 * Gets the restriction to the encounters the authenticated user may view. Since platform 1.10
+	 * an encounter type can have a view privilege, and the EncounterService hides the encounters of
+	 * types whose privilege the user lacks. Queries that bypass the service must do the same.
+	 * 
+	 * @return the restriction, or null if the user may view the encounters of all types
+	 */
+	static Criterion getViewableEncounterTypesRestriction() {
+		Method getViewPrivilege;
+		try {
+			getViewPrivilege = EncounterType.class.getMethod("getViewPrivilege");
+		}
+		catch (NoSuchMethodException e) {
+			return null;
+		}
+		
+		String viewEncounterTypes = RestUtil.getViewPrivilege("Encounter Types");
+		List<EncounterType> types;
+		Context.addProxyPrivilege(viewEncounterTypes);
+		try {
+			types = Context.getEncounterService().getAllEncounterTypes(true);
+		}
+		finally {
+			Context.removeProxyPrivilege(viewEncounterTypes);
+		}
+		
+		List<Integer> viewable = new ArrayList<Integer>();
+		for (EncounterType type : types) {
+			Privilege privilege;
+			try {
+				privilege = (Privilege) getViewPrivilege.invoke(type);
+			}
+			catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+			if (privilege == null || Context.hasPrivilege(privilege.getPrivilege())) {
+				viewable.add(type.getId());
+			}
+		}
+		if (viewable.size() == types.size()) {
+			return null;
+		} else if (viewable.isEmpty()) {
+			return Restrictions.sqlRestriction("1 = 0");
+		}
+		return Restrictions.in("encounterType.id", viewable);
+	}
+	
 }
@@ -72,6 +72,22 @@ public class EncounterTypeResource1_8 extends MetadataDelegatingCrudResource<Enc
 		return encounterType;
 	}
 	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.MetadataDelegatingCrudResource#isRepresentationCached()
+	 */
+	@Override
+	protected boolean isRepresentationCached() {
+		return true;
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#getVersionToken(java.lang.Object)
+	 */
+	@Override
+	protected String getVersionToken(EncounterType delegate) {
+		return getAuditVersionToken(delegate);
+	}
+	
 	/**
 	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#purge(java.lang.Object,
 	 *      org.openmrs.module.webservices.rest.web.RequestContext)
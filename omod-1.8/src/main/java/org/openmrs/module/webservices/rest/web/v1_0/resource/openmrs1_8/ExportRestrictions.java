@@ -0,0 +1,111 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web.v1_0.resource.openmrs1_8;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import org.hibernate.criterion.Criterion;
+import org.hibernate.criterion.Disjunction;
+import org.hibernate.criterion.Restrictions;
+import org.openmrs.Cohort;
+import org.openmrs.Patient;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.webservices.rest.web.ConversionUtil;
+import org.openmrs.module.webservices.rest.web.RequestContext;
+import org.openmrs.module.webservices.rest.web.api.RestService;
+import org.openmrs.module.webservices.rest.web.resource.impl.CriteriaPaged;
+import org.openmrs.module.webservices.rest.web.response.ObjectNotFoundException;
+
+/**
+ * Restricts the export queries of patient data with the patient, cohort, fromdate and todate
+ * request parameters, see {@link org.openmrs.module.webservices.rest.web.resource.api.Exportable}.
+ * The restrictions refer to other objects by id, because the export clears the session after
+ * each batch.
+ */
+class ExportRestrictions {
+	
+	private static final String PATIENT = "patient";
+	
+	private static final String COHORT = "cohort";
+	
+	private static final String DATE_FROM = "fromdate";
+	
+	private static final String DATE_TO = "todate";
+	
+	/**
+	 * Some databases do not allow longer lists of values in one in restriction
+	 */
+	private static final int MAX_IN_VALUES = 1000;
+	
+	private ExportRestrictions() {
+	}
+	
+	/**
+	 * Restricts the query to the patient or the members of the cohort given in the request
+	 * 
+	 * @param query
+	 * @param patientProperty the property of the exported objects that refers to the patient
+	 * @param context
+	 */
+	static void addPatientRestrictions(CriteriaPaged<?> query, String patientProperty, RequestContext context) {
+		String patientUuid = context.getParameter(PATIENT);
+		if (patientUuid != null) {
+			Patient patient = ((PatientResource1_8) Context.getService(RestService.class).getResourceBySupportedClass(
+			    Patient.class)).getByUniqueId(patientUuid);
+			if (patient == null) {
+				throw new ObjectNotFoundException();
+			}
+			query.add(Restrictions.eq(patientProperty + ".id", patient.getId()));
+		}
+		
+		String cohortUuid = context.getParameter(COHORT);
+		if (cohortUuid != null) {
+			Cohort cohort = ((CohortResource1_8) Context.getService(RestService.class).getResourceBySupportedClass(
+			    Cohort.class)).getByUniqueId(cohortUuid);
+			if (cohort == null) {
+				throw new ObjectNotFoundException();
+			}
+			query.add(in(patientProperty + ".id", cohort.getMemberIds()));
+		}
+	}
+	
+	/**
+	 * Restricts the query to the date range given in the request, both ends are included
+	 * 
+	 * @param query
+	 * @param dateProperty the date property of the exported objects
+	 * @param context
+	 */
+	static void addDateRestrictions(CriteriaPaged<?> query, String dateProperty, RequestContext context) {
+		String dateFrom = context.getParameter(DATE_FROM);
+		if (dateFrom != null) {
+			query.add(Restrictions.ge(dateProperty, ConversionUtil.convert(dateFrom, Date.class)));
+		}
+		String dateTo = context.getParameter(DATE_TO);
+		if (dateTo != null) {
+			query.add(Restrictions.le(dateProperty, ConversionUtil.convert(dateTo, Date.class)));
+		}
+	}
+	
+	private static Criterion in(String property, Collection<Integer> values) {
+		if (values.isEmpty()) {
+			return Restrictions.sqlRestriction("1 = 0");
+		}
+		List<Integer> list = new ArrayList<Integer>(values);
+		Disjunction disjunction = Restrictions.disjunction();
+		for (int i = 0; i < list.size(); i += MAX_IN_VALUES) {
+			disjunction.add(Restrictions.in(property, list.subList(i, Math.min(i + MAX_IN_VALUES, list.size()))));
+		}
+		return disjunction;
+	}
+}
@@ -12,17 +12,21 @@ package org.openmrs.module.webservices.rest.web.v1_0.resource.openmrs1_8;
 import java.util.List;
 
 import org.apache.commons.collections.CollectionUtils;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Restrictions;
 import org.openmrs.Location;
 import org.openmrs.LocationTag;
 import org.openmrs.api.LocationService;
 import org.openmrs.api.context.Context;
 import org.openmrs.module.webservices.rest.web.RequestContext;
 import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest.web.RestUtil;
 import org.openmrs.module.webservices.rest.web.annotation.Resource;
 import org.openmrs.module.webservices.rest.web.representation.DefaultRepresentation;
 import org.openmrs.module.webservices.rest.web.representation.FullRepresentation;
 import org.openmrs.module.webservices.rest.web.representation.Representation;
 import org.openmrs.module.webservices.rest.web.resource.api.PageableResult;
+import org.openmrs.module.webservices.rest.web.resource.impl.CriteriaPaged;
 import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource;
 import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingResourceDescription;
 import org.openmrs.module.webservices.rest.web.resource.impl.MetadataDelegatingCrudResource;
@@ -181,8 +185,14 @@ public class LocationResource1_8 extends MetadataDelegatingCrudResource<Location
 	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#doGetAll(org.openmrs.module.webservices.rest.web.RequestContext)
 	 */
 	@Override
-	protected NeedsPaging<Location> doGetAll(RequestContext context) {
-		return new NeedsPaging<Location>(Context.getLocationService().getAllLocations(context.getIncludeAll()), context);
+	protected PageableResult doGetAll(RequestContext context) {
+		CriteriaPaged<Location> locations = new CriteriaPaged<Location>(context, Location.class, RestUtil
+		        .getViewPrivilege("Locations"));
+		if (!context.getIncludeAll()) {
+			locations.add(Restrictions.eq("retired", false));
+		}
+		// the same order as LocationService.getAllLocations
+		return locations.addOrder(Order.asc("name")).addOrder(Order.asc("locationId"));
 	}
 	
 	/**
@@ -40,6 +40,14 @@ public class LocationTagResource1_8 extends MetadataDelegatingCrudResource<Locat
 		return service().getLocationTagByUuid(uniqueId);
 	}
 	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#getVersionToken(java.lang.Object)
+	 */
+	@Override
+	protected String getVersionToken(LocationTag delegate) {
+		return getAuditVersionToken(delegate);
+	}
+	
 	/**
 	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#doGetAll(org.openmrs.module.webservices.rest.web.RequestContext)
 	 */
@@ -18,6 +18,8 @@ import java.util.List;
 import java.util.Set;
 
 import org.apache.commons.lang.StringUtils;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Restrictions;
 import org.openmrs.Concept;
 import org.openmrs.ConceptNumeric;
 import org.openmrs.Encounter;
@@ -29,14 +31,20 @@ import org.openmrs.api.context.Context;
 import org.openmrs.module.webservices.rest.web.ConversionUtil;
 import org.openmrs.module.webservices.rest.web.RequestContext;
 import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest.web.RestUtil;
 import org.openmrs.module.webservices.rest.web.annotation.PropertyGetter;
 import org.openmrs.module.webservices.rest.web.annotation.PropertySetter;
 import org.openmrs.module.webservices.rest.web.annotation.Resource;
+import org.openmrs.module.webservices.rest.web.api.RestHelperService;
+import org.openmrs.module.webservices.rest.web.api.RestHelperService.Field;
 import org.openmrs.module.webservices.rest.web.api.RestService;
 import org.openmrs.module.webservices.rest.web.representation.DefaultRepresentation;
 import org.openmrs.module.webservices.rest.web.representation.FullRepresentation;
 import org.openmrs.module.webservices.rest.web.representation.Representation;
+import org.openmrs.module.webservices.rest.web.resource.api.Exportable;
 import org.openmrs.module.webservices.rest.web.resource.api.PageableResult;
+import org.openmrs.module.webservices.rest.web.resource.impl.CursorPaged;
+import org.openmrs.module.webservices.rest.web.resource.impl.CriteriaPaged;
 import org.openmrs.module.webservices.rest.web.resource.impl.DataDelegatingCrudResource;
 import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingResourceDescription;
 import org.openmrs.module.webservices.rest.web.resource.impl.EmptySearchResult;
@@ -49,7 +57,7 @@ import org.openmrs.module.webservices.rest.web.response.ResponseException;
  * {@link Resource} for Obs, supporting standard CRUD operations
  */
 @Resource(name = RestConstants.VERSION_1 + "/obs", order = 2, supportedClass = Obs.class, supportedOpenmrsVersions = { "1.8.*" })
-public class ObsResource1_8 extends DataDelegatingCrudResource<Obs> {
+public class ObsResource1_8 extends DataDelegatingCrudResource<Obs> implements Exportable {
 	
 	/**
 	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#delete(java.lang.Object,
@@ -176,6 +184,16 @@ public class ObsResource1_8 extends DataDelegatingCrudResource<Obs> {
 		return Context.getObsService().getObs(savedObs.getId());
 	}
 	
+	/**
+	 * Skips the reload done by {@link #save(Obs)}
+	 * 
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DataDelegatingCrudResource#saveInBulk(org.openmrs.OpenmrsData)
+	 */
+	@Override
+	protected Obs saveInBulk(Obs delegate) {
+		return Context.getObsService().saveObs(delegate, "REST web service");
+	}
+	
 	/**
 	 * Display string for Obs
 	 * 
@@ -380,8 +398,16 @@ public class ObsResource1_8 extends DataDelegatingCrudResource<Obs> {
 			    Patient.class)).getByUniqueId(patientUuid);
 			if (patient == null)
 				return new EmptySearchResult();
-			List<Obs> obs = Context.getObsService().getObservationsByPerson(patient);
-			return new NeedsPaging<Obs>(obs, context);
+			if (context.getCursor() != null) {
+				RestUtil.requirePrivilege(RestUtil.getViewPrivilege("Observations"));
+				List<Obs> page = Context.getService(RestHelperService.class).getObjectsAfterId(Obs.class, "obsId",
+				    CursorPaged.getLastId(context), context.getLimit() + 1, new Field("person", patient),
+				    new Field("voided", false));
+				return new CursorPaged<Obs>(context, page);
+			}
+			return new CriteriaPaged<Obs>(context, Obs.class, RestUtil.getViewPrivilege("Observations"))
+			        .add(Restrictions.eq("person", patient)).add(Restrictions.eq("voided", false))
+			        .addOrder(Order.desc("obsDatetime")).addOrder(Order.desc("obsId"));
 		}
 		
 		String encounterUuid = context.getRequest().getParameter("encounter");
@@ -397,4 +423,29 @@ public class ObsResource1_8 extends DataDelegatingCrudResource<Obs> {
 		return new NeedsPaging<Obs>(Context.getObsService().getObservations(context.getParameter("q")), context);
 	}
 	
+	/**
+	 * Exports the obs that are not voided, optionally only those of a patient or cohort, of a
+	 * concept and with an obsDatetime from fromdate to todate
+	 * 
+	 * @see org.openmrs.module.webservices.rest.web.resource.api.Exportable#getExportQuery(org.openmrs.module.webservices.rest.web.RequestContext)
+	 */
+	@Override
+	public CriteriaPaged<Obs> getExportQuery(RequestContext context) throws ResponseException {
+		CriteriaPaged<Obs> query = new CriteriaPaged<Obs>(context, Obs.class, RestUtil.getViewPrivilege("Observations"))
+		        .add(Restrictions.eq("voided", false));
+		ExportRestrictions.addPatientRestrictions(query, "person", context);
+		ExportRestrictions.addDateRestrictions(query, "obsDatetime", context);
+		
+		String conceptUuid = context.getParameter("concept");
+		if (conceptUuid != null) {
+			Concept concept = ((ConceptResource1_8) Context.getService(RestService.class).getResourceBySupportedClass(
+			    Concept.class)).getByUniqueId(conceptUuid);
+			if (concept == null) {
+				throw new ObjectNotFoundException();
+			}
+			query.add(Restrictions.eq("concept.id", concept.getId()));
+		}
+		return query;
+	}
+	
 }
@@ -121,6 +121,14 @@ public class PatientIdentifierTypeResource1_8 extends MetadataDelegatingCrudReso
 		return type;
 	}
 	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#getVersionToken(java.lang.Object)
+	 */
+	@Override
+	protected String getVersionToken(PatientIdentifierType delegate) {
+		return getAuditVersionToken(delegate);
+	}
+	
 	/**
 	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#doGetAll(org.openmrs.module.webservices.rest.web.RequestContext)
 	 */
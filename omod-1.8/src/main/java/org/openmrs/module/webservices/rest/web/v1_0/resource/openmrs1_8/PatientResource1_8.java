@@ -168,12 +168,21 @@ public class PatientResource1_8 extends DataDelegatingCrudResource<Patient> {
 	 */
 	@Override
 	public Object create(SimpleObject propertiesToCreate, RequestContext context) throws ResponseException {
-		Patient delegate = getPatient(propertiesToCreate);
-		ValidateUtil.validate(delegate);
+		Patient delegate = newValidatedDelegate(propertiesToCreate);
 		delegate = save(delegate);
 		return ConversionUtil.convertToRepresentation(delegate, Representation.DEFAULT);
 	}
 	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#newValidatedDelegate(org.openmrs.module.webservices.rest.SimpleObject)
+	 */
+	@Override
+	protected Patient newValidatedDelegate(SimpleObject propertiesToCreate) throws ResponseException {
+		Patient delegate = getPatient(propertiesToCreate);
+		ValidateUtil.validate(delegate);
+		return delegate;
+	}
+	
 	public Patient getPatient(SimpleObject propertiesToCreate) {
 		Object personProperty = propertiesToCreate.get("person");
 		Person person = null;
@@ -114,6 +114,14 @@ public class PersonAttributeTypeResource1_8 extends MetadataDelegatingCrudResour
 		return service().getPersonAttributeTypeByUuid(uniqueId);
 	}
 	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.MetadataDelegatingCrudResource#isRepresentationCached()
+	 */
+	@Override
+	protected boolean isRepresentationCached() {
+		return true;
+	}
+	
 	/**
 	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#doGetAll(org.openmrs.module.webservices.rest.web.RequestContext)
 	 */
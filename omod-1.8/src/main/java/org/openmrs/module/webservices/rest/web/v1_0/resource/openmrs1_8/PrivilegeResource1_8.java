@@ -41,6 +41,14 @@ public class PrivilegeResource1_8 extends MetadataDelegatingCrudResource<Privile
 		return privilege;
 	}
 	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.MetadataDelegatingCrudResource#isRepresentationCached()
+	 */
+	@Override
+	protected boolean isRepresentationCached() {
+		return true;
+	}
+	
 	/**
 	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#newDelegate()
 	 */
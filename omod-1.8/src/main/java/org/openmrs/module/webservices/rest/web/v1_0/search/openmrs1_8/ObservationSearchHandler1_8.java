@@ -12,19 +12,22 @@ package org.openmrs.module.webservices.rest.web.v1_0.search.openmrs1_8;
 import java.util.Arrays;
 import java.util.List;
 
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Restrictions;
 import org.openmrs.Concept;
 import org.openmrs.Obs;
 import org.openmrs.Patient;
 import org.openmrs.api.context.Context;
 import org.openmrs.module.webservices.rest.web.RequestContext;
 import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest.web.RestUtil;
 import org.openmrs.module.webservices.rest.web.api.RestService;
 import org.openmrs.module.webservices.rest.web.resource.api.PageableResult;
 import org.openmrs.module.webservices.rest.web.resource.api.SearchConfig;
 import org.openmrs.module.webservices.rest.web.resource.api.SearchHandler;
 import org.openmrs.module.webservices.rest.web.resource.api.SearchQuery;
+import org.openmrs.module.webservices.rest.web.resource.impl.CriteriaPaged;
 import org.openmrs.module.webservices.rest.web.resource.impl.EmptySearchResult;
-import org.openmrs.module.webservices.rest.web.resource.impl.NeedsPaging;
 import org.openmrs.module.webservices.rest.web.response.ResponseException;
 import org.openmrs.module.webservices.rest.web.v1_0.resource.openmrs1_8.ConceptResource1_8;
 import org.openmrs.module.webservices.rest.web.v1_0.resource.openmrs1_8.PatientResource1_8;
@@ -65,8 +68,12 @@ public class ObservationSearchHandler1_8 implements SearchHandler {
 					Concept concept = ((ConceptResource1_8) Context.getService(RestService.class)
 					        .getResourceBySupportedClass(Concept.class)).getByUniqueId(conceptUuid);
 					
-					List<Obs> obs = Context.getObsService().getObservationsByPersonAndConcept(patient, concept);
-					return new NeedsPaging<Obs>(obs, context);
+					if (concept != null) {
+						return new CriteriaPaged<Obs>(context, Obs.class, RestUtil.getViewPrivilege("Observations"))
+						        .add(Restrictions.eq("person", patient)).add(Restrictions.eq("concept", concept))
+						        .add(Restrictions.eq("voided", false)).addOrder(Order.desc("obsDatetime"))
+						        .addOrder(Order.desc("obsId"));
+					}
 				}
 				
 			}
@@ -0,0 +1,60 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.openmrs.module.webservices.rest.web.annotation.ResourceIndexProcessor;
+import org.openmrs.module.webservices.rest.web.resource.api.Resource;
+import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingSubclassHandler;
+import org.openmrs.module.webservices.rest.web.v1_0.resource.openmrs1_8.DrugOrderSubclassHandler1_8;
+import org.openmrs.module.webservices.rest.web.v1_0.resource.openmrs1_8.EncounterTypeResource1_8;
+import org.openmrs.util.OpenmrsClassLoader;
+import org.openmrs.web.test.BaseModuleWebContextSensitiveTest;
+
+/**
+ * Tests {@link OpenmrsClassScanner} against the classes of this project, whose resources are
+ * indexed by the {@link ResourceIndexProcessor} when they are compiled.
+ */
+public class OpenmrsClassScannerTest extends BaseModuleWebContextSensitiveTest {
+	
+	/**
+	 * @see OpenmrsClassScanner#getClasses(Class,boolean)
+	 * @verifies load the classes listed in an index
+	 */
+	@Test
+	public void getClasses_shouldLoadTheClassesListedInAnIndex() throws Exception {
+		assertNotNull(OpenmrsClassLoader.getInstance().getResource(ResourceIndexProcessor.RESOURCE_INDEX));
+		
+		List<Class<? extends Resource>> resources = OpenmrsClassScanner.getInstance().getClasses(Resource.class, true);
+		
+		assertTrue(resources.contains(EncounterTypeResource1_8.class));
+		for (Class<? extends Resource> resource : resources) {
+			assertFalse(resource.isInterface());
+		}
+	}
+	
+	/**
+	 * @see OpenmrsClassScanner#getClasses(Class,boolean)
+	 * @verifies scan classpath roots without an index
+	 */
+	@Test
+	public void getClasses_shouldScanClasspathRootsWithoutAnIndex() throws Exception {
+		List<Class<? extends DelegatingSubclassHandler>> handlers = OpenmrsClassScanner.getInstance().getClasses(
+		    DelegatingSubclassHandler.class, true);
+		
+		assertTrue(handlers.contains(DrugOrderSubclassHandler1_8.class));
+	}
+}
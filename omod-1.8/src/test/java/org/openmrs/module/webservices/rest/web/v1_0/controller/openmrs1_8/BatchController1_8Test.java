@@ -0,0 +1,170 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web.v1_0.controller.openmrs1_8;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.beanutils.PropertyUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.api.EncounterService;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.web.RestTestConstants1_8;
+import org.openmrs.module.webservices.rest.web.v1_0.controller.BatchController;
+import org.openmrs.web.test.BaseModuleWebContextSensitiveTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Tests functionality of {@link BatchController}.
+ */
+public class BatchController1_8Test extends BaseModuleWebContextSensitiveTest {
+	
+	private static final String ENCOUNTER_TYPE_UUID = "02c533ab-b74b-4ee4-b6e5-ffb6d09a0ac8";
+	
+	@Autowired
+	private BatchController controller;
+	
+	private EncounterService service;
+	
+	private MockHttpServletResponse response;
+	
+	@Before
+	public void before() {
+		service = Context.getEncounterService();
+		response = new MockHttpServletResponse();
+	}
+	
+	/**
+	 * @see BatchController#execute(SimpleObject,javax.servlet.http.HttpServletRequest,javax.servlet.http.HttpServletResponse)
+	 * @verifies execute the operations in order
+	 */
+	@Test
+	public void execute_shouldExecuteTheOperationsInOrder() throws Exception {
+		int before = service.getAllEncounterTypes().size();
+		SimpleObject batch = batch(false, createEncounterType("batch type"),
+		    operation("POST", ENCOUNTER_TYPE_UUID, new SimpleObject().add("description", "updated in a batch")),
+		    operation("GET", ENCOUNTER_TYPE_UUID, null));
+		
+		List<SimpleObject> results = execute(batch);
+		
+		assertEquals(3, results.size());
+		assertEquals(201, results.get(0).get("status"));
+		assertNotNull(PropertyUtils.getProperty(results.get(0).get("body"), "uuid"));
+		assertEquals(200, results.get(1).get("status"));
+		assertEquals("updated in a batch", PropertyUtils.getProperty(results.get(2).get("body"), "description"));
+		assertEquals(before + 1, service.getAllEncounterTypes().size());
+		assertEquals(200, response.getStatus());
+	}
+	
+	/**
+	 * @see BatchController#execute(SimpleObject,javax.servlet.http.HttpServletRequest,javax.servlet.http.HttpServletResponse)
+	 * @verifies roll back all operations of an atomic batch if one fails
+	 */
+	@Test
+	public void execute_shouldRollBackAllOperationsOfAnAtomicBatchIfOneFails() throws Exception {
+		SimpleObject batch = batch(true, createEncounterType("batch type"), operation("GET", "does-not-exist", null),
+		    createEncounterType("another batch type"));
+		
+		SimpleObject result = controller.execute(batch, new MockHttpServletRequest(), response);
+		List<SimpleObject> results = getResults(result);
+		
+		assertEquals(false, result.get("committed"));
+		assertEquals(201, results.get(0).get("status"));
+		assertEquals(404, results.get(1).get("status"));
+		assertNotNull(results.get(1).get("error"));
+		assertEquals(true, results.get(2).get("skipped"));
+		assertEquals(404, response.getStatus());
+	}
+	
+	/**
+	 * @see BatchController#execute(SimpleObject,javax.servlet.http.HttpServletRequest,javax.servlet.http.HttpServletResponse)
+	 * @verifies commit the other operations of a non atomic batch if one fails
+	 */
+	@Test
+	public void execute_shouldCommitTheOtherOperationsOfANonAtomicBatchIfOneFails() throws Exception {
+		SimpleObject batch = batch(false, operation("GET", "does-not-exist", null), createEncounterType("batch type"));
+		
+		List<SimpleObject> results = execute(batch);
+		
+		assertEquals(404, results.get(0).get("status"));
+		assertEquals(201, results.get(1).get("status"));
+		assertNotNull(service.getEncounterType("batch type"));
+		assertEquals(200, response.getStatus());
+	}
+	
+	/**
+	 * @see BatchController#execute(SimpleObject,javax.servlet.http.HttpServletRequest,javax.servlet.http.HttpServletResponse)
+	 * @verifies fail for an unsupported method
+	 */
+	@Test
+	public void execute_shouldFailForAnUnsupportedMethod() throws Exception {
+		List<SimpleObject> results = execute(batch(false, operation("PATCH", ENCOUNTER_TYPE_UUID, null)));
+		
+		assertEquals(400, results.get(0).get("status"));
+	}
+	
+	/**
+	 * @see BatchController#execute(SimpleObject,javax.servlet.http.HttpServletRequest,javax.servlet.http.HttpServletResponse)
+	 * @verifies fail the operation that violates a database constraint
+	 */
+	@Test
+	public void execute_shouldFailTheOperationThatViolatesADatabaseConstraint() throws Exception {
+		// the encounter type is still referenced by encounters, so only the database rejects purging it
+		SimpleObject purge = operation("DELETE", RestTestConstants1_8.ENCOUNTER_TYPE_UUID, null).add("purge", true);
+		
+		List<SimpleObject> results = execute(batch(false, purge, createEncounterType("batch type")));
+		
+		assertEquals(500, results.get(0).get("status"));
+		assertNotNull(results.get(0).get("error"));
+		assertEquals(201, results.get(1).get("status"));
+		assertNotNull(service.getEncounterTypeByUuid(RestTestConstants1_8.ENCOUNTER_TYPE_UUID));
+		assertNotNull(service.getEncounterType("batch type"));
+		assertEquals(200, response.getStatus());
+	}
+	
+	private List<SimpleObject> execute(SimpleObject batch) throws Exception {
+		return getResults(controller.execute(batch, new MockHttpServletRequest(), response));
+	}
+	
+	@SuppressWarnings("unchecked")
+	private List<SimpleObject> getResults(SimpleObject result) {
+		return (List<SimpleObject>) result.get("results");
+	}
+	
+	private SimpleObject batch(boolean atomic, SimpleObject... operations) {
+		List<SimpleObject> list = new ArrayList<SimpleObject>();
+		for (SimpleObject operation : operations) {
+			list.add(operation);
+		}
+		return new SimpleObject().add("atomic", atomic).add("operations", list);
+	}
+	
+	private SimpleObject createEncounterType(String name) {
+		return operation("POST", null, new SimpleObject().add("name", name).add("description", "created in a batch"));
+	}
+	
+	private SimpleObject operation(String method, String uuid, SimpleObject body) {
+		SimpleObject operation = new SimpleObject().add("method", method).add("resource", "encountertype");
+		if (uuid != null) {
+			operation.add("uuid", uuid);
+		}
+		if (body != null) {
+			operation.add("body", body);
+		}
+		return operation;
+	}
+}
@@ -13,6 +13,8 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 
+import java.util.Arrays;
+
 import org.apache.commons.beanutils.PropertyUtils;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.junit.Before;
@@ -24,6 +26,7 @@ import org.openmrs.module.webservices.rest.SimpleObject;
 import org.openmrs.module.webservices.rest.test.Util;
 import org.openmrs.module.webservices.rest.web.RestConstants;
 import org.openmrs.module.webservices.rest.web.RestTestConstants1_8;
+import org.openmrs.module.webservices.rest.web.response.ResourceDoesNotSupportOperationException;
 import org.openmrs.module.webservices.rest.web.v1_0.controller.MainResourceControllerTest;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.web.bind.annotation.RequestMethod;
@@ -105,6 +108,19 @@ public class EncounterTypeController1_8Test extends MainResourceControllerTest {
 		assertEquals(originalCount + 1, getAllCount());
 	}
 	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.v1_0.controller.MainResourceController#create(String,Object,javax.servlet.http.HttpServletRequest,javax.servlet.http.HttpServletResponse)
+	 * @verifies fail to create an array for a resource that is not bulk creatable
+	 */
+	@Test(expected = ResourceDoesNotSupportOperationException.class)
+	public void create_shouldFailToCreateAnArrayForAResourceThatIsNotBulkCreatable() throws Exception {
+		SimpleObject encounterType = new SimpleObject();
+		encounterType.add("name", "test name");
+		encounterType.add("description", "test description");
+		
+		handle(newPostRequest(getURI(), Arrays.asList(encounterType)));
+	}
+	
 	@Test
 	public void shouldEditingAnEncounterType() throws Exception {
 		final String newName = "updated name";
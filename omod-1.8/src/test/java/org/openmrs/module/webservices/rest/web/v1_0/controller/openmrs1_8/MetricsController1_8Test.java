@@ -0,0 +1,134 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web.v1_0.controller.openmrs1_8;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.commons.beanutils.PropertyUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.api.APIAuthenticationException;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.web.metrics.PrometheusFormat;
+import org.openmrs.module.webservices.rest.web.metrics.RestMetrics;
+import org.openmrs.module.webservices.rest.web.metrics.RestOperation;
+import org.openmrs.module.webservices.rest.web.representation.Representation;
+import org.openmrs.module.webservices.rest.web.resource.impl.RepresentationCache;
+import org.openmrs.module.webservices.rest.web.v1_0.controller.MetricsController;
+import org.openmrs.web.test.BaseModuleWebContextSensitiveTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Tests functionality of {@link MetricsController}.
+ */
+public class MetricsController1_8Test extends BaseModuleWebContextSensitiveTest {
+	
+	@Autowired
+	private MetricsController controller;
+	
+	@Before
+	public void before() {
+		RestMetrics.clear();
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		RestMetrics.label(request, "v1/encountertype", RestOperation.RETRIEVE, Representation.DEFAULT);
+		RestMetrics.results(request, new SimpleObject());
+		RestMetrics.record(request, 3000000, -1, false);
+	}
+	
+	@After
+	public void after() {
+		RestMetrics.clear();
+	}
+	
+	/**
+	 * @see MetricsController#getMetrics()
+	 * @verifies return the metrics of all operations
+	 */
+	@Test
+	@SuppressWarnings("unchecked")
+	public void getMetrics_shouldReturnTheMetricsOfAllOperations() throws Exception {
+		List<SimpleObject> results = (List<SimpleObject>) controller.getMetrics().get("results");
+		
+		assertEquals(1, results.size());
+		assertEquals("v1/encountertype", results.get(0).get("resource"));
+		assertEquals("retrieve", results.get(0).get("operation"));
+		assertEquals("default", results.get(0).get("representation"));
+		assertEquals(1L, results.get(0).get("count"));
+		assertEquals(3.0, (Double) PropertyUtils.getProperty(results.get(0).get("latencyMillis"), "max"), 0.2);
+	}
+	
+	/**
+	 * @see MetricsController#getMetrics()
+	 * @verifies return the counters of the representation cache
+	 */
+	@Test
+	public void getMetrics_shouldReturnTheCountersOfTheRepresentationCache() throws Exception {
+		RepresentationCache.clear();
+		String key = RepresentationCache.getKey(getClass(), "uuid", Representation.DEFAULT, Locale.ENGLISH);
+		RepresentationCache.put(key, "v1", new SimpleObject());
+		long hits = RepresentationCache.getHitCount();
+		long misses = RepresentationCache.getMissCount();
+		RepresentationCache.get(key, "v1");
+		RepresentationCache.get(key, "v2");
+		
+		SimpleObject representationCache = controller.getMetrics().get("representationCache");
+		
+		assertEquals(Long.valueOf(hits + 1), representationCache.<Long> get("hits"));
+		assertEquals(Long.valueOf(misses + 1), representationCache.<Long> get("misses"));
+		assertEquals(Integer.valueOf(RepresentationCache.size()), representationCache.<Integer> get("size"));
+		RepresentationCache.clear();
+	}
+	
+	/**
+	 * @see MetricsController#getMetrics()
+	 * @verifies fail if the user does not have the view privilege
+	 */
+	@Test(expected = APIAuthenticationException.class)
+	public void getMetrics_shouldFailIfTheUserDoesNotHaveTheViewPrivilege() throws Exception {
+		Context.logout();
+		controller.getMetrics();
+	}
+	
+	/**
+	 * @see MetricsController#getPrometheusMetrics(javax.servlet.http.HttpServletResponse)
+	 * @verifies write the metrics in the prometheus text format
+	 */
+	@Test
+	public void getPrometheusMetrics_shouldWriteTheMetricsInThePrometheusTextFormat() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		controller.getPrometheusMetrics(response);
+		
+		assertEquals(PrometheusFormat.CONTENT_TYPE, response.getContentType());
+		assertTrue(response.getContentAsString().contains(
+		    "openmrs_rest_request_duration_seconds_count{resource=\"v1/encountertype\",operation=\"retrieve\","
+		            + "representation=\"default\"} 1\n"));
+	}
+	
+	/**
+	 * @see MetricsController#clearMetrics(javax.servlet.http.HttpServletResponse)
+	 * @verifies forget all metrics
+	 */
+	@Test
+	public void clearMetrics_shouldForgetAllMetrics() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		controller.clearMetrics(response);
+		
+		assertEquals(204, response.getStatus());
+		assertTrue(RestMetrics.getAll().isEmpty());
+	}
+}
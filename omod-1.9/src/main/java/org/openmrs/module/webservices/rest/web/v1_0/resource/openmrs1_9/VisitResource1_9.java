@@ -9,6 +9,8 @@
  */
 package org.openmrs.module.webservices.rest.web.v1_0.resource.openmrs1_9;
 
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Restrictions;
 import org.openmrs.Patient;
 import org.openmrs.Visit;
 import org.openmrs.VisitAttribute;
@@ -16,6 +18,7 @@ import org.openmrs.api.context.Context;
 import org.openmrs.module.webservices.rest.SimpleObject;
 import org.openmrs.module.webservices.rest.web.RequestContext;
 import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest.web.RestUtil;
 import org.openmrs.module.webservices.rest.web.annotation.PropertyGetter;
 import org.openmrs.module.webservices.rest.web.annotation.PropertySetter;
 import org.openmrs.module.webservices.rest.web.annotation.Resource;
@@ -23,6 +26,8 @@ import org.openmrs.module.webservices.rest.web.api.RestService;
 import org.openmrs.module.webservices.rest.web.representation.DefaultRepresentation;
 import org.openmrs.module.webservices.rest.web.representation.FullRepresentation;
 import org.openmrs.module.webservices.rest.web.representation.Representation;
+import org.openmrs.module.webservices.rest.web.resource.api.PageableResult;
+import org.openmrs.module.webservices.rest.web.resource.impl.CriteriaPaged;
 import org.openmrs.module.webservices.rest.web.resource.impl.DataDelegatingCrudResource;
 import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource;
 import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingResourceDescription;
@@ -144,14 +149,17 @@ public class VisitResource1_9 extends DataDelegatingCrudResource<Visit> {
 		return new Visit();
 	}
 	
+	/**
+	 * @see DelegatingCrudResource#newValidatedDelegate(SimpleObject)
+	 */
 	@Override
-	public Object create(SimpleObject propertiesToCreate, RequestContext context) throws ResponseException {
+	protected Visit newValidatedDelegate(SimpleObject propertiesToCreate) throws ResponseException {
 		// RESTWS-488: set startDatetime if not provided
 		if (propertiesToCreate.get("startDatetime") == null) {
 			propertiesToCreate.add("startDatetime", new Date());
 		}
-		return super.create(propertiesToCreate, context);
-	};
+		return super.newValidatedDelegate(propertiesToCreate);
+	}
 	
 	/**
 	 * @see DelegatingCrudResource#save(java.lang.Object)
@@ -244,8 +252,13 @@ public class VisitResource1_9 extends DataDelegatingCrudResource<Visit> {
 	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#doGetAll(org.openmrs.module.webservices.rest.web.RequestContext)
 	 */
 	@Override
-	protected NeedsPaging<Visit> doGetAll(RequestContext context) {
-		return new NeedsPaging<Visit>(Context.getVisitService().getAllVisits(), context);
+	protected PageableResult doGetAll(RequestContext context) {
+		CriteriaPaged<Visit> visits = new CriteriaPaged<Visit>(context, Visit.class, RestUtil.getViewPrivilege("Visits"));
+		if (!context.getIncludeAll()) {
+			visits.add(Restrictions.eq("voided", false));
+		}
+		// the same order as VisitService.getAllVisits
+		return visits.addOrder(Order.desc("startDatetime")).addOrder(Order.desc("visitId"));
 	}
 	
 	private Patient getPatient(String patientUniqueId) {
@@ -80,6 +80,14 @@ public class VisitTypeResource1_9 extends MetadataDelegatingCrudResource<VisitTy
 		return visitType;
 	}
 	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#getVersionToken(java.lang.Object)
+	 */
+	@Override
+	protected String getVersionToken(VisitType delegate) {
+		return getAuditVersionToken(delegate);
+	}
+	
 	/**
 	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#purge(java.lang.Object,
 	 *      org.openmrs.module.webservices.rest.web.RequestContext)
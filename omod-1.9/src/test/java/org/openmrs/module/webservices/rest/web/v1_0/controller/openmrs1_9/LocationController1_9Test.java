@@ -11,6 +11,7 @@ package org.openmrs.module.webservices.rest.web.v1_0.controller.openmrs1_9;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import org.apache.commons.beanutils.PropertyUtils;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.junit.Assert;
@@ -104,6 +105,58 @@ public class LocationController1_9Test extends MainResourceControllerTest {
 		
 	}
 	
+	@Test
+	public void shouldListAllLocationsInTheRefRepresentation() throws Exception {
+		Location retired = service.getLocation(2);
+		service.retireLocation(retired, "test");
+		
+		MockHttpServletRequest req = request(RequestMethod.GET, getURI());
+		req.addParameter(RestConstants.REQUEST_PROPERTY_FOR_REPRESENTATION, RestConstants.REPRESENTATION_REF);
+		req.addParameter(RestConstants.REQUEST_PROPERTY_FOR_INCLUDE_ALL, "true");
+		List<Object> hits = Util.getResultsList(deserialize(handle(req)));
+		
+		List<Location> locations = service.getAllLocations(true);
+		assertThat(hits.size(), is(locations.size()));
+		for (int i = 0; i < locations.size(); i++) {
+			Location location = locations.get(i);
+			Map<?, ?> hit = (Map<?, ?>) hits.get(i);
+			assertThat(hit.get("uuid"), is((Object) location.getUuid()));
+			assertThat(hit.get("display"), is((Object) location.getName()));
+			assertThat(hit.get("retired"), is(location.isRetired() ? (Object) true : null));
+			String uri = (String) Util.getByPath(hit, "links[0]/uri");
+			Assert.assertTrue(uri.endsWith("/" + RestConstants.VERSION_1 + "/location/" + location.getUuid()));
+		}
+		assertThat(((Map<?, ?>) hits.get(locations.indexOf(retired))).get("retired"), is((Object) true));
+	}
+	
+	@Test
+	public void shouldLinkToTheNextPageOfLocationsInTheRefRepresentation() throws Exception {
+		MockHttpServletRequest req = request(RequestMethod.GET, getURI());
+		req.addParameter(RestConstants.REQUEST_PROPERTY_FOR_REPRESENTATION, RestConstants.REPRESENTATION_REF);
+		req.addParameter(RestConstants.REQUEST_PROPERTY_FOR_LIMIT, "1");
+		SimpleObject result = deserialize(handle(req));
+		
+		assertThat(Util.getResultsSize(result), is(1));
+		assertThat((String) Util.getByPath(result, "links[0]/rel"), is("next"));
+	}
+	
+	@Test
+	public void shouldListAllLocationsInACustomRepresentationOfTheirColumns() throws Exception {
+		MockHttpServletRequest req = request(RequestMethod.GET, getURI());
+		req.addParameter(RestConstants.REQUEST_PROPERTY_FOR_REPRESENTATION, "custom:(uuid,name,description)");
+		List<Object> hits = Util.getResultsList(deserialize(handle(req)));
+		
+		List<Location> locations = service.getAllLocations(false);
+		assertThat(hits.size(), is(locations.size()));
+		for (int i = 0; i < locations.size(); i++) {
+			Map<?, ?> hit = (Map<?, ?>) hits.get(i);
+			assertThat(hit.get("uuid"), is((Object) locations.get(i).getUuid()));
+			assertThat(hit.get("name"), is((Object) locations.get(i).getName()));
+			assertThat(hit.get("description"), is((Object) locations.get(i).getDescription()));
+			assertThat(hit.size(), is(3));
+		}
+	}
+	
 	@Test
 	public void shouldCreateALocation() throws Exception {
 		long originalCount = getAllCount();
@@ -9,16 +9,29 @@
  */
 package org.openmrs.module.webservices.rest.web.v1_0.controller.openmrs1_9;
 
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.servlet.http.HttpServletResponse;
+
 import org.apache.commons.beanutils.PropertyUtils;
+import org.codehaus.jackson.map.ObjectMapper;
 import org.junit.Assert;
 import org.junit.Test;
 import org.openmrs.GlobalProperty;
+import org.openmrs.Obs;
+import org.openmrs.Patient;
 import org.openmrs.api.AdministrationService;
 import org.openmrs.api.context.Context;
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.test.Util;
+import org.openmrs.module.webservices.rest.web.RestConstants;
 import org.openmrs.module.webservices.rest.web.RestTestConstants1_8;
 import org.openmrs.module.webservices.rest.web.response.ResourceDoesNotSupportOperationException;
 import org.openmrs.module.webservices.rest.web.v1_0.controller.MainResourceControllerTest;
 import org.openmrs.util.OpenmrsConstants;
+import org.springframework.mock.web.MockHttpServletResponse;
 
 /**
  * Created by tomasz on 27.04.15.
@@ -34,6 +47,92 @@ public class ObsController1_9Test extends MainResourceControllerTest {
 		Assert.assertNotNull(PropertyUtils.getProperty(newObs, "concept"));
 	}
 	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.v1_0.controller.MainResourceController#create(String,Object,javax.servlet.http.HttpServletRequest,javax.servlet.http.HttpServletResponse)
+	 * @verifies create all posted objects in one transaction
+	 */
+	@Test
+	public void create_shouldCreateAllPostedObjectsInOneTransaction() throws Exception {
+		long before = getAllCount();
+		String obs = "{ \"value\":\"%s\", \"person\":\"" + RestTestConstants1_8.PERSON_UUID
+		        + "\", \"concept\":\"SNOMED CT:2332523\", \"obsDatetime\":\"2013-12-09T00:00:00.000+0100\"}";
+		String json = "[" + String.format(obs, 10.0) + "," + String.format(obs, 20.0) + "," + String.format(obs, 30.0)
+		        + "]";
+		
+		MockHttpServletResponse response = handle(newPostRequest(getURI(), json));
+		List<Object> results = Util.getResultsList(deserialize(response));
+		
+		Assert.assertEquals(HttpServletResponse.SC_CREATED, response.getStatus());
+		Assert.assertEquals(3, results.size());
+		Assert.assertNotNull(PropertyUtils.getProperty(results.get(0), "uuid"));
+		Assert.assertEquals(before + 3, getAllCount());
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.v1_0.controller.MainResourceController#create(String,Object,javax.servlet.http.HttpServletRequest,javax.servlet.http.HttpServletResponse)
+	 * @verifies create none of the posted objects if one of them is invalid
+	 */
+	@Test
+	public void create_shouldCreateNoneOfThePostedObjectsIfOneOfThemIsInvalid() throws Exception {
+		long before = getAllCount();
+		String obs = "{ \"value\":\"%s\", \"person\":\"" + RestTestConstants1_8.PERSON_UUID
+		        + "\", \"concept\":\"SNOMED CT:2332523\", \"obsDatetime\":\"2013-12-09T00:00:00.000+0100\"}";
+		String withoutObsDatetime = "{ \"value\":\"30.0\", \"person\":\"" + RestTestConstants1_8.PERSON_UUID
+		        + "\", \"concept\":\"SNOMED CT:2332523\"}";
+		String json = "[" + String.format(obs, 10.0) + "," + String.format(obs, 20.0) + "," + withoutObsDatetime + "]";
+		
+		try {
+			handle(newPostRequest(getURI(), json));
+			Assert.fail("an obs without obsDatetime must not be created");
+		}
+		catch (Exception e) {
+			// expected, the valid obs before it must not have been saved either
+		}
+		Assert.assertEquals(before, getAllCount());
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.v1_0.controller.MainResourceController#export(String,javax.servlet.http.HttpServletRequest,javax.servlet.http.HttpServletResponse)
+	 * @verifies write one object per line
+	 */
+	@Test
+	public void export_shouldWriteOneObjectPerLine() throws Exception {
+		Patient patient = Context.getPatientService().getPatientByUuid(RestTestConstants1_8.PATIENT_UUID);
+		Set<String> expected = new HashSet<String>();
+		for (Obs obs : Context.getObsService().getObservationsByPerson(patient)) {
+			expected.add(obs.getUuid());
+		}
+		
+		int batchSize = RestConstants.EXPORT_BATCH_SIZE;
+		RestConstants.EXPORT_BATCH_SIZE = 2;
+		try {
+			MockHttpServletResponse response = handle(newGetRequest(getURI() + "/export", new Parameter("patient",
+			        RestTestConstants1_8.PATIENT_UUID)));
+			
+			Assert.assertTrue(response.getContentType().startsWith(RestConstants.NDJSON_CONTENT_TYPE));
+			Set<String> exported = new HashSet<String>();
+			String[] lines = response.getContentAsString().split("\n");
+			for (String line : lines) {
+				exported.add((String) new ObjectMapper().readValue(line, SimpleObject.class).get("uuid"));
+			}
+			Assert.assertTrue(expected.size() > 2);
+			Assert.assertEquals(expected.size(), lines.length);
+			Assert.assertEquals(expected, exported);
+		}
+		finally {
+			RestConstants.EXPORT_BATCH_SIZE = batchSize;
+		}
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.v1_0.controller.MainResourceController#export(String,javax.servlet.http.HttpServletRequest,javax.servlet.http.HttpServletResponse)
+	 * @verifies fail for a resource that is not exportable
+	 */
+	@Test(expected = ResourceDoesNotSupportOperationException.class)
+	public void export_shouldFailForAResourceThatIsNotExportable() throws Exception {
+		handle(newGetRequest("location/export"));
+	}
+	
 	/**
 	 * @see org.openmrs.module.webservices.rest.web.v1_0.controller.MainResourceControllerTest#getURI()
 	 */
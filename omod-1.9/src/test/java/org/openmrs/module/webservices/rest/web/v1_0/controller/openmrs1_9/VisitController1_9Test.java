@@ -11,7 +11,9 @@ package org.openmrs.module.webservices.rest.web.v1_0.controller.openmrs1_9;
 
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 import org.apache.commons.beanutils.PropertyUtils;
 import org.junit.Assert;
@@ -23,6 +25,7 @@ import org.openmrs.api.VisitService;
 import org.openmrs.api.context.Context;
 import org.openmrs.module.webservices.rest.SimpleObject;
 import org.openmrs.module.webservices.rest.test.Util;
+import org.openmrs.module.webservices.rest.web.RestConstants;
 import org.openmrs.module.webservices.rest.web.RestTestConstants1_9;
 import org.openmrs.module.webservices.rest.web.v1_0.controller.MainResourceControllerTest;
 
@@ -61,6 +64,26 @@ public class VisitController1_9Test extends MainResourceControllerTest {
 		this.service = Context.getVisitService();
 	}
 	
+	@Test
+	public void shouldGetAllNonVoidedVisitsInTheOrderOfTheService() throws Exception {
+		service.voidVisit(service.getVisitByUuid(getUuid()), "testing");
+		List<String> expected = new ArrayList<String>();
+		for (Visit visit : service.getAllVisits()) {
+			expected.add(visit.getUuid());
+		}
+		
+		List<String> uuids = new ArrayList<String>();
+		for (Object visit : Util.getResultsList(deserialize(handle(newGetRequest(getURI()))))) {
+			uuids.add((String) PropertyUtils.getProperty(visit, "uuid"));
+		}
+		Assert.assertFalse(uuids.contains(getUuid()));
+		Assert.assertEquals(expected, uuids);
+		
+		List<Object> all = Util.getResultsList(deserialize(handle(newGetRequest(getURI(), new Parameter(
+		        RestConstants.REQUEST_PROPERTY_FOR_INCLUDE_ALL, "true")))));
+		Assert.assertEquals(expected.size() + 1, all.size());
+	}
+	
 	@Test
 	public void shouldCreateAVisit() throws Exception {
 		int originalCount = service.getAllVisits().size();
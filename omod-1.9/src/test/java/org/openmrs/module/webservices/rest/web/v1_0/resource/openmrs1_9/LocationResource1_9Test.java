@@ -9,11 +9,25 @@
  */
 package org.openmrs.module.webservices.rest.web.v1_0.resource.openmrs1_9;
 
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+
 import org.junit.Before;
+import org.junit.Test;
 import org.openmrs.Location;
 import org.openmrs.api.context.Context;
+import org.openmrs.module.webservices.rest.SimpleObject;
 import org.openmrs.module.webservices.rest.web.RestTestConstants1_9;
+import org.openmrs.module.webservices.rest.web.representation.CustomRepresentation;
+import org.openmrs.module.webservices.rest.web.representation.Representation;
+import org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource;
 import org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResourceTest;
+import org.openmrs.module.webservices.rest.web.resource.impl.MetadataDelegatingCrudResource;
+import org.openmrs.module.webservices.rest.web.resource.impl.RepresentationProjection;
 
 public class LocationResource1_9Test extends BaseDelegatingResourceTest<LocationResource1_9, Location> {
 	
@@ -93,4 +107,74 @@ public class LocationResource1_9Test extends BaseDelegatingResourceTest<Location
 		return RestTestConstants1_9.LOCATION_UUID;
 	}
 	
+	/**
+	 * @see MetadataDelegatingCrudResource#getProjection(Class, Representation)
+	 * @verifies return a projection for the ref representation
+	 */
+	@Test
+	public void getProjection_shouldReturnAProjectionForTheRefRepresentation() throws Exception {
+		RepresentationProjection projection = getResource().getProjection(Location.class, Representation.REF);
+		
+		assertThat(Arrays.asList(projection.getProperties()), is(Arrays.asList("uuid", "name", "retired")));
+		SimpleObject ref = projection.toRepresentation(new Object[] { getUuidProperty(), getDisplayProperty(), false });
+		assertThat(ref.keySet(), is(newRefRepresentation().keySet()));
+		assertThat(ref.get("display"), is((Object) getDisplayProperty()));
+		assertThat(findSelfLink(ref), is(findSelfLink(newRefRepresentation())));
+	}
+	
+	/**
+	 * @see BaseDelegatingResource#getProjection(Class, Representation)
+	 * @verifies return a projection for a custom representation of column properties
+	 */
+	@Test
+	public void getProjection_shouldReturnAProjectionForACustomRepresentationOfColumnProperties() throws Exception {
+		RepresentationProjection projection = getResource().getProjection(Location.class,
+		    new CustomRepresentation("(uuid,name,retired)"));
+		
+		SimpleObject custom = projection.toRepresentation(new Object[] { getUuidProperty(), getDisplayProperty(), false,
+		        getUuidProperty() });
+		assertThat(custom.get("uuid"), is((Object) getUuidProperty()));
+		assertThat(custom.get("name"), is((Object) getDisplayProperty()));
+		assertThat(custom.get("retired"), is((Object) false));
+	}
+	
+	/**
+	 * @see BaseDelegatingResource#getProjection(Class, Representation)
+	 * @verifies return null for a custom representation with a property getter
+	 */
+	@Test
+	public void getProjection_shouldReturnNullForACustomRepresentationWithAPropertyGetter() throws Exception {
+		assertNull(getResource().getProjection(Location.class, new CustomRepresentation("(uuid,display)")));
+	}
+	
+	/**
+	 * @see BaseDelegatingResource#getProjection(Class, Representation)
+	 * @verifies return null for a custom representation with an association
+	 */
+	@Test
+	public void getProjection_shouldReturnNullForACustomRepresentationWithAnAssociation() throws Exception {
+		assertNull(getResource().getProjection(Location.class, new CustomRepresentation("(uuid,parentLocation)")));
+	}
+	
+	/**
+	 * @see RepresentationProjection#get(BaseDelegatingResource, Class, Representation)
+	 * @verifies return the same projection for repeated calls
+	 */
+	@Test
+	public void get_shouldReturnTheSameProjectionForRepeatedCalls() throws Exception {
+		RepresentationProjection.clearCache();
+		
+		assertSame(RepresentationProjection.get(getResource(), Location.class, Representation.REF), RepresentationProjection
+		        .get(getResource(), Location.class, Representation.REF));
+	}
+	
+	/**
+	 * @see RepresentationProjection#get(BaseDelegatingResource, Class, Representation)
+	 * @verifies return null if the resource has no projection
+	 */
+	@Test
+	public void get_shouldReturnNullIfTheResourceHasNoProjection() throws Exception {
+		assertNull(RepresentationProjection.get(getResource(), Location.class, Representation.DEFAULT));
+	}
+	
 }
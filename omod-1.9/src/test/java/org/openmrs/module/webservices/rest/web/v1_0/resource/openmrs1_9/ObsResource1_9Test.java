@@ -9,31 +9,44 @@
  */
 package org.openmrs.module.webservices.rest.web.v1_0.resource.openmrs1_9;
 
+import org.codehaus.jackson.map.ObjectMapper;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.openmrs.Concept;
 import org.openmrs.Drug;
+import org.openmrs.Encounter;
 import org.openmrs.GlobalProperty;
 import org.openmrs.Location;
 import org.openmrs.Obs;
 import org.openmrs.api.context.Context;
 import org.openmrs.module.webservices.rest.SimpleObject;
 import org.openmrs.module.webservices.rest.web.ConversionUtil;
+import org.openmrs.module.webservices.rest.web.RequestContext;
 import org.openmrs.module.webservices.rest.web.RestTestConstants1_8;
 import org.openmrs.module.webservices.rest.web.representation.Representation;
+import org.openmrs.module.webservices.rest.web.resource.api.Converter;
 import org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResourceTest;
+import org.openmrs.module.webservices.rest.web.resource.impl.BasePageableResult;
+import org.openmrs.module.webservices.rest.web.resource.impl.NeedsPaging;
 import org.openmrs.module.webservices.rest.web.response.ConversionException;
 import org.openmrs.module.webservices.rest.web.v1_0.resource.openmrs1_8.ObsResource1_8;
 import org.openmrs.util.OpenmrsConstants;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockHttpServletRequest;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
 
 public class ObsResource1_9Test extends BaseDelegatingResourceTest<ObsResource1_9, Obs> {
 	
@@ -43,6 +56,9 @@ public class ObsResource1_9Test extends BaseDelegatingResourceTest<ObsResource1_
 	
 	private Concept falseConcept;
 	
+	@Autowired
+	private SessionFactory sessionFactory;
+	
 	private enum ObsType {
 		CODED, COMPLEX, DATETIME, DRUG, NUMERIC, TEXT
 	}
@@ -289,4 +305,51 @@ public class ObsResource1_9Test extends BaseDelegatingResourceTest<ObsResource1_
 		resource.setConvertedProperties(obs, propertyMap, resource.getUpdatableProperties(), false);
 		org.springframework.util.Assert.isTrue(((Double) ObsResource1_8.getValue(obs)) == 10.0);
 	}
+	
+	/**
+	 * @see BasePageableResult#toSimpleObject(Converter)
+	 * @verifies prefetch the references of a page and convert it like single objects
+	 */
+	@Test
+	public void toSimpleObject_shouldPrefetchTheReferencesOfAPageAndConvertItLikeSingleObjects() throws Exception {
+		ObjectMapper mapper = new ObjectMapper();
+		List<String> expected = new ArrayList<String>();
+		for (Obs obs : loadObsOfPerson7()) {
+			expected.add(mapper.writeValueAsString(ConversionUtil.convertToRepresentation(obs, Representation.DEFAULT)));
+		}
+		
+		List<Obs> page = loadObsOfPerson7();
+		RequestContext context = new RequestContext();
+		context.setRequest(new MockHttpServletRequest());
+		context.setRepresentation(Representation.DEFAULT);
+		context.setLimit(page.size());
+		Statistics statistics = sessionFactory.getStatistics();
+		boolean statisticsEnabled = statistics.isStatisticsEnabled();
+		statistics.setStatisticsEnabled(true);
+		statistics.clear();
+		List<Object> results;
+		try {
+			results = new NeedsPaging<Obs>(page, context).toSimpleObject(getResource()).get("results");
+			
+			// the references are loaded by the prefetch query instead of one at a time
+			assertTrue(statistics.getEntityStatistics(Encounter.class.getName()).getLoadCount() > 0);
+			assertEquals(0, statistics.getEntityStatistics(Encounter.class.getName()).getFetchCount());
+			assertEquals(0, statistics.getEntityStatistics(Location.class.getName()).getFetchCount());
+		}
+		finally {
+			statistics.setStatisticsEnabled(statisticsEnabled);
+		}
+		
+		List<String> actual = new ArrayList<String>();
+		for (Object result : results) {
+			actual.add(mapper.writeValueAsString(result));
+		}
+		assertEquals(expected, actual);
+	}
+	
+	private List<Obs> loadObsOfPerson7() {
+		Context.flushSession();
+		Context.clearSession();
+		return Context.getObsService().getObservationsByPerson(Context.getPersonService().getPerson(7));
+	}
 }
@@ -9,12 +9,17 @@
  */
 package org.openmrs.module.webservices.rest.web.v1_0.resource.openmrs1_9;
 
+import static org.junit.Assert.assertNull;
+
 import org.junit.Before;
+import org.junit.Test;
 import org.openmrs.Provider;
 import org.openmrs.api.ProviderService;
 import org.openmrs.api.context.Context;
 import org.openmrs.module.webservices.rest.web.RestTestConstants1_9;
+import org.openmrs.module.webservices.rest.web.representation.Representation;
 import org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResourceTest;
+import org.openmrs.module.webservices.rest.web.resource.impl.MetadataDelegatingCrudResource;
 import org.openmrs.module.webservices.rest.web.v1_0.resource.openmrs1_9.ProviderResource1_9;
 
 public class ProviderResource1_9Test extends BaseDelegatingResourceTest<ProviderResource1_9, Provider> {
@@ -57,4 +62,13 @@ public class ProviderResource1_9Test extends BaseDelegatingResourceTest<Provider
 	public String getUuidProperty() {
 		return RestTestConstants1_9.PROVIDER_UUID;
 	}
+	
+	/**
+	 * @see MetadataDelegatingCrudResource#getProjection(Class, Representation)
+	 * @verifies return null if the display is overridden
+	 */
+	@Test
+	public void getProjection_shouldReturnNullIfTheDisplayIsOverridden() throws Exception {
+		assertNull(getResource().getProjection(Provider.class, Representation.REF));
+	}
 }
@@ -10,19 +10,26 @@
 package org.openmrs.module.webservices.rest.web.v1_0.controller.openmrs2_0;
 
 import java.util.Calendar;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TimeZone;
 
 import org.apache.commons.beanutils.PropertyUtils;
+import org.codehaus.jackson.map.ObjectMapper;
 import org.junit.Assert;
 import org.junit.Test;
 import org.openmrs.Encounter;
+import org.openmrs.EncounterType;
+import org.openmrs.Privilege;
 import org.openmrs.api.context.Context;
 import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.web.RestConstants;
 import org.openmrs.module.webservices.rest.web.RestTestConstants1_8;
 import org.openmrs.module.webservices.rest.web.response.ResourceDoesNotSupportOperationException;
 import org.openmrs.module.webservices.rest.web.v1_0.controller.MainResourceControllerTest;
+import org.springframework.mock.web.MockHttpServletResponse;
 
 public class EncounterController2_0Test extends MainResourceControllerTest {
 	
@@ -42,6 +49,55 @@ public class EncounterController2_0Test extends MainResourceControllerTest {
 		Assert.assertEquals("62967e68-96bb-11e0-8d6b-9b9415a91465", encounterUuid);
 	}
 	
+	@Test
+	public void shouldNotExportOrPageEncountersOfTypesTheUserMayNotView() throws Exception {
+		Encounter restricted = Context.getEncounterService().getEncounterByUuid(getUuid());
+		EncounterType type = restricted.getEncounterType();
+		type.setViewPrivilege(Context.getUserService().savePrivilege(new Privilege("Get Secret Encounters", "")));
+		Context.getEncounterService().saveEncounterType(type);
+		String patientUuid = restricted.getPatient().getUuid();
+		Set<String> expected = new HashSet<String>();
+		for (Encounter encounter : Context.getEncounterService().getEncountersByPatient(restricted.getPatient())) {
+			if (!encounter.getEncounterType().equals(type)) {
+				expected.add(encounter.getUuid());
+			}
+		}
+		
+		// an anonymous user only has the privileges needed to read encounters, not the one of the type
+		Context.logout();
+		String[] privileges = { "Get Encounters", "Get Patients", "Get People", "Get Observations", "Get Concepts",
+		        "Get Locations", "Get Encounter Types", "Get Forms", "Get Providers", "Get Visits", "Get Orders",
+		        "Get Users" };
+		for (String privilege : privileges) {
+			Context.addProxyPrivilege(privilege);
+		}
+		try {
+			MockHttpServletResponse response = handle(newGetRequest(getURI() + "/export", new Parameter("patient",
+			        patientUuid)));
+			Set<String> exported = new HashSet<String>();
+			for (String line : response.getContentAsString().split("\n")) {
+				if (line.length() > 0) {
+					exported.add((String) new ObjectMapper().readValue(line, SimpleObject.class).get("uuid"));
+				}
+			}
+			Assert.assertEquals(expected, exported);
+			
+			SimpleObject page = deserialize(handle(newGetRequest(getURI(), new Parameter("patient", patientUuid),
+			    new Parameter(RestConstants.REQUEST_PROPERTY_FOR_CURSOR, ""))));
+			Set<String> paged = new HashSet<String>();
+			for (Object encounter : (List<?>) page.get("results")) {
+				paged.add((String) PropertyUtils.getProperty(encounter, "uuid"));
+			}
+			Assert.assertEquals(expected, paged);
+		}
+		finally {
+			for (String privilege : privileges) {
+				Context.removeProxyPrivilege(privilege);
+			}
+			Context.authenticate("admin", "test");
+		}
+	}
+	
 	/**
 	 * @see org.openmrs.module.webservices.rest.web.v1_0.controller.MainResourceControllerTest#shouldGetAll()
 	 */
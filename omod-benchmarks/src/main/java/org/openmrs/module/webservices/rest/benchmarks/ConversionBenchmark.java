@@ -0,0 +1,73 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.benchmarks;
+
+import java.lang.reflect.Type;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openmrs.Location;
+import org.openmrs.module.webservices.rest.web.ConversionUtil;
+
+/**
+ * Benchmarks {@link ConversionUtil#convert(Object, Type)} for the values a typical POST holds
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ConversionBenchmark {
+	
+	private List<String> tagUuids;
+	
+	private Type tagsType;
+	
+	@Setup
+	public void setUp() throws Exception {
+		RestFixture.setUp();
+		tagUuids = RestFixture.getLocationTagUuids();
+		tagsType = Location.class.getMethod("getTags").getGenericReturnType();
+	}
+	
+	@Benchmark
+	public Object dateWithMillisAndZone() {
+		return ConversionUtil.convert("2016-05-13T14:10:00.000+0300", Date.class);
+	}
+	
+	/**
+	 * A date without time, the shortest of the supported formats
+	 */
+	@Benchmark
+	public Object dateOnly() {
+		return ConversionUtil.convert("2016-05-13", Date.class);
+	}
+	
+	@Benchmark
+	public Object uuidToLocation() {
+		return ConversionUtil.convert(RestFixture.LOCATION_UUID, Location.class);
+	}
+	
+	@Benchmark
+	public Object uuidsToLocationTagSet() {
+		return ConversionUtil.convert(tagUuids, tagsType);
+	}
+	
+	@Benchmark
+	public Object stringToInteger() {
+		return ConversionUtil.convert("42", Integer.class);
+	}
+}
@@ -0,0 +1,44 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.benchmarks;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openmrs.module.webservices.rest.web.Iso8601DateFormatter;
+
+/**
+ * Benchmarks {@link Iso8601DateFormatter} against creating a {@link SimpleDateFormat} for each date
+ * as ConversionUtil used to
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DateFormattingBenchmark {
+	
+	private final Date date = new Date(1463137800123L);
+	
+	@Benchmark
+	public String charArray() {
+		return Iso8601DateFormatter.format(date);
+	}
+	
+	@Benchmark
+	public String simpleDateFormat() {
+		return new SimpleDateFormat(Iso8601DateFormatter.PATTERN).format(date);
+	}
+}
@@ -0,0 +1,57 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.benchmarks;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.DateTime;
+import org.joda.time.format.DateTimeFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openmrs.module.webservices.rest.web.Iso8601DateParser;
+
+/**
+ * Benchmarks {@link Iso8601DateParser} against trying the Joda-Time patterns ConversionUtil used
+ * one after the other, for dates matching the first, a middle and the last of those patterns
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DateParsingBenchmark {
+	
+	private static final String[] JODA_PATTERNS = { "yyyy-MM-dd'T'HH:mm:ss.SSSZ", "yyyy-MM-dd'T'HH:mm:ss.SSS",
+	        "yyyy-MM-dd'T'HH:mm:ssZ", "yyyy-MM-dd'T'HH:mm:ssXXX", "yyyy-MM-dd'T'HH:mm:ss", "yyyy-MM-dd HH:mm:ss",
+	        "yyyy-MM-dd" };
+	
+	@Param({ "2016-05-13T14:10:00.000+0300", "2016-05-13T14:10:00", "2016-05-13" })
+	public String date;
+	
+	@Benchmark
+	public Date singlePass() {
+		return Iso8601DateParser.parse(date);
+	}
+	
+	@Benchmark
+	public Date jodaPatterns() {
+		for (String pattern : JODA_PATTERNS) {
+			try {
+				return DateTime.parse(date, DateTimeFormat.forPattern(pattern)).toDate();
+			}
+			catch (IllegalArgumentException ex) {}
+		}
+		return null;
+	}
+}
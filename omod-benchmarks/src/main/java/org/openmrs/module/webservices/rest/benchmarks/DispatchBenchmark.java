@@ -0,0 +1,130 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.proxy.LazyInitializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openmrs.Location;
+import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest.web.api.RestService;
+
+/**
+ * Benchmarks how {@link RestService} finds the search handler of a request and the resource of a
+ * class
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DispatchBenchmark {
+	
+	private static final String RESOURCE = RestConstants.VERSION_1 + "/patient";
+	
+	private RestService restService;
+	
+	private Map<String, String[]> searchById;
+	
+	private Map<String, String[]> searchByRequiredParameters;
+	
+	private Map<String, String[]> searchByOptionalParameters;
+	
+	private Map<String, String[]> searchWithoutMatch;
+	
+	@Setup
+	public void setUp() {
+		restService = RestFixture.setUp();
+		searchById = parameters(RestConstants.REQUEST_PROPERTY_FOR_SEARCH_ID, "byCode", "code", "1234", "source", "CIEL");
+		searchByRequiredParameters = parameters("code", "1234", "source", "CIEL");
+		searchByOptionalParameters = parameters("name", "John", "tag", "Admission");
+		searchWithoutMatch = parameters("tag", "Admission", "fromdate", "2016-05-13");
+	}
+	
+	private static Map<String, String[]> parameters(String... namesAndValues) {
+		Map<String, String[]> parameters = new HashMap<String, String[]>();
+		for (int i = 0; i < namesAndValues.length; i += 2) {
+			parameters.put(namesAndValues[i], new String[] { namesAndValues[i + 1] });
+		}
+		// every search request also carries some of the special parameters
+		parameters.put(RestConstants.REQUEST_PROPERTY_FOR_REPRESENTATION, new String[] { RestConstants.REPRESENTATION_REF });
+		parameters.put(RestConstants.REQUEST_PROPERTY_FOR_LIMIT, new String[] { "10" });
+		return parameters;
+	}
+	
+	@Benchmark
+	public Object searchHandlerById() {
+		return restService.getSearchHandler(RESOURCE, searchById);
+	}
+	
+	@Benchmark
+	public Object searchHandlerByRequiredParameters() {
+		return restService.getSearchHandler(RESOURCE, searchByRequiredParameters);
+	}
+	
+	@Benchmark
+	public Object searchHandlerByOptionalParameters() {
+		return restService.getSearchHandler(RESOURCE, searchByOptionalParameters);
+	}
+	
+	@Benchmark
+	public Object searchHandlerWithoutMatch() {
+		return restService.getSearchHandler(RESOURCE, searchWithoutMatch);
+	}
+	
+	@Benchmark
+	public Object resourceBySupportedClass() {
+		return restService.getResourceBySupportedClass(Location.class);
+	}
+	
+	@Benchmark
+	public Object resourceByHibernateProxyClass() {
+		return restService.getResourceBySupportedClass(LocationProxy.class);
+	}
+	
+	@Benchmark
+	public Object resourceBySubclass() {
+		return restService.getResourceBySupportedClass(SpecialLocation.class);
+	}
+	
+	/**
+	 * Stands in for the class Hibernate generates for a lazy location
+	 */
+	public static class LocationProxy extends Location implements HibernateProxy {
+		
+		private static final long serialVersionUID = 1L;
+		
+		@Override
+		public Object writeReplace() {
+			return this;
+		}
+		
+		@Override
+		public LazyInitializer getHibernateLazyInitializer() {
+			return null;
+		}
+	}
+	
+	/**
+	 * A subclass without a resource of its own
+	 */
+	public static class SpecialLocation extends Location {
+		
+		private static final long serialVersionUID = 1L;
+	}
+}
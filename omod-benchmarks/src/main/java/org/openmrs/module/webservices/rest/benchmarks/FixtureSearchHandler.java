@@ -0,0 +1,85 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openmrs.module.webservices.rest.web.RequestContext;
+import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest.web.resource.api.PageableResult;
+import org.openmrs.module.webservices.rest.web.resource.api.SearchConfig;
+import org.openmrs.module.webservices.rest.web.resource.api.SearchHandler;
+import org.openmrs.module.webservices.rest.web.resource.api.SearchQuery;
+import org.openmrs.module.webservices.rest.web.response.ResponseException;
+
+/**
+ * A search handler that only has a configuration, used to benchmark how search handlers are
+ * looked up
+ */
+public class FixtureSearchHandler implements SearchHandler {
+	
+	/**
+	 * The resources the fixture registers search handlers for
+	 */
+	public static final String[] RESOURCES = { "location", "concept", "patient", "encounter", "obs", "visit", "person",
+	        "order" };
+	
+	private final SearchConfig searchConfig;
+	
+	public FixtureSearchHandler(String id, String resource, String[] requiredParameters, String[] optionalParameters) {
+		searchConfig = new SearchConfig(id, RestConstants.VERSION_1 + "/" + resource,
+		        RestFixture.SUPPORTED_OPENMRS_VERSION, new SearchQuery.Builder("Search " + resource + " by " + id)
+		                .withRequiredParameters(requiredParameters).withOptionalParameters(optionalParameters).build());
+	}
+	
+	/**
+	 * Creates four search handlers for each of the {@link #RESOURCES}, which overlap in their
+	 * parameters like the search handlers of the real resources do:
+	 * <ul>
+	 * <li>byName: name, optionally tag and code</li>
+	 * <li>byTag: tag, optionally code</li>
+	 * <li>byCode: code and source</li>
+	 * <li>byDate: fromdate, optionally todate and name</li>
+	 * </ul>
+	 * 
+	 * @return the search handlers
+	 */
+	public static List<SearchHandler> createAll() {
+		List<SearchHandler> searchHandlers = new ArrayList<SearchHandler>();
+		for (String resource : RESOURCES) {
+			searchHandlers.add(new FixtureSearchHandler("byName", resource, new String[] { "name" }, new String[] { "tag",
+			        "code" }));
+			searchHandlers.add(new FixtureSearchHandler("byTag", resource, new String[] { "tag" },
+			        new String[] { "code" }));
+			searchHandlers.add(new FixtureSearchHandler("byCode", resource, new String[] { "code", "source" },
+			        new String[] {}));
+			searchHandlers.add(new FixtureSearchHandler("byDate", resource, new String[] { "fromdate" }, new String[] {
+			        "todate", "name" }));
+		}
+		return searchHandlers;
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.api.SearchHandler#getSearchConfig()
+	 */
+	@Override
+	public SearchConfig getSearchConfig() {
+		return searchConfig;
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.api.SearchHandler#search(org.openmrs.module.webservices.rest.web.RequestContext)
+	 */
+	@Override
+	public PageableResult search(RequestContext context) throws ResponseException {
+		throw new UnsupportedOperationException("Fixture search handlers only take part in the lookup");
+	}
+}
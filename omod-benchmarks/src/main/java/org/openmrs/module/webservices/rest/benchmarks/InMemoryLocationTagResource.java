@@ -0,0 +1,27 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.benchmarks;
+
+import org.openmrs.LocationTag;
+import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest.web.annotation.Resource;
+import org.openmrs.module.webservices.rest.web.v1_0.resource.openmrs1_8.LocationTagResource1_8;
+
+/**
+ * {@link LocationTagResource1_8} reading the location tags of the {@link RestFixture}
+ */
+@Resource(name = RestConstants.VERSION_1 + "/locationtag", supportedClass = LocationTag.class, supportedOpenmrsVersions = RestFixture.SUPPORTED_OPENMRS_VERSION)
+public class InMemoryLocationTagResource extends LocationTagResource1_8 {
+	
+	@Override
+	public LocationTag getByUniqueId(String uuid) {
+		return RestFixture.getLocationTag(uuid);
+	}
+}
@@ -0,0 +1,142 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.benchmarks;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openmrs.module.webservices.rest.web.IpAllowList;
+import org.openmrs.module.webservices.rest.web.RestUtil;
+
+/**
+ * Benchmarks matching a client address against the allowed IPs, either compiled once as the
+ * AuthorizationFilter does or compiled on each call by {@link RestUtil#ipMatches(String, List)}.
+ * The baseline is the loop over all candidates that RestUtil used before the allowed IPs were
+ * compiled.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class IpAllowListBenchmark {
+	
+	@Param({ "10", "100" })
+	public int ranges;
+	
+	private List<String> candidateIps;
+	
+	private IpAllowList allowList;
+	
+	@Setup
+	public void setUp() {
+		candidateIps = new ArrayList<String>();
+		for (int i = 0; i < ranges; i++) {
+			candidateIps.add("10." + i + ".0.0/16");
+		}
+		candidateIps.add("2001:db8::/32");
+		allowList = IpAllowList.compile(candidateIps);
+	}
+	
+	@Benchmark
+	public boolean compiled() {
+		return allowList.matches("10." + (ranges - 1) + ".12.34");
+	}
+	
+	@Benchmark
+	public boolean compiledOnEachCall() {
+		return RestUtil.ipMatches("10." + (ranges - 1) + ".12.34", candidateIps);
+	}
+	
+	@Benchmark
+	public boolean compiledWithoutMatch() {
+		return allowList.matches("192.168.1.1");
+	}
+	
+	@Benchmark
+	public boolean baseline() {
+		return ipMatches("10." + (ranges - 1) + ".12.34", candidateIps);
+	}
+	
+	/**
+	 * The former RestUtil#ipMatches, which parses all candidates on each call and compares them in
+	 * turn
+	 */
+	private static boolean ipMatches(String ip, List<String> candidateIps) {
+		if (candidateIps.isEmpty()) {
+			return true;
+		}
+		
+		InetAddress address;
+		try {
+			address = InetAddress.getByName(ip);
+		}
+		catch (UnknownHostException e) {
+			throw new IllegalArgumentException("Invalid IP in the ip parameter" + ip, e);
+		}
+		
+		for (String candidateIp : candidateIps) {
+			// split IP and mask
+			String[] candidateIpPattern = candidateIp.split("/");
+			
+			InetAddress candidateAddress;
+			try {
+				candidateAddress = InetAddress.getByName(candidateIpPattern[0]);
+			}
+			catch (UnknownHostException e) {
+				throw new IllegalArgumentException("Invalid IP in the candidateIps parameter", e);
+			}
+			
+			if (candidateIpPattern.length == 1) { // there's no mask
+				if (address.equals(candidateAddress)) {
+					return true;
+				}
+			} else {
+				if (address.getAddress().length != candidateAddress.getAddress().length) {
+					continue;
+				}
+				
+				int bits = Integer.parseInt(candidateIpPattern[1]);
+				if (candidateAddress.getAddress().length < Math.ceil((double) bits / 8)) {
+					throw new IllegalArgumentException("Invalid mask " + bits + " for IP " + candidateIp
+					        + " in the candidateIps parameter");
+				}
+				
+				// compare bytes based on the given mask
+				boolean matched = true;
+				for (int bytes = 0; bits > 0; bytes++, bits -= 8) {
+					int mask = 0x000000FF; // mask the entire byte
+					if (bits < 8) {
+						// mask only some first bits of a byte
+						mask = (mask << (8 - bits));
+					}
+					if ((address.getAddress()[bytes] & mask) != (candidateAddress.getAddress()[bytes] & mask)) {
+						matched = false;
+						break;
+					}
+				}
+				if (matched) {
+					return true;
+				}
+			}
+			
+		}
+		return false;
+	}
+}
@@ -0,0 +1,58 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openmrs.Location;
+import org.openmrs.module.webservices.rest.web.ConversionUtil;
+import org.openmrs.module.webservices.rest.web.representation.Representation;
+import org.openmrs.module.webservices.rest.web.resource.impl.RepresentationCache;
+
+/**
+ * Benchmarks converting a location with a parent, children and tags to each kind of
+ * representation, with and without the {@link RepresentationCache}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RepresentationBenchmark {
+	
+	@Param({ "ref", "default", "full", "custom:(uuid,name,tags:(uuid,name),parentLocation:ref,childLocations:(uuid,display))" })
+	public String representation;
+	
+	@Param({ "false", "true" })
+	public boolean cached;
+	
+	private Representation rep;
+	
+	private Location location;
+	
+	@Setup
+	public void setUp() {
+		rep = RestFixture.setUp().getRepresentation(representation);
+		RestFixture.setRepresentationCached(cached);
+		RepresentationCache.clear();
+		location = RestFixture.getLocation(RestFixture.LOCATION_UUID);
+	}
+	
+	@Benchmark
+	public Object location() {
+		return ConversionUtil.convertToRepresentation(location, rep);
+	}
+}
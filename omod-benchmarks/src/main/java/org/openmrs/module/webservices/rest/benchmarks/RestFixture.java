@@ -0,0 +1,212 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.benchmarks;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.openmrs.Location;
+import org.openmrs.LocationTag;
+import org.openmrs.api.context.Context;
+import org.openmrs.api.context.ServiceContext;
+import org.openmrs.api.context.UserContext;
+import org.openmrs.messagesource.MessageSourceService;
+import org.openmrs.module.webservices.rest.web.ConversionUtil;
+import org.openmrs.module.webservices.rest.web.OpenmrsClassScanner;
+import org.openmrs.module.webservices.rest.web.RestUtil;
+import org.openmrs.module.webservices.rest.web.api.RestHelperService;
+import org.openmrs.module.webservices.rest.web.api.RestService;
+import org.openmrs.module.webservices.rest.web.api.impl.RestServiceImpl;
+import org.openmrs.module.webservices.rest.web.resource.api.Resource;
+import org.openmrs.module.webservices.rest.web.resource.api.SearchHandler;
+import org.openmrs.util.OpenmrsConstants;
+import org.springframework.context.support.StaticApplicationContext;
+
+/**
+ * Sets up just enough of OpenMRS for the benchmarks to run without a database: a
+ * {@link RestServiceImpl} that knows the in-memory resources and the {@link FixtureSearchHandler}s,
+ * an empty application context, and a set of locations and location tags kept in memory.
+ */
+public class RestFixture {
+	
+	/**
+	 * The OpenMRS version the fixture pretends to run on, the shaded benchmark jar has no manifest
+	 * that OpenMRS could read its version from
+	 */
+	public static final String OPENMRS_VERSION = "1.9.10";
+	
+	public static final String SUPPORTED_OPENMRS_VERSION = "1.9.*";
+	
+	/**
+	 * A location with a parent, children and tags
+	 */
+	public static final String LOCATION_UUID = uuid("location", 0);
+	
+	public static final int CHILD_LOCATIONS = 10;
+	
+	public static final int LOCATION_TAGS = 5;
+	
+	private static RestServiceImpl restService;
+	
+	private static final Map<String, Location> locations = new HashMap<String, Location>();
+	
+	private static final Map<String, LocationTag> locationTags = new HashMap<String, LocationTag>();
+	
+	private static volatile boolean representationCached;
+	
+	private RestFixture() {
+	}
+	
+	/**
+	 * Initializes the fixture once and opens a user context for the calling thread, call it from
+	 * the setup of every benchmark state
+	 * 
+	 * @return the rest service
+	 */
+	public static synchronized RestService setUp() {
+		if (restService == null) {
+			initialize();
+		}
+		UserContext userContext = new UserContext();
+		userContext.setLocale(Locale.ENGLISH);
+		Context.setUserContext(userContext);
+		return restService;
+	}
+	
+	private static void initialize() {
+		setOpenmrsVersion(OPENMRS_VERSION);
+		RestUtil.disableContext();
+		
+		StaticApplicationContext applicationContext = new StaticApplicationContext();
+		applicationContext.refresh();
+		ServiceContext serviceContext = ServiceContext.getInstance();
+		serviceContext.setApplicationContext(applicationContext);
+		serviceContext.setMessageSourceService(mock(MessageSourceService.class));
+		
+		List<Class<? extends Resource>> resources = new ArrayList<Class<? extends Resource>>();
+		resources.add(InMemoryLocationResource.class);
+		resources.add(InMemoryLocationTagResource.class);
+		OpenmrsClassScanner classScanner = mock(OpenmrsClassScanner.class);
+		RestHelperService restHelperService = mock(RestHelperService.class);
+		try {
+			when(classScanner.getClasses(Resource.class, true)).thenReturn(resources);
+		}
+		catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+		when(restHelperService.getRegisteredSearchHandlers()).thenReturn(FixtureSearchHandler.createAll());
+		
+		restService = new RestServiceImpl();
+		restService.setOpenmrsClassScanner(classScanner);
+		restService.setRestHelperService(restHelperService);
+		serviceContext.setService(RestService.class, restService);
+		ConversionUtil.clearCache();
+		
+		createLocations();
+	}
+	
+	private static void createLocations() {
+		Set<LocationTag> tags = new HashSet<LocationTag>();
+		for (int i = 0; i < LOCATION_TAGS; i++) {
+			LocationTag tag = new LocationTag();
+			tag.setUuid(uuid("locationtag", i));
+			tag.setName("Tag " + i);
+			tag.setDescription("Location tag number " + i);
+			tag.setDateCreated(new Date());
+			locationTags.put(tag.getUuid(), tag);
+			tags.add(tag);
+		}
+		
+		Location parent = newLocation(uuid("location", -1), "Parent");
+		Location location = newLocation(LOCATION_UUID, "Location");
+		location.setTags(tags);
+		parent.addChildLocation(location);
+		for (int i = 1; i <= CHILD_LOCATIONS; i++) {
+			location.addChildLocation(newLocation(uuid("location", i), "Child " + i));
+		}
+	}
+	
+	private static Location newLocation(String uuid, String name) {
+		Location location = new Location();
+		location.setUuid(uuid);
+		location.setName(name);
+		location.setDescription("A location called " + name);
+		location.setAddress1("1 Main Street");
+		location.setCityVillage("Kapsabet");
+		location.setStateProvince("Nandi");
+		location.setCountry("Kenya");
+		location.setPostalCode("30300");
+		location.setLatitude("0.2021");
+		location.setLongitude("35.1049");
+		location.setDateCreated(new Date());
+		locations.put(uuid, location);
+		return location;
+	}
+	
+	/**
+	 * @param prefix
+	 * @param index
+	 * @return a uuid that is the same in every run
+	 */
+	public static String uuid(String prefix, int index) {
+		return UUID.nameUUIDFromBytes((prefix + index).getBytes()).toString();
+	}
+	
+	/**
+	 * @return the uuids of the in-memory location tags
+	 */
+	public static List<String> getLocationTagUuids() {
+		return new ArrayList<String>(locationTags.keySet());
+	}
+	
+	public static Location getLocation(String uuid) {
+		return locations.get(uuid);
+	}
+	
+	public static LocationTag getLocationTag(String uuid) {
+		return locationTags.get(uuid);
+	}
+	
+	public static boolean isRepresentationCached() {
+		return representationCached;
+	}
+	
+	/**
+	 * @param representationCached whether the in-memory resources use the representation cache
+	 */
+	public static void setRepresentationCached(boolean representationCached) {
+		RestFixture.representationCached = representationCached;
+	}
+	
+	private static void setOpenmrsVersion(String version) {
+		try {
+			Field versionField = OpenmrsConstants.class.getDeclaredField("OPENMRS_VERSION_SHORT");
+			Field modifiersField = Field.class.getDeclaredField("modifiers");
+			modifiersField.setAccessible(true);
+			modifiersField.setInt(versionField, versionField.getModifiers() & ~Modifier.FINAL);
+			versionField.set(null, version);
+		}
+		catch (Exception e) {
+			throw new IllegalStateException("Cannot set the OpenMRS version", e);
+		}
+	}
+}
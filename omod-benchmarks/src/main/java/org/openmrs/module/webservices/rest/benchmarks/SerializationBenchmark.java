@@ -0,0 +1,73 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.web.ConversionUtil;
+import org.openmrs.module.webservices.rest.web.representation.Representation;
+
+import com.thoughtworks.xstream.XStream;
+
+/**
+ * Benchmarks writing a converted location the way the JSON and XML message converters do
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SerializationBenchmark {
+	
+	@Param({ "default", "full" })
+	public String representation;
+	
+	private SimpleObject simpleObject;
+	
+	private String json;
+	
+	private ObjectMapper objectMapper;
+	
+	private XStream xstream;
+	
+	@Setup
+	public void setUp() throws Exception {
+		Representation rep = RestFixture.setUp().getRepresentation(representation);
+		simpleObject = (SimpleObject) ConversionUtil.convertToRepresentation(
+		    RestFixture.getLocation(RestFixture.LOCATION_UUID), rep);
+		objectMapper = new ObjectMapper();
+		json = objectMapper.writeValueAsString(simpleObject);
+		xstream = new XStream();
+		xstream.autodetectAnnotations(true);
+	}
+	
+	@Benchmark
+	public byte[] toJson() throws Exception {
+		return objectMapper.writeValueAsBytes(simpleObject);
+	}
+	
+	@Benchmark
+	public String toXml() {
+		return xstream.toXML(simpleObject);
+	}
+	
+	@Benchmark
+	public Object fromJson() throws Exception {
+		return SimpleObject.parseJson(json);
+	}
+}
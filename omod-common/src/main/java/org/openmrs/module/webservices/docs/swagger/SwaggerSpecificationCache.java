@@ -0,0 +1,98 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.docs.swagger;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.openmrs.module.webservices.rest.web.RestConstants;
+
+/**
+ * Keeps the generated Swagger specification by the base URL it was generated for, so it is only
+ * built once. The cache is cleared whenever the REST service is (re)initialized, which OpenMRS does
+ * after starting or stopping any module, because the resources and search handlers may have changed.
+ * <p>
+ * Specifications are built one at a time, so many clients opening the API documentation at once do
+ * not build it many times over.
+ */
+public class SwaggerSpecificationCache {
+	
+	private static final Object buildLock = new Object();
+	
+	private static final Map<String, String> specifications = new LinkedHashMap<String, String>(16, 0.75f, true) {
+		
+		private static final long serialVersionUID = 1L;
+		
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+			return size() > RestConstants.SWAGGER_SPECIFICATION_CACHE_SIZE;
+		}
+	};
+	
+	/**
+	 * Incremented by {@link #clear()}, so a specification that was being built while the cache was
+	 * cleared is not kept
+	 */
+	private static int generation;
+	
+	private SwaggerSpecificationCache() {
+	}
+	
+	/**
+	 * Gets the specification for the given base URL, building it if it is not cached
+	 * 
+	 * @param baseUrl the URL of the REST API without the scheme
+	 * @return the specification as JSON
+	 * @should build the specification once
+	 * @should build the specification again after being cleared
+	 */
+	public static String getJSON(String baseUrl) {
+		String json = get(baseUrl);
+		if (json != null) {
+			return json;
+		}
+		
+		synchronized (buildLock) {
+			json = get(baseUrl);
+			if (json == null) {
+				int buildGeneration = getGeneration();
+				json = new SwaggerSpecificationCreator(baseUrl).BuildJSON();
+				synchronized (specifications) {
+					if (buildGeneration == generation) {
+						specifications.put(baseUrl, json);
+					}
+				}
+			}
+			return json;
+		}
+	}
+	
+	/**
+	 * Removes all specifications
+	 */
+	public static void clear() {
+		synchronized (specifications) {
+			specifications.clear();
+			generation++;
+		}
+	}
+	
+	private static String get(String baseUrl) {
+		synchronized (specifications) {
+			return specifications.get(baseUrl);
+		}
+	}
+	
+	private static int getGeneration() {
+		synchronized (specifications) {
+			return generation;
+		}
+	}
+}
@@ -11,7 +11,6 @@ package org.openmrs.module.webservices.docs.swagger;
 
 import java.io.OutputStream;
 import java.io.PrintStream;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -37,6 +36,7 @@ import org.openmrs.module.webservices.docs.SearchQueryDoc;
 import org.openmrs.module.webservices.rest.SimpleObject;
 import org.openmrs.module.webservices.rest.web.RequestContext;
 import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest.web.RestUtil;
 import org.openmrs.module.webservices.rest.web.annotation.Resource;
 import org.openmrs.module.webservices.rest.web.annotation.SubResource;
 import org.openmrs.module.webservices.rest.web.api.RestService;
@@ -47,7 +47,6 @@ import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingResourceD
 import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingResourceDescription.Property;
 import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingResourceHandler;
 import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingSubclassHandler;
-import org.openmrs.module.webservices.rest.web.response.ResourceDoesNotSupportOperationException;
 import org.openmrs.util.OpenmrsConstants;
 import org.springframework.util.ReflectionUtils;
 
@@ -73,6 +72,8 @@ public class SwaggerSpecificationCreator {
 	
 	private Map<String, Tag> tags;
 	
+	private UnsupportedOperationDetector unsupportedOperationDetector = new UnsupportedOperationDetector();
+	
 	private Logger log = Logger.getLogger(this.getClass());
 	
 	public SwaggerSpecificationCreator(String baseUrl) {
@@ -111,8 +112,7 @@ public class SwaggerSpecificationCreator {
 	}
 	
 	private void toggleLogs(boolean targetState) {
-		if (Context.getAdministrationService().getGlobalProperty(RestConstants.SWAGGER_QUIET_DOCS_GLOBAL_PROPERTY_NAME)
-		        .equals("true")) {
+		if (RestUtil.getSettings().isQuietDocs()) {
 			if (targetState == RestConstants.SWAGGER_LOGS_OFF) {
 				// turn off the log4j loggers
 				List<Logger> loggers = Collections.<Logger> list(LogManager.getCurrentLoggers());
@@ -190,169 +190,58 @@ public class SwaggerSpecificationCreator {
 		return moduleVersions;
 	}
 	
+	/**
+	 * Tells whether a resource implements an operation from the methods it overrides, without
+	 * invoking them, so building the specification neither reads nor changes any data
+	 */
 	private boolean testOperationImplemented(OperationEnum operation, DelegatingResourceHandler<?> resourceHandler) {
-		Method method;
-		try {
-			switch (operation) {
-				case get:
-					method = ReflectionUtils.findMethod(resourceHandler.getClass(), "getAll", RequestContext.class);
-					
-					if (method == null) {
-						return false;
-					} else {
-						method.invoke(resourceHandler, new RequestContext());
-					}
-					
-					break;
-				case getSubresource:
-					method = ReflectionUtils.findMethod(resourceHandler.getClass(), "getAll", String.class,
-					    RequestContext.class);
-					
-					if (method == null) {
-						return false;
-					} else {
-						method.invoke(resourceHandler, RestConstants.SWAGGER_IMPOSSIBLE_UNIQUE_ID, new RequestContext());
-					}
-					
-					break;
-				case getWithUUID:
-				case getSubresourceWithUUID:
-					method = ReflectionUtils.findMethod(resourceHandler.getClass(), "getByUniqueId", String.class);
-					
-					if (method == null) {
-						return false;
-					} else {
-						method.invoke(resourceHandler, RestConstants.SWAGGER_IMPOSSIBLE_UNIQUE_ID);
-					}
-					
-					break;
-				case postCreate:
-					method = ReflectionUtils.findMethod(resourceHandler.getClass(), "create", SimpleObject.class,
-					    RequestContext.class);
-					
-					if (method == null) {
-						return false;
-					} else {
-						try {
-							// to avoid saving data to the database, we pass a null SimpleObject
-							method.invoke(resourceHandler, null, new RequestContext());
-						}
-						catch (ResourceDoesNotSupportOperationException re) {
-							return false;
-						}
-						catch (Exception ee) {
-							// if the resource doesn't immediate throw ResourceDoesNotSupportOperationException
-							// then we need to check if it's thrown in the save() method
-							resourceHandler.save(null);
-						}
-					}
-					
-					break;
-				case postSubresource:
-					method = ReflectionUtils.findMethod(resourceHandler.getClass(), "create", String.class,
-					    SimpleObject.class, RequestContext.class);
-					
-					if (method == null) {
-						return false;
-					} else {
-						try {
-							// to avoid saving data to the database, we pass a null SimpleObject
-							method.invoke(resourceHandler, null, RestConstants.SWAGGER_IMPOSSIBLE_UNIQUE_ID,
-							    new RequestContext());
-						}
-						catch (ResourceDoesNotSupportOperationException re) {
-							return false;
-						}
-						catch (Exception ee) {
-							// if the resource doesn't immediate throw ResourceDoesNotSupportOperationException
-							// then we need to check if it's thrown in the save() method
-							resourceHandler.save(null);
-						}
-					}
-					
-					break;
-				case postUpdate:
-					method = ReflectionUtils.findMethod(resourceHandler.getClass(), "update", String.class,
-					    SimpleObject.class, RequestContext.class);
-					
-					if (method == null) {
-						return false;
-					} else {
-						method.invoke(resourceHandler, RestConstants.SWAGGER_IMPOSSIBLE_UNIQUE_ID,
-						    buildPOSTUpdateSimpleObject(resourceHandler), new RequestContext());
-					}
-					
-					break;
-				case postUpdateSubresouce:
-					method = ReflectionUtils.findMethod(resourceHandler.getClass(), "update", String.class, String.class,
-					    SimpleObject.class, RequestContext.class);
-					
-					if (method == null) {
-						return false;
-					} else {
-						method.invoke(resourceHandler, RestConstants.SWAGGER_IMPOSSIBLE_UNIQUE_ID,
-						    RestConstants.SWAGGER_IMPOSSIBLE_UNIQUE_ID, buildPOSTUpdateSimpleObject(resourceHandler),
-						    new RequestContext());
-					}
-					
-					break;
-				case delete:
-					method = ReflectionUtils.findMethod(resourceHandler.getClass(), "delete", String.class, String.class,
-					    RequestContext.class);
-					
-					if (method == null) {
-						return false;
-					} else {
-						method.invoke(resourceHandler, RestConstants.SWAGGER_IMPOSSIBLE_UNIQUE_ID, new String(),
-						    new RequestContext());
-					}
-					
-					break;
-				case deleteSubresource:
-					method = ReflectionUtils.findMethod(resourceHandler.getClass(), "delete", String.class, String.class,
-					    String.class, RequestContext.class);
-					
-					if (method == null) {
-						return false;
-					} else {
-						method.invoke(resourceHandler, RestConstants.SWAGGER_IMPOSSIBLE_UNIQUE_ID,
-						    RestConstants.SWAGGER_IMPOSSIBLE_UNIQUE_ID, new String(), new RequestContext());
-					}
-					break;
-				case purge:
-					method = ReflectionUtils.findMethod(resourceHandler.getClass(), "purge", String.class,
-					    RequestContext.class);
-					
-					if (method == null) {
-						return false;
-					} else {
-						method.invoke(resourceHandler, RestConstants.SWAGGER_IMPOSSIBLE_UNIQUE_ID, new RequestContext());
-					}
-					
-					break;
-				case purgeSubresource:
-					method = ReflectionUtils.findMethod(resourceHandler.getClass(), "purge", String.class, String.class,
-					    RequestContext.class);
-					
-					if (method == null) {
-						return false;
-					} else {
-						method.invoke(resourceHandler, RestConstants.SWAGGER_IMPOSSIBLE_UNIQUE_ID,
-						    RestConstants.SWAGGER_IMPOSSIBLE_UNIQUE_ID, new RequestContext());
-					}
-			}
-			return true;
-		}
-		catch (Exception e) {
-			if (e instanceof ResourceDoesNotSupportOperationException
-			        || e.getCause() instanceof ResourceDoesNotSupportOperationException) {
-				return false;
-			} else {
+		Class<?> type = resourceHandler.getClass();
+		switch (operation) {
+			case get:
+				return hasMethod(type, "getAll", RequestContext.class)
+				        && unsupportedOperationDetector.isSupported(type, "getAll", "doGetAll");
+			case getSubresource:
+				return hasMethod(type, "getAll", String.class, RequestContext.class)
+				        && unsupportedOperationDetector.isSupported(type, "getAll", "doGetAll");
+			case getWithUUID:
+			case getSubresourceWithUUID:
+				return hasMethod(type, "getByUniqueId", String.class)
+				        && unsupportedOperationDetector.isSupported(type, "getByUniqueId");
+			case postCreate:
+				return hasMethod(type, "create", SimpleObject.class, RequestContext.class)
+				        && unsupportedOperationDetector.isSupported(type, "create", "newDelegate", "save",
+				            "getCreatableProperties");
+			case postSubresource:
+				return hasMethod(type, "create", String.class, SimpleObject.class, RequestContext.class)
+				        && unsupportedOperationDetector.isSupported(type, "create", "newDelegate", "save",
+				            "getCreatableProperties");
+			case postUpdate:
+				return hasMethod(type, "update", String.class, SimpleObject.class, RequestContext.class)
+				        && unsupportedOperationDetector.isSupported(type, "update", "save", "getUpdatableProperties");
+			case postUpdateSubresouce:
+				return hasMethod(type, "update", String.class, String.class, SimpleObject.class, RequestContext.class)
+				        && unsupportedOperationDetector.isSupported(type, "update", "save", "getUpdatableProperties");
+			case delete:
+				return hasMethod(type, "delete", String.class, String.class, RequestContext.class)
+				        && unsupportedOperationDetector.isSupported(type, "delete");
+			case deleteSubresource:
+				return hasMethod(type, "delete", String.class, String.class, String.class, RequestContext.class)
+				        && unsupportedOperationDetector.isSupported(type, "delete");
+			case purge:
+				return hasMethod(type, "purge", String.class, RequestContext.class)
+				        && unsupportedOperationDetector.isSupported(type, "purge");
+			case purgeSubresource:
+				return hasMethod(type, "purge", String.class, String.class, RequestContext.class)
+				        && unsupportedOperationDetector.isSupported(type, "purge");
+			default:
 				return true;
-			}
 		}
 	}
 	
+	private static boolean hasMethod(Class<?> type, String name, Class<?>... parameterTypes) {
+		return ReflectionUtils.findMethod(type, name, parameterTypes) != null;
+	}
+	
 	private void sortResourceHandlers(List<DelegatingResourceHandler<?>> resourceHandlers) {
 		Collections.sort(resourceHandlers, new Comparator<DelegatingResourceHandler<?>>() {
 			
@@ -411,16 +300,6 @@ public class SwaggerSpecificationCreator {
 		return postCreateRepresentation;
 	}
 	
-	private SimpleObject buildPOSTUpdateSimpleObject(DelegatingResourceHandler<?> resourceHandler) {
-		SimpleObject simpleObject = new SimpleObject();
-		
-		for (String property : resourceHandler.getUpdatableProperties().getProperties().keySet()) {
-			simpleObject.put(property, property);
-		}
-		
-		return simpleObject;
-	}
-	
 	private ResourceRepresentation getPOSTUpdateRepresentation(DelegatingResourceHandler<?> resourceHandler) {
 		ResourceRepresentation postCreateRepresentation = null;
 		try {
@@ -0,0 +1,190 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.docs.swagger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.module.webservices.rest.web.response.ResourceDoesNotSupportOperationException;
+import org.springframework.asm.ClassReader;
+import org.springframework.asm.Opcodes;
+
+/**
+ * Tells whether a resource supports an operation without invoking it. Resources declare that they
+ * do not support an operation by implementing one of the methods behind it, or inheriting a default
+ * implementation, that does nothing but throw a {@link ResourceDoesNotSupportOperationException}.
+ * The detector finds the implementation of such methods that would be called and reads its byte
+ * code to see if it starts by creating that exception.
+ * <p>
+ * The methods found in each class are remembered, so create one detector per specification.
+ */
+class UnsupportedOperationDetector {
+	
+	private static final Log log = LogFactory.getLog(UnsupportedOperationDetector.class);
+	
+	private static final String EXCEPTION = ResourceDoesNotSupportOperationException.class.getName().replace('.', '/');
+	
+	private final Map<Class<?>, Set<String>> unsupportedMethodsByClass = new HashMap<Class<?>, Set<String>>();
+	
+	/**
+	 * @param type the class of a resource
+	 * @param methodNames the names of the methods an operation calls
+	 * @return false if the implementation of any method with one of the names only throws a
+	 *         {@link ResourceDoesNotSupportOperationException}, otherwise true
+	 * @should return false for a method inherited from a class that does not support it
+	 * @should return true for a method overridden with an implementation
+	 * @should return false for a method overridden to throw the exception
+	 * @should take generic overrides into account
+	 */
+	public boolean isSupported(Class<?> type, String... methodNames) {
+		List<String> names = Arrays.asList(methodNames);
+		Set<String> seen = new HashSet<String>();
+		for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+			for (Method method : current.getDeclaredMethods()) {
+				int modifiers = method.getModifiers();
+				if (!names.contains(method.getName()) || Modifier.isPrivate(modifiers) || Modifier.isStatic(modifiers)) {
+					continue;
+				}
+				// bridge methods are remembered too, they override the erased generic methods of super classes
+				String signature = method.getName() + getDescriptor(method);
+				if (seen.add(signature) && !Modifier.isAbstract(modifiers)
+				        && getUnsupportedMethods(current).contains(signature)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+	
+	private Set<String> getUnsupportedMethods(Class<?> type) {
+		Set<String> unsupportedMethods = unsupportedMethodsByClass.get(type);
+		if (unsupportedMethods == null) {
+			try {
+				unsupportedMethods = readUnsupportedMethods(type);
+			}
+			catch (Exception e) {
+				// IOException, or IllegalArgumentException if the class file is newer than the ASM version
+				log.debug("Cannot read the byte code of " + type.getName() + ", assuming it supports all operations", e);
+				unsupportedMethods = Collections.emptySet();
+			}
+			unsupportedMethodsByClass.put(type, unsupportedMethods);
+		}
+		return unsupportedMethods;
+	}
+	
+	/**
+	 * Reads the class file of the given class with the ASM class reader that Spring bundles. Its
+	 * visitor API differs between Spring 3.0 and 3.2, so the members are walked with the read
+	 * methods both versions have, see chapter 4 of the Java Virtual Machine Specification
+	 * 
+	 * @return the name and descriptor of the methods whose code starts with creating a
+	 *         {@link ResourceDoesNotSupportOperationException}
+	 */
+	private static Set<String> readUnsupportedMethods(Class<?> type) throws IOException {
+		byte[] classFile = readClassFile(type);
+		ClassReader reader = new ClassReader(classFile);
+		char[] buffer = new char[classFile.length];
+		
+		int offset = reader.header + 6; // access flags, this and super class
+		offset += 2 + 2 * reader.readUnsignedShort(offset); // interfaces
+		int fieldCount = reader.readUnsignedShort(offset);
+		offset += 2;
+		for (int i = 0; i < fieldCount; i++) {
+			offset = skipAttributes(reader, offset + 6);
+		}
+		
+		Set<String> unsupportedMethods = new HashSet<String>();
+		int methodCount = reader.readUnsignedShort(offset);
+		offset += 2;
+		for (int i = 0; i < methodCount; i++) {
+			String signature = reader.readUTF8(offset + 2, buffer) + reader.readUTF8(offset + 4, buffer);
+			int attributeCount = reader.readUnsignedShort(offset + 6);
+			offset += 8;
+			for (int j = 0; j < attributeCount; j++) {
+				int length = reader.readInt(offset + 2);
+				// the code follows the max stack, max locals and code length
+				if ("Code".equals(reader.readUTF8(offset, buffer)) && length >= 11 && reader.readInt(offset + 10) >= 3) {
+					int code = offset + 14;
+					if (reader.readByte(code) == Opcodes.NEW && EXCEPTION.equals(reader.readClass(code + 1, buffer))) {
+						unsupportedMethods.add(signature);
+					}
+				}
+				offset += 6 + length;
+			}
+		}
+		return unsupportedMethods;
+	}
+	
+	/**
+	 * @return the offset after the attributes starting at the given offset
+	 */
+	private static int skipAttributes(ClassReader reader, int offset) {
+		int attributeCount = reader.readUnsignedShort(offset);
+		offset += 2;
+		for (int i = 0; i < attributeCount; i++) {
+			offset += 6 + reader.readInt(offset + 2);
+		}
+		return offset;
+	}
+	
+	private static byte[] readClassFile(Class<?> type) throws IOException {
+		ClassLoader classLoader = type.getClassLoader();
+		InputStream in = classLoader == null ? null : classLoader.getResourceAsStream(type.getName().replace('.', '/')
+		        + ".class");
+		if (in == null) {
+			throw new IOException("No class file found");
+		}
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+				out.write(buffer, 0, read);
+			}
+			return out.toByteArray();
+		}
+		finally {
+			in.close();
+		}
+	}
+	
+	private static String getDescriptor(Method method) {
+		StringBuilder descriptor = new StringBuilder("(");
+		for (Class<?> parameterType : method.getParameterTypes()) {
+			descriptor.append(getDescriptor(parameterType));
+		}
+		return descriptor.append(')').append(getDescriptor(method.getReturnType())).toString();
+	}
+	
+	private static String getDescriptor(Class<?> type) {
+		if (type.isArray()) {
+			return type.getName().replace('.', '/');
+		} else if (!type.isPrimitive()) {
+			return "L" + type.getName().replace('.', '/') + ";";
+		} else if (type == long.class) {
+			return "J";
+		} else if (type == boolean.class) {
+			return "Z";
+		}
+		// int I, void V, byte B, char C, short S, float F and double D
+		return String.valueOf(Character.toUpperCase(type.getName().charAt(0)));
+	}
+}
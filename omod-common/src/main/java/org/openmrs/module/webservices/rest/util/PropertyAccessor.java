@@ -0,0 +1,91 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+
+/**
+ * A resolved read and write method pair for one simple property of one bean class. Instances are
+ * created and cached by {@link ReflectionUtil#findPropertyAccessor(Class, String)}, so reading or
+ * writing a property is a direct method invocation without any introspection or property name
+ * parsing.
+ */
+public class PropertyAccessor {
+	
+	private final String name;
+	
+	private final Method readMethod;
+	
+	private final Method writeMethod;
+	
+	public PropertyAccessor(String name, Method readMethod, Method writeMethod) {
+		this.name = name;
+		this.readMethod = readMethod;
+		this.writeMethod = writeMethod;
+	}
+	
+	/**
+	 * @return the property name
+	 */
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * @return the getter, or null if the property cannot be read
+	 */
+	public Method getReadMethod() {
+		return readMethod;
+	}
+	
+	/**
+	 * @return the setter, or null if the property cannot be written
+	 */
+	public Method getWriteMethod() {
+		return writeMethod;
+	}
+	
+	public boolean isReadable() {
+		return readMethod != null;
+	}
+	
+	public boolean isWritable() {
+		return writeMethod != null;
+	}
+	
+	/**
+	 * @return the generic type taken by the setter
+	 */
+	public Type getGenericWriteType() {
+		return writeMethod.getGenericParameterTypes()[0];
+	}
+	
+	/**
+	 * @param bean
+	 * @return the value of this property on bean
+	 * @throws IllegalAccessException
+	 * @throws InvocationTargetException
+	 */
+	public Object getValue(Object bean) throws IllegalAccessException, InvocationTargetException {
+		return readMethod.invoke(bean);
+	}
+	
+	/**
+	 * @param bean
+	 * @param value
+	 * @throws IllegalAccessException
+	 * @throws InvocationTargetException
+	 */
+	public void setValue(Object bean, Object value) throws IllegalAccessException, InvocationTargetException {
+		writeMethod.invoke(bean, value);
+	}
+}
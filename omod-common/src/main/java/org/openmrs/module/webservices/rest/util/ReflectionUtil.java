@@ -9,13 +9,19 @@
  */
 package org.openmrs.module.webservices.rest.util;
 
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
+import org.apache.commons.beanutils.MethodUtils;
+import org.apache.commons.beanutils.PropertyUtils;
 import org.openmrs.module.webservices.rest.web.annotation.PropertyGetter;
 import org.openmrs.module.webservices.rest.web.annotation.PropertySetter;
 import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingPropertyAccessor;
@@ -26,23 +32,27 @@ import org.springframework.util.ReflectionUtils;
  */
 public class ReflectionUtil {
 	
-	private static ConcurrentMap<String, Method> setterMethodCache;
+	private static ConcurrentMap<Class<?>, ConcurrentMap<String, Method>> setterMethodCache;
 	
-	private static ConcurrentMap<String, Method> getterMethodCache;
+	private static ConcurrentMap<Class<?>, ConcurrentMap<String, Method>> getterMethodCache;
+	
+	private static ConcurrentMap<Class<?>, Map<String, PropertyAccessor>> propertyAccessorCache;
 	
 	private static Method nullMethod;
 	
 	static {
-		setterMethodCache = new ConcurrentHashMap<String, Method>();
-		getterMethodCache = new ConcurrentHashMap<String, Method>();
+		setterMethodCache = new ConcurrentHashMap<Class<?>, ConcurrentMap<String, Method>>();
+		getterMethodCache = new ConcurrentHashMap<Class<?>, ConcurrentMap<String, Method>>();
+		propertyAccessorCache = new ConcurrentHashMap<Class<?>, Map<String, PropertyAccessor>>();
 		
 		// Just get a method from this class to use as the token null method
 		nullMethod = ReflectionUtil.class.getDeclaredMethods()[0];
 	}
 	
 	public static void clearCaches() {
-		setterMethodCache = new ConcurrentHashMap<String, Method>();
-		getterMethodCache = new ConcurrentHashMap<String, Method>();
+		setterMethodCache = new ConcurrentHashMap<Class<?>, ConcurrentMap<String, Method>>();
+		getterMethodCache = new ConcurrentHashMap<Class<?>, ConcurrentMap<String, Method>>();
+		propertyAccessorCache = new ConcurrentHashMap<Class<?>, Map<String, PropertyAccessor>>();
 	}
 	
 	/**
@@ -79,8 +89,8 @@ public class ReflectionUtil {
 	 * @return
 	 */
 	public static <T> Method findPropertyGetterMethod(DelegatingPropertyAccessor<? extends T> handler, String propName) {
-		String key = handler.getClass().getName().concat(propName);
-		Method result = getterMethodCache.get(key);
+		ConcurrentMap<String, Method> cache = getMethodCacheForClass(getterMethodCache, handler.getClass());
+		Method result = cache.get(propName);
 		if (result != null) {
 			return result == nullMethod ? null : result;
 		}
@@ -97,7 +107,7 @@ public class ReflectionUtil {
 			clazz = clazz.getSuperclass();
 		}
 		
-		getterMethodCache.put(key, result == null ? nullMethod : result);
+		cache.put(propName, result == null ? nullMethod : result);
 		
 		return result;
 	}
@@ -110,8 +120,8 @@ public class ReflectionUtil {
 	 * @return
 	 */
 	public static <T> Method findPropertySetterMethod(DelegatingPropertyAccessor<? extends T> handler, String propName) {
-		String key = handler.getClass().getName().concat(propName);
-		Method result = setterMethodCache.get(key);
+		ConcurrentMap<String, Method> cache = getMethodCacheForClass(setterMethodCache, handler.getClass());
+		Method result = cache.get(propName);
 		if (result != null) {
 			return result == nullMethod ? null : result;
 		}
@@ -128,11 +138,115 @@ public class ReflectionUtil {
 			clazz = clazz.getSuperclass();
 		}
 		
-		setterMethodCache.put(key, result == null ? nullMethod : result);
+		cache.put(propName, result == null ? nullMethod : result);
 		
 		return result;
 	}
 	
+	private static ConcurrentMap<String, Method> getMethodCacheForClass(
+	        ConcurrentMap<Class<?>, ConcurrentMap<String, Method>> methodCache, Class<?> clazz) {
+		ConcurrentMap<String, Method> cache = methodCache.get(clazz);
+		if (cache == null) {
+			cache = new ConcurrentHashMap<String, Method>();
+			ConcurrentMap<String, Method> existing = methodCache.putIfAbsent(clazz, cache);
+			if (existing != null) {
+				cache = existing;
+			}
+		}
+		return cache;
+	}
+	
+	/**
+	 * Finds the resolved getter and setter of a simple bean property. All accessors of a class are
+	 * resolved together the first time any of them is requested.
+	 * 
+	 * @param beanClass
+	 * @param propertyName
+	 * @return the accessor, or null if beanClass has no such simple property
+	 * @should find a readable and writable property
+	 * @should return null for a nested property name
+	 */
+	public static PropertyAccessor findPropertyAccessor(Class<?> beanClass, String propertyName) {
+		Map<String, PropertyAccessor> accessors = propertyAccessorCache.get(beanClass);
+		if (accessors == null) {
+			accessors = new HashMap<String, PropertyAccessor>();
+			for (PropertyDescriptor descriptor : PropertyUtils.getPropertyDescriptors(beanClass)) {
+				Method readMethod = MethodUtils.getAccessibleMethod(descriptor.getReadMethod());
+				Method writeMethod = MethodUtils.getAccessibleMethod(descriptor.getWriteMethod());
+				if (readMethod != null || writeMethod != null) {
+					accessors.put(descriptor.getName(), new PropertyAccessor(descriptor.getName(), readMethod,
+					        writeMethod));
+				}
+			}
+			propertyAccessorCache.put(beanClass, accessors);
+		}
+		return accessors.get(propertyName);
+	}
+	
+	/**
+	 * Gets the value of a property, using a cached {@link PropertyAccessor} for simple properties
+	 * and falling back to {@link PropertyUtils} for nested, indexed and mapped ones.
+	 * 
+	 * @param bean
+	 * @param propertyName
+	 * @return the property value
+	 * @throws IllegalAccessException
+	 * @throws InvocationTargetException
+	 * @throws NoSuchMethodException
+	 */
+	public static Object getProperty(Object bean, String propertyName) throws IllegalAccessException,
+	        InvocationTargetException, NoSuchMethodException {
+		if (bean != null) {
+			PropertyAccessor accessor = findPropertyAccessor(bean.getClass(), propertyName);
+			if (accessor != null && accessor.isReadable()) {
+				return accessor.getValue(bean);
+			}
+		}
+		return PropertyUtils.getProperty(bean, propertyName);
+	}
+	
+	/**
+	 * Sets the value of a property, using a cached {@link PropertyAccessor} for simple properties
+	 * and falling back to {@link PropertyUtils} for nested, indexed and mapped ones.
+	 * 
+	 * @param bean
+	 * @param propertyName
+	 * @param value
+	 * @throws IllegalAccessException
+	 * @throws InvocationTargetException
+	 * @throws NoSuchMethodException
+	 */
+	public static void setProperty(Object bean, String propertyName, Object value) throws IllegalAccessException,
+	        InvocationTargetException, NoSuchMethodException {
+		if (bean != null) {
+			PropertyAccessor accessor = findPropertyAccessor(bean.getClass(), propertyName);
+			if (accessor != null && accessor.isWritable()) {
+				accessor.setValue(bean, value);
+				return;
+			}
+		}
+		PropertyUtils.setProperty(bean, propertyName, value);
+	}
+	
+	/**
+	 * @param bean
+	 * @param propertyName
+	 * @return the setter of the given property
+	 * @throws IllegalAccessException
+	 * @throws InvocationTargetException
+	 * @throws NoSuchMethodException
+	 */
+	public static Method getPropertyWriteMethod(Object bean, String propertyName) throws IllegalAccessException,
+	        InvocationTargetException, NoSuchMethodException {
+		if (bean != null) {
+			PropertyAccessor accessor = findPropertyAccessor(bean.getClass(), propertyName);
+			if (accessor != null && accessor.isWritable()) {
+				return accessor.getWriteMethod();
+			}
+		}
+		return PropertyUtils.getPropertyDescriptor(bean, propertyName).getWriteMethod();
+	}
+	
 	/**
 	 * @param name the full method name to look for
 	 * @return the java Method object if found. (does not return null)
@@ -16,7 +16,6 @@ import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
@@ -30,17 +29,15 @@ import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
-import org.apache.commons.beanutils.PropertyUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.joda.time.DateTime;
-import org.joda.time.format.DateTimeFormat;
 import org.openmrs.Auditable;
 import org.openmrs.Retireable;
 import org.openmrs.Voidable;
 import org.openmrs.api.APIException;
 import org.openmrs.api.context.Context;
 import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.util.ReflectionUtil;
 import org.openmrs.module.webservices.rest.web.api.RestService;
 import org.openmrs.module.webservices.rest.web.representation.DefaultRepresentation;
 import org.openmrs.module.webservices.rest.web.representation.Representation;
@@ -234,21 +231,12 @@ public class ConversionUtil {
 				return converter.getByUniqueId(string);
 			
 			if (toClass.isAssignableFrom(Date.class)) {
-				IllegalArgumentException pex = null;
-				String[] supportedFormats = { "yyyy-MM-dd'T'HH:mm:ss.SSSZ", "yyyy-MM-dd'T'HH:mm:ss.SSS",
-				        "yyyy-MM-dd'T'HH:mm:ssZ", "yyyy-MM-dd'T'HH:mm:ssXXX", "yyyy-MM-dd'T'HH:mm:ss",
-				        "yyyy-MM-dd HH:mm:ss", "yyyy-MM-dd" };
-				for (int i = 0; i < supportedFormats.length; i++) {
-					try {
-						Date date = DateTime.parse(string, DateTimeFormat.forPattern(supportedFormats[i])).toDate();
-						return date;
-					}
-					catch (IllegalArgumentException ex) {
-						pex = ex;
-					}
+				Date date = Iso8601DateParser.parse(string);
+				if (date == null) {
+					throw new ConversionException(
+					        "Error converting date - correct format (ISO8601 Long): yyyy-MM-dd'T'HH:mm:ss.SSSZ", null);
 				}
-				throw new ConversionException(
-				        "Error converting date - correct format (ISO8601 Long): yyyy-MM-dd'T'HH:mm:ss.SSSZ", pex);
+				return date;
 			} else if (toClass.isAssignableFrom(Locale.class)) {
 				return LocaleUtility.fromSpecification(object.toString());
 			} else if (toClass.isEnum()) {
@@ -346,7 +334,7 @@ public class ConversionUtil {
 	        throws ConversionException {
 		Object o;
 		try {
-			o = PropertyUtils.getProperty(bean, propertyName);
+			o = ReflectionUtil.getProperty(bean, propertyName);
 		}
 		catch (Exception ex) {
 			throw new ConversionException(null, ex);
@@ -391,7 +379,7 @@ public class ConversionUtil {
 			if (converter == null) {
 				// try a few known datatypes
 				if (o instanceof Date) {
-					return new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ").format((Date) o);
+					return Iso8601DateFormatter.format((Date) o);
 				}
 				// otherwise we have no choice but to return the plain object
 				return o;
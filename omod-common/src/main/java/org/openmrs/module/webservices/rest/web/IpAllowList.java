@@ -0,0 +1,333 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A compiled list of allowed IP addresses and CIDR ranges, as configured in
+ * {@link RestConstants#ALLOWED_IPS_GLOBAL_PROPERTY_NAME}. The ranges are stored in one binary
+ * prefix trie for IPv4 and one for IPv6 addresses, so matching an address walks at most one node
+ * per address bit, however many ranges are allowed.
+ */
+public class IpAllowList {
+	
+	/**
+	 * Allows every address
+	 */
+	public static final IpAllowList ALLOW_ALL = new IpAllowList(null, null);
+	
+	/**
+	 * Allows no address
+	 */
+	public static final IpAllowList DENY_ALL = new IpAllowList(new PrefixTrie(), new PrefixTrie());
+	
+	/**
+	 * Holds the parsed address in {@link #matches(String)}, which runs on every request
+	 */
+	private static final ThreadLocal<byte[]> ADDRESS = new ThreadLocal<byte[]>() {
+		
+		@Override
+		protected byte[] initialValue() {
+			return new byte[16];
+		}
+	};
+	
+	private final PrefixTrie ipv4;
+	
+	private final PrefixTrie ipv6;
+	
+	private IpAllowList(PrefixTrie ipv4, PrefixTrie ipv6) {
+		this.ipv4 = ipv4;
+		this.ipv6 = ipv6;
+	}
+	
+	/**
+	 * Compiles the given candidates, each of which is an IP address optionally followed by a slash
+	 * and the number of leading bits that have to match, e.g. <code>10.0.0.0/24</code>
+	 * 
+	 * @param candidateIps
+	 * @return the compiled list, allowing every address if candidateIps is empty
+	 * @throws IllegalArgumentException if a candidate is not a valid address or has an invalid mask
+	 * @should match addresses in any of the ranges
+	 * @should match only exact addresses without a mask
+	 * @should keep ipv4 and ipv6 ranges apart
+	 * @should throw IllegalArgumentException for invalid mask
+	 */
+	public static IpAllowList compile(List<String> candidateIps) {
+		if (candidateIps.isEmpty()) {
+			return ALLOW_ALL;
+		}
+		
+		PrefixTrie ipv4 = new PrefixTrie();
+		PrefixTrie ipv6 = new PrefixTrie();
+		for (String candidateIp : candidateIps) {
+			// split IP and mask
+			String[] candidateIpPattern = candidateIp.split("/");
+			
+			byte[] candidateAddress;
+			try {
+				candidateAddress = InetAddress.getByName(candidateIpPattern[0]).getAddress();
+			}
+			catch (UnknownHostException e) {
+				throw new IllegalArgumentException("Invalid IP in the candidateIps parameter", e);
+			}
+			
+			int bits = candidateAddress.length * 8;
+			if (candidateIpPattern.length > 1) {
+				bits = Integer.parseInt(candidateIpPattern[1]);
+				if (bits < 0 || candidateAddress.length < Math.ceil((double) bits / 8)) {
+					throw new IllegalArgumentException("Invalid mask " + bits + " for IP " + candidateIp
+					        + " in the candidateIps parameter");
+				}
+			}
+			
+			(candidateAddress.length == 4 ? ipv4 : ipv6).add(candidateAddress, bits);
+		}
+		ipv4.trim();
+		ipv6.trim();
+		return new IpAllowList(ipv4, ipv6);
+	}
+	
+	/**
+	 * Common IPv4 and IPv6 literals are parsed without allocating anything, other forms are left
+	 * to {@link InetAddress#getByName(String)}.
+	 * 
+	 * @param ip an IP address literal
+	 * @return true if the address is allowed
+	 * @throws IllegalArgumentException if ip is not a valid address
+	 * @should match ipv4 and ipv6 literals like InetAddress
+	 * @should match ipv4 mapped ipv6 addresses as ipv4 addresses
+	 * @should throw IllegalArgumentException for an invalid address
+	 */
+	public boolean matches(String ip) {
+		if (ipv4 == null) {
+			return true;
+		}
+		byte[] address = ADDRESS.get();
+		int length = parse(ip, address);
+		if (length == 4) {
+			return ipv4.matches(address, 4);
+		} else if (length == 16) {
+			return ipv6.matches(address, 16);
+		}
+		try {
+			return matches(InetAddress.getByName(ip));
+		}
+		catch (UnknownHostException e) {
+			throw new IllegalArgumentException("Invalid IP in the ip parameter" + ip, e);
+		}
+	}
+	
+	/**
+	 * @param address
+	 * @return true if the address is allowed
+	 */
+	public boolean matches(InetAddress address) {
+		if (ipv4 == null) {
+			return true;
+		}
+		byte[] bytes = address.getAddress();
+		return (bytes.length == 4 ? ipv4 : ipv6).matches(bytes, bytes.length);
+	}
+	
+	/**
+	 * Parses an IPv4 literal in dotted decimal form or an IPv6 literal, returning IPv4 mapped IPv6
+	 * addresses as IPv4 addresses like {@link InetAddress} does
+	 * 
+	 * @param ip
+	 * @param address receives the bytes of the address
+	 * @return the number of bytes of the address, or -1 if ip is not parsed here
+	 */
+	static int parse(String ip, byte[] address) {
+		int start = 0;
+		int end = ip.length();
+		if (end > 1 && ip.charAt(0) == '[' && ip.charAt(end - 1) == ']') {
+			start++;
+			end--;
+		}
+		int colon = ip.indexOf(':', start);
+		if (colon < 0 || colon >= end) {
+			return start == 0 && parseIpv4(ip, start, end, address, 0) ? 4 : -1;
+		}
+		int zone = ip.indexOf('%', start);
+		if (zone >= 0 && zone < end) {
+			end = zone;
+		}
+		if (!parseIpv6(ip, start, end, address)) {
+			return -1;
+		}
+		for (int i = 0; i < 10; i++) {
+			if (address[i] != 0) {
+				return 16;
+			}
+		}
+		if (address[10] != (byte) 0xff || address[11] != (byte) 0xff) {
+			return 16;
+		}
+		System.arraycopy(address, 12, address, 0, 4);
+		return 4;
+	}
+	
+	private static boolean parseIpv4(String ip, int start, int end, byte[] address, int offset) {
+		int part = 0;
+		int value = 0;
+		int digits = 0;
+		for (int i = start; i < end; i++) {
+			char c = ip.charAt(i);
+			if (c == '.') {
+				if (digits == 0 || part == 3) {
+					return false;
+				}
+				address[offset + part++] = (byte) value;
+				value = 0;
+				digits = 0;
+			} else if (c >= '0' && c <= '9' && digits < 3) {
+				value = value * 10 + c - '0';
+				if (value > 255) {
+					return false;
+				}
+				digits++;
+			} else {
+				return false;
+			}
+		}
+		if (digits == 0 || part != 3) {
+			return false;
+		}
+		address[offset + 3] = (byte) value;
+		return true;
+	}
+	
+	private static boolean parseIpv6(String ip, int start, int end, byte[] address) {
+		int length = 0;
+		// the byte at which :: leaves out zeros, or -1
+		int gap = -1;
+		int i = start;
+		if (end - i >= 2 && ip.charAt(i) == ':' && ip.charAt(i + 1) == ':') {
+			gap = 0;
+			i += 2;
+		}
+		while (i < end) {
+			int groupStart = i;
+			int value = 0;
+			while (i < end && i - groupStart < 4) {
+				int digit = Character.digit(ip.charAt(i), 16);
+				if (digit < 0) {
+					break;
+				}
+				value = (value << 4) | digit;
+				i++;
+			}
+			if (i < end && ip.charAt(i) == '.') {
+				// an IPv4 address in the last 32 bits
+				if (length > 12 || !parseIpv4(ip, groupStart, end, address, length)) {
+					return false;
+				}
+				length += 4;
+				break;
+			}
+			if (i == groupStart || length == 16) {
+				return false;
+			}
+			address[length++] = (byte) (value >> 8);
+			address[length++] = (byte) value;
+			if (i == end) {
+				break;
+			}
+			if (ip.charAt(i++) != ':' || i == end) {
+				return false;
+			}
+			if (ip.charAt(i) == ':') {
+				if (gap >= 0) {
+					return false;
+				}
+				gap = length;
+				i++;
+			}
+		}
+		
+		if (gap < 0) {
+			return length == 16;
+		} else if (length == 16) {
+			return false;
+		}
+		int shift = 16 - length;
+		System.arraycopy(address, gap, address, gap + shift, length - gap);
+		Arrays.fill(address, gap, gap + shift, (byte) 0);
+		return true;
+	}
+	
+	/**
+	 * A binary trie of address prefixes. Node 0 is the root, the children of node n are stored at
+	 * 2n (bit 0) and 2n + 1 (bit 1) of the children array, and 0 stands for a missing child.
+	 */
+	private static class PrefixTrie {
+		
+		private int[] children = new int[32];
+		
+		private boolean[] terminal = new boolean[16];
+		
+		private int size = 1;
+		
+		void add(byte[] address, int bits) {
+			int node = 0;
+			for (int i = 0; i < bits; i++) {
+				if (terminal[node]) {
+					// a shorter prefix already covers this range
+					return;
+				}
+				int index = 2 * node + bit(address, i);
+				if (children[index] == 0) {
+					// allocate first, newNode() may replace the children array
+					int child = newNode();
+					children[index] = child;
+				}
+				node = children[index];
+			}
+			terminal[node] = true;
+		}
+		
+		boolean matches(byte[] address, int length) {
+			int node = 0;
+			int bits = length * 8;
+			for (int i = 0; i < bits; i++) {
+				if (terminal[node]) {
+					return true;
+				}
+				node = children[2 * node + bit(address, i)];
+				if (node == 0) {
+					return false;
+				}
+			}
+			return terminal[node];
+		}
+		
+		void trim() {
+			children = Arrays.copyOf(children, 2 * size);
+			terminal = Arrays.copyOf(terminal, size);
+		}
+		
+		private int newNode() {
+			if (size == terminal.length) {
+				children = Arrays.copyOf(children, 4 * size);
+				terminal = Arrays.copyOf(terminal, 2 * size);
+			}
+			return size++;
+		}
+		
+		private static int bit(byte[] address, int index) {
+			return (address[index >> 3] >> (7 - (index & 7))) & 1;
+		}
+	}
+}
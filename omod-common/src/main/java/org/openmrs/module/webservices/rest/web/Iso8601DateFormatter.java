@@ -0,0 +1,112 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * Formats dates in the default time zone as <code>yyyy-MM-dd'T'HH:mm:ss.SSSZ</code>, the format
+ * {@link ConversionUtil#convertToRepresentation(Object, org.openmrs.module.webservices.rest.web.representation.Representation)}
+ * renders dates in. The characters are written into a small array instead of creating a
+ * {@link SimpleDateFormat}, which compiles its pattern and allocates a calendar each time, and
+ * there is no state that threads would have to share. Dates before the Gregorian calendar was
+ * introduced are still formatted by a {@link SimpleDateFormat}, which renders them in the Julian
+ * calendar.
+ */
+public final class Iso8601DateFormatter {
+	
+	public static final String PATTERN = "yyyy-MM-dd'T'HH:mm:ss.SSSZ";
+	
+	private static final long MILLIS_PER_MINUTE = 60 * 1000L;
+	
+	private static final long MILLIS_PER_DAY = 24 * 60 * MILLIS_PER_MINUTE;
+	
+	/**
+	 * 1582-10-16T00:00:00Z, a day after the Gregorian calendar was introduced, since in time zones
+	 * west of UTC the first Gregorian day still starts in the Julian calendar
+	 */
+	private static final long GREGORIAN_CUTOVER = -12219292800000L + MILLIS_PER_DAY;
+	
+	private Iso8601DateFormatter() {
+	}
+	
+	/**
+	 * @param date
+	 * @return the date formatted as {@link #PATTERN}
+	 * @should format dates like SimpleDateFormat
+	 * @should format dates before the gregorian cutover like SimpleDateFormat
+	 */
+	public static String format(Date date) {
+		long millis = date.getTime();
+		if (millis < GREGORIAN_CUTOVER) {
+			return new SimpleDateFormat(PATTERN).format(date);
+		}
+		
+		int offset = TimeZone.getDefault().getOffset(millis);
+		long local = millis + offset;
+		long epochDay = floorDiv(local, MILLIS_PER_DAY);
+		int millisOfDay = (int) (local - epochDay * MILLIS_PER_DAY);
+		
+		// civil date of the epoch day in the proleptic Gregorian calendar
+		long shifted = epochDay + 719468;
+		long era = floorDiv(shifted, 146097);
+		long dayOfEra = shifted - era * 146097;
+		long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+		long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		long monthIndex = (5 * dayOfYear + 2) / 153;
+		int day = (int) (dayOfYear - (153 * monthIndex + 2) / 5 + 1);
+		int month = (int) (monthIndex < 10 ? monthIndex + 3 : monthIndex - 9);
+		long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+		
+		char[] buffer = new char[32];
+		int pos = 0;
+		String yearDigits = Long.toString(year);
+		for (int i = yearDigits.length(); i < 4; i++) {
+			buffer[pos++] = '0';
+		}
+		yearDigits.getChars(0, yearDigits.length(), buffer, pos);
+		pos += yearDigits.length();
+		buffer[pos++] = '-';
+		pos = writeTwoDigits(buffer, pos, month);
+		buffer[pos++] = '-';
+		pos = writeTwoDigits(buffer, pos, day);
+		buffer[pos++] = 'T';
+		pos = writeTwoDigits(buffer, pos, millisOfDay / 3600000);
+		buffer[pos++] = ':';
+		pos = writeTwoDigits(buffer, pos, millisOfDay / 60000 % 60);
+		buffer[pos++] = ':';
+		pos = writeTwoDigits(buffer, pos, millisOfDay / 1000 % 60);
+		buffer[pos++] = '.';
+		int millisOfSecond = millisOfDay % 1000;
+		buffer[pos++] = (char) ('0' + millisOfSecond / 100);
+		pos = writeTwoDigits(buffer, pos, millisOfSecond % 100);
+		
+		// like SimpleDateFormat, offsets with seconds are truncated to whole minutes
+		int offsetMinutes = (int) (offset / MILLIS_PER_MINUTE);
+		buffer[pos++] = offsetMinutes < 0 ? '-' : '+';
+		offsetMinutes = Math.abs(offsetMinutes);
+		pos = writeTwoDigits(buffer, pos, offsetMinutes / 60);
+		pos = writeTwoDigits(buffer, pos, offsetMinutes % 60);
+		return new String(buffer, 0, pos);
+	}
+	
+	private static int writeTwoDigits(char[] buffer, int pos, int value) {
+		buffer[pos] = (char) ('0' + value / 10);
+		buffer[pos + 1] = (char) ('0' + value % 10);
+		return pos + 2;
+	}
+	
+	private static long floorDiv(long dividend, long divisor) {
+		long quotient = dividend / divisor;
+		return dividend % divisor < 0 ? quotient - 1 : quotient;
+	}
+}
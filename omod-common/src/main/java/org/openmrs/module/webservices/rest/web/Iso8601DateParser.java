@@ -0,0 +1,245 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web;
+
+import java.util.Date;
+
+import org.joda.time.DateTimeZone;
+
+/**
+ * Parses the ISO-8601 dates accepted by {@link ConversionUtil#convert(Object, java.lang.reflect.Type)}
+ * in a single pass over the string, without trying one pattern after the other. The accepted
+ * variants are the ones of the former patterns:
+ * <ul>
+ * <li><code>yyyy-MM-dd'T'HH:mm:ss</code>, optionally followed by a fraction of a second and/or a
+ * time zone offset such as <code>Z</code>, <code>+05</code>, <code>+0530</code> or
+ * <code>+05:30</code></li>
+ * <li><code>yyyy-MM-dd HH:mm:ss</code></li>
+ * <li><code>yyyy-MM-dd</code></li>
+ * </ul>
+ * Like Joda-Time the year may be signed and the fields may have fewer digits than the pattern shows,
+ * e.g. a fraction of one or two digits is read as tenths or hundredths of a second. Dates without an
+ * offset are in the default time zone.
+ */
+public final class Iso8601DateParser {
+	
+	private static final long INVALID = Long.MIN_VALUE;
+	
+	private static final int NO_OFFSET = Integer.MIN_VALUE;
+	
+	private static final int MIN_YEAR = -292275054;
+	
+	private static final int MAX_YEAR = 292278993;
+	
+	private static final long MILLIS_PER_MINUTE = 60 * 1000L;
+	
+	private static final long MILLIS_PER_DAY = 24 * 60 * MILLIS_PER_MINUTE;
+	
+	private final String text;
+	
+	private int pos;
+	
+	private Iso8601DateParser(String text) {
+		this.text = text;
+	}
+	
+	/**
+	 * @param text
+	 * @return the parsed date or null if text is not in one of the supported formats or has a field
+	 *         out of range
+	 * @should parse every format the joda patterns accepted
+	 * @should apply the time zone offset
+	 * @should use the default time zone without an offset
+	 * @should return null for unsupported formats
+	 * @should return null for fields out of range
+	 */
+	public static Date parse(String text) {
+		if (text == null) {
+			return null;
+		}
+		long millis = new Iso8601DateParser(text).parseMillis();
+		return millis == INVALID ? null : new Date(millis);
+	}
+	
+	private long parseMillis() {
+		boolean negative = literal('-');
+		if (!negative) {
+			literal('+');
+		}
+		int year = number(1, 9);
+		if (year < 0) {
+			return INVALID;
+		}
+		if (negative) {
+			year = -year;
+		}
+		if (year < MIN_YEAR || year > MAX_YEAR || !literal('-')) {
+			return INVALID;
+		}
+		int month = number(1, 2);
+		if (month < 1 || month > 12 || !literal('-')) {
+			return INVALID;
+		}
+		int day = number(1, 2);
+		if (day < 1 || day > daysInMonth(year, month)) {
+			return INVALID;
+		}
+		if (pos == text.length()) {
+			return toInstant(epochDay(year, month, day) * MILLIS_PER_DAY, NO_OFFSET);
+		}
+		
+		char separator = text.charAt(pos++);
+		if (separator != 'T' && separator != ' ') {
+			return INVALID;
+		}
+		int hour = number(1, 2);
+		if (hour < 0 || hour > 23 || !literal(':')) {
+			return INVALID;
+		}
+		int minute = number(1, 2);
+		if (minute < 0 || minute > 59 || !literal(':')) {
+			return INVALID;
+		}
+		int second = number(1, 2);
+		if (second < 0 || second > 59) {
+			return INVALID;
+		}
+		
+		int millisOfSecond = 0;
+		int offset = NO_OFFSET;
+		if (separator == 'T') {
+			if (literal('.')) {
+				millisOfSecond = fraction();
+				if (millisOfSecond < 0) {
+					return INVALID;
+				}
+			}
+			if (pos < text.length()) {
+				offset = offset();
+				if (offset == NO_OFFSET) {
+					return INVALID;
+				}
+			}
+		}
+		if (pos != text.length()) {
+			return INVALID;
+		}
+		
+		long local = epochDay(year, month, day) * MILLIS_PER_DAY + ((hour * 60L + minute) * 60 + second) * 1000
+		        + millisOfSecond;
+		return toInstant(local, offset);
+	}
+	
+	/**
+	 * Converts local milliseconds to an instant, rejecting local times that do not exist in the
+	 * default time zone the same way Joda-Time does
+	 */
+	private static long toInstant(long local, int offset) {
+		if (offset != NO_OFFSET) {
+			return local - offset;
+		}
+		DateTimeZone zone = DateTimeZone.getDefault();
+		int zoneOffset = zone.getOffsetFromLocal(local);
+		long instant = local - zoneOffset;
+		return zoneOffset == zone.getOffset(instant) ? instant : INVALID;
+	}
+	
+	/**
+	 * @return the value of the next minDigits to maxDigits digits or -1 if there are fewer
+	 */
+	private int number(int minDigits, int maxDigits) {
+		int value = 0;
+		int digits = 0;
+		while (digits < maxDigits && pos < text.length()) {
+			int digit = text.charAt(pos) - '0';
+			if (digit < 0 || digit > 9) {
+				break;
+			}
+			value = value * 10 + digit;
+			pos++;
+			digits++;
+		}
+		return digits < minDigits ? -1 : value;
+	}
+	
+	/**
+	 * @return the milliseconds of the next one to three digits of a fraction of a second or -1 if
+	 *         there are none
+	 */
+	private int fraction() {
+		int start = pos;
+		int value = number(1, 3);
+		if (value < 0) {
+			return -1;
+		}
+		for (int digits = pos - start; digits < 3; digits++) {
+			value *= 10;
+		}
+		return value;
+	}
+	
+	/**
+	 * @return the offset in milliseconds or {@link #NO_OFFSET} if the rest of the text is not one
+	 */
+	private int offset() {
+		char sign = text.charAt(pos++);
+		if (sign == 'Z') {
+			return 0;
+		}
+		if (sign != '+' && sign != '-') {
+			return NO_OFFSET;
+		}
+		int hours = number(2, 2);
+		if (hours < 0 || hours > 23) {
+			return NO_OFFSET;
+		}
+		int minutes = 0;
+		if (pos < text.length()) {
+			literal(':');
+			minutes = number(2, 2);
+			if (minutes < 0 || minutes > 59) {
+				return NO_OFFSET;
+			}
+		}
+		int offset = (int) ((hours * 60 + minutes) * MILLIS_PER_MINUTE);
+		return sign == '-' ? -offset : offset;
+	}
+	
+	private boolean literal(char c) {
+		if (pos < text.length() && text.charAt(pos) == c) {
+			pos++;
+			return true;
+		}
+		return false;
+	}
+	
+	private static int daysInMonth(int year, int month) {
+		if (month == 2) {
+			return isLeapYear(year) ? 29 : 28;
+		}
+		return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+	}
+	
+	private static boolean isLeapYear(int year) {
+		return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+	}
+	
+	/**
+	 * @return the days since 1970-01-01 in the proleptic Gregorian calendar, as used by Joda-Time
+	 */
+	private static long epochDay(int year, int month, int day) {
+		long y = month <= 2 ? year - 1 : year;
+		long era = (y >= 0 ? y : y - 399) / 400;
+		long yearOfEra = y - era * 400;
+		long dayOfYear = (153 * ((month + 9) % 12) + 2) / 5 + day - 1;
+		long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		return era * 146097 + dayOfEra - 719468;
+	}
+}
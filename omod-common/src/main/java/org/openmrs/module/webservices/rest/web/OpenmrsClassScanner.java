@@ -9,19 +9,28 @@
  */
 package org.openmrs.module.webservices.rest.web;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Modifier;
+import java.net.URL;
 import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
+import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.openmrs.module.webservices.rest.web.annotation.ResourceIndexProcessor;
 import org.openmrs.util.OpenmrsClassLoader;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
 import org.springframework.core.type.classreading.MetadataReader;
 import org.springframework.core.type.classreading.MetadataReaderFactory;
-import org.springframework.core.type.classreading.SimpleMetadataReaderFactory;
 import org.springframework.core.type.filter.AssignableTypeFilter;
 import org.springframework.core.type.filter.TypeFilter;
 
@@ -34,14 +43,12 @@ public class OpenmrsClassScanner {
 	
 	private static final OpenmrsClassScanner instance = new OpenmrsClassScanner();
 	
-	private final MetadataReaderFactory metadataReaderFactory;
+	private static final String ROOT_PACKAGE = "org/openmrs/";
 	
 	private final ResourcePatternResolver resourceResolver;
 	
 	OpenmrsClassScanner() {
 		
-		this.metadataReaderFactory = new SimpleMetadataReaderFactory(OpenmrsClassLoader.getInstance());
-		
 		this.resourceResolver = new PathMatchingResourcePatternResolver(OpenmrsClassLoader.getInstance());
 		
 	}
@@ -58,62 +65,81 @@ public class OpenmrsClassScanner {
 	
 	/**
 	 * Searches for classes extending or implementing the given type.
+	 * <p>
+	 * Jars and directories with an index of the concrete classes of the type, written by the
+	 * {@link ResourceIndexProcessor} at compile time, are not scanned, the classes listed in the
+	 * index are loaded instead. All other jars and directories are scanned.
 	 * 
 	 * @param <T>
 	 * @param type
 	 * @param concrete true if only concrete classes should be returned
 	 * @return the list of found classes
 	 * @throws IOException
+	 * @should load the classes listed in an index
+	 * @should scan classpath roots without an index
 	 */
 	
 	public <T> List<Class<? extends T>> getClasses(Class<? extends T> type, boolean concrete) throws IOException {
 		
 		List<Class<? extends T>> types = new ArrayList<Class<? extends T>>();
 		
-		String pattern = "classpath*:org/openmrs/**/*.class";
+		Set<String> indexedRoots = new HashSet<String>();
+		
+		if (concrete) {
+			String index = ResourceIndexProcessor.INDEX_DIRECTORY + type.getName();
+			Enumeration<URL> indexes = resourceResolver.getClassLoader().getResources(index);
+			while (indexes.hasMoreElements()) {
+				URL url = indexes.nextElement();
+				indexedRoots.add(getRoot(url, index));
+				for (String classname : readIndex(url)) {
+					try {
+						Class<? extends T> indexed = loadClass(classname);
+						if (type.isAssignableFrom(indexed) && !indexed.isInterface()
+						        && !Modifier.isAbstract(indexed.getModifiers())) {
+							types.add(indexed);
+						}
+					}
+					catch (IOException e) {
+						log.debug("Indexed class cannot be loaded: " + classname);
+					}
+				}
+			}
+		}
 		
-		Resource[] resources = resourceResolver.getResources(pattern);
+		// superclasses and interfaces are read once for all classes rather than for each one
+		MetadataReaderFactory metadataReaderFactory = new CachingMetadataReaderFactory(resourceResolver);
 		
 		TypeFilter typeFilter = new AssignableTypeFilter(type);
 		
-		for (Resource resource : resources) {
+		for (Resource root : resourceResolver.getResources("classpath*:" + ROOT_PACKAGE)) {
 			
-			try {
-				
-				MetadataReader metadataReader = metadataReaderFactory.getMetadataReader(resource);
+			String rootUrl = root.getURL().toString();
+			
+			if (indexedRoots.contains(getRoot(root.getURL(), ROOT_PACKAGE))) {
+				log.debug("Not scanning " + rootUrl + ", it has an index");
+				continue;
+			}
+			
+			for (Resource resource : resourceResolver.getResources(rootUrl + "**/*.class")) {
 				
-				if (typeFilter.match(metadataReader, metadataReaderFactory)) {
+				try {
 					
-					if (concrete == metadataReader.getClassMetadata().isConcrete()) {
-						
-						String classname = metadataReader.getClassMetadata().getClassName();
-						
-						try {
-							
-							@SuppressWarnings("unchecked")
-							Class<? extends T> metadata = (Class<? extends T>) OpenmrsClassLoader.getInstance().loadClass(
-							
-							classname);
-							
-							types.add(metadata);
-							
-						}
+					MetadataReader metadataReader = metadataReaderFactory.getMetadataReader(resource);
+					
+					if (typeFilter.match(metadataReader, metadataReaderFactory)
+					        && concrete == metadataReader.getClassMetadata().isConcrete()) {
 						
-						catch (ClassNotFoundException e) {
-							
-							throw new IOException("Class cannot be loaded: " + classname, e);
-							
-						}
+						types.add(this.<T> loadClass(metadataReader.getClassMetadata().getClassName()));
 						
 					}
 					
 				}
 				
-			}
-			
-			catch (IOException e) {
-				
-				log.debug("Resource cannot be loaded: " + resource);
+				catch (IOException e) {
+					
+					log.debug("Resource cannot be loaded: " + resource);
+					
+				}
 				
 			}
 			
@@ -122,4 +148,38 @@ public class OpenmrsClassScanner {
 		return types;
 		
 	}
+	
+	@SuppressWarnings("unchecked")
+	private <T> Class<? extends T> loadClass(String classname) throws IOException {
+		try {
+			return (Class<? extends T>) OpenmrsClassLoader.getInstance().loadClass(classname);
+		}
+		catch (ClassNotFoundException e) {
+			throw new IOException("Class cannot be loaded: " + classname, e);
+		}
+	}
+	
+	/**
+	 * @return the URL of the jar or directory holding the given file, without the file's path
+	 */
+	private static String getRoot(URL url, String path) {
+		String location = url.toString();
+		return location.endsWith(path) ? location.substring(0, location.length() - path.length()) : location;
+	}
+	
+	private static List<String> readIndex(URL url) throws IOException {
+		List<String> classnames = new ArrayList<String>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream(), "UTF-8"));
+		try {
+			for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+				if (StringUtils.isNotBlank(line)) {
+					classnames.add(line.trim());
+				}
+			}
+		}
+		finally {
+			reader.close();
+		}
+		return classnames;
+	}
 }
@@ -33,6 +33,8 @@ public class RequestContext {
 	
 	private Integer startIndex = 0;
 	
+	private String cursor;
+	
 	private Integer limit = RestUtil.getDefaultLimit();
 	
 	private Boolean includeAll = false;
@@ -162,6 +164,25 @@ public class RequestContext {
 		this.startIndex = startIndex;
 	}
 	
+	/**
+	 * Should be used by methods that support keyset paging to continue after the last result of the
+	 * previous page. Set by users in a request parameter
+	 * 
+	 * @return the cursor, an empty string for the first page, or null if keyset paging was not
+	 *         requested
+	 * @see RestConstants#REQUEST_PROPERTY_FOR_CURSOR
+	 */
+	public String getCursor() {
+		return cursor;
+	}
+	
+	/**
+	 * @param cursor the cursor to set
+	 */
+	public void setCursor(String cursor) {
+		this.cursor = cursor;
+	}
+	
 	/**
 	 * (Assumes this was a search query)
 	 * 
@@ -173,6 +194,24 @@ public class RequestContext {
 		return new Hyperlink("next", request.getRequestURL().append(query).toString());
 	}
 	
+	/**
+	 * (Assumes this was a search query)
+	 * 
+	 * @param nextCursor the cursor pointing after the last result of this page
+	 * @return the hyperlink you would GET to fetch the next page of results for the query
+	 * @should replace the cursor and startIndex parameters
+	 */
+	public Hyperlink getNextLink(String nextCursor) {
+		String query = getQueryWithoutStartIndex();
+		try {
+			query += RestConstants.REQUEST_PROPERTY_FOR_CURSOR + "=" + URLEncoder.encode(nextCursor, "UTF-8");
+		}
+		catch (UnsupportedEncodingException ex) {
+			throw new RuntimeException("UTF-8 encoding should always be supported", ex);
+		}
+		return new Hyperlink("next", request.getRequestURL().append(query).toString());
+	}
+	
 	/**
 	 * (Assumes this was a search query)
 	 * 
@@ -189,15 +228,16 @@ public class RequestContext {
 	}
 	
 	/**
-	 * @return the query string from this request, with the startIndex query parameter removed if it
-	 *         was present
+	 * @return the query string from this request, with the startIndex and cursor query parameters
+	 *         removed if they were present
 	 */
 	@SuppressWarnings("unchecked")
 	private String getQueryWithoutStartIndex() {
 		StringBuilder query = new StringBuilder("?");
 		for (Map.Entry<String, String[]> e : ((Map<String, String[]>) (request.getParameterMap())).entrySet()) {
 			String param = e.getKey();
-			if (RestConstants.REQUEST_PROPERTY_FOR_START_INDEX.equals(param)) {
+			if (RestConstants.REQUEST_PROPERTY_FOR_START_INDEX.equals(param)
+			        || RestConstants.REQUEST_PROPERTY_FOR_CURSOR.equals(param)) {
 				continue;
 			}
 			for (int i = 0; i < e.getValue().length; ++i) {
@@ -37,6 +37,57 @@ public class RestConstants {
 	 */
 	public static Integer MAX_RESULTS_ABSOLUTE = 100;
 	
+	/**
+	 * The maximum number of converted metadata representations kept in memory
+	 * 
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.RepresentationCache
+	 */
+	public static int REPRESENTATION_CACHE_SIZE = 1000;
+	
+	/**
+	 * The maximum number of parsed custom representations, and of the plans compiled from them, kept
+	 * in memory
+	 * 
+	 * @see org.openmrs.module.webservices.rest.web.representation.CustomRepresentationParser
+	 */
+	public static int CUSTOM_REPRESENTATION_CACHE_SIZE = 500;
+	
+	/**
+	 * The maximum number of request parameter combinations per resource whose matching search
+	 * handlers are remembered
+	 * 
+	 * @see org.openmrs.module.webservices.rest.web.api.impl.SearchHandlerIndex
+	 */
+	public static int SEARCH_HANDLER_MATCH_CACHE_SIZE = 1000;
+	
+	/**
+	 * The maximum number of resource, operation and representation combinations metrics are kept
+	 * for, requests of further combinations are not measured
+	 * 
+	 * @see org.openmrs.module.webservices.rest.web.metrics.RestMetrics
+	 */
+	public static int MAX_OPERATION_METRICS = 1000;
+	
+	/**
+	 * The maximum number of generated Swagger specifications kept in memory, one is generated for
+	 * each base URL the documentation is opened with
+	 * 
+	 * @see org.openmrs.module.webservices.docs.swagger.SwaggerSpecificationCache
+	 */
+	public static int SWAGGER_SPECIFICATION_CACHE_SIZE = 10;
+	
+	/**
+	 * The number of objects an export reads at a time, the session is cleared after each batch
+	 * 
+	 * @see org.openmrs.module.webservices.rest.web.resource.api.Exportable
+	 */
+	public static int EXPORT_BATCH_SIZE = 500;
+	
+	/**
+	 * The content type of exports, one JSON object per line
+	 */
+	public static final String NDJSON_CONTENT_TYPE = "application/x-ndjson";
+	
 	//module id or name
 	public static final String MODULE_ID = "webservices.rest";
 	
@@ -63,6 +114,34 @@ public class RestConstants {
 	 */
 	public static String ALLOWED_IPS_GLOBAL_PROPERTY_NAME = MODULE_ID + ".allowedips";
 	
+	/**
+	 * The key of the global property that sets for how many seconds a successful HTTP Basic
+	 * authentication may be reused for requests with the same Authorization header. 0 (the default)
+	 * disables the cache.
+	 */
+	public static String AUTHENTICATION_CACHE_TTL_GLOBAL_PROPERTY_NAME = MODULE_ID + ".authenticationCacheTtl";
+	
+	/**
+	 * The key of the global property that sets after how many objects a bulk create flushes the
+	 * Hibernate session
+	 * 
+	 * @see #BULK_CREATE_BATCH_SIZE
+	 */
+	public static String BULK_CREATE_BATCH_SIZE_GLOBAL_PROPERTY_NAME = MODULE_ID + ".bulkCreateBatchSize";
+	
+	/**
+	 * The default for {@link #BULK_CREATE_BATCH_SIZE_GLOBAL_PROPERTY_NAME}
+	 */
+	public static Integer BULK_CREATE_BATCH_SIZE = 50;
+	
+	/**
+	 * The key of the global property that turns on measuring the bytes each request allocates, in
+	 * addition to its latency
+	 * 
+	 * @see org.openmrs.module.webservices.rest.web.metrics.RestMetrics
+	 */
+	public static String METRICS_ALLOCATED_BYTES_GLOBAL_PROPERTY_NAME = MODULE_ID + ".metricsAllocatedBytes";
+	
 	/**
 	 * The version number for the first rest web services representations
 	 */
@@ -101,6 +180,15 @@ public class RestConstants {
 	 */
 	public static String REQUEST_PROPERTY_FOR_START_INDEX = "startIndex";
 	
+	/**
+	 * An optional request parameter used by methods that support keyset paging. Its value is the
+	 * opaque cursor from the next link of the previous page, or empty to fetch the first page.
+	 * 
+	 * @see RequestContext#getCursor()
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.CursorPaged
+	 */
+	public static String REQUEST_PROPERTY_FOR_CURSOR = "cursor";
+	
 	/**
 	 * An optional request parameter used by rest methods. Will change the properties on the
 	 * results. Default is "default"
@@ -186,6 +274,7 @@ public class RestConstants {
 		SPECIAL_REQUEST_PARAMETERS.add(REQUEST_PROPERTY_FOR_LIMIT);
 		SPECIAL_REQUEST_PARAMETERS.add(REQUEST_PROPERTY_FOR_REPRESENTATION);
 		SPECIAL_REQUEST_PARAMETERS.add(REQUEST_PROPERTY_FOR_START_INDEX);
+		SPECIAL_REQUEST_PARAMETERS.add(REQUEST_PROPERTY_FOR_CURSOR);
 		SPECIAL_REQUEST_PARAMETERS.add(REQUEST_PROPERTY_FOR_TYPE);
 		SPECIAL_REQUEST_PARAMETERS.add(REQUEST_PROPERTY_FOR_JSESSIONID);
 		SPECIAL_REQUEST_PARAMETERS.add(REQUEST_PROPERTY_FOR_SEARCH_ID);
@@ -0,0 +1,204 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.api.AdministrationService;
+
+/**
+ * An immutable snapshot of the global properties of the REST module. {@link RestUtil} keeps the
+ * current snapshot and replaces it whenever one of these properties changes, so requests read the
+ * settings without looking up any global property. The URI prefix is not part of the snapshot,
+ * it is kept in {@link RestConstants#URI_PREFIX} by {@link RestUtil#setUriPrefix()}.
+ */
+public class RestSettings {
+	
+	private static final Log log = LogFactory.getLog(RestSettings.class);
+	
+	/**
+	 * The global properties held by a snapshot
+	 */
+	public static final List<String> PROPERTY_NAMES = Collections.unmodifiableList(Arrays.asList(
+	    RestConstants.MAX_RESULTS_DEFAULT_GLOBAL_PROPERTY_NAME, RestConstants.MAX_RESULTS_ABSOLUTE_GLOBAL_PROPERTY_NAME,
+	    RestConstants.ALLOWED_IPS_GLOBAL_PROPERTY_NAME, RestConstants.SWAGGER_QUIET_DOCS_GLOBAL_PROPERTY_NAME,
+	    RestConstants.AUTHENTICATION_CACHE_TTL_GLOBAL_PROPERTY_NAME,
+	    RestConstants.BULK_CREATE_BATCH_SIZE_GLOBAL_PROPERTY_NAME,
+	    RestConstants.METRICS_ALLOCATED_BYTES_GLOBAL_PROPERTY_NAME));
+	
+	private final Map<String, String> values;
+	
+	private final Integer defaultLimit;
+	
+	private final Integer absoluteLimit;
+	
+	private final List<String> allowedIps;
+	
+	private final IpAllowList allowedIpList;
+	
+	private final boolean quietDocs;
+	
+	private final int authenticationCacheTtl;
+	
+	private final int bulkCreateBatchSize;
+	
+	private final boolean metricsAllocatedBytes;
+	
+	/**
+	 * @param values the global property values by property name, missing properties use the
+	 *            defaults
+	 */
+	public RestSettings(Map<String, String> values) {
+		this.values = Collections.unmodifiableMap(new HashMap<String, String>(values));
+		defaultLimit = parseLimit(RestConstants.MAX_RESULTS_DEFAULT_GLOBAL_PROPERTY_NAME, RestConstants.MAX_RESULTS_DEFAULT);
+		absoluteLimit = parseLimit(RestConstants.MAX_RESULTS_ABSOLUTE_GLOBAL_PROPERTY_NAME,
+		    RestConstants.MAX_RESULTS_ABSOLUTE);
+		allowedIps = parseAllowedIps(values.get(RestConstants.ALLOWED_IPS_GLOBAL_PROPERTY_NAME));
+		allowedIpList = compileAllowedIps(allowedIps);
+		quietDocs = "true".equals(values.get(RestConstants.SWAGGER_QUIET_DOCS_GLOBAL_PROPERTY_NAME));
+		authenticationCacheTtl = parseLimit(RestConstants.AUTHENTICATION_CACHE_TTL_GLOBAL_PROPERTY_NAME, 0);
+		int batchSize = parseLimit(RestConstants.BULK_CREATE_BATCH_SIZE_GLOBAL_PROPERTY_NAME,
+		    RestConstants.BULK_CREATE_BATCH_SIZE);
+		bulkCreateBatchSize = batchSize > 0 ? batchSize : RestConstants.BULK_CREATE_BATCH_SIZE;
+		metricsAllocatedBytes = "true".equals(values.get(RestConstants.METRICS_ALLOCATED_BYTES_GLOBAL_PROPERTY_NAME));
+	}
+	
+	/**
+	 * Reads all settings from the database
+	 * 
+	 * @param administrationService
+	 * @return the current settings
+	 */
+	public static RestSettings load(AdministrationService administrationService) {
+		Map<String, String> values = new HashMap<String, String>();
+		for (String propertyName : PROPERTY_NAMES) {
+			values.put(propertyName, administrationService.getGlobalProperty(propertyName));
+		}
+		return new RestSettings(values);
+	}
+	
+	/**
+	 * @param propertyName
+	 * @param value the new value, or null if the property was deleted
+	 * @return a copy of these settings with one property changed
+	 * @should change only the given property
+	 */
+	public RestSettings withValue(String propertyName, String value) {
+		Map<String, String> newValues = new HashMap<String, String>(values);
+		newValues.put(propertyName, value);
+		return new RestSettings(newValues);
+	}
+	
+	/**
+	 * @return the number of results to limit lists to if the request does not specify a limit
+	 * @see RestConstants#MAX_RESULTS_DEFAULT_GLOBAL_PROPERTY_NAME
+	 */
+	public Integer getDefaultLimit() {
+		return defaultLimit;
+	}
+	
+	/**
+	 * @return the number of results no request may exceed
+	 * @see RestConstants#MAX_RESULTS_ABSOLUTE_GLOBAL_PROPERTY_NAME
+	 */
+	public Integer getAbsoluteLimit() {
+		return absoluteLimit;
+	}
+	
+	/**
+	 * @return the IPs and IP ranges allowed to access the API, or an empty list if all are allowed
+	 * @see RestConstants#ALLOWED_IPS_GLOBAL_PROPERTY_NAME
+	 */
+	public List<String> getAllowedIps() {
+		return allowedIps;
+	}
+	
+	/**
+	 * @return the compiled {@link #getAllowedIps()}, which allows no address at all if the setting
+	 *         is invalid
+	 */
+	public IpAllowList getAllowedIpList() {
+		return allowedIpList;
+	}
+	
+	/**
+	 * @return whether logging is silenced while the Swagger documentation is built
+	 * @see RestConstants#SWAGGER_QUIET_DOCS_GLOBAL_PROPERTY_NAME
+	 */
+	public boolean isQuietDocs() {
+		return quietDocs;
+	}
+	
+	/**
+	 * @return the number of seconds a successful Basic authentication may be reused, 0 if it may not
+	 * @see RestConstants#AUTHENTICATION_CACHE_TTL_GLOBAL_PROPERTY_NAME
+	 */
+	public int getAuthenticationCacheTtl() {
+		return authenticationCacheTtl;
+	}
+	
+	/**
+	 * @return after how many objects a bulk create flushes the session, always positive
+	 * @see RestConstants#BULK_CREATE_BATCH_SIZE_GLOBAL_PROPERTY_NAME
+	 */
+	public int getBulkCreateBatchSize() {
+		return bulkCreateBatchSize;
+	}
+	
+	/**
+	 * @return whether the bytes allocated by each request are measured
+	 * @see RestConstants#METRICS_ALLOCATED_BYTES_GLOBAL_PROPERTY_NAME
+	 */
+	public boolean isMetricsAllocatedBytes() {
+		return metricsAllocatedBytes;
+	}
+	
+	private Integer parseLimit(String propertyName, Integer defaultValue) {
+		String limit = values.get(propertyName);
+		if (StringUtils.isNotEmpty(limit)) {
+			try {
+				return Integer.parseInt(limit);
+			}
+			catch (NumberFormatException nfex) {
+				log.error(propertyName + " must be an integer. " + nfex.getMessage());
+				return defaultValue;
+			}
+		} else {
+			return defaultValue;
+		}
+	}
+	
+	private static IpAllowList compileAllowedIps(List<String> allowedIps) {
+		try {
+			return IpAllowList.compile(allowedIps);
+		}
+		catch (IllegalArgumentException e) {
+			log.error(RestConstants.ALLOWED_IPS_GLOBAL_PROPERTY_NAME + " is invalid, denying access to all IPs. "
+			        + e.getMessage());
+			return IpAllowList.DENY_ALL;
+		}
+	}
+	
+	private static List<String> parseAllowedIps(String allowedIpsProperty) {
+		if (StringUtils.isEmpty(allowedIpsProperty)) {
+			return Collections.emptyList();
+		} else {
+			String[] allowedIps = allowedIpsProperty.split("[\\s,]+");
+			return Collections.unmodifiableList(Arrays.asList(allowedIps));
+		}
+	}
+}
@@ -11,12 +11,9 @@ package org.openmrs.module.webservices.rest.web;
 
 import java.io.File;
 import java.io.IOException;
-import java.net.InetAddress;
 import java.net.URISyntaxException;
 import java.net.URL;
-import java.net.UnknownHostException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
@@ -38,14 +35,18 @@ import org.apache.commons.logging.LogFactory;
 import org.openmrs.GlobalProperty;
 import org.openmrs.OpenmrsData;
 import org.openmrs.OpenmrsMetadata;
+import org.openmrs.api.APIAuthenticationException;
 import org.openmrs.api.GlobalPropertyListener;
 import org.openmrs.api.context.Context;
 import org.openmrs.messagesource.MessageSourceService;
+import org.openmrs.module.ModuleUtil;
 import org.openmrs.module.webservices.rest.SimpleObject;
 import org.openmrs.module.webservices.rest.web.api.RestService;
 import org.openmrs.module.webservices.rest.web.representation.Representation;
+import org.openmrs.module.webservices.rest.web.resource.impl.RepresentationCache;
 import org.openmrs.module.webservices.validation.ValidationException;
 import org.openmrs.util.OpenmrsClassLoader;
+import org.openmrs.util.OpenmrsConstants;
 import org.springframework.validation.FieldError;
 import org.springframework.validation.ObjectError;
 import org.springframework.web.bind.ServletRequestBindingException;
@@ -63,51 +64,49 @@ public class RestUtil implements GlobalPropertyListener {
 	private static boolean contextEnabled = true;
 	
 	/**
-	 * Looks up the admin defined global property for the system limit
+	 * The current settings, or null if they have to be read from the database
+	 */
+	private static volatile RestSettings settings;
+	
+	/**
+	 * Gets the current snapshot of the REST module's global properties. The snapshot is read once
+	 * and then kept up to date by {@link #globalPropertyChanged(GlobalProperty)} and
+	 * {@link #globalPropertyDeleted(String)}.
+	 * 
+	 * @return the current settings
+	 */
+	public static RestSettings getSettings() {
+		RestSettings current = settings;
+		if (current == null) {
+			if (!contextEnabled) {
+				return new RestSettings(Collections.<String, String> emptyMap());
+			}
+			current = RestSettings.load(Context.getAdministrationService());
+			settings = current;
+		}
+		return current;
+	}
+	
+	/**
+	 * Returns the admin defined global property for the system limit
 	 * 
 	 * @return Integer limit
 	 * @see #getLimit(WebRequest)
 	 * @see RestConstants#MAX_RESULTS_DEFAULT_GLOBAL_PROPERTY_NAME
 	 */
 	public static Integer getDefaultLimit() {
-		String limit = Context.getAdministrationService().getGlobalProperty(
-		    RestConstants.MAX_RESULTS_DEFAULT_GLOBAL_PROPERTY_NAME);
-		if (StringUtils.isNotEmpty(limit)) {
-			try {
-				return Integer.parseInt(limit);
-			}
-			catch (NumberFormatException nfex) {
-				log.error(RestConstants.MAX_RESULTS_DEFAULT_GLOBAL_PROPERTY_NAME + " must be an integer. "
-				        + nfex.getMessage());
-				return RestConstants.MAX_RESULTS_DEFAULT;
-			}
-		} else {
-			return RestConstants.MAX_RESULTS_DEFAULT;
-		}
+		return getSettings().getDefaultLimit();
 	}
 	
 	/**
-	 * Looks up the admin defined global property for the absolute limit to results of REST calls
+	 * Returns the admin defined global property for the absolute limit to results of REST calls
 	 * 
 	 * @return Integer limit
 	 * @see #getLimit(WebRequest)
 	 * @see RestConstants#MAX_RESULTS_ABSOLUTE_GLOBAL_PROPERTY_NAME
 	 */
 	public static Integer getAbsoluteLimit() {
-		String limit = Context.getAdministrationService().getGlobalProperty(
-		    RestConstants.MAX_RESULTS_ABSOLUTE_GLOBAL_PROPERTY_NAME);
-		if (StringUtils.isNotEmpty(limit)) {
-			try {
-				return Integer.parseInt(limit);
-			}
-			catch (NumberFormatException nfex) {
-				log.error(RestConstants.MAX_RESULTS_ABSOLUTE_GLOBAL_PROPERTY_NAME + " must be an integer. "
-				        + nfex.getMessage());
-				return RestConstants.MAX_RESULTS_ABSOLUTE;
-			}
-		} else {
-			return RestConstants.MAX_RESULTS_ABSOLUTE;
-		}
+		return getSettings().getAbsoluteLimit();
 	}
 	
 	/**
@@ -119,11 +118,12 @@ public class RestUtil implements GlobalPropertyListener {
 	 * @see RestConstants#ALLOWED_IPS_GLOBAL_PROPERTY_NAME
 	 */
 	public static boolean isIpAllowed(String ip) {
-		return ipMatches(ip, getAllowedIps());
+		return getSettings().getAllowedIpList().matches(ip);
 	}
 	
 	/**
-	 * Tests whether or not there is a match between the given IP address and the candidates.
+	 * Tests whether or not there is a match between the given IP address and the candidates. The
+	 * candidates are compiled on each call, so use an {@link IpAllowList} to match repeatedly.
 	 * 
 	 * @param ip
 	 * @param candidateIps
@@ -137,65 +137,7 @@ public class RestUtil implements GlobalPropertyListener {
 	 * @should throw IllegalArgumentException for invalid mask
 	 */
 	public static boolean ipMatches(String ip, List<String> candidateIps) {
-		if (candidateIps.isEmpty()) {
-			return true;
-		}
-		
-		InetAddress address;
-		try {
-			address = InetAddress.getByName(ip);
-		}
-		catch (UnknownHostException e) {
-			throw new IllegalArgumentException("Invalid IP in the ip parameter" + ip, e);
-		}
-		
-		for (String candidateIp : candidateIps) {
-			// split IP and mask
-			String[] candidateIpPattern = candidateIp.split("/");
-			
-			InetAddress candidateAddress;
-			try {
-				candidateAddress = InetAddress.getByName(candidateIpPattern[0]);
-			}
-			catch (UnknownHostException e) {
-				throw new IllegalArgumentException("Invalid IP in the candidateIps parameter", e);
-			}
-			
-			if (candidateIpPattern.length == 1) { // there's no mask
-				if (address.equals(candidateAddress)) {
-					return true;
-				}
-			} else {
-				if (address.getAddress().length != candidateAddress.getAddress().length) {
-					continue;
-				}
-				
-				int bits = Integer.parseInt(candidateIpPattern[1]);
-				if (candidateAddress.getAddress().length < Math.ceil((double) bits / 8)) {
-					throw new IllegalArgumentException("Invalid mask " + bits + " for IP " + candidateIp
-					        + " in the candidateIps parameter");
-				}
-				
-				// compare bytes based on the given mask
-				boolean matched = true;
-				for (int bytes = 0; bits > 0; bytes++, bits -= 8) {
-					int mask = 0x000000FF; // mask the entire byte
-					if (bits < 8) {
-						// mask only some first bits of a byte
-						mask = (mask << (8 - bits));
-					}
-					if ((address.getAddress()[bytes] & mask) != (candidateAddress.getAddress()[bytes] & mask)) {
-						matched = false;
-						break;
-					}
-				}
-				if (matched) {
-					return true;
-				}
-			}
-			
-		}
-		return false;
+		return IpAllowList.compile(candidateIps).matches(ip);
 	}
 	
 	/**
@@ -210,15 +152,7 @@ public class RestUtil implements GlobalPropertyListener {
 	 * @return the list of IPs
 	 */
 	public static List<String> getAllowedIps() {
-		String allowedIpsProperty = Context.getAdministrationService().getGlobalProperty(
-		    RestConstants.ALLOWED_IPS_GLOBAL_PROPERTY_NAME, "");
-		
-		if (allowedIpsProperty.isEmpty()) {
-			return Collections.emptyList();
-		} else {
-			String[] allowedIps = allowedIpsProperty.split("[\\s,]+");
-			return Arrays.asList(allowedIps);
-		}
+		return getSettings().getAllowedIps();
 	}
 	
 	/*
@@ -469,6 +403,9 @@ public class RestUtil implements GlobalPropertyListener {
 			ret.setStartIndex(startIndex);
 		}
 		
+		// fetch the cursor param, an empty value asks for the first page
+		ret.setCursor(request.getParameter(RestConstants.REQUEST_PROPERTY_FOR_CURSOR));
+		
 		Boolean includeAll = getBooleanParam(request, RestConstants.REQUEST_PROPERTY_FOR_INCLUDE_ALL);
 		if (includeAll != null) {
 			ret.setIncludeAll(includeAll);
@@ -561,6 +498,47 @@ public class RestUtil implements GlobalPropertyListener {
 		return "";
 	}
 	
+	/**
+	 * Sets the HTTP status to NOT_MODIFIED
+	 * 
+	 * @param response
+	 * @return an empty object
+	 */
+	public static Object notModified(HttpServletResponse response) {
+		response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+		return "";
+	}
+	
+	/**
+	 * Tells whether the If-None-Match header of a conditional GET request matches the current ETag
+	 * of the requested object, i.e. whether the client's copy is still current
+	 * 
+	 * @param request
+	 * @param etag the current ETag, including the quotes
+	 * @return true if the request has an If-None-Match header that matches etag
+	 * @should return false if there is no If-None-Match header
+	 * @should return true if any of the listed etags matches
+	 * @should ignore the weak prefix
+	 * @should return true for a wildcard
+	 * @should return false if no etag matches
+	 */
+	public static boolean isNotModified(HttpServletRequest request, String etag) {
+		String ifNoneMatch = request.getHeader("If-None-Match");
+		if (ifNoneMatch == null) {
+			return false;
+		}
+		for (String candidate : ifNoneMatch.split(",")) {
+			candidate = candidate.trim();
+			if (candidate.startsWith("W/")) {
+				candidate = candidate.substring(2);
+			}
+			if (candidate.equals("*") || candidate.equals(etag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
 	/**
 	 * Sets the HTTP status for CREATED and (if 'created' has a uri) the Location header attribute
 	 * 
@@ -617,6 +595,9 @@ public class RestUtil implements GlobalPropertyListener {
 		}
 		
 		RestConstants.URI_PREFIX = RestConstants.URI_PREFIX + "ws/rest/";
+		
+		// cached representations contain links with the old prefix
+		RepresentationCache.clear();
 	}
 	
 	/**
@@ -665,7 +646,8 @@ public class RestUtil implements GlobalPropertyListener {
 	 */
 	@Override
 	public boolean supportsPropertyName(String propertyName) {
-		return propertyName.equals(RestConstants.URI_PREFIX_GLOBAL_PROPERTY_NAME);
+		return propertyName.equals(RestConstants.URI_PREFIX_GLOBAL_PROPERTY_NAME)
+		        || RestSettings.PROPERTY_NAMES.contains(propertyName);
 	}
 	
 	/**
@@ -673,7 +655,7 @@ public class RestUtil implements GlobalPropertyListener {
 	 */
 	@Override
 	public void globalPropertyChanged(GlobalProperty newValue) {
-		setUriPrefix();
+		updateSettings(newValue.getProperty(), newValue.getPropertyValue());
 	}
 	
 	/**
@@ -681,7 +663,59 @@ public class RestUtil implements GlobalPropertyListener {
 	 */
 	@Override
 	public void globalPropertyDeleted(String propertyName) {
-		setUriPrefix();
+		updateSettings(propertyName, null);
+	}
+	
+	/**
+	 * Replaces the settings snapshot with one in which the given property has the given value
+	 * 
+	 * @param propertyName
+	 * @param value
+	 */
+	private static synchronized void updateSettings(String propertyName, String value) {
+		if (propertyName.equals(RestConstants.URI_PREFIX_GLOBAL_PROPERTY_NAME)) {
+			setUriPrefix();
+			return;
+		}
+		RestSettings current = settings;
+		if (current != null) {
+			settings = current.withValue(propertyName, value);
+		}
+	}
+	
+	/**
+	 * Gets the name of the core privilege to view some kind of objects, core privileges named
+	 * "View ..." were renamed to "Get ..." in platform 1.11
+	 * 
+	 * @param objects the kind of objects, e.g. "Concepts"
+	 * @return the name of the privilege on the running platform, e.g. "View Concepts" or
+	 *         "Get Concepts"
+	 */
+	public static String getViewPrivilege(String objects) {
+		return getViewPrivilege(objects, OpenmrsConstants.OPENMRS_VERSION_SHORT);
+	}
+	
+	/**
+	 * @param objects the kind of objects, e.g. "Concepts"
+	 * @param openmrsVersion the version of the platform
+	 * @return the name of the privilege to view the objects on the given version of the platform
+	 * @should return the view privilege before platform 1.11
+	 * @should return the get privilege since platform 1.11
+	 */
+	static String getViewPrivilege(String objects, String openmrsVersion) {
+		return (ModuleUtil.compareVersion(openmrsVersion, "1.11") < 0 ? "View " : "Get ") + objects;
+	}
+	
+	/**
+	 * Checks a privilege for queries that bypass the service method which would normally check it
+	 * 
+	 * @param privilege
+	 * @throws APIAuthenticationException if the authenticated user does not have the privilege
+	 */
+	public static void requirePrivilege(String privilege) {
+		if (!Context.hasPrivilege(privilege)) {
+			throw new APIAuthenticationException("Privilege required: " + privilege);
+		}
 	}
 	
 	/**
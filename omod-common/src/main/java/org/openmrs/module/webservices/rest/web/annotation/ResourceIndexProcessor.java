@@ -0,0 +1,153 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web.annotation;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Writes the names of the concrete classes annotated with {@link Resource} or {@link SubResource}
+ * to {@link #RESOURCE_INDEX} at compile time, so that
+ * {@link org.openmrs.module.webservices.rest.web.OpenmrsClassScanner} does not have to scan the
+ * jar for resources when the module starts.
+ * <p>
+ * The processor is registered in META-INF/services, so it runs for every project that compiles
+ * against this module. When only some classes are recompiled, the classes of the previous index
+ * that still exist and are still resources are kept.
+ */
+@SupportedAnnotationTypes( { "org.openmrs.module.webservices.rest.web.annotation.Resource",
+        "org.openmrs.module.webservices.rest.web.annotation.SubResource" })
+public class ResourceIndexProcessor extends AbstractProcessor {
+	
+	/**
+	 * The directory of the indexes, each file in it is named after a type and lists the binary
+	 * names of the concrete classes of that type, one per line
+	 */
+	public static final String INDEX_DIRECTORY = "META-INF/webservices.rest/index/";
+	
+	public static final String RESOURCE_INDEX = INDEX_DIRECTORY
+	        + "org.openmrs.module.webservices.rest.web.resource.api.Resource";
+	
+	private final Set<String> resources = new TreeSet<String>();
+	
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+	
+	/**
+	 * @see javax.annotation.processing.AbstractProcessor#process(java.util.Set,
+	 *      javax.annotation.processing.RoundEnvironment)
+	 * @should index the concrete resources and sub resources
+	 * @should skip abstract classes
+	 * @should keep the resources of the previous index when only some classes are recompiled
+	 */
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		if (roundEnv.processingOver()) {
+			if (!resources.isEmpty()) {
+				writeIndex();
+			}
+		} else {
+			for (TypeElement annotation : annotations) {
+				for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+					if (isConcreteResource(element)) {
+						resources.add(getBinaryName(element));
+					}
+				}
+			}
+		}
+		return false;
+	}
+	
+	private void writeIndex() {
+		Set<String> index = new TreeSet<String>(resources);
+		index.addAll(readPreviousIndex());
+		try {
+			FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", RESOURCE_INDEX);
+			Writer writer = file.openWriter();
+			try {
+				for (String resource : index) {
+					writer.write(resource);
+					writer.write('\n');
+				}
+			}
+			finally {
+				writer.close();
+			}
+		}
+		catch (IOException e) {
+			processingEnv.getMessager().printMessage(Kind.WARNING,
+			    "Cannot write " + RESOURCE_INDEX + ", the resources will be found by scanning the classpath: " + e);
+		}
+	}
+	
+	/**
+	 * @return the classes of an index written by an earlier compilation that are still resources
+	 */
+	private Set<String> readPreviousIndex() {
+		Set<String> previous = new TreeSet<String>();
+		try {
+			FileObject file = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", RESOURCE_INDEX);
+			BufferedReader reader = new BufferedReader(file.openReader(true));
+			try {
+				for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+					TypeElement type = processingEnv.getElementUtils().getTypeElement(line.trim().replace('$', '.'));
+					if (type != null && isConcreteResource(type)) {
+						previous.add(getBinaryName(type));
+					}
+				}
+			}
+			finally {
+				reader.close();
+			}
+		}
+		catch (IOException e) {
+			// there is no previous index
+		}
+		catch (IllegalArgumentException e) {
+			// the compiler cannot read from the class output
+		}
+		return previous;
+	}
+	
+	private boolean isConcreteResource(Element element) {
+		if (element.getKind() != ElementKind.CLASS || element.getModifiers().contains(Modifier.ABSTRACT)) {
+			return false;
+		}
+		for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+			String name = annotation.getAnnotationType().toString();
+			if (name.equals(Resource.class.getName()) || name.equals(SubResource.class.getName())) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	private String getBinaryName(Element element) {
+		return processingEnv.getElementUtils().getBinaryName((TypeElement) element).toString();
+	}
+}
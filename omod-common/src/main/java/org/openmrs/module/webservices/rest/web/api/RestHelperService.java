@@ -9,10 +9,15 @@
  */
 package org.openmrs.module.webservices.rest.web.api;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
+import org.hibernate.criterion.Criterion;
+import org.hibernate.criterion.Order;
+import org.hibernate.proxy.HibernateProxy;
 import org.openmrs.ConceptMap;
 import org.openmrs.Patient;
 import org.openmrs.module.webservices.rest.web.resource.api.SearchHandler;
@@ -29,12 +34,109 @@ public interface RestHelperService {
 	
 	<T> List<T> getObjectsByFields(Class<? extends T> type, Field... fields);
 	
+	/**
+	 * Gets objects matching the given fields that come after lastId, ordered by id. Used for keyset
+	 * paging, so the query cost does not depend on how many objects precede lastId.
+	 * 
+	 * @param type
+	 * @param idProperty the name of the id property of type, e.g. obsId
+	 * @param lastId the id to start after, or null to start from the first object
+	 * @param maxResults
+	 * @param fields
+	 * @return the objects
+	 */
+	<T> List<T> getObjectsAfterId(Class<? extends T> type, String idProperty, Integer lastId, int maxResults,
+	        Field... fields);
+	
+	/**
+	 * Gets one page of the objects of the given type that match all restrictions
+	 * 
+	 * @param type
+	 * @param restrictions
+	 * @param orders
+	 * @param firstResult the index of the first object to return
+	 * @param maxResults the maximum number of objects to return
+	 * @return the objects
+	 */
+	<T> List<T> getObjectsByCriteria(Class<? extends T> type, List<Criterion> restrictions, List<Order> orders,
+	        int firstResult, int maxResults);
+	
+	/**
+	 * @param type
+	 * @param restrictions
+	 * @return the number of objects of the given type that match all restrictions
+	 */
+	Long getCountOfObjectsByCriteria(Class<?> type, List<Criterion> restrictions);
+	
+	/**
+	 * Gets the values of some properties of one page of the objects of the given type that match
+	 * all restrictions, without loading the objects
+	 * 
+	 * @param type
+	 * @param restrictions
+	 * @param orders
+	 * @param properties the names of the properties to get
+	 * @param firstResult the index of the first object
+	 * @param maxResults the maximum number of objects
+	 * @return one array of values per object, in the order of properties
+	 */
+	List<Object[]> getPropertiesByCriteria(Class<?> type, List<Criterion> restrictions, List<Order> orders,
+	        String[] properties, int firstResult, int maxResults);
+	
+	/**
+	 * Gets the mapped properties of a type that are stored in its table, i.e. the id and all
+	 * properties that are neither associations, collections nor components
+	 * 
+	 * @param type
+	 * @return the names of the properties, empty if the type is not mapped
+	 */
+	Set<String> getColumnProperties(Class<?> type);
+	
+	/**
+	 * Passes all objects of the given type that match all restrictions to the callback, ordered by
+	 * id. The objects are read in batches that start after the id of the previous batch, and the
+	 * session is cleared after each batch, so the memory used does not depend on how many objects
+	 * match. This also detaches the objects loaded before, so the restrictions should refer to
+	 * other objects by id.
+	 * 
+	 * @param type
+	 * @param restrictions
+	 * @param batchSize the number of objects to read at a time
+	 * @param callback
+	 * @return the number of objects passed to the callback
+	 * @throws IOException if the callback fails
+	 * @should clear the session after each batch
+	 */
+	<T> long processObjectsByCriteria(Class<? extends T> type, List<Criterion> restrictions, int batchSize,
+	        ObjectCallback<? super T> callback) throws IOException;
+	
+	/**
+	 * Initializes the given proxies with one query per entity type instead of one query per proxy.
+	 * 
+	 * @param proxies proxies from the current session, initialized when this method returns
+	 * @should initialize the proxies of each entity type with one query
+	 */
+	void initializeProxies(Collection<HibernateProxy> proxies);
+	
 	List<Patient> getPatients(Collection<Integer> patientIds);
 	
 	List<SearchHandler> getRegisteredSearchHandlers();
 	
 	List<DelegatingSubclassHandler> getRegisteredRegisteredSubclassHandlers();
 	
+	/**
+	 * Receives the objects read by
+	 * {@link RestHelperService#processObjectsByCriteria(Class, List, int, ObjectCallback)}
+	 */
+	public interface ObjectCallback<T> {
+		
+		/**
+		 * @param object an object that is attached to the session until the end of its batch
+		 * @throws IOException
+		 */
+		void process(T object) throws IOException;
+	}
+	
 	public static class Field {
 		
 		private final String name;
@@ -9,17 +9,34 @@
  */
 package org.openmrs.module.webservices.rest.web.api.impl;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.hibernate.CacheMode;
+import org.hibernate.Hibernate;
 import org.hibernate.Criteria;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.criterion.Criterion;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.ProjectionList;
+import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
+import org.hibernate.metadata.ClassMetadata;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.proxy.LazyInitializer;
+import org.hibernate.type.Type;
 import org.openmrs.Patient;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.impl.BaseOpenmrsService;
@@ -35,10 +52,14 @@ import static org.openmrs.api.context.Context.getRegisteredComponents;
  */
 public class RestHelperServiceImpl extends BaseOpenmrsService implements RestHelperService {
 	
+	private static final int MAX_IDS_PER_QUERY = 500;
+	
 	SessionFactory sessionFactory;
 	
 	Method method;
 	
+	private final ConcurrentMap<Class<?>, Set<String>> columnProperties = new ConcurrentHashMap<Class<?>, Set<String>>();
+	
 	public void setSessionFactory(SessionFactory sessionFactory) {
 		this.sessionFactory = sessionFactory;
 	}
@@ -103,6 +124,193 @@ public class RestHelperServiceImpl extends BaseOpenmrsService implements RestHel
 		return criteria.list();
 	}
 	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.api.RestHelperService#getObjectsAfterId(Class,
+	 *      String, Integer, int, Field...)
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	@Transactional(readOnly = true)
+	public <T> List<T> getObjectsAfterId(Class<? extends T> type, String idProperty, Integer lastId, int maxResults,
+	        Field... fields) {
+		Criteria criteria = getSession().createCriteria(type);
+		for (Field field : fields) {
+			if (field != null) {
+				criteria.add(Restrictions.eq(field.getName(), field.getValue()));
+			}
+		}
+		if (lastId != null) {
+			criteria.add(Restrictions.gt(idProperty, lastId));
+		}
+		criteria.addOrder(Order.asc(idProperty));
+		criteria.setMaxResults(maxResults);
+		return criteria.list();
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.api.RestHelperService#getObjectsByCriteria(Class,
+	 *      List, List, int, int)
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	@Transactional(readOnly = true)
+	public <T> List<T> getObjectsByCriteria(Class<? extends T> type, List<Criterion> restrictions, List<Order> orders,
+	        int firstResult, int maxResults) {
+		Criteria criteria = createCriteria(type, restrictions);
+		for (Order order : orders) {
+			criteria.addOrder(order);
+		}
+		criteria.setFirstResult(firstResult);
+		criteria.setMaxResults(maxResults);
+		return criteria.list();
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.api.RestHelperService#getCountOfObjectsByCriteria(Class,
+	 *      List)
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public Long getCountOfObjectsByCriteria(Class<?> type, List<Criterion> restrictions) {
+		Criteria criteria = createCriteria(type, restrictions);
+		criteria.setProjection(Projections.rowCount());
+		return ((Number) criteria.uniqueResult()).longValue();
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.api.RestHelperService#getPropertiesByCriteria(Class,
+	 *      List, List, String[], int, int)
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public List<Object[]> getPropertiesByCriteria(Class<?> type, List<Criterion> restrictions, List<Order> orders,
+	        String[] properties, int firstResult, int maxResults) {
+		Criteria criteria = createCriteria(type, restrictions);
+		ProjectionList projections = Projections.projectionList();
+		for (String property : properties) {
+			projections.add(Projections.property(property));
+		}
+		criteria.setProjection(projections);
+		for (Order order : orders) {
+			criteria.addOrder(order);
+		}
+		criteria.setFirstResult(firstResult);
+		criteria.setMaxResults(maxResults);
+		
+		List<?> rows = criteria.list();
+		List<Object[]> values = new ArrayList<Object[]>(rows.size());
+		for (Object row : rows) {
+			// a single property is not returned in an array
+			values.add(row instanceof Object[] ? (Object[]) row : new Object[] { row });
+		}
+		return values;
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.api.RestHelperService#getColumnProperties(Class)
+	 */
+	@Override
+	public Set<String> getColumnProperties(Class<?> type) {
+		Set<String> properties = columnProperties.get(type);
+		if (properties == null) {
+			properties = new HashSet<String>();
+			ClassMetadata metadata = sessionFactory.getClassMetadata(type);
+			if (metadata != null) {
+				if (metadata.getIdentifierPropertyName() != null) {
+					properties.add(metadata.getIdentifierPropertyName());
+				}
+				String[] names = metadata.getPropertyNames();
+				Type[] types = metadata.getPropertyTypes();
+				for (int i = 0; i < names.length; i++) {
+					if (!types[i].isAssociationType() && !types[i].isCollectionType() && !types[i].isComponentType()) {
+						properties.add(names[i]);
+					}
+				}
+			}
+			properties = Collections.unmodifiableSet(properties);
+			columnProperties.put(type, properties);
+		}
+		return properties;
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.api.RestHelperService#processObjectsByCriteria(Class,
+	 *      List, int, ObjectCallback)
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	@Transactional(readOnly = true)
+	public <T> long processObjectsByCriteria(Class<? extends T> type, List<Criterion> restrictions, int batchSize,
+	        ObjectCallback<? super T> callback) throws IOException {
+		// batches by id instead of one scrollable result: MySQL reads a whole result set into memory
+		// unless it is streamed, and no other query (e.g. for lazy properties) can run while it is
+		String idProperty = sessionFactory.getClassMetadata(type).getIdentifierPropertyName();
+		Serializable lastId = null;
+		long count = 0;
+		List<T> batch;
+		do {
+			Criteria criteria = createCriteria(type, restrictions);
+			if (lastId != null) {
+				criteria.add(Restrictions.gt(idProperty, lastId));
+			}
+			criteria.addOrder(Order.asc(idProperty));
+			criteria.setMaxResults(batchSize);
+			criteria.setCacheMode(CacheMode.IGNORE);
+			batch = criteria.list();
+			for (T object : batch) {
+				callback.process(object);
+			}
+			count += batch.size();
+			if (!batch.isEmpty()) {
+				lastId = getSession().getIdentifier(batch.get(batch.size() - 1));
+				// evicting only the batch would keep the associations it loaded in the session
+				getSession().clear();
+			}
+		} while (batch.size() == batchSize);
+		return count;
+	}
+	
+	private Criteria createCriteria(Class<?> type, List<Criterion> restrictions) {
+		Criteria criteria = getSession().createCriteria(type);
+		for (Criterion restriction : restrictions) {
+			criteria.add(restriction);
+		}
+		return criteria;
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.api.RestHelperService#initializeProxies(Collection)
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public void initializeProxies(Collection<HibernateProxy> proxies) {
+		Map<String, Set<Serializable>> idsByEntityName = new HashMap<String, Set<Serializable>>();
+		for (HibernateProxy proxy : proxies) {
+			LazyInitializer initializer = proxy.getHibernateLazyInitializer();
+			if (initializer.isUninitialized()) {
+				Set<Serializable> ids = idsByEntityName.get(initializer.getEntityName());
+				if (ids == null) {
+					ids = new HashSet<Serializable>();
+					idsByEntityName.put(initializer.getEntityName(), ids);
+				}
+				ids.add(initializer.getIdentifier());
+			}
+		}
+		
+		// the loaded entities go into the session, so initializing the proxies does not query again
+		for (Map.Entry<String, Set<Serializable>> entry : idsByEntityName.entrySet()) {
+			String idProperty = sessionFactory.getClassMetadata(entry.getKey()).getIdentifierPropertyName();
+			List<Serializable> ids = new ArrayList<Serializable>(entry.getValue());
+			for (int i = 0; i < ids.size(); i += MAX_IDS_PER_QUERY) {
+				List<Serializable> batch = ids.subList(i, Math.min(i + MAX_IDS_PER_QUERY, ids.size()));
+				getSession().createCriteria(entry.getKey()).add(Restrictions.in(idProperty, batch)).list();
+			}
+		}
+		for (HibernateProxy proxy : proxies) {
+			Hibernate.initialize(proxy);
+		}
+	}
+	
 	/**
 	 * @see org.openmrs.module.webservices.rest.web.api.RestHelperService#getPatients(Collection)
 	 */
@@ -13,16 +13,18 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.lang.StringUtils;
 import org.hibernate.proxy.HibernateProxy;
 import org.openmrs.api.APIException;
 import org.openmrs.module.ModuleUtil;
+import org.openmrs.module.webservices.docs.swagger.SwaggerSpecificationCache;
 import org.openmrs.module.webservices.rest.web.OpenmrsClassScanner;
 import org.openmrs.module.webservices.rest.web.RestConstants;
 import org.openmrs.module.webservices.rest.web.annotation.SubResource;
@@ -34,9 +36,11 @@ import org.openmrs.module.webservices.rest.web.representation.Representation;
 import org.openmrs.module.webservices.rest.web.resource.api.Resource;
 import org.openmrs.module.webservices.rest.web.resource.api.SearchConfig;
 import org.openmrs.module.webservices.rest.web.resource.api.SearchHandler;
-import org.openmrs.module.webservices.rest.web.resource.api.SearchQuery;
 import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingResourceHandler;
 import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingSubclassHandler;
+import org.openmrs.module.webservices.rest.web.resource.impl.RepresentationCache;
+import org.openmrs.module.webservices.rest.web.resource.impl.RepresentationPlan;
+import org.openmrs.module.webservices.rest.web.resource.impl.RepresentationProjection;
 import org.openmrs.module.webservices.rest.web.response.InvalidSearchException;
 import org.openmrs.util.OpenmrsConstants;
 
@@ -49,7 +53,18 @@ public class RestServiceImpl implements RestService {
 	
 	volatile Map<Class<?>, Resource> resourcesBySupportedClasses;
 	
-	private volatile Map<CompositeSearchHandlerKey, Set<SearchHandler>> searchHandlersByParameter;
+	/**
+	 * Memoised results of {@link #getResourceBySupportedClass(Class)}, including classes that no
+	 * resource supports
+	 */
+	volatile ConcurrentMap<Class<?>, Object> resourcesByResolvedClasses;
+	
+	/**
+	 * Remembers classes that no resource supports
+	 */
+	static final Object NO_RESOURCE = new Object();
+	
+	private volatile Map<String, SearchHandlerIndex> searchHandlerIndexesByResource;
 	
 	private volatile Map<CompositeSearchHandlerKey, SearchHandler> searchHandlersByIds;
 	
@@ -176,6 +191,7 @@ public class RestServiceImpl implements RestService {
 			}
 		}
 		
+		resourcesByResolvedClasses = new ConcurrentHashMap<Class<?>, Object>();
 		resourcesBySupportedClasses = tempResourcesBySupportedClasses;
 		resourceDefinitionsByNames = tempResourceDefinitionsByNames;
 	}
@@ -292,33 +308,32 @@ public class RestServiceImpl implements RestService {
 		}
 		
 		Map<CompositeSearchHandlerKey, SearchHandler> tempSearchHandlersByIds = new HashMap<RestServiceImpl.CompositeSearchHandlerKey, SearchHandler>();
-		Map<CompositeSearchHandlerKey, Set<SearchHandler>> tempSearchHandlersByParameters = new HashMap<CompositeSearchHandlerKey, Set<SearchHandler>>();
+		Map<String, SearchHandlerIndex> tempSearchHandlerIndexes = new HashMap<String, SearchHandlerIndex>();
 		Map<String, Set<SearchHandler>> tempSearchHandlersByResource = new HashMap<String, Set<SearchHandler>>();
 		
 		List<SearchHandler> allSearchHandlers = restHelperService.getRegisteredSearchHandlers();
 		for (SearchHandler searchHandler : allSearchHandlers) {
-			addSearchHandler(tempSearchHandlersByIds, tempSearchHandlersByParameters, tempSearchHandlersByResource,
-			    searchHandler);
+			addSearchHandler(tempSearchHandlersByIds, tempSearchHandlerIndexes, tempSearchHandlersByResource, searchHandler);
 		}
 		this.allSearchHandlers = allSearchHandlers;
-		searchHandlersByParameter = tempSearchHandlersByParameters;
+		searchHandlerIndexesByResource = tempSearchHandlerIndexes;
 		searchHandlersByIds = tempSearchHandlersByIds;
 		searchHandlersByResource = tempSearchHandlersByResource;
 	}
 	
 	private void addSearchHandler(Map<CompositeSearchHandlerKey, SearchHandler> tempSearchHandlersByIds,
-	        Map<CompositeSearchHandlerKey, Set<SearchHandler>> tempSearchHandlersByParameters,
+	        Map<String, SearchHandlerIndex> tempSearchHandlerIndexes,
 	        Map<String, Set<SearchHandler>> tempSearchHandlersByResource, SearchHandler searchHandler) {
 		for (String supportedVersion : searchHandler.getSearchConfig().getSupportedOpenmrsVersions()) {
 			if (ModuleUtil.matchRequiredVersions(OpenmrsConstants.OPENMRS_VERSION_SHORT, supportedVersion)) {
-				addSupportedSearchHandler(tempSearchHandlersByIds, tempSearchHandlersByParameters, searchHandler);
+				addSupportedSearchHandler(tempSearchHandlersByIds, tempSearchHandlerIndexes, searchHandler);
 				addSearchHandlerToResourceMap(tempSearchHandlersByResource, searchHandler);
 			}
 		}
 	}
 	
 	private void addSupportedSearchHandler(Map<CompositeSearchHandlerKey, SearchHandler> tempSearchHandlersByIds,
-	        Map<CompositeSearchHandlerKey, Set<SearchHandler>> tempSearchHandlersByParameters, SearchHandler searchHandler) {
+	        Map<String, SearchHandlerIndex> tempSearchHandlerIndexes, SearchHandler searchHandler) {
 		CompositeSearchHandlerKey searchHanlderIdKey = new CompositeSearchHandlerKey(searchHandler.getSearchConfig()
 		        .getSupportedResource(), searchHandler.getSearchConfig().getId());
 		SearchHandler previousSearchHandler = tempSearchHandlersByIds.put(searchHanlderIdKey, searchHandler);
@@ -329,26 +344,18 @@ public class RestServiceImpl implements RestService {
 			        + ") must not have the same ID (" + config.getId() + ")");
 		}
 		
-		addSearchHandlerToParametersMap(tempSearchHandlersByParameters, searchHandler);
+		addSearchHandlerToIndex(tempSearchHandlerIndexes, searchHandler);
 	}
 	
-	private void addSearchHandlerToParametersMap(
-	        Map<CompositeSearchHandlerKey, Set<SearchHandler>> tempSearchHandlersByParameters, SearchHandler searchHandler) {
-		for (SearchQuery searchQueries : searchHandler.getSearchConfig().getSearchQueries()) {
-			Set<String> parameters = new HashSet<String>(searchQueries.getRequiredParameters());
-			parameters.addAll(searchQueries.getOptionalParameters());
-			
-			for (String parameter : parameters) {
-				CompositeSearchHandlerKey parameterKey = new CompositeSearchHandlerKey(searchHandler.getSearchConfig()
-				        .getSupportedResource(), parameter);
-				Set<SearchHandler> list = tempSearchHandlersByParameters.get(parameterKey);
-				if (list == null) {
-					list = new HashSet<SearchHandler>();
-					tempSearchHandlersByParameters.put(parameterKey, list);
-				}
-				list.add(searchHandler);
-			}
+	private void addSearchHandlerToIndex(Map<String, SearchHandlerIndex> tempSearchHandlerIndexes,
+	        SearchHandler searchHandler) {
+		SearchConfig config = searchHandler.getSearchConfig();
+		SearchHandlerIndex index = tempSearchHandlerIndexes.get(config.getSupportedResource());
+		if (index == null) {
+			index = new SearchHandlerIndex();
+			tempSearchHandlerIndexes.put(config.getSupportedResource(), index);
 		}
+		index.add(searchHandler);
 	}
 	
 	private void addSearchHandlerToResourceMap(Map<String, Set<SearchHandler>> tempSearchHandlersByResource,
@@ -435,11 +442,42 @@ public class RestServiceImpl implements RestService {
 	 * @should fail if two resources with same name and order are found for given class
 	 * @should return resource with lower order value if two resources with the same name are found
 	 *         for given class
+	 * @should return the same resource for repeated calls with a hibernate proxy
+	 * @should remember classes that no resource supports
 	 */
 	@Override
 	public Resource getResourceBySupportedClass(Class<?> resourceClass) throws APIException {
 		initializeResources();
 		
+		ConcurrentMap<Class<?>, Object> resolved = resourcesByResolvedClasses;
+		Object cached = resolved != null ? resolved.get(resourceClass) : null;
+		if (cached != null) {
+			if (cached == NO_RESOURCE) {
+				throw new APIException("Unknown resource: " + resourceClass);
+			}
+			return (Resource) cached;
+		}
+		
+		Resource resource = findResourceBySupportedClass(resourceClass);
+		if (resolved != null) {
+			resolved.put(resourceClass, resource != null ? resource : NO_RESOURCE);
+		}
+		
+		if (resource == null) {
+			throw new APIException("Unknown resource: " + resourceClass);
+		} else {
+			return resource;
+		}
+	}
+	
+	/**
+	 * Looks for the resource supporting the given class, its superclass if it is a Hibernate proxy,
+	 * or else its closest superclass
+	 * 
+	 * @param resourceClass
+	 * @return the resource, or null if there is none
+	 */
+	private Resource findResourceBySupportedClass(Class<?> resourceClass) {
 		if (HibernateProxy.class.isAssignableFrom(resourceClass)) {
 			resourceClass = resourceClass.getSuperclass();
 		}
@@ -462,11 +500,7 @@ public class RestServiceImpl implements RestService {
 			}
 		}
 		
-		if (resource == null) {
-			throw new APIException("Unknown resource: " + resourceClass);
-		} else {
-			return resource;
-		}
+		return resource;
 	}
 	
 	/**
@@ -534,72 +568,24 @@ public class RestServiceImpl implements RestService {
 			}
 		}
 		
-		Set<String> searchParameters = new HashSet<String>(parameters.keySet());
-		searchParameters.removeAll(RestConstants.SPECIAL_REQUEST_PARAMETERS);
-		
-		Set<SearchHandler> candidateSearchHandlers = null;
-		for (String searchParameter : searchParameters) {
-			Set<SearchHandler> searchHandlers = searchHandlersByParameter.get(new CompositeSearchHandlerKey(resourceName,
-			        searchParameter));
-			if (searchHandlers == null) {
-				return null; //Missing parameter so there's no handler.
-			} else if (candidateSearchHandlers == null) {
-				candidateSearchHandlers = new HashSet<SearchHandler>();
-				candidateSearchHandlers.addAll(searchHandlers);
-			} else {
-				//Eliminate candidate search handlers that do not include all parameters
-				candidateSearchHandlers.retainAll(searchHandlers);
-			}
+		SearchHandlerIndex index = searchHandlerIndexesByResource.get(resourceName);
+		if (index == null) {
+			return null;
 		}
 		
-		if (candidateSearchHandlers == null) {
+		SearchHandler[] candidateSearchHandlers = index.getMatches(parameters.keySet());
+		if (candidateSearchHandlers.length == 0) {
 			return null;
+		} else if (candidateSearchHandlers.length == 1) {
+			return candidateSearchHandlers[0];
 		} else {
-			eliminateCandidateSearchHandlersWithMissingRequiredParameters(candidateSearchHandlers, searchParameters);
-			
-			if (candidateSearchHandlers.isEmpty()) {
-				return null;
-			} else if (candidateSearchHandlers.size() == 1) {
-				return candidateSearchHandlers.iterator().next();
-			} else {
-				List<String> candidateSearchHandlerIds = new ArrayList<String>();
-				for (SearchHandler candidateSearchHandler : candidateSearchHandlers) {
-					candidateSearchHandlerIds.add(RestConstants.REQUEST_PROPERTY_FOR_SEARCH_ID + "="
-					        + candidateSearchHandler.getSearchConfig().getId());
-				}
-				throw new InvalidSearchException("The search is ambiguous. Please specify "
-				        + StringUtils.join(candidateSearchHandlerIds, " or "));
-			}
-		}
-	}
-	
-	/**
-	 * Eliminate search handlers with at least one required parameter that is not provided in
-	 * {@code searchParameters}.
-	 * 
-	 * @param candidateSearchHandlers the search handlers to filter for required parameters
-	 * @param searchParameters the search parameters to be checked against search handlers required
-	 *            parameters
-	 */
-	private void eliminateCandidateSearchHandlersWithMissingRequiredParameters(Set<SearchHandler> candidateSearchHandlers,
-	        Set<String> searchParameters) {
-		Iterator<SearchHandler> it = candidateSearchHandlers.iterator();
-		while (it.hasNext()) {
-			SearchHandler candidateSearchHandler = it.next();
-			boolean remove = true;
-			
-			for (SearchQuery candidateSearchQueries : candidateSearchHandler.getSearchConfig().getSearchQueries()) {
-				Set<String> requiredParameters = new HashSet<String>(candidateSearchQueries.getRequiredParameters());
-				requiredParameters.removeAll(searchParameters);
-				if (requiredParameters.isEmpty()) {
-					remove = false;
-					break;
-				}
-			}
-			
-			if (remove) {
-				it.remove();
+			List<String> candidateSearchHandlerIds = new ArrayList<String>();
+			for (SearchHandler candidateSearchHandler : candidateSearchHandlers) {
+				candidateSearchHandlerIds.add(RestConstants.REQUEST_PROPERTY_FOR_SEARCH_ID + "="
+				        + candidateSearchHandler.getSearchConfig().getId());
 			}
+			throw new InvalidSearchException("The search is ambiguous. Please specify "
+			        + StringUtils.join(candidateSearchHandlerIds, " or "));
 		}
 	}
 	
@@ -672,9 +658,14 @@ public class RestServiceImpl implements RestService {
 		// first clear out any existing values
 		resourceDefinitionsByNames = null;
 		resourcesBySupportedClasses = null;
+		resourcesByResolvedClasses = null;
 		searchHandlersByIds = null;
-		searchHandlersByParameter = null;
+		searchHandlerIndexesByResource = null;
 		searchHandlersByResource = null;
+		RepresentationPlan.clearCache();
+		RepresentationProjection.clearCache();
+		RepresentationCache.clear();
+		SwaggerSpecificationCache.clear();
 		
 		initializeResources();
 		initializeSearchHandlers();
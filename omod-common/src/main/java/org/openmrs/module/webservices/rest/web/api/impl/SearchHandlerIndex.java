@@ -0,0 +1,155 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web.api.impl;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest.web.resource.api.SearchHandler;
+import org.openmrs.module.webservices.rest.web.resource.api.SearchQuery;
+
+/**
+ * The search handlers of one resource, compiled so that finding the handlers for the parameters of
+ * a request takes a few bit operations. Every parameter of the handlers' search queries is given a
+ * bit, each parameter knows the handlers accepting it as a bit set of handler indexes, and each
+ * handler has the required parameters of every of its search queries as a bit set of parameters.
+ * The handlers matching a set of parameters are remembered for later requests with the same
+ * parameters.
+ * <p>
+ * An index is filled by {@link #add(SearchHandler)} before it is published and only read
+ * afterwards.
+ */
+class SearchHandlerIndex {
+	
+	private static final SearchHandler[] NO_MATCHES = new SearchHandler[0];
+	
+	private final List<SearchHandler> handlers = new ArrayList<SearchHandler>();
+	
+	private final Map<String, Integer> parameterBits = new HashMap<String, Integer>();
+	
+	/**
+	 * The handlers accepting each parameter, indexed by parameter bit
+	 */
+	private final List<BitSet> handlersByParameter = new ArrayList<BitSet>();
+	
+	/**
+	 * The required parameters of each search query of each handler, indexed by handler
+	 */
+	private final List<BitSet[]> requiredParametersByHandler = new ArrayList<BitSet[]>();
+	
+	private final ConcurrentMap<BitSet, SearchHandler[]> matches = new ConcurrentHashMap<BitSet, SearchHandler[]>();
+	
+	public void add(SearchHandler searchHandler) {
+		int handler = handlers.size();
+		handlers.add(searchHandler);
+		
+		List<SearchQuery> searchQueries = searchHandler.getSearchConfig().getSearchQueries();
+		BitSet[] requiredParameters = new BitSet[searchQueries.size()];
+		int i = 0;
+		for (SearchQuery searchQuery : searchQueries) {
+			requiredParameters[i++] = toBits(searchQuery.getRequiredParameters(), handler);
+			toBits(searchQuery.getOptionalParameters(), handler);
+		}
+		requiredParametersByHandler.add(requiredParameters);
+	}
+	
+	/**
+	 * Assigns bits to parameters seen for the first time and marks them as accepted by the handler
+	 */
+	private BitSet toBits(Iterable<String> parameters, int handler) {
+		BitSet bits = new BitSet();
+		for (String parameter : parameters) {
+			Integer bit = parameterBits.get(parameter);
+			if (bit == null) {
+				bit = handlersByParameter.size();
+				parameterBits.put(parameter, bit);
+				handlersByParameter.add(new BitSet());
+			}
+			handlersByParameter.get(bit).set(handler);
+			bits.set(bit);
+		}
+		return bits;
+	}
+	
+	/**
+	 * Finds the handlers that accept all given parameters and whose required parameters are all
+	 * given for at least one search query. Special request parameters are ignored.
+	 * 
+	 * @param parameterNames
+	 * @return the matching handlers in the order they were added, empty if there are no parameters
+	 *         other than special ones
+	 * @should ignore special request parameters
+	 * @should return no handlers for a parameter no handler accepts
+	 * @should remember the handlers for repeated parameters
+	 */
+	public SearchHandler[] getMatches(Set<String> parameterNames) {
+		BitSet parameters = new BitSet(handlersByParameter.size());
+		for (String parameterName : parameterNames) {
+			if (RestConstants.SPECIAL_REQUEST_PARAMETERS.contains(parameterName)) {
+				continue;
+			}
+			Integer bit = parameterBits.get(parameterName);
+			if (bit == null) {
+				return NO_MATCHES;
+			}
+			parameters.set(bit);
+		}
+		if (parameters.isEmpty()) {
+			return NO_MATCHES;
+		}
+		
+		SearchHandler[] result = matches.get(parameters);
+		if (result == null) {
+			result = match(parameters);
+			if (matches.size() < RestConstants.SEARCH_HANDLER_MATCH_CACHE_SIZE) {
+				matches.putIfAbsent(parameters, result);
+			}
+		}
+		return result;
+	}
+	
+	private SearchHandler[] match(BitSet parameters) {
+		BitSet candidates = null;
+		for (int bit = parameters.nextSetBit(0); bit >= 0; bit = parameters.nextSetBit(bit + 1)) {
+			if (candidates == null) {
+				candidates = (BitSet) handlersByParameter.get(bit).clone();
+			} else {
+				candidates.and(handlersByParameter.get(bit));
+			}
+		}
+		
+		List<SearchHandler> result = new ArrayList<SearchHandler>();
+		for (int handler = candidates.nextSetBit(0); handler >= 0; handler = candidates.nextSetBit(handler + 1)) {
+			for (BitSet requiredParameters : requiredParametersByHandler.get(handler)) {
+				if (containsAll(parameters, requiredParameters)) {
+					result.add(handlers.get(handler));
+					break;
+				}
+			}
+		}
+		return result.toArray(new SearchHandler[result.size()]);
+	}
+	
+	private static boolean containsAll(BitSet bits, BitSet subset) {
+		for (int bit = subset.nextSetBit(0); bit >= 0; bit = subset.nextSetBit(bit + 1)) {
+			if (!bits.get(bit)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,136 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web.filter;
+
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.codec.binary.Base64;
+import org.openmrs.module.webservices.rest.web.RestConstants;
+
+/**
+ * Remembers the users of successful HTTP Basic authentications for a limited time, so
+ * {@link AuthorizationFilter} does not hash the password again for every request of a stateless
+ * client. Entries are keyed by a digest of the Authorization header salted with a random value
+ * chosen at startup, so neither the header nor its plain hash is kept in memory. Only the id of the
+ * verified user is cached, never a user context, so every request still gets its own context.
+ * <p>
+ * The cache is only used if {@link RestConstants#AUTHENTICATION_CACHE_TTL_GLOBAL_PROPERTY_NAME} is
+ * greater than zero. It is cleared by {@link AuthenticationCacheAdvice} whenever a user is saved,
+ * retired or purged or a password is changed.
+ */
+public class AuthenticationCache {
+	
+	private static final int MAX_ENTRIES = 1000;
+	
+	private static final byte[] salt = new byte[16];
+	
+	private static final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+		
+		private static final long serialVersionUID = 1L;
+		
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	};
+	
+	static {
+		new SecureRandom().nextBytes(salt);
+	}
+	
+	private AuthenticationCache() {
+	}
+	
+	/**
+	 * @param authorizationHeader
+	 * @return the salted digest under which the authentication is cached
+	 * @should return the same key for the same header
+	 * @should return different keys for different headers
+	 */
+	public static String getKey(String authorizationHeader) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(salt);
+			byte[] hash = digest.digest(authorizationHeader.getBytes(Charset.forName("UTF-8")));
+			return new String(Base64.encodeBase64(hash), Charset.forName("US-ASCII"));
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not supported by this JVM", e);
+		}
+	}
+	
+	/**
+	 * @param key
+	 * @return the id of the user the credentials were verified for, or null if there is none or it
+	 *         expired
+	 * @should return null for an expired entry
+	 */
+	public static Integer get(String key) {
+		synchronized (entries) {
+			Entry entry = entries.get(key);
+			if (entry == null) {
+				return null;
+			}
+			if (entry.expires < System.currentTimeMillis()) {
+				entries.remove(key);
+				return null;
+			}
+			return entry.userId;
+		}
+	}
+	
+	/**
+	 * @param key
+	 * @param userId the id of the user the credentials were verified for
+	 * @param ttlSeconds the number of seconds the authentication may be reused
+	 */
+	public static void put(String key, Integer userId, int ttlSeconds) {
+		synchronized (entries) {
+			entries.put(key, new Entry(userId, System.currentTimeMillis() + ttlSeconds * 1000L));
+		}
+	}
+	
+	/**
+	 * Forgets the authentication cached under the given key
+	 * 
+	 * @param key
+	 */
+	public static void remove(String key) {
+		synchronized (entries) {
+			entries.remove(key);
+		}
+	}
+	
+	/**
+	 * Forgets all cached authentications
+	 */
+	public static void clear() {
+		synchronized (entries) {
+			entries.clear();
+		}
+	}
+	
+	private static class Entry {
+		
+		private final Integer userId;
+		
+		private final long expires;
+		
+		public Entry(Integer userId, long expires) {
+			this.userId = userId;
+			this.expires = expires;
+		}
+	}
+}
@@ -0,0 +1,38 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web.filter;
+
+import java.lang.reflect.Method;
+
+import org.springframework.aop.AfterReturningAdvice;
+
+/**
+ * Advice around {@link org.openmrs.api.UserService} that clears the {@link AuthenticationCache}
+ * after a password change or after a user is saved, retired, voided or purged, so cached
+ * credentials stop working as soon as they would fail a real authentication.
+ */
+public class AuthenticationCacheAdvice implements AfterReturningAdvice {
+	
+	/**
+	 * @see org.springframework.aop.AfterReturningAdvice#afterReturning(java.lang.Object,
+	 *      java.lang.reflect.Method, java.lang.Object[], java.lang.Object)
+	 * @should clear the cache after a password change
+	 * @should not clear the cache after a read
+	 */
+	@Override
+	public void afterReturning(Object returnValue, Method method, Object[] args, Object target) throws Throwable {
+		String name = method.getName();
+		if (name.startsWith("changePassword") || name.startsWith("changeHashedPassword") || name.equals("saveUser")
+		        || name.equals("createUser") || name.equals("retireUser") || name.equals("voidUser")
+		        || name.equals("purgeUser")) {
+			AuthenticationCache.clear();
+		}
+	}
+}
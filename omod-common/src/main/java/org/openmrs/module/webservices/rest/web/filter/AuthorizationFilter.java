@@ -10,6 +10,9 @@
 package org.openmrs.module.webservices.rest.web.filter;
 
 import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.nio.charset.Charset;
 
 import javax.servlet.Filter;
@@ -24,7 +27,11 @@ import javax.servlet.http.HttpServletResponse;
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.openmrs.User;
 import org.openmrs.api.context.Context;
+import org.openmrs.api.context.ContextAuthenticationException;
+import org.openmrs.api.context.UserContext;
+import org.openmrs.api.db.ContextDAO;
 import org.openmrs.module.webservices.rest.web.RestConstants;
 import org.openmrs.module.webservices.rest.web.RestUtil;
 
@@ -40,6 +47,12 @@ public class AuthorizationFilter implements Filter {
 	
 	protected final Log log = LogFactory.getLog(getClass());
 	
+	/**
+	 * The user property set while a user is locked out after too many failed logins, the same as
+	 * OpenmrsConstants.USER_PROPERTY_LOCKOUT_TIMESTAMP
+	 */
+	private static final String LOCKOUT_TIMESTAMP_PROPERTY = "lockoutTimestamp";
+	
 	/**
 	 * @see javax.servlet.Filter#init(javax.servlet.FilterConfig)
 	 */
@@ -59,6 +72,8 @@ public class AuthorizationFilter implements Filter {
 	/**
 	 * @see javax.servlet.Filter#doFilter(javax.servlet.ServletRequest,
 	 *      javax.servlet.ServletResponse, javax.servlet.FilterChain)
+	 * @should give every request with cached credentials a user context of its own
+	 * @should not authenticate a retired or locked out user from the cache
 	 */
 	@Override
 	public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException,
@@ -83,18 +98,12 @@ public class AuthorizationFilter implements Filter {
 			if (!Context.isAuthenticated()) {
 				String basicAuth = httpRequest.getHeader("Authorization");
 				if (basicAuth != null) {
-					// this is "Basic ${base64encode(username + ":" + password)}"
-					try {
-						basicAuth = basicAuth.substring(6); // remove the leading "Basic "
-						String decoded = new String(Base64.decodeBase64(basicAuth), Charset.forName("UTF-8"));
-						String[] userAndPass = decoded.split(":");
-						Context.authenticate(userAndPass[0], userAndPass[1]);
-						if (log.isDebugEnabled())
-							log.debug("authenticated " + userAndPass[0]);
-					}
-					catch (Exception ex) {
-						// This filter never stops execution. If the user failed to
-						// authenticate, that will be caught later.
+					int cacheTtl = RestUtil.getSettings().getAuthenticationCacheTtl();
+					String cacheKey = cacheTtl > 0 ? AuthenticationCache.getKey(basicAuth) : null;
+					Integer cachedUserId = cacheKey != null ? AuthenticationCache.get(cacheKey) : null;
+					// the same credentials were verified recently, skip hashing the password again
+					if (cachedUserId == null || !becomeCachedUser(basicAuth, cacheKey, cachedUserId)) {
+						authenticate(basicAuth, cacheKey, cacheTtl);
 					}
 				}
 			}
@@ -103,4 +112,98 @@ public class AuthorizationFilter implements Filter {
 		// continue with the filter chain in all circumstances
 		chain.doFilter(request, response);
 	}
+	
+	private void authenticate(String basicAuth, String cacheKey, int cacheTtl) {
+		try {
+			String[] userAndPass = decode(basicAuth);
+			Context.authenticate(userAndPass[0], userAndPass[1]);
+			if (log.isDebugEnabled())
+				log.debug("authenticated " + userAndPass[0]);
+			if (cacheKey != null) {
+				AuthenticationCache.put(cacheKey, Context.getAuthenticatedUser().getUserId(), cacheTtl);
+			}
+		}
+		catch (Exception ex) {
+			// This filter never stops execution. If the user failed to
+			// authenticate, that will be caught later.
+		}
+	}
+	
+	/**
+	 * Authenticates the request as a user whose credentials were verified by an earlier request.
+	 * The request gets a new user context of its own, only the user is loaded again.
+	 * <p>
+	 * The user is set through {@link UserContext#authenticate(String, String, ContextDAO)} with a
+	 * ContextDAO that returns the verified user. On platforms 1.8 to 2.0 that method calls nothing
+	 * of the ContextDAO but {@link ContextDAO#authenticate(String, String)}, and then sets up the
+	 * user context as for a password authentication. Should a platform call another method, the
+	 * proxy throws and the request falls back to the full authentication, so a change of the
+	 * platform can disable the cache but never skip a check.
+	 * 
+	 * @return true if the request is authenticated, false if the full authentication must be done
+	 */
+	private boolean becomeCachedUser(String basicAuth, String cacheKey, final Integer userId) {
+		UserContext userContext = new UserContext();
+		Context.setUserContext(userContext);
+		try {
+			String[] userAndPass = decode(basicAuth);
+			// stands in for the password check, which was already passed
+			ContextDAO verified = (ContextDAO) Proxy.newProxyInstance(ContextDAO.class.getClassLoader(),
+			    new Class<?>[] { ContextDAO.class }, new InvocationHandler() {
+				    
+				    @Override
+				    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+					    if (!method.getName().equals("authenticate")) {
+						    throw new UnsupportedOperationException(method.getName());
+					    }
+					    return getVerifiedUser(userId);
+				    }
+			    });
+			userContext.authenticate(userAndPass[0], userAndPass[1], verified);
+			if (log.isDebugEnabled())
+				log.debug("authenticated " + userAndPass[0] + " from the cache");
+			return true;
+		}
+		catch (Exception ex) {
+			AuthenticationCache.remove(cacheKey);
+			Context.setUserContext(new UserContext());
+			return false;
+		}
+	}
+	
+	private User getVerifiedUser(Integer userId) {
+		String viewUsers = RestUtil.getViewPrivilege("Users");
+		Context.addProxyPrivilege(viewUsers);
+		try {
+			User user = Context.getUserService().getUser(userId);
+			if (user == null) {
+				throw new ContextAuthenticationException("The cached user " + userId + " no longer exists");
+			}
+			// the checks of a password authentication that do not depend on the password, the full
+			// authentication decides whether a lockout has expired
+			if (user.isRetired()) {
+				throw new ContextAuthenticationException("The cached user " + userId + " is retired");
+			}
+			if (user.getUserProperty(LOCKOUT_TIMESTAMP_PROPERTY, "").length() > 0) {
+				throw new ContextAuthenticationException("The cached user " + userId + " is locked out");
+			}
+			// hydrate the user like a password authentication does
+			user.getAllRoles().size();
+			user.getUserProperties().size();
+			user.getPrivileges().size();
+			return user;
+		}
+		finally {
+			Context.removeProxyPrivilege(viewUsers);
+		}
+	}
+	
+	/**
+	 * @param basicAuth the header, "Basic ${base64encode(username + ":" + password)}"
+	 * @return the user name and the password
+	 */
+	private String[] decode(String basicAuth) {
+		String decoded = new String(Base64.decodeBase64(basicAuth.substring(6)), Charset.forName("UTF-8"));
+		return decoded.split(":");
+	}
 }
@@ -0,0 +1,252 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web.filter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.module.webservices.rest.web.RestUtil;
+import org.springframework.util.DigestUtils;
+
+/**
+ * Filter intended for all /ws/rest calls that adds ETag headers to GET responses and answers
+ * conditional GET requests with 304 Not Modified. <br/>
+ * <br/>
+ * Resources that can tell cheaply whether an object changed set the ETag header themselves (and
+ * return 304 without converting the object, see
+ * {@link org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#getVersionToken}
+ * ). Their responses are written straight through. For all other responses the body is buffered
+ * and its MD5 hash is used as the ETag, as Spring's ShallowEtagHeaderFilter does. Exports are
+ * never buffered, since they are written while they are read so that they fit in memory.
+ */
+public class EtagFilter implements Filter {
+	
+	protected final Log log = LogFactory.getLog(getClass());
+	
+	/**
+	 * @see javax.servlet.Filter#init(javax.servlet.FilterConfig)
+	 */
+	@Override
+	public void init(FilterConfig arg0) throws ServletException {
+		log.debug("Initializing REST WS ETag filter");
+	}
+	
+	/**
+	 * @see javax.servlet.Filter#destroy()
+	 */
+	@Override
+	public void destroy() {
+		log.debug("Destroying REST WS ETag filter");
+	}
+	
+	/**
+	 * @see javax.servlet.Filter#doFilter(javax.servlet.ServletRequest,
+	 *      javax.servlet.ServletResponse, javax.servlet.FilterChain)
+	 * @should add an etag of the body to a get response
+	 * @should return not modified if the etag of the body matches
+	 * @should pass requests other than get through
+	 * @should not buffer exports
+	 * @should not buffer responses that got an etag from the resource
+	 */
+	@Override
+	public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException,
+	        ServletException {
+		if (!(request instanceof HttpServletRequest) || !"GET".equals(((HttpServletRequest) request).getMethod())
+		        || ((HttpServletRequest) request).getRequestURI().endsWith("/export")) {
+			chain.doFilter(request, response);
+			return;
+		}
+		
+		HttpServletRequest httpRequest = (HttpServletRequest) request;
+		HttpServletResponse httpResponse = (HttpServletResponse) response;
+		EtagResponseWrapper wrapper = new EtagResponseWrapper(httpResponse);
+		chain.doFilter(request, wrapper);
+		wrapper.flushWriter();
+		
+		if (wrapper.isPassThrough()) {
+			return;
+		}
+		
+		byte[] body = wrapper.getBody();
+		int status = wrapper.getStatus();
+		if (status >= 200 && status < 300 && body.length > 0) {
+			String etag = "\"0" + DigestUtils.md5DigestAsHex(body) + "\"";
+			httpResponse.setHeader("ETag", etag);
+			if (RestUtil.isNotModified(httpRequest, etag)) {
+				httpResponse.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+				return;
+			}
+		}
+		httpResponse.setContentLength(body.length);
+		httpResponse.getOutputStream().write(body);
+	}
+	
+	/**
+	 * Buffers the body until the response gets an ETag header from the resource, after which
+	 * everything is written straight to the wrapped response.
+	 */
+	private static class EtagResponseWrapper extends HttpServletResponseWrapper {
+		
+		private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		
+		private ServletOutputStream outputStream;
+		
+		private PrintWriter writer;
+		
+		private boolean passThrough = false;
+		
+		private int status = HttpServletResponse.SC_OK;
+		
+		public EtagResponseWrapper(HttpServletResponse response) {
+			super(response);
+		}
+		
+		public boolean isPassThrough() {
+			return passThrough;
+		}
+		
+		public int getStatus() {
+			return status;
+		}
+		
+		public byte[] getBody() {
+			return buffer.toByteArray();
+		}
+		
+		public void flushWriter() {
+			if (writer != null) {
+				writer.flush();
+			}
+		}
+		
+		@Override
+		public void setHeader(String name, String value) {
+			checkEtag(name);
+			super.setHeader(name, value);
+		}
+		
+		@Override
+		public void addHeader(String name, String value) {
+			checkEtag(name);
+			super.addHeader(name, value);
+		}
+		
+		private void checkEtag(String name) {
+			// the body is only redirected if nothing has been written to the buffer yet
+			if ("ETag".equalsIgnoreCase(name) && outputStream == null && writer == null) {
+				passThrough = true;
+			}
+		}
+		
+		@Override
+		public void setStatus(int sc) {
+			status = sc;
+			super.setStatus(sc);
+		}
+		
+		@Override
+		public void sendError(int sc) throws IOException {
+			status = sc;
+			super.sendError(sc);
+		}
+		
+		@Override
+		public void sendError(int sc, String msg) throws IOException {
+			status = sc;
+			super.sendError(sc, msg);
+		}
+		
+		@Override
+		public void sendRedirect(String location) throws IOException {
+			status = HttpServletResponse.SC_MOVED_TEMPORARILY;
+			super.sendRedirect(location);
+		}
+		
+		@Override
+		public void setContentLength(int len) {
+			if (passThrough) {
+				super.setContentLength(len);
+			}
+		}
+		
+		@Override
+		public void flushBuffer() throws IOException {
+			if (passThrough) {
+				super.flushBuffer();
+			} else {
+				flushWriter();
+			}
+		}
+		
+		@Override
+		public void resetBuffer() {
+			if (!passThrough) {
+				buffer.reset();
+			}
+			super.resetBuffer();
+		}
+		
+		@Override
+		public void reset() {
+			if (!passThrough) {
+				buffer.reset();
+			}
+			super.reset();
+		}
+		
+		@Override
+		public ServletOutputStream getOutputStream() throws IOException {
+			if (passThrough) {
+				return super.getOutputStream();
+			}
+			if (outputStream == null) {
+				outputStream = new ServletOutputStream() {
+					
+					@Override
+					public void write(int b) throws IOException {
+						buffer.write(b);
+					}
+					
+					@Override
+					public void write(byte[] b, int off, int len) throws IOException {
+						buffer.write(b, off, len);
+					}
+				};
+			}
+			return outputStream;
+		}
+		
+		@Override
+		public PrintWriter getWriter() throws IOException {
+			if (passThrough) {
+				return super.getWriter();
+			}
+			if (writer == null) {
+				writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+			}
+			return writer;
+		}
+	}
+}
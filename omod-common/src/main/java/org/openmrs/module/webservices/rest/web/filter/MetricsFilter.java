@@ -0,0 +1,136 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web.filter;
+
+import java.io.IOException;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.module.webservices.rest.web.RestUtil;
+import org.openmrs.module.webservices.rest.web.metrics.RestMetrics;
+
+/**
+ * Filter intended for all /ws/rest calls that measures how long each request takes until its
+ * response is written, and optionally how many bytes it allocates, and records it in
+ * {@link RestMetrics} under the label the controller gave the request. It is mapped before the
+ * other filters, so list results that are converted while the response is written are included.
+ */
+public class MetricsFilter implements Filter {
+	
+	protected final Log log = LogFactory.getLog(getClass());
+	
+	/**
+	 * @see javax.servlet.Filter#init(javax.servlet.FilterConfig)
+	 */
+	@Override
+	public void init(FilterConfig arg0) throws ServletException {
+		log.debug("Initializing REST WS metrics filter");
+	}
+	
+	/**
+	 * @see javax.servlet.Filter#destroy()
+	 */
+	@Override
+	public void destroy() {
+		log.debug("Destroying REST WS metrics filter");
+	}
+	
+	/**
+	 * @see javax.servlet.Filter#doFilter(javax.servlet.ServletRequest,
+	 *      javax.servlet.ServletResponse, javax.servlet.FilterChain)
+	 * @should record the request under its label
+	 * @should record a request that throws an exception as failed
+	 */
+	@Override
+	public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException,
+	        ServletException {
+		if (!(request instanceof HttpServletRequest)) {
+			chain.doFilter(request, response);
+			return;
+		}
+		
+		HttpServletRequest httpRequest = (HttpServletRequest) request;
+		StatusResponseWrapper wrapper = new StatusResponseWrapper((HttpServletResponse) response);
+		long allocatedBytes = -1;
+		if (RestUtil.getSettings().isMetricsAllocatedBytes()) {
+			allocatedBytes = RestMetrics.getAllocatedBytes();
+		}
+		long start = System.nanoTime();
+		boolean failed = true;
+		try {
+			chain.doFilter(request, wrapper);
+			failed = wrapper.getStatus() >= 400;
+		}
+		finally {
+			long nanos = System.nanoTime() - start;
+			if (allocatedBytes >= 0) {
+				allocatedBytes = RestMetrics.getAllocatedBytes() - allocatedBytes;
+			}
+			RestMetrics.record(httpRequest, nanos, allocatedBytes, failed);
+		}
+	}
+	
+	/**
+	 * Remembers the status of the response, which the Servlet 2.5 API cannot tell
+	 */
+	private static class StatusResponseWrapper extends HttpServletResponseWrapper {
+		
+		private int status = HttpServletResponse.SC_OK;
+		
+		public StatusResponseWrapper(HttpServletResponse response) {
+			super(response);
+		}
+		
+		public int getStatus() {
+			return status;
+		}
+		
+		@Override
+		public void setStatus(int sc) {
+			status = sc;
+			super.setStatus(sc);
+		}
+		
+		@Override
+		@SuppressWarnings("deprecation")
+		public void setStatus(int sc, String sm) {
+			status = sc;
+			super.setStatus(sc, sm);
+		}
+		
+		@Override
+		public void sendError(int sc) throws IOException {
+			status = sc;
+			super.sendError(sc);
+		}
+		
+		@Override
+		public void sendError(int sc, String msg) throws IOException {
+			status = sc;
+			super.sendError(sc, msg);
+		}
+		
+		@Override
+		public void sendRedirect(String location) throws IOException {
+			status = HttpServletResponse.SC_MOVED_TEMPORARILY;
+			super.sendRedirect(location);
+		}
+	}
+}
@@ -0,0 +1,138 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openmrs.module.webservices.rest.SimpleObject;
+
+/**
+ * The metrics of the requests for one operation on a resource in one representation
+ */
+public class OperationMetrics {
+	
+	private static final double NANOS_PER_MILLI = 1000000.0;
+	
+	private final String resource;
+	
+	private final RestOperation operation;
+	
+	private final String representation;
+	
+	private final String searchHandler;
+	
+	private final LatencyHistogram latency = new LatencyHistogram();
+	
+	private final AtomicLong errors = new AtomicLong();
+	
+	private final AtomicLong results = new AtomicLong();
+	
+	private final AtomicLong allocatedBytes = new AtomicLong();
+	
+	private final AtomicLong allocationSamples = new AtomicLong();
+	
+	public OperationMetrics(String resource, RestOperation operation, String representation, String searchHandler) {
+		this.resource = resource;
+		this.operation = operation;
+		this.representation = representation;
+		this.searchHandler = searchHandler;
+	}
+	
+	/**
+	 * @param nanos how long the request took
+	 * @param allocated the bytes the request allocated, or -1 if they were not measured
+	 * @param failed whether the request failed
+	 * @param resultCount the number of objects returned
+	 */
+	public void record(long nanos, long allocated, boolean failed, long resultCount) {
+		latency.record(nanos);
+		if (failed) {
+			errors.incrementAndGet();
+		}
+		results.addAndGet(resultCount);
+		if (allocated >= 0) {
+			allocatedBytes.addAndGet(allocated);
+			allocationSamples.incrementAndGet();
+		}
+	}
+	
+	public String getResource() {
+		return resource;
+	}
+	
+	public RestOperation getOperation() {
+		return operation;
+	}
+	
+	public String getRepresentation() {
+		return representation;
+	}
+	
+	/**
+	 * @return the id of the search handler, or null if the operation is not a search by a handler
+	 */
+	public String getSearchHandler() {
+		return searchHandler;
+	}
+	
+	public LatencyHistogram getLatency() {
+		return latency;
+	}
+	
+	public long getErrors() {
+		return errors.get();
+	}
+	
+	public long getResults() {
+		return results.get();
+	}
+	
+	public long getAllocatedBytes() {
+		return allocatedBytes.get();
+	}
+	
+	/**
+	 * @return the number of requests whose allocated bytes were measured
+	 */
+	public long getAllocationSamples() {
+		return allocationSamples.get();
+	}
+	
+	/**
+	 * @return these metrics with latencies in milliseconds
+	 */
+	public SimpleObject toSimpleObject() {
+		SimpleObject ret = new SimpleObject();
+		ret.add("resource", resource);
+		ret.add("operation", operation.getName());
+		ret.add("representation", representation);
+		if (searchHandler != null) {
+			ret.add("searchHandler", searchHandler);
+		}
+		ret.add("count", latency.getCount());
+		ret.add("errors", getErrors());
+		ret.add("results", getResults());
+		
+		SimpleObject millis = new SimpleObject();
+		millis.add("mean", latency.getMean() / NANOS_PER_MILLI);
+		millis.add("p50", latency.getValueAtPercentile(50) / NANOS_PER_MILLI);
+		millis.add("p90", latency.getValueAtPercentile(90) / NANOS_PER_MILLI);
+		millis.add("p99", latency.getValueAtPercentile(99) / NANOS_PER_MILLI);
+		millis.add("max", latency.getMax() / NANOS_PER_MILLI);
+		ret.add("latencyMillis", millis);
+		
+		long samples = getAllocationSamples();
+		if (samples > 0) {
+			ret.add("allocatedBytes", new SimpleObject().add("samples", samples).add("total", getAllocatedBytes()).add(
+			    "mean", getAllocatedBytes() / samples));
+		}
+		return ret;
+	}
+}
@@ -0,0 +1,118 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes {@link OperationMetrics} in the Prometheus text exposition format, version 0.0.4
+ */
+public class PrometheusFormat {
+	
+	public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+	
+	private static final double[] QUANTILES = { 0.5, 0.9, 0.99 };
+	
+	private static final double NANOS_PER_SECOND = 1000000000.0;
+	
+	private PrometheusFormat() {
+	}
+	
+	/**
+	 * @param metrics
+	 * @param writer
+	 * @throws IOException
+	 * @should write latency summaries and counters with labels
+	 * @should escape label values
+	 */
+	public static void write(List<OperationMetrics> metrics, Writer writer) throws IOException {
+		writeHeader(writer, "openmrs_rest_request_duration_seconds", "summary",
+		    "Time from receiving a REST request until its response is written");
+		for (OperationMetrics operationMetrics : metrics) {
+			LatencyHistogram latency = operationMetrics.getLatency();
+			for (double quantile : QUANTILES) {
+				writeSample(writer, "openmrs_rest_request_duration_seconds", operationMetrics, "quantile=\"" + quantile
+				        + "\"", latency.getValueAtPercentile(quantile * 100) / NANOS_PER_SECOND);
+			}
+			writeSample(writer, "openmrs_rest_request_duration_seconds_sum", operationMetrics, null, latency.getSum()
+			        / NANOS_PER_SECOND);
+			writeSample(writer, "openmrs_rest_request_duration_seconds_count", operationMetrics, null, latency.getCount());
+		}
+		
+		writeHeader(writer, "openmrs_rest_request_errors_total", "counter", "REST requests that failed");
+		for (OperationMetrics operationMetrics : metrics) {
+			writeSample(writer, "openmrs_rest_request_errors_total", operationMetrics, null, operationMetrics.getErrors());
+		}
+		
+		writeHeader(writer, "openmrs_rest_results_total", "counter", "Objects returned by REST requests");
+		for (OperationMetrics operationMetrics : metrics) {
+			writeSample(writer, "openmrs_rest_results_total", operationMetrics, null, operationMetrics.getResults());
+		}
+		
+		writeHeader(writer, "openmrs_rest_allocated_bytes", "summary",
+		    "Bytes allocated by the REST requests whose allocations were measured");
+		for (OperationMetrics operationMetrics : metrics) {
+			if (operationMetrics.getAllocationSamples() > 0) {
+				writeSample(writer, "openmrs_rest_allocated_bytes_sum", operationMetrics, null, operationMetrics
+				        .getAllocatedBytes());
+				writeSample(writer, "openmrs_rest_allocated_bytes_count", operationMetrics, null, operationMetrics
+				        .getAllocationSamples());
+			}
+		}
+	}
+	
+	/**
+	 * @param hits the number of lookups that found a cached representation
+	 * @param misses the number of lookups that did not
+	 * @param size the number of cached representations
+	 * @param writer
+	 * @throws IOException
+	 * @should write the counters and the size of the cache
+	 */
+	public static void writeRepresentationCache(long hits, long misses, int size, Writer writer) throws IOException {
+		writeHeader(writer, "openmrs_rest_representation_cache_hits_total", "counter",
+		    "Conversions answered from the representation cache");
+		writer.write("openmrs_rest_representation_cache_hits_total " + hits + "\n");
+		writeHeader(writer, "openmrs_rest_representation_cache_misses_total", "counter",
+		    "Conversions of cached resources that were not found in the representation cache");
+		writer.write("openmrs_rest_representation_cache_misses_total " + misses + "\n");
+		writeHeader(writer, "openmrs_rest_representation_cache_size", "gauge", "Representations in the cache");
+		writer.write("openmrs_rest_representation_cache_size " + size + "\n");
+	}
+	
+	private static void writeHeader(Writer writer, String name, String type, String help) throws IOException {
+		writer.write("# HELP " + name + " " + help + "\n");
+		writer.write("# TYPE " + name + " " + type + "\n");
+	}
+	
+	private static void writeSample(Writer writer, String name, OperationMetrics operationMetrics, String extraLabel,
+	        double value) throws IOException {
+		writer.write(name);
+		writer.write("{resource=\"" + escape(operationMetrics.getResource()) + "\",operation=\""
+		        + operationMetrics.getOperation().getName() + "\",representation=\""
+		        + escape(operationMetrics.getRepresentation()) + "\"");
+		if (operationMetrics.getSearchHandler() != null) {
+			writer.write(",search_handler=\"" + escape(operationMetrics.getSearchHandler()) + "\"");
+		}
+		if (extraLabel != null) {
+			writer.write("," + extraLabel);
+		}
+		writer.write("} ");
+		writer.write(value == Math.rint(value) && Math.abs(value) < 1e15 ? Long.toString((long) value) : Double
+		        .toString(value));
+		writer.write("\n");
+	}
+	
+	private static String escape(String value) {
+		return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+}
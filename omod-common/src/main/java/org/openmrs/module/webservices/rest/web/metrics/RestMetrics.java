@@ -0,0 +1,259 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest.web.representation.CustomRepresentation;
+import org.openmrs.module.webservices.rest.web.representation.Representation;
+
+/**
+ * Keeps the latency, error, result and allocation metrics of the requests to resources, by
+ * resource, operation, representation and search handler.
+ * <p>
+ * The controllers label a request with {@link #label(HttpServletRequest, String, RestOperation, Representation)}
+ * and pass its result through {@link #results(HttpServletRequest, Object)}, the
+ * {@link org.openmrs.module.webservices.rest.web.filter.MetricsFilter} measures the whole request,
+ * including writing the response, and records it with
+ * {@link #record(HttpServletRequest, long, long, boolean)}. Requests that are not labelled, e.g.
+ * for the Swagger documentation, are not recorded. Custom representations are all recorded as
+ * <code>custom</code>, and at most {@link RestConstants#MAX_OPERATION_METRICS} combinations are
+ * kept.
+ */
+public class RestMetrics {
+	
+	private static final Log log = LogFactory.getLog(RestMetrics.class);
+	
+	private static final String LABEL_ATTRIBUTE = RestMetrics.class.getName() + ".label";
+	
+	private static final ConcurrentMap<String, OperationMetrics> metrics = new ConcurrentHashMap<String, OperationMetrics>();
+	
+	private static final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+	
+	/**
+	 * com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long), looked up reflectively
+	 * because not every JVM has it, or null if the JVM cannot measure allocations
+	 */
+	private static final Method getThreadAllocatedBytes = findGetThreadAllocatedBytes();
+	
+	private RestMetrics() {
+	}
+	
+	/**
+	 * Labels the request with the operation it performs on a resource
+	 * 
+	 * @param request
+	 * @param resourceName e.g. v1/concept
+	 * @param operation
+	 * @param representation
+	 */
+	public static void label(HttpServletRequest request, String resourceName, RestOperation operation,
+	        Representation representation) {
+		label(request, resourceName, operation, representation, null);
+	}
+	
+	/**
+	 * Labels the request with the operation it performs on a resource
+	 * 
+	 * @param request
+	 * @param resourceName e.g. v1/concept
+	 * @param operation
+	 * @param representation
+	 * @param searchHandler the id of the search handler serving a search, or null
+	 */
+	public static void label(HttpServletRequest request, String resourceName, RestOperation operation,
+	        Representation representation, String searchHandler) {
+		request.setAttribute(LABEL_ATTRIBUTE, new Label(resourceName, operation, getName(representation),
+		        searchHandler));
+	}
+	
+	/**
+	 * Counts the objects in the result of a labelled request
+	 * 
+	 * @param request
+	 * @param result a list result, a collection, an object or the empty body of a request without
+	 *            content
+	 * @return the result
+	 */
+	public static <T> T results(HttpServletRequest request, T result) {
+		Label label = (Label) request.getAttribute(LABEL_ATTRIBUTE);
+		if (label != null) {
+			label.results = count(result);
+		}
+		return result;
+	}
+	
+	/**
+	 * Sets the number of objects of a labelled request whose result was written to the response
+	 * while it was read, e.g. an export
+	 * 
+	 * @param request
+	 * @param count
+	 */
+	public static void resultCount(HttpServletRequest request, long count) {
+		Label label = (Label) request.getAttribute(LABEL_ATTRIBUTE);
+		if (label != null) {
+			label.results = count;
+		}
+	}
+	
+	/**
+	 * Records a request if it was labelled
+	 * 
+	 * @param request
+	 * @param nanos how long the request took
+	 * @param allocatedBytes the bytes the request allocated, or -1 if they were not measured
+	 * @param failed whether the request failed
+	 * @should record labelled requests
+	 * @should not record requests that are not labelled
+	 * @should keep at most the maximum number of operation metrics
+	 */
+	public static void record(HttpServletRequest request, long nanos, long allocatedBytes, boolean failed) {
+		Label label = (Label) request.getAttribute(LABEL_ATTRIBUTE);
+		if (label == null) {
+			return;
+		}
+		
+		String key = label.resource + "|" + label.operation + "|" + label.representation + "|" + label.searchHandler;
+		OperationMetrics operationMetrics = metrics.get(key);
+		if (operationMetrics == null) {
+			if (metrics.size() >= RestConstants.MAX_OPERATION_METRICS) {
+				return;
+			}
+			operationMetrics = new OperationMetrics(label.resource, label.operation, label.representation,
+			        label.searchHandler);
+			OperationMetrics previous = metrics.putIfAbsent(key, operationMetrics);
+			if (previous != null) {
+				operationMetrics = previous;
+			}
+		}
+		operationMetrics.record(nanos, allocatedBytes, failed, label.results);
+	}
+	
+	/**
+	 * @return the metrics of all operations, ordered by resource, operation, representation and
+	 *         search handler
+	 */
+	public static List<OperationMetrics> getAll() {
+		List<OperationMetrics> all = new ArrayList<OperationMetrics>(metrics.values());
+		Collections.sort(all, new Comparator<OperationMetrics>() {
+			
+			@Override
+			public int compare(OperationMetrics a, OperationMetrics b) {
+				int result = a.getResource().compareTo(b.getResource());
+				if (result == 0) {
+					result = a.getOperation().compareTo(b.getOperation());
+				}
+				if (result == 0) {
+					result = a.getRepresentation().compareTo(b.getRepresentation());
+				}
+				if (result == 0) {
+					result = String.valueOf(a.getSearchHandler()).compareTo(String.valueOf(b.getSearchHandler()));
+				}
+				return result;
+			}
+		});
+		return all;
+	}
+	
+	/**
+	 * Forgets all metrics
+	 */
+	public static void clear() {
+		metrics.clear();
+	}
+	
+	/**
+	 * @return the bytes the current thread allocated so far, or -1 if the JVM cannot tell
+	 */
+	public static long getAllocatedBytes() {
+		if (getThreadAllocatedBytes == null) {
+			return -1;
+		}
+		try {
+			return (Long) getThreadAllocatedBytes.invoke(threadMXBean, Thread.currentThread().getId());
+		}
+		catch (Exception e) {
+			return -1;
+		}
+	}
+	
+	private static Method findGetThreadAllocatedBytes() {
+		try {
+			Class<?> type = Class.forName("com.sun.management.ThreadMXBean");
+			if (type.isInstance(threadMXBean)) {
+				Method isSupported = type.getMethod("isThreadAllocatedMemorySupported");
+				if (Boolean.TRUE.equals(isSupported.invoke(threadMXBean))) {
+					return type.getMethod("getThreadAllocatedBytes", long.class);
+				}
+			}
+		}
+		catch (Exception e) {
+			log.debug("The JVM cannot measure allocated bytes", e);
+		}
+		return null;
+	}
+	
+	private static String getName(Representation representation) {
+		if (representation == null) {
+			return RestConstants.REPRESENTATION_DEFAULT;
+		} else if (representation instanceof CustomRepresentation) {
+			return "custom";
+		}
+		return representation.getRepresentation();
+	}
+	
+	private static long count(Object result) {
+		if (result instanceof SimpleObject && ((SimpleObject) result).get("results") instanceof Collection) {
+			return ((Collection<?>) ((SimpleObject) result).get("results")).size();
+		} else if (result instanceof Collection) {
+			return ((Collection<?>) result).size();
+		}
+		return result == null || "".equals(result) ? 0 : 1;
+	}
+	
+	/**
+	 * What a request does, kept in a request attribute until the request is recorded
+	 */
+	private static class Label {
+		
+		private final String resource;
+		
+		private final RestOperation operation;
+		
+		private final String representation;
+		
+		private final String searchHandler;
+		
+		private long results;
+		
+		public Label(String resource, RestOperation operation, String representation, String searchHandler) {
+			this.resource = resource;
+			this.operation = operation;
+			this.representation = representation;
+			this.searchHandler = searchHandler;
+		}
+	}
+}
@@ -0,0 +1,24 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web.metrics;
+
+/**
+ * The operations on resources that {@link RestMetrics} tells apart
+ */
+public enum RestOperation {
+	RETRIEVE, LIST, SEARCH, EXPORT, CREATE, UPDATE, DELETE, PURGE;
+	
+	/**
+	 * @return the name used in the metrics, e.g. <code>retrieve</code>
+	 */
+	public String getName() {
+		return name().toLowerCase();
+	}
+}
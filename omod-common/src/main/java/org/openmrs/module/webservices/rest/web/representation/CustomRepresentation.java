@@ -9,23 +9,95 @@
  */
 package org.openmrs.module.webservices.rest.web.representation;
 
+import java.util.List;
+
+import org.openmrs.module.webservices.rest.web.response.ConversionException;
+
 /**
  * Implementation of {@link Representation} where the user specifies which properties they want
- * included
+ * included, e.g. <code>(uuid,name,names:ref,datatype:(uuid,name))</code>
  */
 public class CustomRepresentation implements Representation {
 	
 	String specification;
 	
+	private volatile List<Property> properties;
+	
 	public CustomRepresentation(String specification) {
 		if (specification == null)
 			throw new IllegalArgumentException("specification is required");
 		this.specification = specification;
 	}
 	
+	/**
+	 * Creates an already parsed representation
+	 * 
+	 * @param specification
+	 * @param properties an unmodifiable list of the parsed properties
+	 */
+	CustomRepresentation(String specification, List<Property> properties) {
+		this(specification);
+		this.properties = properties;
+	}
+	
 	@Override
 	public String getRepresentation() {
 		return specification;
 	}
 	
+	/**
+	 * Gets the properties of this representation. The specification is parsed by
+	 * {@link CustomRepresentationParser}, which parses each distinct specification only once.
+	 * 
+	 * @return an unmodifiable list of the properties in the order they were specified
+	 * @throws ConversionException if the specification is malformed
+	 */
+	public List<Property> getProperties() throws ConversionException {
+		if (properties == null) {
+			properties = CustomRepresentationParser.parse(specification).getProperties();
+		}
+		return properties;
+	}
+	
+	/**
+	 * A property of a custom representation with the representation it is requested in
+	 */
+	public static class Property {
+		
+		/**
+		 * The name that includes the links of an object
+		 */
+		public static final String LINKS = "links";
+		
+		private final String name;
+		
+		private final Representation representation;
+		
+		public Property(String name, Representation representation) {
+			this.name = name;
+			this.representation = representation;
+		}
+		
+		/**
+		 * @return the name of the property
+		 */
+		public String getName() {
+			return name;
+		}
+		
+		/**
+		 * @return the requested representation, a parsed {@link CustomRepresentation} for nested
+		 *         properties, or null if none was specified
+		 */
+		public Representation getRepresentation() {
+			return representation;
+		}
+		
+		/**
+		 * @return true if this property stands for the links of the object rather than a property
+		 */
+		public boolean isLinks() {
+			return LINKS.equals(name) && representation == null;
+		}
+	}
 }
@@ -0,0 +1,178 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web.representation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest.web.response.ConversionException;
+
+/**
+ * Parses the specification of a {@link CustomRepresentation} into its properties. The grammar is
+ * 
+ * <pre>
+ * specification := '(' property (',' property)* ')'
+ * property      := name (':' (ref | default | full | specification))?
+ * </pre>
+ * 
+ * where the representation names are case insensitive and whitespace around names is ignored.
+ * Nested specifications are parsed into {@link CustomRepresentation}s that already hold their
+ * properties, so converting nested objects does not parse anything again.
+ * <p>
+ * Parsed representations are immutable and kept in a size-bounded, least recently used cache, so
+ * converting a list with a custom representation parses the specification once.
+ */
+public class CustomRepresentationParser {
+	
+	private static final Map<String, CustomRepresentation> parsed = new LinkedHashMap<String, CustomRepresentation>(16,
+	        0.75f, true) {
+		
+		private static final long serialVersionUID = 1L;
+		
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, CustomRepresentation> eldest) {
+			return size() > RestConstants.CUSTOM_REPRESENTATION_CACHE_SIZE;
+		}
+	};
+	
+	private final String specification;
+	
+	private int position;
+	
+	private CustomRepresentationParser(String specification) {
+		this.specification = specification;
+	}
+	
+	/**
+	 * Parses the given specification, or gets it from the cache if it was parsed before
+	 * 
+	 * @param specification
+	 * @return the parsed representation
+	 * @throws ConversionException if the specification is malformed
+	 * @should parse properties with and without a representation
+	 * @should parse nested custom representations
+	 * @should return the same representation for the same specification
+	 * @should fail for unbalanced parentheses
+	 * @should fail for an unknown representation
+	 * @should fail for an empty property name
+	 */
+	public static CustomRepresentation parse(String specification) throws ConversionException {
+		CustomRepresentation representation;
+		synchronized (parsed) {
+			representation = parsed.get(specification);
+		}
+		if (representation == null) {
+			CustomRepresentationParser parser = new CustomRepresentationParser(specification);
+			representation = parser.parseSpecification();
+			parser.skipWhitespace();
+			if (parser.position != specification.length()) {
+				throw parser.error("Unexpected '" + specification.charAt(parser.position) + "'");
+			}
+			synchronized (parsed) {
+				parsed.put(specification, representation);
+			}
+		}
+		return representation;
+	}
+	
+	/**
+	 * Removes all parsed representations
+	 */
+	public static void clearCache() {
+		synchronized (parsed) {
+			parsed.clear();
+		}
+	}
+	
+	private CustomRepresentation parseSpecification() {
+		int start = position;
+		expect('(');
+		List<CustomRepresentation.Property> properties = new ArrayList<CustomRepresentation.Property>();
+		do {
+			properties.add(parseProperty());
+		} while (accept(','));
+		expect(')');
+		return new CustomRepresentation(specification.substring(start, position), Collections
+		        .unmodifiableList(properties));
+	}
+	
+	private CustomRepresentation.Property parseProperty() {
+		String name = parseName();
+		if (name.length() == 0) {
+			throw error("Missing property name");
+		}
+		if (!accept(':')) {
+			return new CustomRepresentation.Property(name, null);
+		}
+		
+		skipWhitespace();
+		if (position < specification.length() && specification.charAt(position) == '(') {
+			CustomRepresentation nested = parseSpecification();
+			skipWhitespace();
+			return new CustomRepresentation.Property(name, nested);
+		}
+		
+		String rep = parseName();
+		if (RestConstants.REPRESENTATION_REF.equalsIgnoreCase(rep)) {
+			return new CustomRepresentation.Property(name, Representation.REF);
+		} else if (RestConstants.REPRESENTATION_DEFAULT.equalsIgnoreCase(rep)) {
+			return new CustomRepresentation.Property(name, Representation.DEFAULT);
+		} else if (RestConstants.REPRESENTATION_FULL.equalsIgnoreCase(rep)) {
+			return new CustomRepresentation.Property(name, Representation.FULL);
+		}
+		throw error("Unknown representation '" + rep + "' of property '" + name + "'");
+	}
+	
+	/**
+	 * Reads up to the next delimiter, leaving out surrounding whitespace
+	 */
+	private String parseName() {
+		int start = position;
+		while (position < specification.length() && !isDelimiter(specification.charAt(position))) {
+			position++;
+		}
+		return specification.substring(start, position).trim();
+	}
+	
+	private boolean isDelimiter(char c) {
+		return c == '(' || c == ')' || c == ',' || c == ':';
+	}
+	
+	private boolean accept(char c) {
+		skipWhitespace();
+		if (position < specification.length() && specification.charAt(position) == c) {
+			position++;
+			return true;
+		}
+		return false;
+	}
+	
+	private void expect(char c) {
+		if (!accept(c)) {
+			throw error(position < specification.length() ? "Expected '" + c + "' but found '"
+			        + specification.charAt(position) + "'" : "Expected '" + c + "' but reached the end");
+		}
+	}
+	
+	private void skipWhitespace() {
+		while (position < specification.length() && Character.isWhitespace(specification.charAt(position))) {
+			position++;
+		}
+	}
+	
+	private ConversionException error(String message) {
+		return new ConversionException(message + " at position " + position + " of the custom representation "
+		        + specification);
+	}
+}
@@ -0,0 +1,35 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web.resource.api;
+
+import java.util.List;
+
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.web.RequestContext;
+import org.openmrs.module.webservices.rest.web.response.ResponseException;
+
+/**
+ * Interface implemented by resources that can create many objects from one request, i.e. when an
+ * array is posted instead of an object
+ */
+public interface BulkCreatable extends Creatable {
+	
+	/**
+	 * Creates all posted objects, or none of them if one is invalid. The caller is expected to
+	 * run this in a single transaction.
+	 * 
+	 * @param posts
+	 * @param context
+	 * @return the created objects, in the order they were posted
+	 * @throws ResponseException
+	 */
+	public List<Object> createAll(List<SimpleObject> posts, RequestContext context) throws ResponseException;
+
+}
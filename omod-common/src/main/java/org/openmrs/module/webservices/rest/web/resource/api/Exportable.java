@@ -0,0 +1,33 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web.resource.api;
+
+import org.openmrs.module.webservices.rest.web.RequestContext;
+import org.openmrs.module.webservices.rest.web.resource.impl.CriteriaPaged;
+import org.openmrs.module.webservices.rest.web.response.ResponseException;
+
+/**
+ * Interface implemented by resources whose objects can be exported all at once with
+ * <code>GET /ws/rest/v1/{resource}/export</code>. The export writes one object per line in the
+ * requested representation while the objects are read, instead of returning pages of results.
+ */
+public interface Exportable {
+	
+	/**
+	 * Gets the query for the objects to export, restricted by the request parameters. The query is
+	 * run by the caller with {@link CriteriaPaged#processAll}.
+	 * 
+	 * @param context
+	 * @return the query
+	 * @throws ResponseException
+	 */
+	public CriteriaPaged<?> getExportQuery(RequestContext context) throws ResponseException;
+	
+}
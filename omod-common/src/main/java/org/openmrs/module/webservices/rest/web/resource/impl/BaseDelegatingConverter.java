@@ -9,7 +9,6 @@
  */
 package org.openmrs.module.webservices.rest.web.resource.impl;
 
-import org.apache.commons.beanutils.PropertyUtils;
 import org.openmrs.module.webservices.rest.SimpleObject;
 import org.openmrs.module.webservices.rest.util.ReflectionUtil;
 import org.openmrs.module.webservices.rest.web.ConversionUtil;
@@ -25,7 +24,6 @@ import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.Map;
 
 /**
  * A base implementation of a converter that can transform something that is _not_ a full resource
@@ -39,6 +37,10 @@ import java.util.Map;
  */
 public abstract class BaseDelegatingConverter<T> implements Converter<T>, DelegatingPropertyAccessor<T> {
 	
+	private volatile String resourceAlias;
+	
+	private volatile boolean resourceAliasResolved = false;
+	
 	/**
 	 * Gets the {@link DelegatingResourceDescription} for the given representation for this
 	 * resource, if it exists
@@ -62,8 +64,11 @@ public abstract class BaseDelegatingConverter<T> implements Converter<T>, Delega
 		if (delegate == null)
 			throw new NullPointerException();
 		
-		DelegatingResourceDescription description = getRepresentationDescription(rep);
-		SimpleObject simple = convertDelegateToRepresentation(delegate, description);
+		RepresentationPlan plan = RepresentationPlan.get(this, rep);
+		if (plan == null)
+			throw new ConversionException("Don't know how to get " + getClass().getSimpleName() + " as "
+			        + rep.getRepresentation(), null);
+		SimpleObject simple = convertDelegateToRepresentation(delegate, plan);
 		return simple;
 	}
 	
@@ -75,7 +80,7 @@ public abstract class BaseDelegatingConverter<T> implements Converter<T>, Delega
 				return annotatedGetter.invoke(this, instance);
 			}
 			
-			return PropertyUtils.getProperty(instance, propertyName);
+			return ReflectionUtil.getProperty(instance, propertyName);
 		}
 		catch (Exception ex) {
 			throw new ConversionException("Unable to get property " + propertyName, ex);
@@ -95,7 +100,7 @@ public abstract class BaseDelegatingConverter<T> implements Converter<T>, Delega
 			}
 			
 			// we need the generic type of this property, not just the class
-			Method setter = PropertyUtils.getPropertyDescriptor(instance, propertyName).getWriteMethod();
+			Method setter = ReflectionUtil.getPropertyWriteMethod(instance, propertyName);
 			
 			// Convert the value to the specified type
 			value = ConversionUtil.convert(value, setter.getGenericParameterTypes()[0], instance);
@@ -112,16 +117,16 @@ public abstract class BaseDelegatingConverter<T> implements Converter<T>, Delega
 		if (value instanceof Collection) {
 			//We need to handle collections in a way that Hibernate can track.
 			Collection<?> newCollection = (Collection<?>) value;
-			Object oldValue = PropertyUtils.getProperty(instance, propertyName);
+			Object oldValue = ReflectionUtil.getProperty(instance, propertyName);
 			if (oldValue instanceof Collection) {
 				Collection collection = (Collection) oldValue;
 				collection.clear();
 				collection.addAll(newCollection);
 			} else {
-				PropertyUtils.setProperty(instance, propertyName, value);
+				ReflectionUtil.setProperty(instance, propertyName, value);
 			}
 		} else {
-			PropertyUtils.setProperty(instance, propertyName, value);
+			ReflectionUtil.setProperty(instance, propertyName, value);
 		}
 	}
 	
@@ -136,18 +141,68 @@ public abstract class BaseDelegatingConverter<T> implements Converter<T>, Delega
 	 */
 	protected SimpleObject convertDelegateToRepresentation(T delegate, DelegatingResourceDescription rep)
 	        throws ConversionException {
+		return convertDelegateToRepresentation(delegate, new RepresentationPlan(rep));
+	}
+	
+	/**
+	 * Converts the delegate using an already compiled plan. If the plan contains any links, and you
+	 * are not extending a subclass that implements getUri, this will throw an exception
+	 * 
+	 * @param delegate
+	 * @param plan
+	 * @return
+	 * @throws ConversionException
+	 */
+	protected SimpleObject convertDelegateToRepresentation(T delegate, RepresentationPlan plan) throws ConversionException {
 		if (delegate == null)
 			throw new NullPointerException();
 		SimpleObject ret = new SimpleObject();
-		for (Map.Entry<String, DelegatingResourceDescription.Property> e : rep.getProperties().entrySet()) {
-			ret.put(e.getKey(), e.getValue().evaluate(this, delegate));
+		for (int i = 0; i < plan.size(); i++) {
+			ret.put(plan.getPropertyName(i), plan.getProperty(i).evaluate(this, delegate));
 		}
-		List<Hyperlink> links = new ArrayList<Hyperlink>();
-		for (Hyperlink link : rep.getLinks()) {
-			if (link.getUri().startsWith(".")) {
-				link = new Hyperlink(link.getRel(), getUri(delegate) + link.getUri().substring(1));
+		Hyperlink[] planLinks = plan.getLinks();
+		if (planLinks.length > 0) {
+			String uri = null;
+			for (Hyperlink planLink : planLinks) {
+				if (planLink.getUri().startsWith(".")) {
+					uri = getUri(delegate);
+					break;
+				}
 			}
-			
+			ret.put("links", createLinks(planLinks, uri));
+		}
+		return ret;
+	}
+	
+	/**
+	 * Creates the links of a converted object from the links of a plan
+	 * 
+	 * @param planLinks
+	 * @param uri the URI of the object, which replaces the leading dot of relative links
+	 * @return the links
+	 */
+	List<Hyperlink> createLinks(Hyperlink[] planLinks, String uri) {
+		String resourceAlias = getResourceAlias();
+		List<Hyperlink> links = new ArrayList<Hyperlink>(planLinks.length);
+		for (Hyperlink planLink : planLinks) {
+			Hyperlink link;
+			if (planLink.getUri().startsWith(".")) {
+				link = new Hyperlink(planLink.getRel(), uri + planLink.getUri().substring(1));
+			} else {
+				link = new Hyperlink(planLink.getRel(), planLink.getUri());
+			}
+			link.setResourceAlias(resourceAlias);
+			links.add(link);
+		}
+		return links;
+	}
+	
+	/**
+	 * @return the alias set on links created by this converter, i.e. the last path segment of its
+	 *         resource name or its sub-resource path, or null if it is neither
+	 */
+	private String getResourceAlias() {
+		if (!resourceAliasResolved) {
 			org.openmrs.module.webservices.rest.web.annotation.Resource res = getClass().getAnnotation(
 			    org.openmrs.module.webservices.rest.web.annotation.Resource.class);
 			if (res != null) {
@@ -155,18 +210,16 @@ public abstract class BaseDelegatingConverter<T> implements Converter<T>, Delega
 				if (name.contains("/")) {
 					name = name.substring(name.lastIndexOf("/") + 1);
 				}
-				link.setResourceAlias(name);
+				resourceAlias = name;
 			} else {
 				SubResource sub = getClass().getAnnotation(SubResource.class);
 				if (sub != null) {
-					link.setResourceAlias(sub.path());
+					resourceAlias = sub.path();
 				}
 			}
-			links.add(link);
+			resourceAliasResolved = true;
 		}
-		if (links.size() > 0)
-			ret.put("links", links);
-		return ret;
+		return resourceAlias;
 	}
 	
 	/**
@@ -22,8 +22,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
-import org.apache.commons.beanutils.PropertyUtils;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
@@ -33,16 +34,17 @@ import org.openmrs.OpenmrsObject;
 import org.openmrs.api.context.Context;
 import org.openmrs.module.ModuleUtil;
 import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.util.PropertyAccessor;
 import org.openmrs.module.webservices.rest.util.ReflectionUtil;
 import org.openmrs.module.webservices.rest.web.ConversionUtil;
+import org.openmrs.module.webservices.rest.web.Hyperlink;
 import org.openmrs.module.webservices.rest.web.RequestContext;
 import org.openmrs.module.webservices.rest.web.RestConstants;
 import org.openmrs.module.webservices.rest.web.annotation.PropertyGetter;
-import org.openmrs.module.webservices.rest.web.annotation.RepHandler;
 import org.openmrs.module.webservices.rest.web.annotation.SubClassHandler;
+import org.openmrs.module.webservices.rest.web.api.RestHelperService;
 import org.openmrs.module.webservices.rest.web.api.RestService;
 import org.openmrs.module.webservices.rest.web.representation.CustomRepresentation;
-import org.openmrs.module.webservices.rest.web.representation.NamedRepresentation;
 import org.openmrs.module.webservices.rest.web.representation.RefRepresentation;
 import org.openmrs.module.webservices.rest.web.representation.Representation;
 import org.openmrs.module.webservices.rest.web.resource.api.Converter;
@@ -82,6 +84,11 @@ public abstract class BaseDelegatingResource<T> extends BaseDelegatingConverter<
 	 */
 	protected volatile List<DelegatingSubclassHandler<T, ? extends T>> subclassHandlers;
 	
+	/**
+	 * Lookup tables built from {@link #subclassHandlers}, replaced whenever a handler is registered
+	 */
+	private volatile SubclassHandlerIndex<T> subclassHandlerIndex;
+	
 	/**
 	 * Default constructor will set propertiesIgnoredWhenUpdating to include "display", "links", and
 	 * "resourceVersion"
@@ -146,6 +153,7 @@ public abstract class BaseDelegatingResource<T> extends BaseDelegatingConverter<
 		}
 		
 		subclassHandlers = tmpSubclassHandlers;
+		subclassHandlerIndex = new SubclassHandlerIndex<T>(tmpSubclassHandlers);
 	}
 	
 	/**
@@ -164,6 +172,7 @@ public abstract class BaseDelegatingResource<T> extends BaseDelegatingConverter<
 			}
 		}
 		subclassHandlers.add(handler);
+		subclassHandlerIndex = new SubclassHandlerIndex<T>(subclassHandlers);
 	}
 	
 	/**
@@ -310,20 +319,29 @@ public abstract class BaseDelegatingResource<T> extends BaseDelegatingConverter<
 		
 		DelegatingResourceHandler<? extends T> handler = getResourceHandler(delegate);
 		
-		// first call getRepresentationDescription()
-		DelegatingResourceDescription repDescription = handler.getRepresentationDescription(representation);
-		if (repDescription != null) {
-			SimpleObject simple = convertDelegateToRepresentation(delegate, repDescription);
+		// first look for the compiled getRepresentationDescription() or @RepHandler method, custom
+		// representations that no handler supports are compiled from their parsed properties
+		RepresentationPlan plan;
+		if (representation instanceof CustomRepresentation) {
+			plan = RepresentationPlan.getCustom(this, handler, delegate.getClass(), (CustomRepresentation) representation);
+		} else {
+			plan = RepresentationPlan.get(handler, representation);
+		}
+		
+		if (plan != null && plan.getRepHandler() == null) {
+			SimpleObject simple = convertDelegateToRepresentation(delegate, plan);
 			
-			maybeDecorateWithType(simple, delegate);
-			decorateWithResourceVersion(simple, representation);
+			if (!plan.isParsed()) {
+				maybeDecorateWithType(simple, delegate);
+				decorateWithResourceVersion(simple, representation);
+			}
 			
 			return simple;
 		}
 		
-		// otherwise look for a method annotated to handle this representation
-		Method meth = findAnnotatedMethodForRepresentation(handler.getClass(), representation);
-		if (meth != null) {
+		// otherwise call the method annotated to handle this representation
+		if (plan != null) {
+			Method meth = plan.getRepHandler();
 			try {
 				// TODO verify that the method takes 1 or 2 parameters
 				SimpleObject simple;
@@ -342,78 +360,106 @@ public abstract class BaseDelegatingResource<T> extends BaseDelegatingConverter<
 			}
 		}
 		
-		// finally if it is a custom representation and not supported by any other handler
-		if (representation instanceof CustomRepresentation) {
-			repDescription = getCustomRepresentationDescription((CustomRepresentation) representation);
-			if (repDescription != null) {
-				SimpleObject simple = convertDelegateToRepresentation(delegate, repDescription);
-				
-				return simple;
-			}
-		}
-		
 		throw new ConversionException("Don't know how to get " + getClass().getSimpleName() + "(" + delegate.getClass()
 		        + ") as " + representation.getRepresentation(), null);
 	}
 	
 	/**
-	 * @should return delegating resource description
+	 * Tells whether a custom representation may include the given property of objects of the given
+	 * class, i.e. whether it is nested, allowed to be missing, read by a {@link PropertyGetter} of
+	 * the handler or a readable bean property. Resources that override
+	 * {@link #getProperty(Object, String)} accept any property.
+	 * 
+	 * @param handler the handler of delegateClass
+	 * @param delegateClass
+	 * @param propertyName
+	 * @return true if the property can be read
 	 */
-	private DelegatingResourceDescription getCustomRepresentationDescription(CustomRepresentation representation) {
-		DelegatingResourceDescription desc = new DelegatingResourceDescription();
+	boolean isReadableProperty(DelegatingResourceHandler<?> handler, Class<?> delegateClass, String propertyName) {
+		if (propertyName.indexOf('.') >= 0 || propertyName.indexOf('[') >= 0
+		        || allowedMissingProperties.contains(propertyName) || overridesGetProperty()) {
+			return true;
+		}
+		if (ReflectionUtil.findPropertyGetterMethod(handler, propertyName) != null) {
+			return true;
+		}
+		PropertyAccessor accessor = ReflectionUtil.findPropertyAccessor(delegateClass, propertyName);
+		return accessor != null && accessor.isReadable();
+	}
+	
+	/**
+	 * Gets the projection that builds the given representation of objects of the given class from
+	 * the values of their mapped properties, so that lists of them can be converted without loading
+	 * the objects. Custom representations have one if they only include links and properties that
+	 * are stored in the table of the class and not read by a {@link PropertyGetter}. Subclasses may
+	 * return projections for the representations they describe if {@link #isProjectable()}.
+	 * 
+	 * @param delegateClass the mapped class of the objects
+	 * @param rep
+	 * @return the projection, or null if rep can only be built from the objects
+	 * @throws ConversionException if rep is a malformed custom representation
+	 * @should return a projection for a custom representation of column properties
+	 * @should return null for a custom representation with a property getter
+	 * @should return null for a custom representation with an association
+	 */
+	public RepresentationProjection getProjection(Class<?> delegateClass, Representation rep) throws ConversionException {
+		if (!(rep instanceof CustomRepresentation) || !isProjectable()) {
+			return null;
+		}
+		RepresentationPlan plan = RepresentationPlan.getCustom(this, this, delegateClass, (CustomRepresentation) rep);
+		if (!plan.isParsed()) {
+			return null;
+		}
 		
-		String def = representation.getRepresentation();
-		def = def.substring(1, def.length() - 1); //remove '(' and ')'
-		String[] fragments = def.split(",");
-		for (int i = 0; i < fragments.length; i++) {
-			String[] field = fragments[i].split(":"); //split into field and representation
-			if (field.length == 1) {
-				if (!field[0].equals("links"))
-					desc.addProperty(field[0]);
-				if (field[0].equals("links")) {
-					desc.addSelfLink();
-					desc.addLink("default", ".?v=" + RestConstants.REPRESENTATION_DEFAULT);
-				}
-			} else {
-				String property = field[0];
-				String rep = field[1];
-				
-				// if custom representation
-				if (rep.startsWith("(")) {
-					StringBuilder customRep = new StringBuilder();
-					customRep.append(rep);
-					int open = 1;
-					for (i = i + 1; i < fragments.length; i++) {
-						for (char fragment : fragments[i].toCharArray()) {
-							if (fragment == '(') {
-								open++;
-							} else if (fragment == ')') {
-								open--;
-							}
-						}
-						
-						customRep.append(",");
-						customRep.append(fragments[i]);
-						
-						if (open == 0) {
-							break;
-						}
-					}
-					desc.addProperty(property, new CustomRepresentation(customRep.toString()));
-				} else {
-					rep = rep.toUpperCase(); //normalize
-					if (rep.equals("REF")) {
-						desc.addProperty(property, Representation.REF);
-					} else if (rep.equals("FULL")) {
-						desc.addProperty(property, Representation.FULL);
-					} else if (rep.equals("DEFAULT")) {
-						desc.addProperty(property, Representation.DEFAULT);
-					}
-				}
+		Set<String> columns = Context.getService(RestHelperService.class).getColumnProperties(delegateClass);
+		if (!columns.contains("uuid")) {
+			return null;
+		}
+		String[] properties = new String[plan.size() + 1];
+		for (int i = 0; i < plan.size(); i++) {
+			properties[i] = plan.getProperty(i).getDelegateProperty();
+			if (!columns.contains(properties[i]) || ReflectionUtil.findPropertyGetterMethod(this, properties[i]) != null) {
+				return null;
 			}
 		}
-		
-		return desc;
+		// the links are built from the uuid
+		properties[plan.size()] = "uuid";
+		return new PlanProjection(plan, properties);
+	}
+	
+	/**
+	 * Tells whether the representations of objects only depend on the values of their properties,
+	 * i.e. this resource has no subclass handlers and changes neither how properties are read nor
+	 * how the URIs of objects are built
+	 * 
+	 * @return true if representations can be built from projections
+	 */
+	protected boolean isProjectable() {
+		return !hasTypesDefined() && !overridesGetProperty() && !isOverridden("getUri", Object.class)
+		        && !isOverridden("getUniqueId", Object.class);
+	}
+	
+	private boolean isOverridden(String methodName, Class<?>... parameterTypes) {
+		for (Class<?> clazz = getClass(); clazz != BaseDelegatingResource.class; clazz = clazz.getSuperclass()) {
+			try {
+				clazz.getDeclaredMethod(methodName, parameterTypes);
+				return true;
+			}
+			catch (NoSuchMethodException e) {
+				// look further up
+			}
+		}
+		return false;
+	}
+	
+	private boolean overridesGetProperty() {
+		try {
+			Method getProperty = getClass().getMethod("getProperty", Object.class, String.class);
+			return getProperty.getDeclaringClass() != BaseDelegatingResource.class;
+		}
+		catch (NoSuchMethodException e) {
+			return true;
+		}
 	}
 	
 	/**
@@ -527,6 +573,8 @@ public abstract class BaseDelegatingResource<T> extends BaseDelegatingConverter<
 	/**
 	 * @param subclass
 	 * @return the handler most appropriate for the given subclass, or null if none is suitable
+	 * @should return the handler registered for the exact class
+	 * @should fall back to the handler of the closest superclass
 	 */
 	protected DelegatingSubclassHandler<T, ? extends T> getSubclassHandler(Class<? extends T> subclass) {
 		if (subclassHandlers == null) {
@@ -535,17 +583,7 @@ public abstract class BaseDelegatingResource<T> extends BaseDelegatingConverter<
 		
 		if (!hasTypesDefined())
 			return null;
-		// look for an exact match
-		for (DelegatingSubclassHandler<T, ? extends T> handler : subclassHandlers) {
-			Class<? extends T> subclassHandled = handler.getSubclassHandled();
-			if (subclass.equals(subclassHandled))
-				return handler;
-		}
-		
-		// TODO should we recurse to subclass's superclass, e.g. so DrugOrderHandler can handle HivDrugOrder if no handler is defined?
-		
-		// didn't find anything suitable
-		return null;
+		return subclassHandlerIndex.getHandler(subclass);
 	}
 	
 	/**
@@ -557,10 +595,7 @@ public abstract class BaseDelegatingResource<T> extends BaseDelegatingConverter<
 			if (subclassHandlers == null) {
 				init();
 			}
-			for (DelegatingSubclassHandler<T, ? extends T> handler : subclassHandlers) {
-				if (type.equals(handler.getTypeName()))
-					return handler;
-			}
+			return subclassHandlerIndex.getHandler(type);
 		}
 		return null;
 	}
@@ -643,30 +678,6 @@ public abstract class BaseDelegatingResource<T> extends BaseDelegatingConverter<
 		return OpenmrsUtil.nullSafeEquals(oldValue, newValue);
 	}
 	
-	/**
-	 * Finds a method on clazz or a superclass that is annotated with {@link RepHandler} and is
-	 * suitable for rep
-	 * 
-	 * @param clazz
-	 * @param rep
-	 * @return
-	 */
-	private Method findAnnotatedMethodForRepresentation(Class<?> clazz, Representation rep) {
-		for (Method method : clazz.getMethods()) {
-			RepHandler ann = method.getAnnotation(RepHandler.class);
-			if (ann != null) {
-				if (ann.value().isAssignableFrom(rep.getClass())) {
-					if (!(rep instanceof NamedRepresentation)) {
-						return method;
-					} else if (ann.name().equals(rep.getRepresentation())) {
-						return method;
-					}
-				}
-			}
-		}
-		return null;
-	}
-	
 	/**
 	 * @see org.openmrs.module.webservices.rest.web.resource.api.Converter#getProperty(java.lang.Object,
 	 *      java.lang.String)
@@ -682,7 +693,7 @@ public abstract class BaseDelegatingResource<T> extends BaseDelegatingConverter<
 				return annotatedGetter.invoke(handler, instance);
 			}
 			
-			return PropertyUtils.getProperty(instance, propertyName);
+			return ReflectionUtil.getProperty(instance, propertyName);
 		}
 		catch (Exception ex) {
 			// some properties are allowed to be missing, since they may have been added in later OpenMRS versions
@@ -723,7 +734,7 @@ public abstract class BaseDelegatingResource<T> extends BaseDelegatingConverter<
 			}
 			
 			// we need the generic type of this property, not just the class
-			Method setter = PropertyUtils.getPropertyDescriptor(instance, propertyName).getWriteMethod();
+			Method setter = ReflectionUtil.getPropertyWriteMethod(instance, propertyName);
 			
 			// Convert the value to the specified type
 			value = ConversionUtil.convert(value, setter.getGenericParameterTypes()[0], instance);
@@ -816,10 +827,18 @@ public abstract class BaseDelegatingResource<T> extends BaseDelegatingConverter<
 		if (delegate == null)
 			return "";
 		
+		return getUriOfUuid(getUniqueId((T) delegate));
+	}
+	
+	/**
+	 * @param uuid
+	 * @return the URI of the object with the given uuid, as built by {@link #getUri(Object)}
+	 */
+	String getUriOfUuid(String uuid) {
 		org.openmrs.module.webservices.rest.web.annotation.Resource res = getClass().getAnnotation(
 		    org.openmrs.module.webservices.rest.web.annotation.Resource.class);
 		if (res != null) {
-			return RestConstants.URI_PREFIX + res.name() + "/" + getUniqueId((T) delegate);
+			return RestConstants.URI_PREFIX + res.name() + "/" + uuid;
 		}
 		throw new RuntimeException(getClass() + " needs a @Resource or @SubResource annotation");
 	}
@@ -852,4 +871,88 @@ public abstract class BaseDelegatingResource<T> extends BaseDelegatingConverter<
 		return newDelegate();
 	}
 	
+	/**
+	 * Builds a parsed custom representation from the values of its properties, followed by the
+	 * uuid for the links
+	 */
+	private class PlanProjection extends RepresentationProjection {
+		
+		private final RepresentationPlan plan;
+		
+		public PlanProjection(RepresentationPlan plan, String[] properties) {
+			super(properties);
+			this.plan = plan;
+		}
+		
+		@Override
+		public SimpleObject toRepresentation(Object[] values) throws ConversionException {
+			SimpleObject simple = new SimpleObject();
+			for (int i = 0; i < plan.size(); i++) {
+				Property property = plan.getProperty(i);
+				simple.put(plan.getPropertyName(i),
+				    ConversionUtil.convertToRepresentation(values[i], property.getRep(), property.getConvertAs()));
+			}
+			Hyperlink[] links = plan.getLinks();
+			if (links.length > 0) {
+				simple.put("links", createLinks(links, getUriOfUuid((String) values[plan.size()])));
+			}
+			return simple;
+		}
+	}
+	
+	/**
+	 * Immutable lookup tables of the subclass handlers of one resource by handled class and by type
+	 * name. Classes without a registered handler, such as Hibernate proxies and subclasses that no
+	 * module registered a handler for, are resolved to the handler of their closest superclass the
+	 * first time they are seen, and the result is remembered.
+	 */
+	private static class SubclassHandlerIndex<T> {
+		
+		/**
+		 * Remembers classes for which no handler is suitable
+		 */
+		private static final Object NO_HANDLER = new Object();
+		
+		private final Map<Class<?>, DelegatingSubclassHandler<T, ? extends T>> handlersByClass;
+		
+		private final Map<String, DelegatingSubclassHandler<T, ? extends T>> handlersByTypeName;
+		
+		private final ConcurrentMap<Class<?>, Object> resolved = new ConcurrentHashMap<Class<?>, Object>();
+		
+		public SubclassHandlerIndex(List<DelegatingSubclassHandler<T, ? extends T>> handlers) {
+			Map<Class<?>, DelegatingSubclassHandler<T, ? extends T>> byClass = new HashMap<Class<?>, DelegatingSubclassHandler<T, ? extends T>>();
+			Map<String, DelegatingSubclassHandler<T, ? extends T>> byTypeName = new HashMap<String, DelegatingSubclassHandler<T, ? extends T>>();
+			for (DelegatingSubclassHandler<T, ? extends T> handler : handlers) {
+				// the first handler registered for a class or type name wins, as with a linear scan
+				if (!byClass.containsKey(handler.getSubclassHandled())) {
+					byClass.put(handler.getSubclassHandled(), handler);
+				}
+				if (!byTypeName.containsKey(handler.getTypeName())) {
+					byTypeName.put(handler.getTypeName(), handler);
+				}
+			}
+			handlersByClass = byClass;
+			handlersByTypeName = byTypeName;
+		}
+		
+		@SuppressWarnings("unchecked")
+		public DelegatingSubclassHandler<T, ? extends T> getHandler(Class<?> subclass) {
+			Object handler = resolved.get(subclass);
+			if (handler == null) {
+				handler = NO_HANDLER;
+				for (Class<?> clazz = subclass; clazz != null; clazz = clazz.getSuperclass()) {
+					if (handlersByClass.containsKey(clazz)) {
+						handler = handlersByClass.get(clazz);
+						break;
+					}
+				}
+				resolved.put(subclass, handler);
+			}
+			return handler == NO_HANDLER ? null : (DelegatingSubclassHandler<T, ? extends T>) handler;
+		}
+		
+		public DelegatingSubclassHandler<T, ? extends T> getHandler(String type) {
+			return handlersByTypeName.get(type);
+		}
+	}
 }
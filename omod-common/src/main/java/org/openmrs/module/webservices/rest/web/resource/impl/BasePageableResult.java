@@ -42,25 +42,29 @@ public abstract class BasePageableResult<T> implements PageableResult {
 		return null;
 	}
 	
+	/**
+	 * Return the cursor to continue after the last result of this page, for results that support
+	 * keyset paging. The next link carries the cursor instead of a startIndex if this is not null.
+	 */
+	public String getNextCursor() {
+		return null;
+	}
+	
 	/**
 	 * @see PageableResult#toSimpleObject(Converter)
 	 * @should add property totalCount if context contains parameter totalCount which is true
 	 * @should not add property totalCount if context contains parameter totalCount which is false
 	 * @should not add property totalCount if context does not contains parameter totalCount
+	 * @should prefetch the references of a page and convert it like single objects
 	 */
 	@Override
 	public SimpleObject toSimpleObject(Converter preferredConverter) throws ResponseException {
-		List<Object> results = new ArrayList<Object>();
-		for (T match : getPageOfResults()) {
-			results.add(ConversionUtil.convertToRepresentation(match, context.getRepresentation(), preferredConverter));
-		}
-		
-		SimpleObject ret = new SimpleObject().add("results", results);
+		SimpleObject ret = new SimpleObject().add("results", convertPageOfResults(preferredConverter));
 		boolean hasMore = hasMoreResults();
 		if (context.getStartIndex() > 0 || hasMore) {
 			List<Hyperlink> links = new ArrayList<Hyperlink>();
 			if (hasMore)
-				links.add(context.getNextLink());
+				links.add(getNextCursor() != null ? context.getNextLink(getNextCursor()) : context.getNextLink());
 			if (context.getStartIndex() > 0)
 				links.add(context.getPreviousLink());
 			ret.add("links", links);
@@ -71,4 +75,21 @@ public abstract class BasePageableResult<T> implements PageableResult {
 		return ret;
 	}
 	
+	/**
+	 * Converts the page of results to the requested representation
+	 * 
+	 * @param preferredConverter
+	 * @return the converted results
+	 * @throws ResponseException
+	 */
+	protected List<Object> convertPageOfResults(Converter preferredConverter) throws ResponseException {
+		List<T> page = getPageOfResults();
+		ReferencePrefetcher.prefetch(page, preferredConverter, context.getRepresentation());
+		List<Object> results = new ArrayList<Object>();
+		for (T match : page) {
+			results.add(ConversionUtil.convertToRepresentation(match, context.getRepresentation(), preferredConverter));
+		}
+		return results;
+	}
+	
 }
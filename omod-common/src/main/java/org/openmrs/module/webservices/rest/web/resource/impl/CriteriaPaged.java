@@ -0,0 +1,192 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web.resource.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.criterion.Criterion;
+import org.hibernate.criterion.Order;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.webservices.rest.web.RequestContext;
+import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest.web.RestUtil;
+import org.openmrs.module.webservices.rest.web.api.RestHelperService;
+import org.openmrs.module.webservices.rest.web.api.RestHelperService.ObjectCallback;
+import org.openmrs.module.webservices.rest.web.resource.api.Converter;
+import org.openmrs.module.webservices.rest.web.resource.api.Exportable;
+import org.openmrs.module.webservices.rest.web.resource.api.Listable;
+import org.openmrs.module.webservices.rest.web.resource.api.Searchable;
+import org.openmrs.module.webservices.rest.web.response.ResponseException;
+
+/**
+ * A query for objects of one type that is only run when the results are needed, with the paging
+ * settings from the request context applied in the database. Only the requested page (plus one
+ * object to tell whether there are more results) is loaded, and the total count is fetched with a
+ * separate count query only if the client asks for it. This should be used by implementations of
+ * {@link Listable} and {@link Searchable} instead of {@link NeedsPaging} when the results can be
+ * described by restrictions on a single mapped class.
+ * <p>
+ * The query does not go through the OpenMRS service layer, so the privilege that the equivalent
+ * service method requires must be passed in and is checked before the query is run.
+ * <p>
+ * If the resource has a {@link RepresentationProjection} for the requested representation, only
+ * the properties it needs are selected and the objects are not loaded at all.
+ * 
+ * @param <T> the generic type of the list of results
+ */
+public class CriteriaPaged<T> extends BasePageableResult<T> {
+	
+	private final Class<T> type;
+	
+	private final String requiredPrivilege;
+	
+	private final List<Criterion> restrictions = new ArrayList<Criterion>();
+	
+	private final List<Order> orders = new ArrayList<Order>();
+	
+	private List<T> results;
+	
+	private boolean hasMoreResults;
+	
+	private boolean projected;
+	
+	/**
+	 * @param context
+	 * @param type the mapped class to query
+	 * @param requiredPrivilege the privilege needed to view the results, or null if none is needed
+	 */
+	public CriteriaPaged(RequestContext context, Class<T> type, String requiredPrivilege) {
+		this.context = context;
+		this.type = type;
+		this.requiredPrivilege = requiredPrivilege;
+	}
+	
+	/**
+	 * Restricts the results, e.g. with <code>Restrictions.eq("voided", false)</code>
+	 * 
+	 * @param restriction
+	 * @return this object (for chained method calls)
+	 */
+	public CriteriaPaged<T> add(Criterion restriction) {
+		restrictions.add(restriction);
+		return this;
+	}
+	
+	/**
+	 * Orders the results. Callers should end with a unique property such as the id, so that pages
+	 * do not overlap.
+	 * 
+	 * @param order
+	 * @return this object (for chained method calls)
+	 */
+	public CriteriaPaged<T> addOrder(Order order) {
+		orders.add(order);
+		return this;
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BasePageableResult#getPageOfResults()
+	 * @should return only the requested page
+	 * @should fail if the user does not have the required privilege
+	 */
+	@Override
+	public List<T> getPageOfResults() {
+		if (results == null) {
+			checkPrivilege();
+			int limit = context.getLimit();
+			List<T> page = Context.getService(RestHelperService.class).getObjectsByCriteria(type, restrictions, orders,
+			    context.getStartIndex(), limit + 1);
+			hasMoreResults = page.size() > limit;
+			results = hasMoreResults ? page.subList(0, limit) : page;
+		}
+		return results;
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BasePageableResult#hasMoreResults()
+	 * @should tell whether there are results after the requested page
+	 */
+	@Override
+	public boolean hasMoreResults() {
+		if (!projected) {
+			getPageOfResults();
+		}
+		return hasMoreResults;
+	}
+	
+	/**
+	 * Converts the page with the projection of the converter for the requested representation if
+	 * it has one, otherwise loads and converts the objects
+	 * 
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BasePageableResult#convertPageOfResults(org.openmrs.module.webservices.rest.web.resource.api.Converter)
+	 * @should convert the page with the projection of the converter
+	 * @should tell whether there are results after the projected page
+	 */
+	@Override
+	protected List<Object> convertPageOfResults(Converter preferredConverter) throws ResponseException {
+		RepresentationProjection projection = null;
+		if (results == null && preferredConverter instanceof BaseDelegatingResource) {
+			projection = RepresentationProjection.get((BaseDelegatingResource<?>) preferredConverter, type,
+			    context.getRepresentation());
+		}
+		if (projection == null) {
+			return super.convertPageOfResults(preferredConverter);
+		}
+		
+		checkPrivilege();
+		int limit = context.getLimit();
+		List<Object[]> page = Context.getService(RestHelperService.class).getPropertiesByCriteria(type, restrictions,
+		    orders, projection.getProperties(), context.getStartIndex(), limit + 1);
+		hasMoreResults = page.size() > limit;
+		projected = true;
+		
+		List<Object> converted = new ArrayList<Object>();
+		for (Object[] values : hasMoreResults ? page.subList(0, limit) : page) {
+			converted.add(projection.toRepresentation(values));
+		}
+		return converted;
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BasePageableResult#getTotalCount()
+	 * @should count all matching objects
+	 */
+	@Override
+	public Long getTotalCount() {
+		checkPrivilege();
+		return Context.getService(RestHelperService.class).getCountOfObjectsByCriteria(type, restrictions);
+	}
+	
+	/**
+	 * Runs the query without paging, as needed by {@link Exportable} resources. All results are
+	 * passed to the callback ordered by id, the orders of this query are ignored. They are read
+	 * {@link RestConstants#EXPORT_BATCH_SIZE} at a time and the session is cleared after each
+	 * batch, so the memory used does not depend on the number of results.
+	 * 
+	 * @param callback
+	 * @return the number of results
+	 * @throws IOException if the callback fails
+	 * @should pass all matching objects to the callback
+	 * @should fail if the user does not have the required privilege
+	 */
+	public long processAll(ObjectCallback<? super T> callback) throws IOException {
+		checkPrivilege();
+		return Context.getService(RestHelperService.class).processObjectsByCriteria(type, restrictions,
+		    RestConstants.EXPORT_BATCH_SIZE, callback);
+	}
+	
+	private void checkPrivilege() {
+		if (requiredPrivilege != null) {
+			RestUtil.requirePrivilege(requiredPrivilege);
+		}
+	}
+}
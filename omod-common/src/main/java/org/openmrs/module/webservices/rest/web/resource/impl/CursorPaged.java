@@ -0,0 +1,105 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web.resource.impl;
+
+import java.util.List;
+
+import org.apache.commons.lang.StringUtils;
+import org.openmrs.OpenmrsObject;
+import org.openmrs.module.webservices.rest.web.RequestContext;
+import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest.web.response.InvalidSearchException;
+
+/**
+ * Wraps a page of results that was fetched with keyset paging, i.e. by asking the database for the
+ * results ordered by id that come after the id of the last result of the previous page. Unlike
+ * startIndex paging, the cost of fetching a page does not grow with how deep into the results it
+ * is. The next link carries an opaque cursor instead of a startIndex.
+ * <p>
+ * Searches opt in by checking {@link RequestContext#getCursor()}, fetching
+ * {@link RequestContext#getLimit()} + 1 results with an id greater than {@link #getLastId} and
+ * passing them to {@link #CursorPaged(RequestContext, List)}.
+ * 
+ * @param <T> the generic type of the list of results
+ * @see RestConstants#REQUEST_PROPERTY_FOR_CURSOR
+ */
+public class CursorPaged<T extends OpenmrsObject> extends BasePageableResult<T> {
+	
+	private static final int RADIX = Character.MAX_RADIX;
+	
+	private List<T> results;
+	
+	private boolean hasMoreResults;
+	
+	/**
+	 * @param context
+	 * @param results up to limit + 1 results ordered by id, the extra result is only used to tell
+	 *            whether there are more results and is not returned
+	 * @should return at most limit results
+	 * @should point the next cursor at the last returned result
+	 * @should not have a next cursor on the last page
+	 */
+	public CursorPaged(RequestContext context, List<T> results) {
+		this.context = context;
+		int limit = context.getLimit();
+		this.hasMoreResults = results.size() > limit;
+		this.results = hasMoreResults ? results.subList(0, limit) : results;
+	}
+	
+	/**
+	 * Gets the id after which the requested page starts
+	 * 
+	 * @param context
+	 * @return the id of the last result of the previous page, or null for the first page
+	 * @throws InvalidSearchException if the cursor is malformed
+	 * @should return null for an empty cursor
+	 * @should decode a cursor created by getNextCursor
+	 * @should fail for a malformed cursor
+	 */
+	public static Integer getLastId(RequestContext context) {
+		String cursor = context.getCursor();
+		if (StringUtils.isBlank(cursor)) {
+			return null;
+		}
+		try {
+			return Integer.valueOf(cursor, RADIX);
+		}
+		catch (NumberFormatException e) {
+			throw new InvalidSearchException("Invalid " + RestConstants.REQUEST_PROPERTY_FOR_CURSOR + ": " + cursor);
+		}
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BasePageableResult#getPageOfResults()
+	 */
+	@Override
+	public List<T> getPageOfResults() {
+		return results;
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BasePageableResult#hasMoreResults()
+	 */
+	@Override
+	public boolean hasMoreResults() {
+		return hasMoreResults;
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BasePageableResult#getNextCursor()
+	 */
+	@Override
+	public String getNextCursor() {
+		if (!hasMoreResults || results.isEmpty()) {
+			return null;
+		}
+		return Integer.toString(results.get(results.size() - 1).getId(), RADIX);
+	}
+}
@@ -9,19 +9,30 @@
  */
 package org.openmrs.module.webservices.rest.web.resource.impl;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.openmrs.OpenmrsData;
+import org.openmrs.api.context.Context;
 import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.web.ConversionUtil;
+import org.openmrs.module.webservices.rest.web.RequestContext;
+import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest.web.RestUtil;
 import org.openmrs.module.webservices.rest.web.annotation.RepHandler;
 import org.openmrs.module.webservices.rest.web.representation.DefaultRepresentation;
 import org.openmrs.module.webservices.rest.web.representation.RefRepresentation;
+import org.openmrs.module.webservices.rest.web.representation.Representation;
+import org.openmrs.module.webservices.rest.web.resource.api.BulkCreatable;
 import org.openmrs.module.webservices.rest.web.response.ConversionException;
+import org.openmrs.module.webservices.rest.web.response.ResponseException;
 
 /**
  * Subclass of {@link DelegatingCrudResource} with helper methods specific to {@link OpenmrsData}
  * 
  * @param <T>
  */
-public abstract class DataDelegatingCrudResource<T extends OpenmrsData> extends DelegatingCrudResource<T> {
+public abstract class DataDelegatingCrudResource<T extends OpenmrsData> extends DelegatingCrudResource<T> implements BulkCreatable {
 	
 	@RepHandler(RefRepresentation.class)
 	public SimpleObject asRef(T delegate) throws ConversionException {
@@ -48,4 +59,54 @@ public abstract class DataDelegatingCrudResource<T extends OpenmrsData> extends
 	public boolean isVoidable() {
 		return true;
 	}
+	
+	/**
+	 * Converts and validates all posted objects before saving any of them, then saves them with
+	 * {@link #saveInBulk(OpenmrsData)}. After every
+	 * {@link RestConstants#BULK_CREATE_BATCH_SIZE_GLOBAL_PROPERTY_NAME} objects the session is
+	 * flushed and the objects of the batch are evicted from it, so the session does not grow with
+	 * the number of posted objects. The created objects are returned in their ref representation.
+	 * 
+	 * @see org.openmrs.module.webservices.rest.web.resource.api.BulkCreatable#createAll(java.util.List,
+	 *      org.openmrs.module.webservices.rest.web.RequestContext)
+	 */
+	@Override
+	public List<Object> createAll(List<SimpleObject> posts, RequestContext context) throws ResponseException {
+		List<T> delegates = new ArrayList<T>(posts.size());
+		for (SimpleObject post : posts) {
+			delegates.add(newValidatedDelegate(post));
+		}
+		
+		int batchSize = RestUtil.getSettings().getBulkCreateBatchSize();
+		List<Object> created = new ArrayList<Object>(delegates.size());
+		List<T> batch = new ArrayList<T>(batchSize);
+		for (int i = 0; i < delegates.size(); i++) {
+			T delegate = saveInBulk(delegates.get(i));
+			batch.add(delegate);
+			SimpleObject ret = (SimpleObject) ConversionUtil.convertToRepresentation(delegate, Representation.REF);
+			if (hasTypesDefined()) {
+				ret.add(RestConstants.PROPERTY_FOR_TYPE, getTypeName(delegate));
+			}
+			created.add(ret);
+			if ((i + 1) % batchSize == 0) {
+				Context.flushSession();
+				for (T saved : batch) {
+					Context.evictFromSession(saved);
+				}
+				batch.clear();
+			}
+		}
+		return created;
+	}
+	
+	/**
+	 * Saves one object of a bulk create. Defaults to {@link #save(Object)}, resources whose save
+	 * reloads the saved object should override this to skip the reload.
+	 * 
+	 * @param delegate
+	 * @return the saved object
+	 */
+	protected T saveInBulk(T delegate) {
+		return save(delegate);
+	}
 }
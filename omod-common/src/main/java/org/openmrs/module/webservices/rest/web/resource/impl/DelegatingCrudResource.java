@@ -9,15 +9,30 @@
  */
 package org.openmrs.module.webservices.rest.web.resource.impl;
 
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.beanutils.MethodUtils;
+import org.apache.commons.beanutils.PropertyUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.openmrs.Auditable;
+import org.openmrs.OpenmrsObject;
+import org.openmrs.api.context.Context;
 import org.openmrs.module.webservices.rest.SimpleObject;
 import org.openmrs.module.webservices.rest.web.ConversionUtil;
 import org.openmrs.module.webservices.rest.web.RequestContext;
 import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest.web.RestUtil;
 import org.openmrs.module.webservices.rest.web.annotation.Resource;
 import org.openmrs.module.webservices.rest.web.representation.Representation;
 import org.openmrs.module.webservices.rest.web.resource.api.CrudResource;
@@ -42,6 +57,12 @@ public abstract class DelegatingCrudResource<T> extends BaseDelegatingResource<T
 	
 	protected final Log log = LogFactory.getLog(getClass());
 	
+	/**
+	 * The getters of the simple properties of each delegate class, see
+	 * {@link #getAuditVersionToken(Object)}
+	 */
+	private static final ConcurrentMap<Class<?>, Method[]> valueGetters = new ConcurrentHashMap<Class<?>, Method[]>();
+	
 	/**
 	 * @see org.openmrs.module.webservices.rest.web.resource.api.Retrievable#retrieve(java.lang.String,
 	 *      org.openmrs.module.webservices.rest.web.representation.Representation)
@@ -52,12 +73,103 @@ public abstract class DelegatingCrudResource<T> extends BaseDelegatingResource<T
 		if (delegate == null)
 			throw new ObjectNotFoundException();
 		
+		HttpServletRequest request = context.getRequest();
+		HttpServletResponse response = context.getResponse();
+		if (request != null && response != null) {
+			String versionToken = getVersionToken(delegate);
+			if (versionToken != null) {
+				String variant = context.getRepresentation().getRepresentation() + "|" + Context.getLocale() + "|"
+				        + request.getHeader("Accept");
+				String etag = "\"" + versionToken + "-" + Integer.toHexString(variant.hashCode()) + "\"";
+				response.setHeader("ETag", etag);
+				if (RestUtil.isNotModified(request, etag)) {
+					return RestUtil.notModified(response);
+				}
+			}
+		}
+		
 		SimpleObject ret = asRepresentation(delegate, context.getRepresentation());
 		if (hasTypesDefined())
 			ret.add(RestConstants.PROPERTY_FOR_TYPE, getTypeName(delegate));
 		return ret;
 	}
 	
+	/**
+	 * Returns a token that changes whenever the representation of the given delegate may change.
+	 * When a token is returned, {@link #retrieve(String, RequestContext)} answers with a strong
+	 * ETag derived from it and replies 304 Not Modified to a matching conditional GET without
+	 * converting the delegate. Resources whose representations include nested objects that can
+	 * change independently of the delegate must not return a token.
+	 * 
+	 * @param delegate
+	 * @return the version token, or null if the resource does not support conditional GETs
+	 */
+	protected String getVersionToken(T delegate) {
+		return null;
+	}
+	
+	/**
+	 * Builds a version token from the uuid, the last audit date and the simple property values
+	 * (strings, numbers, booleans, dates and enums) of an {@link Auditable} delegate, for use by
+	 * {@link #getVersionToken(Object)} implementations. The audit dates alone are not enough, since
+	 * MySQL stores them with a precision of one second and two saves within a second would leave
+	 * the token unchanged. Changes to associated objects are not covered, so only resources whose
+	 * representations are made of such simple properties of the delegate may use this token.
+	 * 
+	 * @param delegate
+	 * @return the token, or null if delegate is not auditable
+	 * @should change when a property changes within the same second
+	 */
+	protected static String getAuditVersionToken(Object delegate) {
+		if (!(delegate instanceof OpenmrsObject) || !(delegate instanceof Auditable)) {
+			return null;
+		}
+		Auditable auditable = (Auditable) delegate;
+		Date lastModified = auditable.getDateChanged() != null ? auditable.getDateChanged() : auditable.getDateCreated();
+		if (lastModified == null) {
+			return null;
+		}
+		int hash = 1;
+		for (Method getter : getValueGetters(delegate.getClass())) {
+			Object value;
+			try {
+				value = getter.invoke(delegate);
+			}
+			catch (Exception e) {
+				// without all values the token may miss a change
+				return null;
+			}
+			if (value instanceof Date) {
+				value = ((Date) value).getTime();
+			} else if (value instanceof Enum) {
+				value = ((Enum<?>) value).name();
+			}
+			hash = 31 * hash + (value != null ? value.hashCode() : 0);
+		}
+		return ((OpenmrsObject) delegate).getUuid() + "-" + Long.toString(lastModified.getTime(), 36) + "-"
+		        + Integer.toHexString(hash);
+	}
+	
+	private static Method[] getValueGetters(Class<?> type) {
+		Method[] getters = valueGetters.get(type);
+		if (getters == null) {
+			List<Method> list = new ArrayList<Method>();
+			for (PropertyDescriptor descriptor : PropertyUtils.getPropertyDescriptors(type)) {
+				Method getter = MethodUtils.getAccessibleMethod(descriptor.getReadMethod());
+				Class<?> valueType = descriptor.getPropertyType();
+				if (getter != null && valueType != null
+				        && (valueType.isPrimitive() || valueType == String.class || valueType == Boolean.class
+				                || valueType == Character.class || valueType.isEnum()
+				                || Number.class.isAssignableFrom(valueType) || Date.class.isAssignableFrom(valueType))) {
+					list.add(getter);
+				}
+			}
+			getters = list.toArray(new Method[list.size()]);
+			valueGetters.putIfAbsent(type, getters);
+		}
+		return getters;
+	}
+	
 	/**
 	 * Default implementation that returns REF, DEFAULT, and FULL
 	 * 
@@ -73,6 +185,26 @@ public abstract class DelegatingCrudResource<T> extends BaseDelegatingResource<T
 	 */
 	@Override
 	public Object create(SimpleObject propertiesToCreate, RequestContext context) throws ResponseException {
+		T delegate = newValidatedDelegate(propertiesToCreate);
+		delegate = save(delegate);
+		SimpleObject ret = (SimpleObject) ConversionUtil.convertToRepresentation(delegate, Representation.DEFAULT);
+		
+		// add the 'type' discriminator if we support subclasses
+		if (hasTypesDefined()) {
+			ret.add(RestConstants.PROPERTY_FOR_TYPE, getTypeName(delegate));
+		}
+		
+		return ret;
+	}
+	
+	/**
+	 * Builds a new delegate from the posted properties and validates it, without saving it
+	 * 
+	 * @param propertiesToCreate
+	 * @return the unsaved delegate
+	 * @throws ResponseException
+	 */
+	protected T newValidatedDelegate(SimpleObject propertiesToCreate) throws ResponseException {
 		DelegatingResourceHandler<? extends T> handler;
 		if (hasTypesDefined()) {
 			String type = (String) propertiesToCreate.remove(RestConstants.PROPERTY_FOR_TYPE);
@@ -88,15 +220,7 @@ public abstract class DelegatingCrudResource<T> extends BaseDelegatingResource<T
 		T delegate = handler.newDelegate(propertiesToCreate);
 		setConvertedProperties(delegate, propertiesToCreate, handler.getCreatableProperties(), true);
 		ValidateUtil.validate(delegate);
-		delegate = save(delegate);
-		SimpleObject ret = (SimpleObject) ConversionUtil.convertToRepresentation(delegate, Representation.DEFAULT);
-		
-		// add the 'type' discriminator if we support subclasses
-		if (hasTypesDefined()) {
-			ret.add(RestConstants.PROPERTY_FOR_TYPE, getTypeName(delegate));
-		}
-		
-		return ret;
+		return delegate;
 	}
 	
 	/**
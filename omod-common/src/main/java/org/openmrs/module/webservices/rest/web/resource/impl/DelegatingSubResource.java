@@ -93,6 +93,7 @@ public abstract class DelegatingSubResource<T, P, PR extends DelegatingCrudResou
 		setParent(delegate, parent);
 		setConvertedProperties(delegate, post, getCreatableProperties(), true);
 		delegate = save(delegate);
+		parentChanged();
 		return ConversionUtil.convertToRepresentation(delegate, Representation.DEFAULT);
 	}
 	
@@ -134,6 +135,7 @@ public abstract class DelegatingSubResource<T, P, PR extends DelegatingCrudResou
 		testParent(delegate, parentUniqueId);
 		setConvertedProperties(delegate, propertiesToUpdate, getUpdatableProperties(), false);
 		delegate = save(delegate);
+		parentChanged();
 		return ConversionUtil.convertToRepresentation(delegate, Representation.DEFAULT);
 	}
 	
@@ -149,6 +151,7 @@ public abstract class DelegatingSubResource<T, P, PR extends DelegatingCrudResou
 			throw new ObjectNotFoundException();
 		testParent(delegate, parentUniqueId);
 		delete(delegate, reason, context);
+		parentChanged();
 	}
 	
 	/**
@@ -163,6 +166,7 @@ public abstract class DelegatingSubResource<T, P, PR extends DelegatingCrudResou
 		}
 		testParent(delegate, parentUniqueId);
 		purge(delegate, context);
+		parentChanged();
 	}
 	
 	/**
@@ -175,6 +179,15 @@ public abstract class DelegatingSubResource<T, P, PR extends DelegatingCrudResou
 		return result.toSimpleObject(this);
 	}
 	
+	/**
+	 * Cached representations of a metadata parent may embed this sub-resource
+	 */
+	private void parentChanged() {
+		if (getParentResource() instanceof MetadataDelegatingCrudResource) {
+			RepresentationCache.clear();
+		}
+	}
+	
 	private String getParentUri(T instance) {
 		return getParentResource().getUri(getParent(instance));
 	}
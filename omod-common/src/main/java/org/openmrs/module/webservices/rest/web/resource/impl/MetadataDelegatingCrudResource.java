@@ -9,16 +9,23 @@
  */
 package org.openmrs.module.webservices.rest.web.resource.impl;
 
+import java.lang.reflect.Method;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.Set;
 
 import org.apache.commons.lang.StringUtils;
 import org.openmrs.OpenmrsMetadata;
 import org.openmrs.api.context.Context;
 import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.util.ReflectionUtil;
+import org.openmrs.module.webservices.rest.web.Hyperlink;
 import org.openmrs.module.webservices.rest.web.RequestContext;
 import org.openmrs.module.webservices.rest.web.RestConstants;
 import org.openmrs.module.webservices.rest.web.annotation.PropertyGetter;
 import org.openmrs.module.webservices.rest.web.annotation.RepHandler;
+import org.openmrs.module.webservices.rest.web.api.RestHelperService;
+import org.openmrs.module.webservices.rest.web.representation.CustomRepresentation;
 import org.openmrs.module.webservices.rest.web.representation.DefaultRepresentation;
 import org.openmrs.module.webservices.rest.web.representation.FullRepresentation;
 import org.openmrs.module.webservices.rest.web.representation.RefRepresentation;
@@ -34,6 +41,8 @@ import org.openmrs.module.webservices.rest.web.response.ResponseException;
  */
 public abstract class MetadataDelegatingCrudResource<T extends OpenmrsMetadata> extends DelegatingCrudResource<T> {
 	
+	private static final Hyperlink[] REF_LINKS = { new Hyperlink("self", ".") };
+	
 	/**
 	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingConverter#getRepresentationDescription(org.openmrs.module.webservices.rest.web.representation.Representation)
 	 */
@@ -57,6 +66,87 @@ public abstract class MetadataDelegatingCrudResource<T extends OpenmrsMetadata>
 		return null;
 	}
 	
+	/**
+	 * Resources whose representations change rarely and are requested often can return true to keep
+	 * converted representations in the {@link RepresentationCache}. Representations of such
+	 * resources must not depend on anything but the delegate and the locale: cached entries are
+	 * only checked against the audit information of the delegate, so representations embedding
+	 * objects that change on their own (e.g. child locations or the privileges of a role) would go
+	 * stale.
+	 * 
+	 * @return true if representations of this resource are cached, false by default
+	 */
+	protected boolean isRepresentationCached() {
+		return false;
+	}
+	
+	/**
+	 * Uses the {@link RepresentationCache} if this resource opted in, otherwise converts the
+	 * delegate as usual. Custom representations are never cached.
+	 * 
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#asRepresentation(java.lang.Object,
+	 *      org.openmrs.module.webservices.rest.web.representation.Representation)
+	 */
+	@Override
+	public SimpleObject asRepresentation(T delegate, Representation representation) throws ConversionException {
+		if (!isRepresentationCached() || delegate == null || delegate.getUuid() == null
+		        || representation instanceof CustomRepresentation) {
+			return super.asRepresentation(delegate, representation);
+		}
+		
+		String key = RepresentationCache.getKey(getClass(), delegate.getUuid(), representation, Context.getLocale());
+		String version = getAuditVersionToken(delegate);
+		SimpleObject simple = RepresentationCache.get(key, version);
+		if (simple == null) {
+			simple = super.asRepresentation(delegate, representation);
+			RepresentationCache.put(key, version, simple);
+		}
+		return simple;
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#create(org.openmrs.module.webservices.rest.SimpleObject,
+	 *      org.openmrs.module.webservices.rest.web.RequestContext)
+	 */
+	@Override
+	public Object create(SimpleObject propertiesToCreate, RequestContext context) throws ResponseException {
+		try {
+			return super.create(propertiesToCreate, context);
+		}
+		finally {
+			RepresentationCache.clear();
+		}
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#update(java.lang.String,
+	 *      org.openmrs.module.webservices.rest.SimpleObject,
+	 *      org.openmrs.module.webservices.rest.web.RequestContext)
+	 */
+	@Override
+	public Object update(String uuid, SimpleObject propertiesToUpdate, RequestContext context) throws ResponseException {
+		try {
+			return super.update(uuid, propertiesToUpdate, context);
+		}
+		finally {
+			RepresentationCache.clear();
+		}
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#purge(java.lang.String,
+	 *      org.openmrs.module.webservices.rest.web.RequestContext)
+	 */
+	@Override
+	public void purge(String uuid, RequestContext context) throws ResponseException {
+		try {
+			super.purge(uuid, context);
+		}
+		finally {
+			RepresentationCache.clear();
+		}
+	}
+	
 	@RepHandler(RefRepresentation.class)
 	public SimpleObject convertToRef(T delegate) throws ConversionException {
 		DelegatingResourceDescription rep = new DelegatingResourceDescription();
@@ -68,6 +158,56 @@ public abstract class MetadataDelegatingCrudResource<T extends OpenmrsMetadata>
 		return convertDelegateToRepresentation(delegate, rep);
 	}
 	
+	/**
+	 * The ref representation of {@link #convertToRef(OpenmrsMetadata)} is built from the uuid, name
+	 * and retired properties, unless a subclass describes it itself or changes how it or the
+	 * display is built
+	 * 
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getProjection(java.lang.Class,
+	 *      org.openmrs.module.webservices.rest.web.representation.Representation)
+	 * @should return a projection for the ref representation
+	 * @should return null if the display is overridden
+	 */
+	@Override
+	public RepresentationProjection getProjection(Class<?> delegateClass, Representation rep) throws ConversionException {
+		if (!(rep instanceof RefRepresentation)) {
+			return super.getProjection(delegateClass, rep);
+		}
+		if (!isProjectable()) {
+			return null;
+		}
+		RepresentationPlan plan = RepresentationPlan.get(this, rep);
+		Method display = ReflectionUtil.findPropertyGetterMethod(this, "display");
+		if (plan == null || plan.getRepHandler() == null
+		        || plan.getRepHandler().getDeclaringClass() != MetadataDelegatingCrudResource.class || display == null
+		        || display.getDeclaringClass() != MetadataDelegatingCrudResource.class) {
+			return null;
+		}
+		
+		final String[] properties = { "uuid", "name", "retired" };
+		Set<String> columns = Context.getService(RestHelperService.class).getColumnProperties(delegateClass);
+		if (!columns.containsAll(Arrays.asList(properties))) {
+			return null;
+		}
+		
+		final String shortClassName = delegateClass.getSimpleName();
+		return new RepresentationProjection(properties) {
+			
+			@Override
+			public SimpleObject toRepresentation(Object[] values) {
+				String uuid = (String) values[0];
+				SimpleObject simple = new SimpleObject();
+				simple.put("uuid", uuid);
+				simple.put("display", getDisplayString(shortClassName, uuid, (String) values[1]));
+				if (Boolean.TRUE.equals(values[2])) {
+					simple.put("retired", true);
+				}
+				simple.put("links", createLinks(REF_LINKS, getUriOfUuid(uuid)));
+				return simple;
+			}
+		};
+	}
+	
 	@RepHandler(DefaultRepresentation.class)
 	public SimpleObject asDefaultRep(T delegate) throws Exception {
 		DelegatingResourceDescription rep = new DelegatingResourceDescription();
@@ -109,6 +249,7 @@ public abstract class MetadataDelegatingCrudResource<T extends OpenmrsMetadata>
 		delegate.setDateRetired(new Date());
 		delegate.setRetireReason(reason);
 		save(delegate);
+		RepresentationCache.clear();
 	}
 	
 	/**
@@ -123,11 +264,15 @@ public abstract class MetadataDelegatingCrudResource<T extends OpenmrsMetadata>
 	 */
 	@PropertyGetter("display")
 	public String getDisplayString(T delegate) {
-		String localization = getLocalization(delegate.getClass().getSimpleName(), delegate.getUuid());
+		return getDisplayString(delegate.getClass().getSimpleName(), delegate.getUuid(), delegate.getName());
+	}
+	
+	private String getDisplayString(String shortClassName, String uuid, String name) {
+		String localization = getLocalization(shortClassName, uuid);
 		if (localization != null) {
 			return localization;
 		} else {
-			return StringUtils.isEmpty(delegate.getName()) ? "" : delegate.getName();
+			return StringUtils.isEmpty(name) ? "" : name;
 		}
 	}
 	
@@ -0,0 +1,97 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web.resource.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hibernate.proxy.HibernateProxy;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.webservices.rest.util.PropertyAccessor;
+import org.openmrs.module.webservices.rest.util.ReflectionUtil;
+import org.openmrs.module.webservices.rest.web.api.RestHelperService;
+import org.openmrs.module.webservices.rest.web.representation.Representation;
+import org.openmrs.module.webservices.rest.web.resource.api.Converter;
+
+/**
+ * Initializes the lazy references that a page of results is about to need before the page is
+ * converted. Without this, converting each result initializes its references (concept, person,
+ * encounter, ...) one at a time, which costs one query per reference per result. Here the
+ * uninitialized references of the whole page are collected from the properties of the compiled
+ * {@link RepresentationPlan} and loaded with one query per referenced type.
+ * <p>
+ * Only direct bean properties of the results are prefetched. Properties provided by a
+ * {@link org.openmrs.module.webservices.rest.web.annotation.PropertyGetter} method, nested property
+ * paths and collections are left to be loaded during conversion as before.
+ */
+class ReferencePrefetcher {
+	
+	private static final Log log = LogFactory.getLog(ReferencePrefetcher.class);
+	
+	private ReferencePrefetcher() {
+	}
+	
+	/**
+	 * @param delegates the page of results
+	 * @param converter the converter that the results will be converted with
+	 * @param rep the representation that the results will be converted to
+	 */
+	static void prefetch(List<?> delegates, Converter<?> converter, Representation rep) {
+		if (delegates.size() < 2 || !(converter instanceof DelegatingPropertyAccessor)) {
+			return;
+		}
+		DelegatingPropertyAccessor<?> handler = (DelegatingPropertyAccessor<?>) converter;
+		RepresentationPlan plan = RepresentationPlan.get(handler, rep);
+		if (plan == null || plan.getRepHandler() != null) {
+			return;
+		}
+		
+		List<HibernateProxy> references = new ArrayList<HibernateProxy>();
+		for (int i = 0; i < plan.size(); i++) {
+			String property = plan.getProperty(i).getDelegateProperty();
+			if (property == null || property.indexOf('.') >= 0
+			        || ReflectionUtil.findPropertyGetterMethod(handler, property) != null) {
+				continue;
+			}
+			for (Object delegate : delegates) {
+				Object reference = getReference(delegate, property);
+				if (reference instanceof HibernateProxy
+				        && ((HibernateProxy) reference).getHibernateLazyInitializer().isUninitialized()) {
+					references.add((HibernateProxy) reference);
+				}
+			}
+		}
+		
+		if (!references.isEmpty()) {
+			Context.getService(RestHelperService.class).initializeProxies(references);
+		}
+	}
+	
+	private static Object getReference(Object delegate, String property) {
+		// an uninitialized result would need its own query just to read the property
+		if (delegate == null || delegate instanceof HibernateProxy) {
+			return null;
+		}
+		PropertyAccessor accessor = ReflectionUtil.findPropertyAccessor(delegate.getClass(), property);
+		if (accessor == null || !accessor.isReadable()) {
+			return null;
+		}
+		try {
+			return accessor.getValue(delegate);
+		}
+		catch (Exception e) {
+			// conversion will read the property again and report the failure
+			log.debug("Unable to read " + property + " of " + delegate.getClass() + " for prefetching", e);
+			return null;
+		}
+	}
+}
@@ -0,0 +1,143 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web.resource.impl;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest.web.representation.Representation;
+
+/**
+ * A size-bounded, least recently used cache of converted representations of metadata objects.
+ * Resources opt in by overriding {@link MetadataDelegatingCrudResource#isRepresentationCached()}.
+ * <p>
+ * Entries are keyed by resource class, uuid, representation and locale, and remember the version
+ * token of the object they were converted from, so an object that was changed without going
+ * through the REST API is converted again. Every create, update, retire or purge through a
+ * {@link MetadataDelegatingCrudResource} clears the whole cache as well. The number of hits and
+ * misses is served by the metrics endpoint.
+ */
+public class RepresentationCache {
+	
+	private static final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+		
+		private static final long serialVersionUID = 1L;
+		
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+			return size() > RestConstants.REPRESENTATION_CACHE_SIZE;
+		}
+	};
+	
+	private static final AtomicLong hits = new AtomicLong();
+	
+	private static final AtomicLong misses = new AtomicLong();
+	
+	private RepresentationCache() {
+	}
+	
+	/**
+	 * @param resource
+	 * @param uuid
+	 * @param rep
+	 * @param locale
+	 * @return the key under which the representation is cached
+	 */
+	public static String getKey(Class<?> resource, String uuid, Representation rep, Locale locale) {
+		return resource.getName() + "|" + uuid + "|" + rep.getRepresentation() + "|" + locale;
+	}
+	
+	/**
+	 * Gets a cached representation. The caller receives its own copy of the top level object, but
+	 * nested values are shared and must not be modified.
+	 * 
+	 * @param key
+	 * @param version the current version token of the object
+	 * @return the cached representation, or null if there is none for that version
+	 * @should return a copy of a cached representation
+	 * @should return null if the version changed
+	 * @should evict the least recently used entry
+	 */
+	public static SimpleObject get(String key, String version) {
+		Entry entry;
+		synchronized (entries) {
+			entry = entries.get(key);
+		}
+		if (entry == null || (version != null && !version.equals(entry.version))) {
+			misses.incrementAndGet();
+			return null;
+		}
+		hits.incrementAndGet();
+		SimpleObject copy = new SimpleObject();
+		copy.putAll(entry.representation);
+		return copy;
+	}
+	
+	/**
+	 * @param key
+	 * @param version the version token of the converted object
+	 * @param representation
+	 */
+	public static void put(String key, String version, SimpleObject representation) {
+		SimpleObject copy = new SimpleObject();
+		copy.putAll(representation);
+		synchronized (entries) {
+			entries.put(key, new Entry(version, copy));
+		}
+	}
+	
+	/**
+	 * Removes all cached representations
+	 */
+	public static void clear() {
+		synchronized (entries) {
+			entries.clear();
+		}
+	}
+	
+	/**
+	 * @return the number of cached representations
+	 */
+	public static int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+	
+	/**
+	 * @return the number of lookups that found a current representation
+	 */
+	public static long getHitCount() {
+		return hits.get();
+	}
+	
+	/**
+	 * @return the number of lookups that did not find a current representation
+	 */
+	public static long getMissCount() {
+		return misses.get();
+	}
+	
+	private static class Entry {
+		
+		private final String version;
+		
+		private final SimpleObject representation;
+		
+		public Entry(String version, SimpleObject representation) {
+			this.version = version;
+			this.representation = representation;
+		}
+	}
+}
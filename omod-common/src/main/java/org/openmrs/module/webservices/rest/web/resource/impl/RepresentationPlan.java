@@ -0,0 +1,296 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web.resource.impl;
+
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.openmrs.module.webservices.rest.web.Hyperlink;
+import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest.web.annotation.RepHandler;
+import org.openmrs.module.webservices.rest.web.representation.CustomRepresentation;
+import org.openmrs.module.webservices.rest.web.representation.NamedRepresentation;
+import org.openmrs.module.webservices.rest.web.representation.Representation;
+import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingResourceDescription.Property;
+import org.openmrs.module.webservices.rest.web.response.ConversionException;
+
+/**
+ * An immutable, compiled form of a {@link DelegatingResourceDescription} (or of a
+ * {@link RepHandler} method) for one handler class and one representation. Plans are built the
+ * first time a handler is asked for a representation and are then reused for every object converted
+ * with that representation, so list conversions do not rebuild the description for each row.
+ * <p>
+ * Plans are cached per handler class and representation name. Custom representations are not
+ * cached by {@link #get(DelegatingPropertyAccessor, Representation)} because their names come
+ * straight from the client, and neither are named representations that the handler does not
+ * support. Resources get the plans of custom representations from
+ * {@link #getCustom(BaseDelegatingResource, DelegatingResourceHandler, Class, CustomRepresentation)}
+ * instead, which keeps them in a size-bounded, least recently used cache. The caches are cleared
+ * by {@link #clearCache()}, which is called whenever the REST service is (re)initialized.
+ */
+public class RepresentationPlan {
+	
+	private static volatile ConcurrentMap<Class<?>, ConcurrentMap<String, RepresentationPlan>> plans = new ConcurrentHashMap<Class<?>, ConcurrentMap<String, RepresentationPlan>>();
+	
+	private static final Map<String, RepresentationPlan> customPlans = new LinkedHashMap<String, RepresentationPlan>(16,
+	        0.75f, true) {
+		
+		private static final long serialVersionUID = 1L;
+		
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, RepresentationPlan> eldest) {
+			return size() > RestConstants.CUSTOM_REPRESENTATION_CACHE_SIZE;
+		}
+	};
+	
+	/**
+	 * Cached marker for handlers that neither describe nor handle a representation
+	 */
+	private static final RepresentationPlan NONE = new RepresentationPlan(new String[0], new Property[0],
+	        new Hyperlink[0], null);
+	
+	private final String[] propertyNames;
+	
+	private final Property[] properties;
+	
+	private final Hyperlink[] links;
+	
+	private final Method repHandler;
+	
+	private final boolean parsed;
+	
+	private RepresentationPlan(String[] propertyNames, Property[] properties, Hyperlink[] links, Method repHandler) {
+		this.propertyNames = propertyNames;
+		this.properties = properties;
+		this.links = links;
+		this.repHandler = repHandler;
+		this.parsed = false;
+	}
+	
+	/**
+	 * Compiles the given description. The description is copied, so later changes to it do not
+	 * affect the plan.
+	 * 
+	 * @param description
+	 */
+	public RepresentationPlan(DelegatingResourceDescription description) {
+		this(description, false);
+	}
+	
+	private RepresentationPlan(DelegatingResourceDescription description, boolean parsed) {
+		Map<String, Property> descriptionProperties = description.getProperties();
+		propertyNames = descriptionProperties.keySet().toArray(new String[descriptionProperties.size()]);
+		properties = descriptionProperties.values().toArray(new Property[descriptionProperties.size()]);
+		
+		List<Hyperlink> descriptionLinks = description.getLinks();
+		links = new Hyperlink[descriptionLinks.size()];
+		for (int i = 0; i < links.length; i++) {
+			Hyperlink link = descriptionLinks.get(i);
+			links[i] = new Hyperlink(link.getRel(), link.getUri());
+		}
+		repHandler = null;
+		this.parsed = parsed;
+	}
+	
+	/**
+	 * Gets the plan used by the given handler for the given representation, compiling it the first
+	 * time it is requested.
+	 * 
+	 * @param handler a {@link DelegatingResourceHandler} or {@link BaseDelegatingConverter}
+	 * @param rep
+	 * @return the plan, or null if the handler neither describes nor handles rep
+	 * @should return the same plan for repeated calls
+	 * @should not cache custom representations
+	 */
+	public static RepresentationPlan get(DelegatingPropertyAccessor<?> handler, Representation rep) {
+		if (rep instanceof CustomRepresentation) {
+			return compile(handler, rep);
+		}
+		
+		ConcurrentMap<String, RepresentationPlan> plansForHandler = plans.get(handler.getClass());
+		if (plansForHandler == null) {
+			plansForHandler = new ConcurrentHashMap<String, RepresentationPlan>();
+			ConcurrentMap<String, RepresentationPlan> existing = plans.putIfAbsent(handler.getClass(), plansForHandler);
+			if (existing != null) {
+				plansForHandler = existing;
+			}
+		}
+		
+		RepresentationPlan plan = plansForHandler.get(rep.getRepresentation());
+		if (plan == null) {
+			plan = compile(handler, rep);
+			if (plan != null) {
+				plansForHandler.put(rep.getRepresentation(), plan);
+			} else if (!(rep instanceof NamedRepresentation)) {
+				plansForHandler.put(rep.getRepresentation(), NONE);
+			}
+		}
+		return plan == NONE ? null : plan;
+	}
+	
+	/**
+	 * Gets the plan used by a resource for a custom representation. Like any other representation it
+	 * comes from the handler's description or {@link RepHandler} method if the handler supports it,
+	 * otherwise it is compiled from the parsed properties of the custom representation, after
+	 * checking that the resource can read each of them.
+	 * 
+	 * @param resource the resource converting the object
+	 * @param handler the handler of the object's class
+	 * @param delegateClass the class of the object
+	 * @param rep
+	 * @return the plan
+	 * @throws ConversionException if the representation is malformed or includes a property the
+	 *             resource cannot read
+	 * @should return the same plan for repeated calls
+	 * @should fail for a property the resource cannot read
+	 */
+	static RepresentationPlan getCustom(BaseDelegatingResource<?> resource, DelegatingResourceHandler<?> handler,
+	        Class<?> delegateClass, CustomRepresentation rep) throws ConversionException {
+		String key = handler.getClass().getName() + "|" + rep.getRepresentation();
+		RepresentationPlan plan;
+		synchronized (customPlans) {
+			plan = customPlans.get(key);
+		}
+		if (plan == null) {
+			plan = compile(handler, rep);
+			if (plan == null) {
+				plan = compileCustom(resource, handler, delegateClass, rep);
+			}
+			synchronized (customPlans) {
+				customPlans.put(key, plan);
+			}
+		}
+		return plan;
+	}
+	
+	/**
+	 * Clears all compiled plans
+	 */
+	public static void clearCache() {
+		plans = new ConcurrentHashMap<Class<?>, ConcurrentMap<String, RepresentationPlan>>();
+		synchronized (customPlans) {
+			customPlans.clear();
+		}
+	}
+	
+	private static RepresentationPlan compileCustom(BaseDelegatingResource<?> resource,
+	        DelegatingResourceHandler<?> handler, Class<?> delegateClass, CustomRepresentation rep) {
+		DelegatingResourceDescription description = new DelegatingResourceDescription();
+		for (CustomRepresentation.Property property : rep.getProperties()) {
+			if (property.isLinks()) {
+				description.addSelfLink();
+				description.addLink("default", ".?v=" + RestConstants.REPRESENTATION_DEFAULT);
+			} else if (resource.isReadableProperty(handler, delegateClass, property.getName())) {
+				description.addProperty(property.getName(), property.getRepresentation());
+			} else {
+				throw new ConversionException("Unknown property '" + property.getName() + "' of "
+				        + delegateClass.getSimpleName() + " in the custom representation " + rep.getRepresentation());
+			}
+		}
+		return new RepresentationPlan(description, true);
+	}
+	
+	private static RepresentationPlan compile(DelegatingPropertyAccessor<?> handler, Representation rep) {
+		DelegatingResourceDescription description = null;
+		if (handler instanceof DelegatingResourceHandler) {
+			description = ((DelegatingResourceHandler<?>) handler).getRepresentationDescription(rep);
+		} else if (handler instanceof BaseDelegatingConverter) {
+			description = ((BaseDelegatingConverter<?>) handler).getRepresentationDescription(rep);
+		}
+		if (description != null) {
+			return new RepresentationPlan(description);
+		}
+		
+		// @RepHandler methods are only supported by resource handlers
+		if (handler instanceof DelegatingResourceHandler) {
+			Method method = findAnnotatedMethodForRepresentation(handler.getClass(), rep);
+			if (method != null) {
+				return new RepresentationPlan(new String[0], new Property[0], new Hyperlink[0], method);
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Finds a method on clazz or a superclass that is annotated with {@link RepHandler} and is
+	 * suitable for rep
+	 * 
+	 * @param clazz
+	 * @param rep
+	 * @return
+	 */
+	private static Method findAnnotatedMethodForRepresentation(Class<?> clazz, Representation rep) {
+		for (Method method : clazz.getMethods()) {
+			RepHandler ann = method.getAnnotation(RepHandler.class);
+			if (ann != null) {
+				if (ann.value().isAssignableFrom(rep.getClass())) {
+					if (!(rep instanceof NamedRepresentation)) {
+						return method;
+					} else if (ann.name().equals(rep.getRepresentation())) {
+						return method;
+					}
+				}
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * @return the {@link RepHandler} method to call, or null if this plan was compiled from a
+	 *         description
+	 */
+	public Method getRepHandler() {
+		return repHandler;
+	}
+	
+	/**
+	 * @return true if this plan was compiled from the properties of a custom representation rather
+	 *         than from a description of the handler
+	 */
+	public boolean isParsed() {
+		return parsed;
+	}
+	
+	/**
+	 * @return the number of properties in this plan
+	 */
+	public int size() {
+		return propertyNames.length;
+	}
+	
+	/**
+	 * @param index
+	 * @return the name under which the property at index is written
+	 */
+	public String getPropertyName(int index) {
+		return propertyNames[index];
+	}
+	
+	/**
+	 * @param index
+	 * @return the property at index
+	 */
+	public Property getProperty(int index) {
+		return properties[index];
+	}
+	
+	/**
+	 * The returned links are templates shared by all conversions and must not be modified.
+	 * 
+	 * @return the links of this plan
+	 */
+	Hyperlink[] getLinks() {
+		return links;
+	}
+}
@@ -0,0 +1,112 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web.resource.impl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest.web.representation.Representation;
+import org.openmrs.module.webservices.rest.web.response.ConversionException;
+
+/**
+ * Builds the representations of objects from the values of a few of their mapped properties, which
+ * a projection query selects without loading the objects. A {@link CriteriaPaged} page is converted
+ * this way if its resource has a projection for the requested representation (see
+ * {@link BaseDelegatingResource#getProjection(Class, Representation)}), e.g. for the ref
+ * representation of metadata or for custom representations that only include properties stored in
+ * the table of the objects.
+ * <p>
+ * Projections are cached per resource, class and representation in a size-bounded, least recently
+ * used cache, which is cleared by {@link #clearCache()} whenever the REST service is
+ * (re)initialized.
+ */
+public abstract class RepresentationProjection {
+	
+	/**
+	 * Cached marker for representations that need the objects
+	 */
+	private static final Object NONE = new Object();
+	
+	private static final Map<String, Object> projections = new LinkedHashMap<String, Object>(16, 0.75f, true) {
+		
+		private static final long serialVersionUID = 1L;
+		
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+			return size() > RestConstants.CUSTOM_REPRESENTATION_CACHE_SIZE;
+		}
+	};
+	
+	private final String[] properties;
+	
+	/**
+	 * @param properties the names of the mapped properties the representation is built from
+	 */
+	protected RepresentationProjection(String... properties) {
+		this.properties = properties;
+	}
+	
+	/**
+	 * Gets the projection of a resource for a representation, asking the resource the first time
+	 * 
+	 * @param resource
+	 * @param delegateClass the mapped class of the objects
+	 * @param rep
+	 * @return the projection, or null if the resource needs the objects to build rep
+	 * @should return the same projection for repeated calls
+	 * @should return null if the resource has no projection
+	 */
+	public static RepresentationProjection get(BaseDelegatingResource<?> resource, Class<?> delegateClass,
+	        Representation rep) {
+		String key = resource.getClass().getName() + "|" + delegateClass.getName() + "|" + rep.getRepresentation();
+		Object projection;
+		synchronized (projections) {
+			projection = projections.get(key);
+		}
+		if (projection == null) {
+			projection = resource.getProjection(delegateClass, rep);
+			if (projection == null) {
+				projection = NONE;
+			}
+			synchronized (projections) {
+				projections.put(key, projection);
+			}
+		}
+		return projection == NONE ? null : (RepresentationProjection) projection;
+	}
+	
+	/**
+	 * Clears all cached projections
+	 */
+	public static void clearCache() {
+		synchronized (projections) {
+			projections.clear();
+		}
+	}
+	
+	/**
+	 * @return the names of the mapped properties to select, in the order their values are passed
+	 *         to {@link #toRepresentation(Object[])}
+	 */
+	public String[] getProperties() {
+		return properties.clone();
+	}
+	
+	/**
+	 * Builds the representation of one object
+	 * 
+	 * @param values the values of the properties of the object
+	 * @return the representation
+	 * @throws ConversionException
+	 */
+	public abstract SimpleObject toRepresentation(Object[] values) throws ConversionException;
+}
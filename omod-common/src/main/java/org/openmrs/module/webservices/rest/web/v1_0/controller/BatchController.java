@@ -0,0 +1,337 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web.v1_0.controller;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.apache.commons.lang.StringUtils;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.web.RequestContext;
+import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest.web.RestUtil;
+import org.openmrs.module.webservices.rest.web.api.RestService;
+import org.openmrs.module.webservices.rest.web.resource.api.Creatable;
+import org.openmrs.module.webservices.rest.web.resource.api.Deletable;
+import org.openmrs.module.webservices.rest.web.resource.api.Purgeable;
+import org.openmrs.module.webservices.rest.web.resource.api.Retrievable;
+import org.openmrs.module.webservices.rest.web.resource.api.Updatable;
+import org.openmrs.module.webservices.rest.web.response.ConversionException;
+import org.openmrs.module.webservices.rest.web.response.IllegalPropertyException;
+import org.openmrs.module.webservices.rest.web.response.ResourceDoesNotSupportOperationException;
+import org.openmrs.module.webservices.rest.web.response.ResponseException;
+import org.openmrs.module.webservices.validation.ValidationException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * Executes a list of operations on the resources served by {@link MainResourceController} in one
+ * request. The posted object looks like
+ *
+ * <pre>
+ * {
+ *   "atomic": true,
+ *   "operations": [
+ *     { "method": "POST", "resource": "patient", "body": { ... } },
+ *     { "method": "POST", "resource": "encounter", "uuid": "...", "body": { ... } },
+ *     { "method": "DELETE", "resource": "obs", "uuid": "...", "reason": "...", "purge": false }
+ *   ]
+ * }
+ * </pre>
+ *
+ * POST without a uuid creates, POST with a uuid updates, GET retrieves and DELETE deletes or purges.
+ * The response holds one result with the HTTP status and body (or error) of each operation, in the
+ * order they were posted.
+ * <p>
+ * Atomic batches run in a single transaction that is rolled back as soon as one operation fails,
+ * the remaining operations are skipped and the response gets the status of the failed operation.
+ * Otherwise every operation is committed in its own transaction, so one failure does not affect
+ * the others.
+ */
+@Controller
+@RequestMapping(value = "/rest/" + RestConstants.VERSION_1 + "/batch")
+public class BatchController extends BaseRestController {
+	
+	@Autowired
+	RestService restService;
+	
+	@Autowired
+	BaseUriSetup baseUriSetup;
+	
+	@Autowired
+	PlatformTransactionManager transactionManager;
+	
+	/**
+	 * @param post the operations and whether they are atomic
+	 * @param request
+	 * @param response
+	 * @return the results of the operations
+	 * @throws ResponseException
+	 * @should execute the operations in order
+	 * @should roll back all operations of an atomic batch if one fails
+	 * @should commit the other operations of a non atomic batch if one fails
+	 * @should fail for an unsupported method
+	 * @should fail the operation that violates a database constraint
+	 */
+	@RequestMapping(method = RequestMethod.POST)
+	@ResponseBody
+	public SimpleObject execute(@RequestBody SimpleObject post, final HttpServletRequest request,
+	        final HttpServletResponse response) throws ResponseException {
+		baseUriSetup.setup(request);
+		final List<Map<String, Object>> operations = getOperations(post);
+		final List<SimpleObject> results = new ArrayList<SimpleObject>();
+		TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+		
+		if (Boolean.TRUE.equals(post.get("atomic"))) {
+			boolean committed;
+			try {
+				committed = transactionTemplate.execute(new TransactionCallback<Boolean>() {
+					
+					@Override
+					public Boolean doInTransaction(TransactionStatus status) {
+						for (Map<String, Object> operation : operations) {
+							SimpleObject result = execute(operation, request, response);
+							results.add(result);
+							if (isFailure(result)) {
+								status.setRollbackOnly();
+								return false;
+							}
+						}
+						return true;
+					}
+				});
+			}
+			catch (RuntimeException ex) {
+				// the commit failed, report it on the last operation that ran
+				committed = false;
+				SimpleObject failed = toResult(ex, request, response);
+				if (results.isEmpty()) {
+					results.add(failed);
+				} else {
+					results.set(results.size() - 1, failed);
+				}
+			}
+			
+			if (!committed) {
+				Context.clearSession();
+				SimpleObject failed = results.get(results.size() - 1);
+				response.setStatus((Integer) failed.get("status"));
+				for (int i = results.size(); i < operations.size(); i++) {
+					results.add(new SimpleObject().add("skipped", true));
+				}
+			}
+			return new SimpleObject().add("committed", committed).add("results", results);
+		}
+		
+		for (final Map<String, Object> operation : operations) {
+			SimpleObject result;
+			try {
+				result = transactionTemplate.execute(new TransactionCallback<SimpleObject>() {
+					
+					@Override
+					public SimpleObject doInTransaction(TransactionStatus status) {
+						SimpleObject result = execute(operation, request, response);
+						if (isFailure(result)) {
+							status.setRollbackOnly();
+						}
+						return result;
+					}
+				});
+			}
+			catch (RuntimeException ex) {
+				// the commit failed
+				result = toResult(ex, request, response);
+			}
+			if (isFailure(result)) {
+				// don't let objects left behind by the failed operation be flushed by the next one
+				Context.clearSession();
+			}
+			results.add(result);
+		}
+		return new SimpleObject().add("results", results);
+	}
+	
+	@SuppressWarnings("unchecked")
+	private List<Map<String, Object>> getOperations(SimpleObject post) {
+		Object operations = post.get("operations");
+		if (!(operations instanceof List)) {
+			throw new ConversionException("The operations property must be a list");
+		}
+		for (Object operation : (List<Object>) operations) {
+			if (!(operation instanceof Map)) {
+				throw new ConversionException("Each operation must be an object");
+			}
+		}
+		return (List<Map<String, Object>>) operations;
+	}
+	
+	/**
+	 * Executes one operation, turning exceptions into the same error responses that
+	 * {@link BaseRestController} sends for a single request. The session is flushed before the
+	 * operation returns, so constraint violations in the database fail the operation that caused
+	 * them instead of the commit of the whole transaction
+	 */
+	private SimpleObject execute(Map<String, Object> operation, HttpServletRequest request, HttpServletResponse response) {
+		OperationResponse operationResponse = new OperationResponse(response);
+		Object body;
+		try {
+			body = execute(operation, RestUtil.getRequestContext(request, operationResponse));
+			Context.flushSession();
+		}
+		catch (Exception ex) {
+			body = handle(ex, request, operationResponse);
+		}
+		return toResult(body, operationResponse);
+	}
+	
+	private SimpleObject toResult(Exception ex, HttpServletRequest request, HttpServletResponse response) {
+		OperationResponse operationResponse = new OperationResponse(response);
+		return toResult(handle(ex, request, operationResponse), operationResponse);
+	}
+	
+	private SimpleObject toResult(Object body, OperationResponse operationResponse) {
+		SimpleObject result = new SimpleObject().add("status", operationResponse.getStatus());
+		if (isFailure(result)) {
+			result.add("error", ((Map<?, ?>) body).get("error"));
+		} else if (body != null && !"".equals(body)) {
+			result.add("body", body);
+		}
+		return result;
+	}
+	
+	private Object handle(Exception ex, HttpServletRequest request, OperationResponse operationResponse) {
+		if (ex instanceof ValidationException) {
+			return validationExceptionHandler((ValidationException) ex, request, operationResponse);
+		} else if (ex instanceof ConversionException) {
+			return conversionExceptionHandler((ConversionException) ex, request, operationResponse);
+		}
+		try {
+			return handleException(ex, request, operationResponse);
+		}
+		catch (Exception e) {
+			operationResponse.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+			return RestUtil.wrapErrorResponse(e, "");
+		}
+	}
+	
+	private Object execute(Map<String, Object> operation, RequestContext context) throws ResponseException {
+		String method = StringUtils.upperCase((String) operation.get("method"));
+		String resourceName = (String) operation.get("resource");
+		String uuid = (String) operation.get("uuid");
+		if (StringUtils.isBlank(resourceName)) {
+			throw new IllegalPropertyException("The resource of an operation is required");
+		}
+		Object resource = restService.getResourceByName(buildResourceName(resourceName));
+		HttpServletResponse response = context.getResponse();
+		
+		if ("POST".equals(method)) {
+			SimpleObject body = getBody(operation);
+			if (uuid == null) {
+				return RestUtil.created(response, ((Creatable) resource).create(body, context));
+			} else {
+				return RestUtil.updated(response, ((Updatable) resource).update(uuid, body, context));
+			}
+		}
+		
+		if (uuid == null) {
+			throw new IllegalPropertyException("The uuid of a " + method + " operation is required");
+		}
+		if ("GET".equals(method)) {
+			return ((Retrievable) resource).retrieve(uuid, context);
+		} else if ("DELETE".equals(method)) {
+			if (Boolean.TRUE.equals(operation.get("purge"))) {
+				((Purgeable) resource).purge(uuid, context);
+			} else {
+				String reason = (String) operation.get("reason");
+				((Deletable) resource).delete(uuid, reason != null ? reason : "web service call", context);
+			}
+			return RestUtil.noContent(response);
+		}
+		throw new ResourceDoesNotSupportOperationException("Batch operations do not support the method " + method);
+	}
+	
+	@SuppressWarnings("unchecked")
+	private SimpleObject getBody(Map<String, Object> operation) {
+		Object body = operation.get("body");
+		if (body instanceof SimpleObject) {
+			return (SimpleObject) body;
+		} else if (body instanceof Map) {
+			SimpleObject simpleObject = new SimpleObject();
+			simpleObject.putAll((Map<String, Object>) body);
+			return simpleObject;
+		}
+		throw new ConversionException("The body of a POST operation must be an object");
+	}
+	
+	private static boolean isFailure(SimpleObject result) {
+		Integer status = (Integer) result.get("status");
+		return status != null && status >= 400;
+	}
+	
+	/**
+	 * Takes the status and headers set for a single operation, so they do not end up in the
+	 * response of the whole batch
+	 */
+	private static class OperationResponse extends HttpServletResponseWrapper {
+		
+		private int status = HttpServletResponse.SC_OK;
+		
+		public OperationResponse(HttpServletResponse response) {
+			super(response);
+		}
+		
+		@Override
+		public void setStatus(int status) {
+			this.status = status;
+		}
+		
+		@Override
+		@SuppressWarnings("deprecation")
+		public void setStatus(int status, String message) {
+			this.status = status;
+		}
+		
+		@Override
+		public void sendError(int status) {
+			this.status = status;
+		}
+		
+		@Override
+		public void sendError(int status, String message) {
+			this.status = status;
+		}
+		
+		@Override
+		public void addHeader(String name, String value) {
+		}
+		
+		@Override
+		public void setHeader(String name, String value) {
+		}
+		
+		public int getStatus() {
+			return status;
+		}
+	}
+}
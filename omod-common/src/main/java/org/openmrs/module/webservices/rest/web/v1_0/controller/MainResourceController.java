@@ -9,26 +9,40 @@
  */
 package org.openmrs.module.webservices.rest.web.v1_0.controller;
 
+import org.codehaus.jackson.JsonGenerator;
+import org.codehaus.jackson.map.ObjectMapper;
 import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.web.ConversionUtil;
 import org.openmrs.module.webservices.rest.web.RequestContext;
 import org.openmrs.module.webservices.rest.web.RestConstants;
 import org.openmrs.module.webservices.rest.web.RestUtil;
+import org.openmrs.module.webservices.rest.web.api.RestHelperService.ObjectCallback;
 import org.openmrs.module.webservices.rest.web.api.RestService;
+import org.openmrs.module.webservices.rest.web.metrics.RestMetrics;
+import org.openmrs.module.webservices.rest.web.metrics.RestOperation;
 import org.openmrs.module.webservices.rest.web.representation.Representation;
+import org.openmrs.module.webservices.rest.web.resource.api.BulkCreatable;
 import org.openmrs.module.webservices.rest.web.resource.api.Converter;
 import org.openmrs.module.webservices.rest.web.resource.api.Creatable;
 import org.openmrs.module.webservices.rest.web.resource.api.CrudResource;
 import org.openmrs.module.webservices.rest.web.resource.api.Deletable;
+import org.openmrs.module.webservices.rest.web.resource.api.Exportable;
 import org.openmrs.module.webservices.rest.web.resource.api.Listable;
 import org.openmrs.module.webservices.rest.web.resource.api.Purgeable;
 import org.openmrs.module.webservices.rest.web.resource.api.Retrievable;
 import org.openmrs.module.webservices.rest.web.resource.api.SearchHandler;
 import org.openmrs.module.webservices.rest.web.resource.api.Searchable;
 import org.openmrs.module.webservices.rest.web.resource.api.Updatable;
+import org.openmrs.module.webservices.rest.web.resource.impl.CriteriaPaged;
+import org.openmrs.module.webservices.rest.web.response.ConversionException;
 import org.openmrs.module.webservices.rest.web.response.ResourceDoesNotSupportOperationException;
 import org.openmrs.module.webservices.rest.web.response.ResponseException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -38,7 +52,12 @@ import org.springframework.web.bind.annotation.ResponseBody;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Base controller that handles exceptions (via {@link BaseRestController}) and also standard CRUD
@@ -48,12 +67,22 @@ import java.util.Enumeration;
 @RequestMapping(value = "/rest/" + RestConstants.VERSION_1)
 public class MainResourceController extends BaseRestController {
 	
+	private static final ObjectMapper NDJSON_MAPPER = new ObjectMapper();
+	
+	static {
+		// every object is written on its own, the writer is closed once all are written
+		NDJSON_MAPPER.getJsonFactory().configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+	}
+	
 	@Autowired
 	RestService restService;
 	
 	@Autowired
 	BaseUriSetup baseUriSetup;
 	
+	@Autowired
+	PlatformTransactionManager transactionManager;
+	
 	/**
 	 * @param uuid
 	 * @param request
@@ -66,26 +95,89 @@ public class MainResourceController extends BaseRestController {
 	        HttpServletRequest request, HttpServletResponse response) throws ResponseException {
 		baseUriSetup.setup(request);
 		RequestContext context = RestUtil.getRequestContext(request, response);
+		RestMetrics.label(request, buildResourceName(resource), RestOperation.RETRIEVE, context.getRepresentation());
 		Retrievable res = (Retrievable) restService.getResourceByName(buildResourceName(resource));
-		return res.retrieve(uuid, context);
+		return RestMetrics.results(request, res.retrieve(uuid, context));
 	}
 	
 	/**
+	 * Creates one object if an object is posted, or all objects of a posted array if the resource
+	 * is {@link BulkCreatable}
+	 * 
 	 * @param post
 	 * @param request
 	 * @param response
 	 * @return
 	 * @throws Exception
+	 * @should create all posted objects in one transaction
+	 * @should create none of the posted objects if one of them is invalid
+	 * @should fail to create an array for a resource that is not bulk creatable
 	 */
+	@SuppressWarnings("unchecked")
 	@RequestMapping(value = "/{resource}", method = RequestMethod.POST)
 	@ResponseBody
-	public Object create(@PathVariable("resource") String resource, @RequestBody SimpleObject post,
+	public Object create(@PathVariable("resource") String resource, @RequestBody Object post,
 	        HttpServletRequest request, HttpServletResponse response) throws ResponseException {
+		if (post instanceof List) {
+			return createAll(resource, (List<Object>) post, request, response);
+		} else if (post instanceof Map) {
+			SimpleObject object = new SimpleObject();
+			object.putAll((Map<String, Object>) post);
+			return create(resource, object, request, response);
+		}
+		throw new ConversionException("Expected an object or an array of objects");
+	}
+	
+	/**
+	 * @param post
+	 * @param request
+	 * @param response
+	 * @return
+	 * @throws Exception
+	 */
+	public Object create(String resource, SimpleObject post, HttpServletRequest request, HttpServletResponse response)
+	        throws ResponseException {
 		baseUriSetup.setup(request);
 		RequestContext context = RestUtil.getRequestContext(request, response);
+		RestMetrics.label(request, buildResourceName(resource), RestOperation.CREATE, context.getRepresentation());
 		Creatable res = (Creatable) restService.getResourceByName(buildResourceName(resource));
 		Object created = res.create(post, context);
-		return RestUtil.created(response, created);
+		return RestMetrics.results(request, RestUtil.created(response, created));
+	}
+	
+	@SuppressWarnings("unchecked")
+	private Object createAll(String resource, List<Object> post, HttpServletRequest request, HttpServletResponse response)
+	        throws ResponseException {
+		baseUriSetup.setup(request);
+		final RequestContext context = RestUtil.getRequestContext(request, response);
+		RestMetrics.label(request, buildResourceName(resource), RestOperation.CREATE, context.getRepresentation());
+		Object res = restService.getResourceByName(buildResourceName(resource));
+		if (!(res instanceof BulkCreatable)) {
+			throw new ResourceDoesNotSupportOperationException(res.getClass().getSimpleName()
+			        + " does not support creating arrays of objects");
+		}
+		
+		final List<SimpleObject> posts = new ArrayList<SimpleObject>(post.size());
+		for (Object item : post) {
+			if (!(item instanceof Map)) {
+				throw new ConversionException("Expected an array of objects");
+			}
+			SimpleObject object = new SimpleObject();
+			object.putAll((Map<String, Object>) item);
+			posts.add(object);
+		}
+		
+		// one transaction for all objects, so they are not committed and flushed one at a time
+		final BulkCreatable bulkCreatable = (BulkCreatable) res;
+		List<Object> created = new TransactionTemplate(transactionManager).execute(new TransactionCallback<List<Object>>() {
+			
+			@Override
+			public List<Object> doInTransaction(TransactionStatus status) {
+				return bulkCreatable.createAll(posts, context);
+			}
+		});
+		response.setStatus(HttpServletResponse.SC_CREATED);
+		return RestMetrics.results(request, new SimpleObject().add("results", created));
 	}
 	
 	/**
@@ -103,9 +195,10 @@ public class MainResourceController extends BaseRestController {
 	        throws ResponseException {
 		baseUriSetup.setup(request);
 		RequestContext context = RestUtil.getRequestContext(request, response);
+		RestMetrics.label(request, buildResourceName(resource), RestOperation.UPDATE, context.getRepresentation());
 		Updatable res = (Updatable) restService.getResourceByName(buildResourceName(resource));
 		Object updated = res.update(uuid, post, context);
-		return RestUtil.updated(response, updated);
+		return RestMetrics.results(request, RestUtil.updated(response, updated));
 	}
 	
 	/**
@@ -121,6 +214,7 @@ public class MainResourceController extends BaseRestController {
 	        HttpServletResponse response) throws ResponseException {
 		baseUriSetup.setup(request);
 		RequestContext context = RestUtil.getRequestContext(request, response);
+		RestMetrics.label(request, buildResourceName(resource), RestOperation.DELETE, context.getRepresentation());
 		Deletable res = (Deletable) restService.getResourceByName(buildResourceName(resource));
 		res.delete(uuid, reason, context);
 		return RestUtil.noContent(response);
@@ -138,6 +232,7 @@ public class MainResourceController extends BaseRestController {
 	        HttpServletRequest request, HttpServletResponse response) throws ResponseException {
 		baseUriSetup.setup(request);
 		RequestContext context = RestUtil.getRequestContext(request, response);
+		RestMetrics.label(request, buildResourceName(resource), RestOperation.PURGE, context.getRepresentation());
 		Purgeable res = (Purgeable) restService.getResourceByName(buildResourceName(resource));
 		res.purge(uuid, context);
 		return RestUtil.noContent(response);
@@ -163,14 +258,17 @@ public class MainResourceController extends BaseRestController {
 		@SuppressWarnings("unchecked")
 		SearchHandler searchHandler = restService.getSearchHandler(buildResourceName(resource), request.getParameterMap());
 		if (searchHandler != null) {
-			return searchHandler.search(context).toSimpleObject(conv);
+			RestMetrics.label(request, buildResourceName(resource), RestOperation.SEARCH, context.getRepresentation(),
+			    searchHandler.getSearchConfig().getId());
+			return RestMetrics.results(request, searchHandler.search(context).toSimpleObject(conv));
 		}
 		
 		Enumeration parameters = request.getParameterNames();
 		while (parameters.hasMoreElements()) {
 			if (!RestConstants.SPECIAL_REQUEST_PARAMETERS.contains(parameters.nextElement())) {
 				if (res instanceof Searchable) {
-					return ((Searchable) res).search(context);
+					RestMetrics.label(request, buildResourceName(resource), RestOperation.SEARCH, context.getRepresentation());
+					return RestMetrics.results(request, ((Searchable) res).search(context));
 				} else {
 					throw new ResourceDoesNotSupportOperationException(res.getClass().getSimpleName() + " is not searchable");
 				}
@@ -178,10 +276,68 @@ public class MainResourceController extends BaseRestController {
 		}
 		
 		if (res instanceof Listable) {
-			return ((Listable) res).getAll(context);
+			RestMetrics.label(request, buildResourceName(resource), RestOperation.LIST, context.getRepresentation());
+			return RestMetrics.results(request, ((Listable) res).getAll(context));
 		} else {
 			throw new ResourceDoesNotSupportOperationException(res.getClass().getSimpleName() + " is not listable");
 		}
 	}
 	
+	/**
+	 * Writes all objects of an {@link Exportable} resource that match the request parameters, one
+	 * JSON object per line (NDJSON) in the requested representation. The objects are converted and
+	 * written while they are read in batches, so the memory used does not depend on the size of the
+	 * export as it would when paging through a list with many requests.
+	 * 
+	 * @param resource
+	 * @param request
+	 * @param response
+	 * @throws ResponseException
+	 * @throws IOException
+	 * @should write one object per line
+	 * @should fail for a resource that is not exportable
+	 */
+	@RequestMapping(value = "/{resource}/export", method = RequestMethod.GET)
+	public void export(@PathVariable("resource") String resource, HttpServletRequest request,
+	        HttpServletResponse response) throws ResponseException, IOException {
+		baseUriSetup.setup(request);
+		Object res = restService.getResourceByName(buildResourceName(resource));
+		if (!(res instanceof Exportable)) {
+			throw new ResourceDoesNotSupportOperationException(res.getClass().getSimpleName() + " is not exportable");
+		}
+		Converter<?> conv = res instanceof Converter ? (Converter<?>) res : null;
+		
+		RequestContext context = RestUtil.getRequestContext(request, response, Representation.REF);
+		RestMetrics.label(request, buildResourceName(resource), RestOperation.EXPORT, context.getRepresentation());
+		CriteriaPaged<?> query = ((Exportable) res).getExportQuery(context);
+		
+		response.setContentType(RestConstants.NDJSON_CONTENT_TYPE);
+		response.setCharacterEncoding("UTF-8");
+		long count = query.processAll(new NdjsonWriter(response.getWriter(), context.getRepresentation(), conv));
+		RestMetrics.resultCount(request, count);
+	}
+	
+	/**
+	 * Converts each exported object to its representation and writes it as one line of JSON
+	 */
+	private static class NdjsonWriter implements ObjectCallback<Object> {
+		
+		private final Writer writer;
+		
+		private final Representation representation;
+		
+		private final Converter<?> converter;
+		
+		public NdjsonWriter(Writer writer, Representation representation, Converter<?> converter) {
+			this.writer = writer;
+			this.representation = representation;
+			this.converter = converter;
+		}
+		
+		@Override
+		public void process(Object object) throws IOException {
+			NDJSON_MAPPER.writeValue(writer, ConversionUtil.convertToRepresentation(object, representation, converter));
+			writer.write('\n');
+		}
+	}
 }
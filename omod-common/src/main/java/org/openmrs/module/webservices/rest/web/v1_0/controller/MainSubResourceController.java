@@ -17,6 +17,8 @@ import org.openmrs.module.webservices.rest.web.RequestContext;
 import org.openmrs.module.webservices.rest.web.RestConstants;
 import org.openmrs.module.webservices.rest.web.RestUtil;
 import org.openmrs.module.webservices.rest.web.api.RestService;
+import org.openmrs.module.webservices.rest.web.metrics.RestMetrics;
+import org.openmrs.module.webservices.rest.web.metrics.RestOperation;
 import org.openmrs.module.webservices.rest.web.resource.api.Converter;
 import org.openmrs.module.webservices.rest.web.resource.api.Searchable;
 import org.openmrs.module.webservices.rest.web.resource.api.SubResource;
@@ -64,8 +66,10 @@ public class MainSubResourceController extends BaseRestController {
 	        HttpServletResponse response) throws ResponseException {
 		baseUriSetup.setup(request);
 		RequestContext context = RestUtil.getRequestContext(request, response);
+		RestMetrics.label(request, buildResourceName(resource) + "/" + subResource, RestOperation.RETRIEVE, context
+		        .getRepresentation());
 		SubResource res = (SubResource) restService.getResourceByName(buildResourceName(resource) + "/" + subResource);
-		return res.retrieve(parentUuid, uuid, context);
+		return RestMetrics.results(request, res.retrieve(parentUuid, uuid, context));
 	}
 	
 	/**
@@ -89,21 +93,27 @@ public class MainSubResourceController extends BaseRestController {
 		SubResourceSearchHandler searchHandler = (SubResourceSearchHandler) restService.getSearchHandler(
 		    buildResourceName(resource) + "/" + subResource, request.getParameterMap());
 		if (searchHandler != null) {
-			return searchHandler.search(parentUuid, context).toSimpleObject(conv);
+			RestMetrics.label(request, buildResourceName(resource) + "/" + subResource, RestOperation.SEARCH, context
+			        .getRepresentation(), searchHandler.getSearchConfig().getId());
+			return RestMetrics.results(request, searchHandler.search(parentUuid, context).toSimpleObject(conv));
 		}
 		
 		Enumeration parameters = request.getParameterNames();
 		while (parameters.hasMoreElements()) {
 			if (!RestConstants.SPECIAL_REQUEST_PARAMETERS.contains(parameters.nextElement())) {
 				if (res instanceof Searchable) {
-					return ((Searchable) res).search(context);
+					RestMetrics.label(request, buildResourceName(resource) + "/" + subResource, RestOperation.SEARCH,
+					    context.getRepresentation());
+					return RestMetrics.results(request, ((Searchable) res).search(context));
 				} else {
 					throw new ResourceDoesNotSupportOperationException(res.getClass().getSimpleName() + " is not searchable");
 				}
 			}
 		}
 		
-		return res.getAll(parentUuid, context);
+		RestMetrics.label(request, buildResourceName(resource) + "/" + subResource, RestOperation.LIST, context
+		        .getRepresentation());
+		return RestMetrics.results(request, res.getAll(parentUuid, context));
 	}
 	
 	/**
@@ -121,9 +131,11 @@ public class MainSubResourceController extends BaseRestController {
 	        HttpServletResponse response) throws ResponseException {
 		baseUriSetup.setup(request);
 		RequestContext context = RestUtil.getRequestContext(request, response);
+		RestMetrics.label(request, buildResourceName(resource) + "/" + subResource, RestOperation.CREATE, context
+		        .getRepresentation());
 		SubResource res = (SubResource) restService.getResourceByName(buildResourceName(resource) + "/" + subResource);
 		Object created = res.create(parentUuid, post, context);
-		return RestUtil.created(response, created);
+		return RestMetrics.results(request, RestUtil.created(response, created));
 	}
 	
 	/**
@@ -143,9 +155,11 @@ public class MainSubResourceController extends BaseRestController {
 	        throws ResponseException {
 		baseUriSetup.setup(request);
 		RequestContext context = RestUtil.getRequestContext(request, response);
+		RestMetrics.label(request, buildResourceName(resource) + "/" + subResource, RestOperation.UPDATE, context
+		        .getRepresentation());
 		SubResource res = (SubResource) restService.getResourceByName(buildResourceName(resource) + "/" + subResource);
 		Object updated = res.update(parentUuid, uuid, post, context);
-		return RestUtil.updated(response, updated);
+		return RestMetrics.results(request, RestUtil.updated(response, updated));
 	}
 	
 	/**
@@ -163,6 +177,8 @@ public class MainSubResourceController extends BaseRestController {
 	        HttpServletResponse response) throws ResponseException {
 		baseUriSetup.setup(request);
 		RequestContext context = RestUtil.getRequestContext(request, response);
+		RestMetrics.label(request, buildResourceName(resource) + "/" + subResource, RestOperation.DELETE, context
+		        .getRepresentation());
 		SubResource res = (SubResource) restService.getResourceByName(buildResourceName(resource) + "/" + subResource);
 		res.delete(parentUuid, uuid, reason, context);
 		return RestUtil.noContent(response);
@@ -182,6 +198,8 @@ public class MainSubResourceController extends BaseRestController {
 	        HttpServletResponse response) throws ResponseException {
 		baseUriSetup.setup(request);
 		RequestContext context = RestUtil.getRequestContext(request, response);
+		RestMetrics.label(request, buildResourceName(resource) + "/" + subResource, RestOperation.PURGE, context
+		        .getRepresentation());
 		SubResource res = (SubResource) restService.getResourceByName(buildResourceName(resource) + "/" + subResource);
 		res.purge(parentUuid, uuid, context);
 		return RestUtil.noContent(response);
@@ -201,6 +219,8 @@ public class MainSubResourceController extends BaseRestController {
 	        HttpServletResponse response) throws ResponseException {
 		baseUriSetup.setup(request);
 		RequestContext context = RestUtil.getRequestContext(request, response);
+		RestMetrics.label(request, buildResourceName(resource) + "/" + subResource, RestOperation.DELETE, context
+		        .getRepresentation());
 		SubResource res = (SubResource) restService.getResourceByName(buildResourceName(resource) + "/" + subResource);
 		res.delete(parentUuid, null, reason, context);
 		return RestUtil.noContent(response);
@@ -219,6 +239,8 @@ public class MainSubResourceController extends BaseRestController {
 	        throws ResponseException {
 		baseUriSetup.setup(request);
 		RequestContext context = RestUtil.getRequestContext(request, response);
+		RestMetrics.label(request, buildResourceName(resource) + "/" + subResource, RestOperation.PURGE, context
+		        .getRepresentation());
 		SubResource res = (SubResource) restService.getResourceByName(buildResourceName(resource) + "/" + subResource);
 		res.purge(parentUuid, null, context);
 		return RestUtil.noContent(response);
@@ -239,6 +261,8 @@ public class MainSubResourceController extends BaseRestController {
 	        HttpServletResponse response) throws ResponseException {
 		baseUriSetup.setup(request);
 		RequestContext context = RestUtil.getRequestContext(request, response);
+		RestMetrics.label(request, buildResourceName(resource) + "/" + subResource, RestOperation.UPDATE, context
+		        .getRepresentation());
 		SubResource res = (SubResource) restService.getResourceByName(buildResourceName(resource) + "/" + subResource);
 		res.put(parentUuid, post, context);
 		return RestUtil.noContent(response);
@@ -0,0 +1,86 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web.v1_0.controller;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest.web.RestUtil;
+import org.openmrs.module.webservices.rest.web.metrics.OperationMetrics;
+import org.openmrs.module.webservices.rest.web.metrics.PrometheusFormat;
+import org.openmrs.module.webservices.rest.web.metrics.RestMetrics;
+import org.openmrs.module.webservices.rest.web.resource.impl.RepresentationCache;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * Serves the metrics kept by {@link RestMetrics}, as JSON or, with <code>?format=prometheus</code>,
+ * in the Prometheus text format, together with the hits and misses of the
+ * {@link RepresentationCache}. Reading them requires the {@link RestConstants#PRIV_VIEW_RESTWS}
+ * privilege, clearing them the {@link RestConstants#PRIV_MANAGE_RESTWS} privilege.
+ */
+@Controller
+@RequestMapping(value = "/rest/" + RestConstants.VERSION_1 + "/metrics")
+public class MetricsController extends BaseRestController {
+	
+	/**
+	 * @return the metrics of all operations
+	 * @should return the metrics of all operations
+	 * @should return the counters of the representation cache
+	 * @should fail if the user does not have the view privilege
+	 */
+	@RequestMapping(method = RequestMethod.GET)
+	@ResponseBody
+	public SimpleObject getMetrics() {
+		RestUtil.requirePrivilege(RestConstants.PRIV_VIEW_RESTWS);
+		List<SimpleObject> results = new ArrayList<SimpleObject>();
+		for (OperationMetrics operationMetrics : RestMetrics.getAll()) {
+			results.add(operationMetrics.toSimpleObject());
+		}
+		SimpleObject representationCache = new SimpleObject().add("hits", RepresentationCache.getHitCount())
+		        .add("misses", RepresentationCache.getMissCount()).add("size", RepresentationCache.size());
+		return new SimpleObject().add("results", results).add("representationCache", representationCache);
+	}
+	
+	/**
+	 * @param response
+	 * @throws IOException
+	 * @should write the metrics in the prometheus text format
+	 */
+	@RequestMapping(method = RequestMethod.GET, params = "format=prometheus")
+	public void getPrometheusMetrics(HttpServletResponse response) throws IOException {
+		RestUtil.requirePrivilege(RestConstants.PRIV_VIEW_RESTWS);
+		response.setContentType(PrometheusFormat.CONTENT_TYPE);
+		PrometheusFormat.write(RestMetrics.getAll(), response.getWriter());
+		PrometheusFormat.writeRepresentationCache(RepresentationCache.getHitCount(), RepresentationCache.getMissCount(),
+		    RepresentationCache.size(), response.getWriter());
+		response.getWriter().flush();
+	}
+	
+	/**
+	 * @param response
+	 * @return an empty body
+	 * @should forget all metrics
+	 */
+	@RequestMapping(method = RequestMethod.DELETE)
+	@ResponseBody
+	public Object clearMetrics(HttpServletResponse response) {
+		RestUtil.requirePrivilege(RestConstants.PRIV_MANAGE_RESTWS);
+		RestMetrics.clear();
+		return RestUtil.noContent(response);
+	}
+}
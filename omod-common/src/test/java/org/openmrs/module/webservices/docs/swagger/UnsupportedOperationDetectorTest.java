@@ -0,0 +1,105 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.docs.swagger;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.openmrs.module.webservices.rest.web.response.ResourceDoesNotSupportOperationException;
+
+/**
+ * Tests {@link UnsupportedOperationDetector}.
+ */
+public class UnsupportedOperationDetectorTest {
+	
+	private UnsupportedOperationDetector detector = new UnsupportedOperationDetector();
+	
+	/**
+	 * @see UnsupportedOperationDetector#isSupported(Class,String...)
+	 * @verifies return false for a method inherited from a class that does not support it
+	 */
+	@Test
+	public void isSupported_shouldReturnFalseForAMethodInheritedFromAClassThatDoesNotSupportIt() throws Exception {
+		assertFalse(detector.isSupported(ListableResource.class, "purge"));
+		assertFalse(detector.isSupported(ListableResource.class, "getAll", "purge"));
+	}
+	
+	/**
+	 * @see UnsupportedOperationDetector#isSupported(Class,String...)
+	 * @verifies return true for a method overridden with an implementation
+	 */
+	@Test
+	public void isSupported_shouldReturnTrueForAMethodOverriddenWithAnImplementation() throws Exception {
+		assertTrue(detector.isSupported(ListableResource.class, "getAll"));
+		assertTrue(detector.isSupported(ListableResource.class, "delete"));
+	}
+	
+	/**
+	 * @see UnsupportedOperationDetector#isSupported(Class,String...)
+	 * @verifies return false for a method overridden to throw the exception
+	 */
+	@Test
+	public void isSupported_shouldReturnFalseForAMethodOverriddenToThrowTheException() throws Exception {
+		assertFalse(detector.isSupported(UndeletableResource.class, "delete"));
+	}
+	
+	/**
+	 * @see UnsupportedOperationDetector#isSupported(Class,String...)
+	 * @verifies take generic overrides into account
+	 */
+	@Test
+	public void isSupported_shouldTakeGenericOverridesIntoAccount() throws Exception {
+		assertFalse(detector.isSupported(BaseResource.class, "purge"));
+		assertTrue(detector.isSupported(PurgeableResource.class, "purge"));
+	}
+	
+	public static class BaseResource<T> {
+		
+		public List<T> getAll() {
+			throw new ResourceDoesNotSupportOperationException();
+		}
+		
+		public void delete(T delegate) {
+			delegate.toString();
+		}
+		
+		public void purge(T delegate) {
+			throw new ResourceDoesNotSupportOperationException("read-only resource");
+		}
+	}
+	
+	public static class ListableResource extends BaseResource<String> {
+		
+		@Override
+		public List<String> getAll() {
+			return new ArrayList<String>();
+		}
+	}
+	
+	public static class UndeletableResource extends ListableResource {
+		
+		@Override
+		public void delete(String delegate) {
+			throw new ResourceDoesNotSupportOperationException();
+		}
+	}
+	
+	public static class PurgeableResource extends BaseResource<String> {
+		
+		@Override
+		public void purge(String delegate) {
+			delegate.length();
+		}
+	}
+}
@@ -0,0 +1,125 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link IpAllowList}.
+ */
+public class IpAllowListTest {
+	
+	/**
+	 * @see IpAllowList#compile(List)
+	 * @verifies match addresses in any of the ranges
+	 */
+	@Test
+	public void compile_shouldMatchAddressesInAnyOfTheRanges() throws Exception {
+		List<String> candidateIps = new ArrayList<String>();
+		for (int i = 0; i < 200; i++) {
+			candidateIps.add("10." + i + ".0.0/16");
+		}
+		candidateIps.add("192.168.1.128/25");
+		IpAllowList allowList = IpAllowList.compile(candidateIps);
+		
+		Assert.assertTrue(allowList.matches("10.0.0.1"));
+		Assert.assertTrue(allowList.matches("10.199.255.255"));
+		Assert.assertTrue(allowList.matches("192.168.1.200"));
+		Assert.assertFalse(allowList.matches("10.200.0.1"));
+		Assert.assertFalse(allowList.matches("192.168.1.127"));
+	}
+	
+	/**
+	 * @see IpAllowList#compile(List)
+	 * @verifies match only exact addresses without a mask
+	 */
+	@Test
+	public void compile_shouldMatchOnlyExactAddressesWithoutAMask() throws Exception {
+		IpAllowList allowList = IpAllowList.compile(Arrays.asList("10.0.0.1", "10.0.0.0/8"));
+		
+		Assert.assertTrue(allowList.matches("10.1.2.3"));
+		
+		allowList = IpAllowList.compile(Arrays.asList("10.0.0.1"));
+		
+		Assert.assertTrue(allowList.matches("10.0.0.1"));
+		Assert.assertFalse(allowList.matches("10.0.0.2"));
+	}
+	
+	/**
+	 * @see IpAllowList#compile(List)
+	 * @verifies keep ipv4 and ipv6 ranges apart
+	 */
+	@Test
+	public void compile_shouldKeepIpv4AndIpv6RangesApart() throws Exception {
+		IpAllowList allowList = IpAllowList.compile(Arrays.asList("0.0.0.0/0", "fe80::/10"));
+		
+		Assert.assertTrue(allowList.matches("172.16.0.1"));
+		Assert.assertTrue(allowList.matches("fe80::202:b3ff:fe1e:8329"));
+		Assert.assertFalse(allowList.matches("2001:db8::1"));
+	}
+	
+	/**
+	 * @see IpAllowList#compile(List)
+	 * @verifies throw IllegalArgumentException for invalid mask
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void compile_shouldThrowIllegalArgumentExceptionForInvalidMask() throws Exception {
+		IpAllowList.compile(Arrays.asList("10.0.0.0/33"));
+	}
+	
+	/**
+	 * @see IpAllowList#matches(String)
+	 * @verifies match ipv4 and ipv6 literals like InetAddress
+	 */
+	@Test
+	public void matches_shouldMatchIpv4AndIpv6LiteralsLikeInetAddress() throws Exception {
+		IpAllowList allowList = IpAllowList.compile(Arrays.asList("192.168.0.0/16", "2001:db8::/32", "::1"));
+		
+		Assert.assertTrue(allowList.matches("192.168.255.1"));
+		Assert.assertFalse(allowList.matches("192.169.0.1"));
+		Assert.assertTrue(allowList.matches("2001:db8::8a2e:370:7334"));
+		Assert.assertTrue(allowList.matches("2001:0DB8:0000:0000:0000:0000:0000:0001"));
+		Assert.assertTrue(allowList.matches("[2001:db8::1]"));
+		Assert.assertTrue(allowList.matches("2001:db8::1%1"));
+		Assert.assertFalse(allowList.matches("2001:db9::1"));
+		Assert.assertTrue(allowList.matches("0:0:0:0:0:0:0:1"));
+		Assert.assertFalse(allowList.matches("::"));
+		// the shortened form is left to InetAddress
+		Assert.assertTrue(allowList.matches("192.168.1"));
+	}
+	
+	/**
+	 * @see IpAllowList#matches(String)
+	 * @verifies match ipv4 mapped ipv6 addresses as ipv4 addresses
+	 */
+	@Test
+	public void matches_shouldMatchIpv4MappedIpv6AddressesAsIpv4Addresses() throws Exception {
+		IpAllowList allowList = IpAllowList.compile(Arrays.asList("10.0.0.0/8"));
+		
+		Assert.assertTrue(allowList.matches("::ffff:10.1.2.3"));
+		Assert.assertTrue(allowList.matches("::ffff:a01:203"));
+		Assert.assertFalse(allowList.matches("::ffff:11.1.2.3"));
+		Assert.assertFalse(allowList.matches("::10.1.2.3"));
+	}
+	
+	/**
+	 * @see IpAllowList#matches(String)
+	 * @verifies throw IllegalArgumentException for an invalid address
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void matches_shouldThrowIllegalArgumentExceptionForAnInvalidAddress() throws Exception {
+		IpAllowList.compile(Arrays.asList("10.0.0.0/8")).matches("1::2::3");
+	}
+}
@@ -0,0 +1,74 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link Iso8601DateFormatter}.
+ */
+public class Iso8601DateFormatterTest {
+	
+	private static final String[] TIME_ZONES = { "UTC", "Europe/Amsterdam", "Asia/Kolkata", "America/St_Johns",
+	        "Pacific/Chatham" };
+	
+	/**
+	 * @see Iso8601DateFormatter#format(Date)
+	 * @verifies format dates like SimpleDateFormat
+	 */
+	@Test
+	public void format_shouldFormatDatesLikeSimpleDateFormat() throws Exception {
+		Random random = new Random(42);
+		long[] dates = new long[10000];
+		for (int i = 0; i < dates.length; i++) {
+			// from 1653 to 10209, including years with more than four digits
+			dates[i] = (long) ((random.nextDouble() * 2.7 - 0.1) * 1e14);
+		}
+		dates[0] = 0;
+		dates[1] = -1;
+		dates[2] = System.currentTimeMillis();
+		
+		assertFormattedLikeSimpleDateFormat(dates);
+	}
+	
+	/**
+	 * @see Iso8601DateFormatter#format(Date)
+	 * @verifies format dates before the gregorian cutover like SimpleDateFormat
+	 */
+	@Test
+	public void format_shouldFormatDatesBeforeTheGregorianCutoverLikeSimpleDateFormat() throws Exception {
+		long cutover = -12219292800000L;
+		assertFormattedLikeSimpleDateFormat(new long[] { cutover - 1, cutover, cutover + 12 * 60 * 60 * 1000,
+		        -62135769600000L, -62198755200000L });
+	}
+	
+	private void assertFormattedLikeSimpleDateFormat(long[] dates) {
+		TimeZone defaultTimeZone = TimeZone.getDefault();
+		try {
+			for (String timeZone : TIME_ZONES) {
+				TimeZone.setDefault(TimeZone.getTimeZone(timeZone));
+				SimpleDateFormat format = new SimpleDateFormat(Iso8601DateFormatter.PATTERN);
+				for (long millis : dates) {
+					Date date = new Date(millis);
+					Assert.assertEquals(millis + " in " + timeZone, format.format(date), Iso8601DateFormatter.format(date));
+				}
+			}
+		}
+		finally {
+			TimeZone.setDefault(defaultTimeZone);
+		}
+	}
+}
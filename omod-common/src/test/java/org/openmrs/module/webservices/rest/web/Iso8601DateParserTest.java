@@ -0,0 +1,149 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.format.DateTimeFormat;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link Iso8601DateParser}.
+ */
+public class Iso8601DateParserTest {
+	
+	/**
+	 * The patterns ConversionUtil used to try one after the other
+	 */
+	private static final String[] JODA_PATTERNS = { "yyyy-MM-dd'T'HH:mm:ss.SSSZ", "yyyy-MM-dd'T'HH:mm:ss.SSS",
+	        "yyyy-MM-dd'T'HH:mm:ssZ", "yyyy-MM-dd'T'HH:mm:ss", "yyyy-MM-dd HH:mm:ss", "yyyy-MM-dd" };
+	
+	private static final String[] DATES = { "2011-05-01", "2011-5-1", "2011-05-01 00:00:00", "2011-05-01 9:05:03",
+	        "2011-05-01T00:00:00", "2011-05-01T00:00:00.000", "2011-05-01T00:00:00.5", "2011-05-01T00:00:00.12",
+	        "2016-01-12T06:00:00+05:30", "2016-01-12T06:00:00+0530", "2014-02-20T11:00:00.000-05:00",
+	        "2014-02-20T11:00:00.000-05", "2014-02-20T11:00:00Z", "2014-02-20T11:00:00.999Z", "2000-02-29",
+	        "1500-03-01T12:00:00", "0001-01-01T00:00:00Z", "-0001-01-01", "+2014-01-01" };
+	
+	/**
+	 * Does not exist in Europe/Berlin, the clocks were put forward from 2:00 to 3:00
+	 */
+	private static final String DST_GAP = "2014-03-30T02:30:00";
+	
+	private static final String[] NOT_DATES = { "", "abc", "2011", "2011-05", "2011/05/01", "2011-05-01x",
+	        "2011-05-01T", "2011-05-01T11:00", "2011-05-01 11:00:00.000", "2011-05-01 11:00:00Z",
+	        "2011-05-01T11:00:00.", "2011-05-01T11:00:00.1234", "2011-05-01T11:00:00+5", "2011-05-01T11:00:00+05:",
+	        "2011-05-01T11:00:00.000+0530x", "+-2011-05-01" };
+	
+	private static final String[] OUT_OF_RANGE = { "2011-00-01", "2011-13-01", "2011-04-31", "2011-02-29", "1900-02-29",
+	        "2011-05-01T24:00:00", "2011-05-01T11:60:00", "2011-05-01T11:00:60", "2011-05-01T11:00:00+24:00",
+	        "2011-05-01T11:00:00+05:60" };
+	
+	/**
+	 * @see Iso8601DateParser#parse(String)
+	 * @verifies parse every format the joda patterns accepted
+	 */
+	@Test
+	public void parse_shouldParseEveryFormatTheJodaPatternsAccepted() throws Exception {
+		for (String timeZone : new String[] { "UTC", "Europe/Berlin", "America/New_York", "Asia/Kolkata" }) {
+			DateTimeZone defaultZone = DateTimeZone.getDefault();
+			DateTimeZone.setDefault(DateTimeZone.forID(timeZone));
+			try {
+				for (String date : DATES) {
+					Assert.assertNotNull(date, Iso8601DateParser.parse(date));
+				}
+				for (String date : concat(DATES, NOT_DATES, OUT_OF_RANGE, new String[] { DST_GAP })) {
+					Assert.assertEquals(date + " in " + timeZone, parseWithJodaPatterns(date), Iso8601DateParser.parse(date));
+				}
+			}
+			finally {
+				DateTimeZone.setDefault(defaultZone);
+			}
+		}
+	}
+	
+	/**
+	 * @see Iso8601DateParser#parse(String)
+	 * @verifies apply the time zone offset
+	 */
+	@Test
+	public void parse_shouldApplyTheTimeZoneOffset() throws Exception {
+		Date expected = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ").parse("2016-01-12T00:30:00.250+0000");
+		
+		Assert.assertEquals(expected, Iso8601DateParser.parse("2016-01-12T06:00:00.25+05:30"));
+		Assert.assertEquals(expected, Iso8601DateParser.parse("2016-01-11T19:30:00.250-05"));
+		Assert.assertEquals(expected, Iso8601DateParser.parse("2016-01-12T00:30:00.250Z"));
+	}
+	
+	/**
+	 * @see Iso8601DateParser#parse(String)
+	 * @verifies use the default time zone without an offset
+	 */
+	@Test
+	public void parse_shouldUseTheDefaultTimeZoneWithoutAnOffset() throws Exception {
+		SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+		format.setTimeZone(TimeZone.getTimeZone(DateTimeZone.getDefault().getID()));
+		
+		Assert.assertEquals(format.parse("2011-05-01 00:00:00"), Iso8601DateParser.parse("2011-05-01"));
+		Assert.assertEquals(format.parse("2011-05-01 13:14:15"), Iso8601DateParser.parse("2011-05-01 13:14:15"));
+		Assert.assertEquals(format.parse("2011-05-01 13:14:15"), Iso8601DateParser.parse("2011-05-01T13:14:15"));
+	}
+	
+	/**
+	 * @see Iso8601DateParser#parse(String)
+	 * @verifies return null for unsupported formats
+	 */
+	@Test
+	public void parse_shouldReturnNullForUnsupportedFormats() throws Exception {
+		Assert.assertNull(Iso8601DateParser.parse(null));
+		for (String date : NOT_DATES) {
+			Assert.assertNull(date, Iso8601DateParser.parse(date));
+		}
+	}
+	
+	/**
+	 * @see Iso8601DateParser#parse(String)
+	 * @verifies return null for fields out of range
+	 */
+	@Test
+	public void parse_shouldReturnNullForFieldsOutOfRange() throws Exception {
+		for (String date : OUT_OF_RANGE) {
+			Assert.assertNull(date, Iso8601DateParser.parse(date));
+		}
+	}
+	
+	private static Date parseWithJodaPatterns(String date) {
+		for (String pattern : JODA_PATTERNS) {
+			try {
+				return DateTime.parse(date, DateTimeFormat.forPattern(pattern)).toDate();
+			}
+			catch (IllegalArgumentException ex) {}
+		}
+		return null;
+	}
+	
+	private static String[] concat(String[]... arrays) {
+		int length = 0;
+		for (String[] array : arrays) {
+			length += array.length;
+		}
+		String[] result = new String[length];
+		int i = 0;
+		for (String[] array : arrays) {
+			System.arraycopy(array, 0, result, i, array.length);
+			i += array.length;
+		}
+		return result;
+	}
+}
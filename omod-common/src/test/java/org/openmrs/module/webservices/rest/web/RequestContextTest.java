@@ -10,6 +10,7 @@
 package org.openmrs.module.webservices.rest.web;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.endsWith;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertNull;
 
@@ -78,4 +79,21 @@ public class RequestContextTest extends BaseModuleWebContextSensitiveTest {
 		
 		assertThat(requestContext.getParameter("includeAll"), is("true"));
 	}
+	
+	/**
+	 * @see RequestContext#getNextLink(String)
+	 * @verifies replace the cursor and startIndex parameters
+	 */
+	@Test
+	public void getNextLink_shouldReplaceTheCursorAndStartIndexParameters() throws Exception {
+		
+		RequestContext requestContext = new RequestContext();
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/ws/rest/v1/obs");
+		request.addParameter("patient", "abc");
+		request.addParameter("cursor", "");
+		request.addParameter("startIndex", "10");
+		requestContext.setRequest(request);
+		
+		assertThat(requestContext.getNextLink("2s").getUri(), endsWith("/ws/rest/v1/obs?patient=abc&cursor=2s"));
+	}
 }
@@ -0,0 +1,58 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link RestSettings}.
+ */
+public class RestSettingsTest {
+	
+	@Test
+	public void RestSettings_shouldUseTheDefaultsForMissingOrInvalidValues() throws Exception {
+		Map<String, String> values = new HashMap<String, String>();
+		values.put(RestConstants.MAX_RESULTS_ABSOLUTE_GLOBAL_PROPERTY_NAME, "many");
+		
+		RestSettings settings = new RestSettings(values);
+		
+		assertThat(settings.getDefaultLimit(), is(RestConstants.MAX_RESULTS_DEFAULT));
+		assertThat(settings.getAbsoluteLimit(), is(RestConstants.MAX_RESULTS_ABSOLUTE));
+		assertThat(settings.getAllowedIps(), is(empty()));
+		assertThat(settings.isQuietDocs(), is(false));
+		assertThat(settings.isMetricsAllocatedBytes(), is(false));
+	}
+	
+	/**
+	 * @see RestSettings#withValue(String,String)
+	 * @verifies change only the given property
+	 */
+	@Test
+	public void withValue_shouldChangeOnlyTheGivenProperty() throws Exception {
+		Map<String, String> values = new HashMap<String, String>();
+		values.put(RestConstants.MAX_RESULTS_DEFAULT_GLOBAL_PROPERTY_NAME, "10");
+		values.put(RestConstants.ALLOWED_IPS_GLOBAL_PROPERTY_NAME, "10.0.0.1, 10.0.1.0/24");
+		RestSettings settings = new RestSettings(values);
+		
+		RestSettings changed = settings.withValue(RestConstants.MAX_RESULTS_DEFAULT_GLOBAL_PROPERTY_NAME, "20");
+		
+		assertThat(changed.getDefaultLimit(), is(20));
+		assertThat(changed.getAllowedIps(), contains("10.0.0.1", "10.0.1.0/24"));
+		assertThat(settings.getDefaultLimit(), is(10));
+	}
+}
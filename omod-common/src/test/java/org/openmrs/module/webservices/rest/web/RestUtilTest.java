@@ -202,4 +202,80 @@ public class RestUtilTest {
 		Assert.assertEquals("", errorResponseMap.get("detail"));
 	}
 	
+	/**
+	 * @see RestUtil#isNotModified(HttpServletRequest,String)
+	 * @verifies return false if there is no If-None-Match header
+	 */
+	@Test
+	public void isNotModified_shouldReturnFalseIfThereIsNoIfNoneMatchHeader() throws Exception {
+		Assert.assertFalse(RestUtil.isNotModified(new MockHttpServletRequest(), "\"abc\""));
+	}
+	
+	/**
+	 * @see RestUtil#isNotModified(HttpServletRequest,String)
+	 * @verifies return true if any of the listed etags matches
+	 */
+	@Test
+	public void isNotModified_shouldReturnTrueIfAnyOfTheListedEtagsMatches() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("If-None-Match", "\"xyz\", \"abc\"");
+		
+		Assert.assertTrue(RestUtil.isNotModified(request, "\"abc\""));
+	}
+	
+	/**
+	 * @see RestUtil#isNotModified(HttpServletRequest,String)
+	 * @verifies ignore the weak prefix
+	 */
+	@Test
+	public void isNotModified_shouldIgnoreTheWeakPrefix() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("If-None-Match", "W/\"abc\"");
+		
+		Assert.assertTrue(RestUtil.isNotModified(request, "\"abc\""));
+	}
+	
+	/**
+	 * @see RestUtil#isNotModified(HttpServletRequest,String)
+	 * @verifies return true for a wildcard
+	 */
+	@Test
+	public void isNotModified_shouldReturnTrueForAWildcard() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("If-None-Match", "*");
+		
+		Assert.assertTrue(RestUtil.isNotModified(request, "\"abc\""));
+	}
+	
+	/**
+	 * @see RestUtil#isNotModified(HttpServletRequest,String)
+	 * @verifies return false if no etag matches
+	 */
+	@Test
+	public void isNotModified_shouldReturnFalseIfNoEtagMatches() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("If-None-Match", "\"xyz\"");
+		
+		Assert.assertFalse(RestUtil.isNotModified(request, "\"abc\""));
+	}
+	
+	/**
+	 * @see RestUtil#getViewPrivilege(String, String)
+	 * @verifies return the view privilege before platform 1.11
+	 */
+	@Test
+	public void getViewPrivilege_shouldReturnTheViewPrivilegeBeforePlatform111() throws Exception {
+		Assert.assertEquals("View Concepts", RestUtil.getViewPrivilege("Concepts", "1.9.10"));
+		Assert.assertEquals("View Concepts", RestUtil.getViewPrivilege("Concepts", "1.10.2-SNAPSHOT"));
+	}
+	
+	/**
+	 * @see RestUtil#getViewPrivilege(String, String)
+	 * @verifies return the get privilege since platform 1.11
+	 */
+	@Test
+	public void getViewPrivilege_shouldReturnTheGetPrivilegeSincePlatform111() throws Exception {
+		Assert.assertEquals("Get Concepts", RestUtil.getViewPrivilege("Concepts", "1.11.0"));
+		Assert.assertEquals("Get Concepts", RestUtil.getViewPrivilege("Concepts", "2.0.5"));
+	}
 }
@@ -0,0 +1,167 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web.annotation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.annotation.processing.RoundEnvironment;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests {@link ResourceIndexProcessor} by compiling resources with the system Java compiler into a
+ * temporary directory, which stays in place between compilations like the output directory of a
+ * build.
+ */
+public class ResourceIndexProcessorTest {
+	
+	private static final String PACKAGE = "org.example";
+	
+	private static final String ANNOTATIONS = "import " + Resource.class.getName() + ";\n" + "import "
+	        + SubResource.class.getName() + ";\n";
+	
+	private static final String RESOURCE = "@Resource(name = \"v1/%s\", supportedClass = Object.class, "
+	        + "supportedOpenmrsVersions = \"1.8.*\")\n";
+	
+	private static final String SUB_RESOURCE = "@SubResource(parent = "
+	        + org.openmrs.module.webservices.rest.web.resource.api.Resource.class.getName()
+	        + ".class, path = \"%s\", supportedClass = Object.class, supportedOpenmrsVersions = \"1.8.*\")\n";
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	private File sources;
+	
+	private File classes;
+	
+	@Before
+	public void setUp() throws Exception {
+		sources = folder.newFolder("sources");
+		classes = folder.newFolder("classes");
+	}
+	
+	/**
+	 * @see ResourceIndexProcessor#process(java.util.Set, RoundEnvironment)
+	 * @verifies index the concrete resources and sub resources
+	 */
+	@Test
+	public void process_shouldIndexTheConcreteResourcesAndSubResources() throws Exception {
+		writeSource("LocationResource", String.format(RESOURCE, "location") + "public class LocationResource {\n"
+		        + "\t" + String.format(SUB_RESOURCE, "tag") + "\tpublic static class TagResource {}\n}");
+		writeSource("ObsResource", String.format(RESOURCE, "obs") + "public class ObsResource {}");
+		
+		compile("LocationResource", "ObsResource");
+		
+		assertEquals(Arrays.asList(PACKAGE + ".LocationResource", PACKAGE + ".LocationResource$TagResource", PACKAGE
+		        + ".ObsResource"), readIndex());
+	}
+	
+	/**
+	 * @see ResourceIndexProcessor#process(java.util.Set, RoundEnvironment)
+	 * @verifies skip abstract classes
+	 */
+	@Test
+	public void process_shouldSkipAbstractClasses() throws Exception {
+		writeSource("BaseResource", String.format(RESOURCE, "base") + "public abstract class BaseResource {}");
+		writeSource("ObsResource", String.format(RESOURCE, "obs") + "public class ObsResource extends BaseResource {}");
+		
+		compile("BaseResource", "ObsResource");
+		
+		assertEquals(Arrays.asList(PACKAGE + ".ObsResource"), readIndex());
+	}
+	
+	/**
+	 * @see ResourceIndexProcessor#process(java.util.Set, RoundEnvironment)
+	 * @verifies keep the resources of the previous index when only some classes are recompiled
+	 */
+	@Test
+	public void process_shouldKeepTheResourcesOfThePreviousIndexWhenOnlySomeClassesAreRecompiled() throws Exception {
+		writeSource("LocationResource", String.format(RESOURCE, "location") + "public class LocationResource {}");
+		writeSource("ObsResource", String.format(RESOURCE, "obs") + "public class ObsResource {}");
+		compile("LocationResource", "ObsResource");
+		
+		writeSource("PatientResource", String.format(RESOURCE, "patient") + "public class PatientResource {}");
+		compile("PatientResource");
+		
+		assertEquals(Arrays.asList(PACKAGE + ".LocationResource", PACKAGE + ".ObsResource", PACKAGE
+		        + ".PatientResource"), readIndex());
+	}
+	
+	private void writeSource(String className, String body) throws IOException {
+		File file = new File(sources, className + ".java");
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		try {
+			writer.write("package " + PACKAGE + ";\n\n" + ANNOTATIONS + "\n" + body + "\n");
+		}
+		finally {
+			writer.close();
+		}
+	}
+	
+	/**
+	 * Compiles the given classes with the classes compiled before and the annotations on the class
+	 * path, running the processor
+	 */
+	private void compile(String... classNames) throws Exception {
+		List<File> files = new ArrayList<File>();
+		for (String className : classNames) {
+			files.add(new File(sources, className + ".java"));
+		}
+		// the surefire class path may be a manifest only jar, so the annotations are located directly
+		String annotations = new File(Resource.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+		        .getPath();
+		List<String> options = Arrays.asList("-d", classes.getPath(), "-classpath", annotations + File.pathSeparator
+		        + classes.getPath(), "-processor", ResourceIndexProcessor.class.getName());
+		
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+		try {
+			assertTrue(compiler.getTask(null, fileManager, null, options, null,
+			    fileManager.getJavaFileObjectsFromFiles(files)).call());
+		}
+		finally {
+			fileManager.close();
+		}
+	}
+	
+	private List<String> readIndex() throws IOException {
+		List<String> lines = new ArrayList<String>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(new File(classes,
+		        ResourceIndexProcessor.RESOURCE_INDEX)), "UTF-8"));
+		try {
+			for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+				lines.add(line);
+			}
+		}
+		finally {
+			reader.close();
+		}
+		return lines;
+	}
+}
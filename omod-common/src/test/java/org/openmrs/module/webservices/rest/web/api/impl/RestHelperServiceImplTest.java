@@ -0,0 +1,120 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web.api.impl;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.criterion.Criterion;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.Encounter;
+import org.openmrs.Location;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.webservices.rest.web.api.RestHelperService;
+import org.openmrs.module.webservices.rest.web.api.RestHelperService.ObjectCallback;
+import org.openmrs.web.test.BaseModuleWebContextSensitiveTest;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Tests {@link RestHelperServiceImpl}.
+ */
+public class RestHelperServiceImplTest extends BaseModuleWebContextSensitiveTest {
+	
+	@Autowired
+	private SessionFactory sessionFactory;
+	
+	private Statistics statistics;
+	
+	private boolean statisticsEnabled;
+	
+	@Before
+	public void enableStatistics() {
+		statistics = sessionFactory.getStatistics();
+		statisticsEnabled = statistics.isStatisticsEnabled();
+		statistics.setStatisticsEnabled(true);
+	}
+	
+	@After
+	public void restoreStatistics() {
+		statistics.setStatisticsEnabled(statisticsEnabled);
+	}
+	
+	/**
+	 * @see RestHelperServiceImpl#initializeProxies(java.util.Collection)
+	 * @verifies initialize the proxies of each entity type with one query
+	 */
+	@Test
+	public void initializeProxies_shouldInitializeTheProxiesOfEachEntityTypeWithOneQuery() throws Exception {
+		Context.flushSession();
+		Context.clearSession();
+		Session session = sessionFactory.getCurrentSession();
+		List<HibernateProxy> proxies = new ArrayList<HibernateProxy>();
+		proxies.add((HibernateProxy) session.load(Location.class, 1));
+		proxies.add((HibernateProxy) session.load(Location.class, 2));
+		for (HibernateProxy proxy : proxies) {
+			assertThat(proxy.getHibernateLazyInitializer().isUninitialized(), is(true));
+		}
+		statistics.clear();
+		
+		Context.getService(RestHelperService.class).initializeProxies(proxies);
+		
+		for (HibernateProxy proxy : proxies) {
+			assertFalse(proxy.getHibernateLazyInitializer().isUninitialized());
+		}
+		assertThat(statistics.getQueryExecutionCount(), is(1L));
+		assertThat(statistics.getEntityStatistics(Location.class.getName()).getFetchCount(), is(0L));
+	}
+	
+	/**
+	 * @see RestHelperServiceImpl#processObjectsByCriteria(Class,List,int,ObjectCallback)
+	 * @verifies clear the session after each batch
+	 */
+	@Test
+	public void processObjectsByCriteria_shouldClearTheSessionAfterEachBatch() throws Exception {
+		final Session session = sessionFactory.getCurrentSession();
+		final List<Encounter> processed = new ArrayList<Encounter>();
+		final List<Location> locations = new ArrayList<Location>();
+		
+		long count = Context.getService(RestHelperService.class).processObjectsByCriteria(Encounter.class,
+		    Collections.<Criterion> emptyList(), 2, new ObjectCallback<Encounter>() {
+			    
+			    @Override
+			    public void process(Encounter encounter) throws IOException {
+				    assertTrue(session.contains(encounter));
+				    // loads an association of the encounter into the session
+				    encounter.getLocation().getName();
+				    locations.add(encounter.getLocation());
+				    processed.add(encounter);
+			    }
+		    });
+		
+		assertTrue(count > 2);
+		assertThat((long) processed.size(), is(count));
+		for (Encounter encounter : processed) {
+			assertFalse(session.contains(encounter));
+		}
+		for (Location location : locations) {
+			assertFalse(session.contains(location));
+		}
+	}
+}
@@ -66,6 +66,7 @@ import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.Matchers.startsWith;
 import static org.hamcrest.core.IsNot.not;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -426,6 +427,56 @@ public class RestServiceImplTest extends BaseContextMockTest {
 		assertThat(restService.getResourceBySupportedClass(HibernateProxyAnimal.class), instanceOf(AnimalResource_1_9.class));
 	}
 	
+	/**
+	 * @verifies return the same resource for repeated calls with a hibernate proxy
+	 * @see RestServiceImpl#getResourceBySupportedClass(Class)
+	 */
+	@Test
+	public void getResourceBySupportedClass_shouldReturnTheSameResourceForRepeatedCallsWithAHibernateProxy()
+	        throws Exception {
+		
+		List<Class<? extends Resource>> resources = new ArrayList<Class<? extends Resource>>();
+		resources.add(AnimalResource_1_9.class);
+		resources.add(AnimalResource_1_11.class);
+		
+		when(openmrsClassScanner.getClasses(Resource.class, true)).thenReturn(resources);
+		setCurrentOpenmrsVersion("1.9.10");
+		
+		Resource resource = restService.getResourceBySupportedClass(HibernateProxyAnimal.class);
+		
+		Map<Class<?>, Object> resolved = ((RestServiceImpl) restService).resourcesByResolvedClasses;
+		assertThat(resolved.get(HibernateProxyAnimal.class), is((Object) resource));
+		assertThat(restService.getResourceBySupportedClass(HibernateProxyAnimal.class), is(resource));
+		assertThat(restService.getResourceBySupportedClass(Animal.class), is(resource));
+	}
+	
+	/**
+	 * @verifies remember classes that no resource supports
+	 * @see RestServiceImpl#getResourceBySupportedClass(Class)
+	 */
+	@Test
+	public void getResourceBySupportedClass_shouldRememberClassesThatNoResourceSupports() throws Exception {
+		
+		List<Class<? extends Resource>> resources = new ArrayList<Class<? extends Resource>>();
+		resources.add(AnimalResource_1_9.class);
+		
+		when(openmrsClassScanner.getClasses(Resource.class, true)).thenReturn(resources);
+		setCurrentOpenmrsVersion("1.9.10");
+		
+		try {
+			restService.getResourceBySupportedClass(String.class);
+			fail("no resource supports String");
+		}
+		catch (APIException e) {
+			Map<Class<?>, Object> resolved = ((RestServiceImpl) restService).resourcesByResolvedClasses;
+			assertThat(resolved.get(String.class), is(RestServiceImpl.NO_RESOURCE));
+		}
+		
+		expectedException.expect(APIException.class);
+		expectedException.expectMessage("Unknown resource: class java.lang.String");
+		restService.getResourceBySupportedClass(String.class);
+	}
+	
 	/**
 	 * @verifies return resource supporting superclass of given class if no resource supporting
 	 *           given class was found
@@ -0,0 +1,98 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web.api.impl;
+
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.emptyArray;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest.web.resource.api.SearchConfig;
+import org.openmrs.module.webservices.rest.web.resource.api.SearchHandler;
+import org.openmrs.module.webservices.rest.web.resource.api.SearchQuery;
+
+/**
+ * Tests {@link SearchHandlerIndex}.
+ */
+public class SearchHandlerIndexTest {
+	
+	private SearchHandlerIndex index;
+	
+	private SearchHandler bySource;
+	
+	private SearchHandler byName;
+	
+	@Before
+	public void createIndex() {
+		bySource = mockSearchHandler("bySource", new SearchQuery.Builder("description").withRequiredParameters("source")
+		        .withOptionalParameters("code").build());
+		byName = mockSearchHandler("byName", new SearchQuery.Builder("description").withRequiredParameters("name")
+		        .build(), new SearchQuery.Builder("description").withRequiredParameters("name", "locale").build());
+		
+		index = new SearchHandlerIndex();
+		index.add(bySource);
+		index.add(byName);
+	}
+	
+	/**
+	 * @see SearchHandlerIndex#getMatches(Set)
+	 * @verifies ignore special request parameters
+	 */
+	@Test
+	public void getMatches_shouldIgnoreSpecialRequestParameters() throws Exception {
+		assertThat(index.getMatches(parameters("source", RestConstants.REQUEST_PROPERTY_FOR_REPRESENTATION,
+		    RestConstants.REQUEST_PROPERTY_FOR_LIMIT)), arrayContaining(bySource));
+		assertThat(index.getMatches(parameters(RestConstants.REQUEST_PROPERTY_FOR_REPRESENTATION)), emptyArray());
+	}
+	
+	/**
+	 * @see SearchHandlerIndex#getMatches(Set)
+	 * @verifies return no handlers for a parameter no handler accepts
+	 */
+	@Test
+	public void getMatches_shouldReturnNoHandlersForAParameterNoHandlerAccepts() throws Exception {
+		assertThat(index.getMatches(parameters("source", "date")), emptyArray());
+		assertThat(index.getMatches(parameters("source", "name")), emptyArray());
+		assertThat(index.getMatches(parameters("code")), emptyArray());
+	}
+	
+	/**
+	 * @see SearchHandlerIndex#getMatches(Set)
+	 * @verifies remember the handlers for repeated parameters
+	 */
+	@Test
+	public void getMatches_shouldRememberTheHandlersForRepeatedParameters() throws Exception {
+		SearchHandler[] matches = index.getMatches(parameters("name", "locale"));
+		
+		assertThat(matches, arrayContaining(byName));
+		assertThat(index.getMatches(parameters("locale", "name", RestConstants.REQUEST_PROPERTY_FOR_LIMIT)),
+		    sameInstance(matches));
+	}
+	
+	private static Set<String> parameters(String... names) {
+		return new HashSet<String>(Arrays.asList(names));
+	}
+	
+	private static SearchHandler mockSearchHandler(String id, SearchQuery... searchQueries) {
+		SearchHandler searchHandler = mock(SearchHandler.class);
+		SearchConfig searchConfig = new SearchConfig(id, "v1/concept", "1.8.*", Arrays.asList(searchQueries));
+		when(searchHandler.getSearchConfig()).thenReturn(searchConfig);
+		return searchHandler;
+	}
+}
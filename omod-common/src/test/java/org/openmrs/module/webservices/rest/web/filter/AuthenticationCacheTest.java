@@ -0,0 +1,105 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web.filter;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.api.UserService;
+
+/**
+ * Tests {@link AuthenticationCache} and {@link AuthenticationCacheAdvice}.
+ */
+public class AuthenticationCacheTest {
+	
+	private static final String HEADER = "Basic YWRtaW46dGVzdA==";
+	
+	private static final Integer USER_ID = 1;
+	
+	@Before
+	public void setUp() {
+		AuthenticationCache.clear();
+	}
+	
+	@After
+	public void tearDown() {
+		AuthenticationCache.clear();
+	}
+	
+	/**
+	 * @see AuthenticationCache#getKey(String)
+	 * @verifies return the same key for the same header
+	 */
+	@Test
+	public void getKey_shouldReturnTheSameKeyForTheSameHeader() throws Exception {
+		assertThat(AuthenticationCache.getKey(HEADER), is(AuthenticationCache.getKey(HEADER)));
+	}
+	
+	/**
+	 * @see AuthenticationCache#getKey(String)
+	 * @verifies return different keys for different headers
+	 */
+	@Test
+	public void getKey_shouldReturnDifferentKeysForDifferentHeaders() throws Exception {
+		assertThat(AuthenticationCache.getKey(HEADER), not(AuthenticationCache.getKey("Basic YWRtaW46VGVzdA==")));
+		assertThat(AuthenticationCache.getKey(HEADER), not(HEADER));
+	}
+	
+	/**
+	 * @see AuthenticationCache#get(String)
+	 * @verifies return null for an expired entry
+	 */
+	@Test
+	public void get_shouldReturnNullForAnExpiredEntry() throws Exception {
+		String key = AuthenticationCache.getKey(HEADER);
+		AuthenticationCache.put(key, USER_ID, 60);
+		assertSame(USER_ID, AuthenticationCache.get(key));
+		
+		AuthenticationCache.put(key, USER_ID, 0);
+		Thread.sleep(5);
+		assertNull(AuthenticationCache.get(key));
+	}
+	
+	/**
+	 * @see AuthenticationCacheAdvice#afterReturning(Object,java.lang.reflect.Method,Object[],Object)
+	 * @verifies clear the cache after a password change
+	 */
+	@Test
+	public void afterReturning_shouldClearTheCacheAfterAPasswordChange() throws Exception {
+		String key = AuthenticationCache.getKey(HEADER);
+		AuthenticationCache.put(key, USER_ID, 60);
+		
+		new AuthenticationCacheAdvice().afterReturning(null,
+		    UserService.class.getMethod("changePassword", String.class, String.class), null, null);
+		
+		assertNull(AuthenticationCache.get(key));
+	}
+	
+	/**
+	 * @see AuthenticationCacheAdvice#afterReturning(Object,java.lang.reflect.Method,Object[],Object)
+	 * @verifies not clear the cache after a read
+	 */
+	@Test
+	public void afterReturning_shouldNotClearTheCacheAfterARead() throws Exception {
+		String key = AuthenticationCache.getKey(HEADER);
+		AuthenticationCache.put(key, USER_ID, 60);
+		
+		new AuthenticationCacheAdvice().afterReturning(null, UserService.class.getMethod("getUserByUuid", String.class),
+		    null, null);
+		
+		assertSame(USER_ID, AuthenticationCache.get(key));
+	}
+}
@@ -0,0 +1,138 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web.filter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+import org.apache.commons.codec.binary.Base64;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.GlobalProperty;
+import org.openmrs.User;
+import org.openmrs.api.context.Context;
+import org.openmrs.api.context.UserContext;
+import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest.web.RestUtil;
+import org.openmrs.web.test.BaseModuleWebContextSensitiveTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Tests {@link AuthorizationFilter}.
+ */
+public class AuthorizationFilterTest extends BaseModuleWebContextSensitiveTest {
+	
+	private static final String HEADER = "Basic YWRtaW46dGVzdA==";
+	
+	private AuthorizationFilter filter = new AuthorizationFilter();
+	
+	private UserContext testUserContext;
+	
+	@Before
+	public void setUp() {
+		testUserContext = Context.getUserContext();
+		AuthenticationCache.clear();
+		RestUtil.getSettings();
+		new RestUtil().globalPropertyChanged(new GlobalProperty(
+		        RestConstants.AUTHENTICATION_CACHE_TTL_GLOBAL_PROPERTY_NAME, "60"));
+	}
+	
+	@After
+	public void tearDown() {
+		new RestUtil().globalPropertyDeleted(RestConstants.AUTHENTICATION_CACHE_TTL_GLOBAL_PROPERTY_NAME);
+		AuthenticationCache.clear();
+		Context.setUserContext(testUserContext);
+	}
+	
+	/**
+	 * @see AuthorizationFilter#doFilter(ServletRequest,ServletResponse,FilterChain)
+	 * @verifies give every request with cached credentials a user context of its own
+	 */
+	@Test
+	public void doFilter_shouldGiveEveryRequestWithCachedCredentialsAUserContextOfItsOwn() throws Exception {
+		UserContextRecorder first = new UserContextRecorder();
+		doFilterAnonymously(first);
+		assertNotNull(AuthenticationCache.get(AuthenticationCache.getKey(HEADER)));
+		
+		UserContextRecorder second = new UserContextRecorder();
+		doFilterAnonymously(second);
+		
+		assertTrue(second.userContext.isAuthenticated());
+		assertEquals(first.userContext.getAuthenticatedUser(), second.userContext.getAuthenticatedUser());
+		assertNotSame(first.userContext, second.userContext);
+		// logging out of one request must not log out the other
+		second.userContext.logout();
+		assertTrue(first.userContext.isAuthenticated());
+	}
+	
+	/**
+	 * @see AuthorizationFilter#doFilter(ServletRequest,ServletResponse,FilterChain)
+	 * @verifies not authenticate a retired or locked out user from the cache
+	 */
+	@Test
+	public void doFilter_shouldNotAuthenticateARetiredOrLockedOutUserFromTheCache() throws Exception {
+		// only the cache could authenticate these credentials
+		String wrongPassword = "Basic " + new String(Base64.encodeBase64("admin:wrong".getBytes("UTF-8")), "UTF-8");
+		String cacheKey = AuthenticationCache.getKey(wrongPassword);
+		User admin = Context.getUserService().getUser(1);
+		
+		admin.setRetired(true);
+		AuthenticationCache.put(cacheKey, admin.getUserId(), 60);
+		UserContextRecorder retired = new UserContextRecorder();
+		doFilterAnonymously(retired, wrongPassword);
+		
+		assertFalse(retired.userContext.isAuthenticated());
+		assertNull(AuthenticationCache.get(cacheKey));
+		
+		admin.setRetired(false);
+		admin.setUserProperty("lockoutTimestamp", String.valueOf(System.currentTimeMillis()));
+		AuthenticationCache.put(cacheKey, admin.getUserId(), 60);
+		UserContextRecorder lockedOut = new UserContextRecorder();
+		doFilterAnonymously(lockedOut, wrongPassword);
+		
+		assertFalse(lockedOut.userContext.isAuthenticated());
+		assertNull(AuthenticationCache.get(cacheKey));
+	}
+	
+	private void doFilterAnonymously(FilterChain chain) throws Exception {
+		doFilterAnonymously(chain, HEADER);
+	}
+	
+	/**
+	 * Filters a request with the given credentials on a new, anonymous user context like the one a
+	 * new request gets
+	 */
+	private void doFilterAnonymously(FilterChain chain, String authorization) throws Exception {
+		Context.setUserContext(new UserContext());
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/ws/rest/v1/location");
+		request.addHeader("Authorization", authorization);
+		filter.doFilter(request, new MockHttpServletResponse(), chain);
+	}
+	
+	private static class UserContextRecorder implements FilterChain {
+		
+		private UserContext userContext;
+		
+		@Override
+		public void doFilter(ServletRequest request, ServletResponse response) {
+			userContext = Context.getUserContext();
+		}
+	}
+}
@@ -0,0 +1,136 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web.filter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Tests {@link EtagFilter}.
+ */
+public class EtagFilterTest {
+	
+	private static final String BODY = "{\"uuid\":\"abc\"}";
+	
+	private EtagFilter filter = new EtagFilter();
+	
+	/**
+	 * @see EtagFilter#doFilter(ServletRequest,ServletResponse,FilterChain)
+	 * @verifies add an etag of the body to a get response
+	 */
+	@Test
+	public void doFilter_shouldAddAnEtagOfTheBodyToAGetResponse() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		
+		filter.doFilter(new MockHttpServletRequest("GET", "/ws/rest/v1/location"), response, new BodyWriter());
+		
+		assertNotNull(response.getHeader("ETag"));
+		assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+		assertEquals(BODY, response.getContentAsString());
+	}
+	
+	/**
+	 * @see EtagFilter#doFilter(ServletRequest,ServletResponse,FilterChain)
+	 * @verifies return not modified if the etag of the body matches
+	 */
+	@Test
+	public void doFilter_shouldReturnNotModifiedIfTheEtagOfTheBodyMatches() throws Exception {
+		MockHttpServletResponse first = new MockHttpServletResponse();
+		filter.doFilter(new MockHttpServletRequest("GET", "/ws/rest/v1/location"), first, new BodyWriter());
+		
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/ws/rest/v1/location");
+		request.addHeader("If-None-Match", first.getHeader("ETag"));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, new BodyWriter());
+		
+		assertEquals(HttpServletResponse.SC_NOT_MODIFIED, response.getStatus());
+		assertEquals("", response.getContentAsString());
+	}
+	
+	/**
+	 * @see EtagFilter#doFilter(ServletRequest,ServletResponse,FilterChain)
+	 * @verifies pass requests other than get through
+	 */
+	@Test
+	public void doFilter_shouldPassRequestsOtherThanGetThrough() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		BodyWriter chain = new BodyWriter();
+		
+		filter.doFilter(new MockHttpServletRequest("POST", "/ws/rest/v1/location"), response, chain);
+		
+		assertSame(response, chain.response);
+		assertNull(response.getHeader("ETag"));
+		assertEquals(BODY, response.getContentAsString());
+	}
+	
+	/**
+	 * @see EtagFilter#doFilter(ServletRequest,ServletResponse,FilterChain)
+	 * @verifies not buffer exports
+	 */
+	@Test
+	public void doFilter_shouldNotBufferExports() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		BodyWriter chain = new BodyWriter();
+		
+		filter.doFilter(new MockHttpServletRequest("GET", "/ws/rest/v1/obs/export"), response, chain);
+		
+		assertSame(response, chain.response);
+		assertNull(response.getHeader("ETag"));
+	}
+	
+	/**
+	 * @see EtagFilter#doFilter(ServletRequest,ServletResponse,FilterChain)
+	 * @verifies not buffer responses that got an etag from the resource
+	 */
+	@Test
+	public void doFilter_shouldNotBufferResponsesThatGotAnEtagFromTheResource() throws Exception {
+		final MockHttpServletResponse response = new MockHttpServletResponse();
+		
+		filter.doFilter(new MockHttpServletRequest("GET", "/ws/rest/v1/location/abc"), response, new FilterChain() {
+			
+			@Override
+			public void doFilter(ServletRequest request, ServletResponse wrapper) throws IOException, ServletException {
+				((HttpServletResponse) wrapper).setHeader("ETag", "\"1\"");
+				wrapper.getOutputStream().write(BODY.getBytes("UTF-8"));
+				assertEquals(BODY, response.getContentAsString());
+			}
+		});
+		
+		assertEquals("\"1\"", response.getHeader("ETag"));
+	}
+	
+	/**
+	 * Writes the same body for every request
+	 */
+	private static class BodyWriter implements FilterChain {
+		
+		private ServletResponse response;
+		
+		@Override
+		public void doFilter(ServletRequest request, ServletResponse response) throws IOException, ServletException {
+			this.response = response;
+			response.getWriter().write(BODY);
+		}
+	}
+}
@@ -0,0 +1,103 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web.filter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.List;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.module.webservices.rest.web.RestUtil;
+import org.openmrs.module.webservices.rest.web.metrics.OperationMetrics;
+import org.openmrs.module.webservices.rest.web.metrics.RestMetrics;
+import org.openmrs.module.webservices.rest.web.metrics.RestOperation;
+import org.openmrs.module.webservices.rest.web.representation.Representation;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Tests {@link MetricsFilter}.
+ */
+public class MetricsFilterTest {
+	
+	private MetricsFilter filter = new MetricsFilter();
+	
+	@Before
+	public void setUp() {
+		RestUtil.disableContext(); //to avoid a Context call
+		RestMetrics.clear();
+	}
+	
+	@After
+	public void tearDown() {
+		RestMetrics.clear();
+	}
+	
+	/**
+	 * @see MetricsFilter#doFilter(ServletRequest,ServletResponse,FilterChain)
+	 * @verifies record the request under its label
+	 */
+	@Test
+	public void doFilter_shouldRecordTheRequestUnderItsLabel() throws Exception {
+		filter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), new FilterChain() {
+			
+			@Override
+			public void doFilter(ServletRequest request, ServletResponse response) throws IOException, ServletException {
+				RestMetrics.label((HttpServletRequest) request, "v1/location", RestOperation.LIST, Representation.DEFAULT);
+				((HttpServletResponse) response).sendError(HttpServletResponse.SC_NOT_FOUND);
+			}
+		});
+		
+		List<OperationMetrics> all = RestMetrics.getAll();
+		assertEquals(1, all.size());
+		assertEquals("v1/location", all.get(0).getResource());
+		assertEquals(RestOperation.LIST, all.get(0).getOperation());
+		assertEquals(1, all.get(0).getLatency().getCount());
+		assertEquals(1, all.get(0).getErrors());
+	}
+	
+	/**
+	 * @see MetricsFilter#doFilter(ServletRequest,ServletResponse,FilterChain)
+	 * @verifies record a request that throws an exception as failed
+	 */
+	@Test
+	public void doFilter_shouldRecordARequestThatThrowsAnExceptionAsFailed() throws Exception {
+		try {
+			filter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), new FilterChain() {
+				
+				@Override
+				public void doFilter(ServletRequest request, ServletResponse response) throws IOException, ServletException {
+					RestMetrics.label((HttpServletRequest) request, "v1/location", RestOperation.RETRIEVE,
+					    Representation.DEFAULT);
+					throw new ServletException("failed");
+				}
+			});
+			fail();
+		}
+		catch (ServletException e) {
+			assertEquals("failed", e.getMessage());
+		}
+		
+		List<OperationMetrics> all = RestMetrics.getAll();
+		assertEquals(1, all.size());
+		assertEquals(1, all.get(0).getErrors());
+	}
+}
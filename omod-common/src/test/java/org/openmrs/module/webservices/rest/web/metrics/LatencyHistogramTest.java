@@ -0,0 +1,74 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link LatencyHistogram}.
+ */
+public class LatencyHistogramTest {
+	
+	/**
+	 * @see LatencyHistogram#record(long)
+	 * @verifies record negative values as zero and large values as max value
+	 */
+	@Test
+	public void record_shouldRecordNegativeValuesAsZeroAndLargeValuesAsMaxValue() throws Exception {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(-5);
+		assertEquals(0, histogram.getValueAtPercentile(100));
+		
+		histogram.record(Long.MAX_VALUE);
+		assertEquals(2, histogram.getCount());
+		assertEquals(LatencyHistogram.MAX_VALUE, histogram.getMax());
+		assertEquals(LatencyHistogram.MAX_VALUE, histogram.getSum());
+		assertEquals(LatencyHistogram.MAX_VALUE, histogram.getValueAtPercentile(100));
+	}
+	
+	/**
+	 * @see LatencyHistogram#getValueAtPercentile(double)
+	 * @verifies return values within the precision of the buckets
+	 */
+	@Test
+	public void getValueAtPercentile_shouldReturnValuesWithinThePrecisionOfTheBuckets() throws Exception {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (long value = 1; value <= 1000; value++) {
+			histogram.record(value * 1000000);
+		}
+		
+		assertEquals(1000, histogram.getCount());
+		assertEquals(500500000000L, histogram.getSum());
+		assertEquals(500500000.0, histogram.getMean(), 0.001);
+		assertWithinPrecision(500000000, histogram.getValueAtPercentile(50));
+		assertWithinPrecision(900000000, histogram.getValueAtPercentile(90));
+		assertWithinPrecision(990000000, histogram.getValueAtPercentile(99));
+		assertEquals(1000000000, histogram.getValueAtPercentile(100));
+	}
+	
+	/**
+	 * @see LatencyHistogram#getValueAtPercentile(double)
+	 * @verifies return zero if nothing was recorded
+	 */
+	@Test
+	public void getValueAtPercentile_shouldReturnZeroIfNothingWasRecorded() throws Exception {
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals(0, histogram.getValueAtPercentile(50));
+		assertEquals(0, histogram.getMean(), 0);
+	}
+	
+	private void assertWithinPrecision(long expected, long actual) {
+		assertTrue("expected about " + expected + " but was " + actual, actual >= expected
+		        && actual <= expected + expected / 16);
+	}
+}
@@ -0,0 +1,83 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web.metrics;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.junit.Assert.assertThat;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link PrometheusFormat}.
+ */
+public class PrometheusFormatTest {
+	
+	/**
+	 * @see PrometheusFormat#write(java.util.List,java.io.Writer)
+	 * @verifies write latency summaries and counters with labels
+	 */
+	@Test
+	public void write_shouldWriteLatencySummariesAndCountersWithLabels() throws Exception {
+		OperationMetrics metrics = new OperationMetrics("v1/location", RestOperation.SEARCH, "ref", "default");
+		metrics.record(2000000000L, 1024, false, 3);
+		metrics.record(2000000000L, -1, true, 0);
+		
+		String text = write(metrics);
+		
+		String labels = "{resource=\"v1/location\",operation=\"search\",representation=\"ref\",search_handler=\"default\"";
+		assertThat(text, containsString("# TYPE openmrs_rest_request_duration_seconds summary\n"));
+		assertThat(text, containsString("openmrs_rest_request_duration_seconds" + labels + ",quantile=\"0.5\"} 2\n"));
+		assertThat(text, containsString("openmrs_rest_request_duration_seconds_sum" + labels + "} 4\n"));
+		assertThat(text, containsString("openmrs_rest_request_duration_seconds_count" + labels + "} 2\n"));
+		assertThat(text, containsString("# TYPE openmrs_rest_request_errors_total counter\n"));
+		assertThat(text, containsString("openmrs_rest_request_errors_total" + labels + "} 1\n"));
+		assertThat(text, containsString("openmrs_rest_results_total" + labels + "} 3\n"));
+		assertThat(text, containsString("openmrs_rest_allocated_bytes_sum" + labels + "} 1024\n"));
+		assertThat(text, containsString("openmrs_rest_allocated_bytes_count" + labels + "} 1\n"));
+	}
+	
+	/**
+	 * @see PrometheusFormat#write(java.util.List,java.io.Writer)
+	 * @verifies escape label values
+	 */
+	@Test
+	public void write_shouldEscapeLabelValues() throws Exception {
+		OperationMetrics metrics = new OperationMetrics("v1/a\"b\\c", RestOperation.LIST, "full", null);
+		metrics.record(1000000, -1, false, 1);
+		
+		assertThat(write(metrics), containsString("{resource=\"v1/a\\\"b\\\\c\",operation=\"list\",representation=\"full\"}"));
+	}
+	
+	/**
+	 * @see PrometheusFormat#writeRepresentationCache(long,long,int,java.io.Writer)
+	 * @verifies write the counters and the size of the cache
+	 */
+	@Test
+	public void writeRepresentationCache_shouldWriteTheCountersAndTheSizeOfTheCache() throws Exception {
+		StringWriter writer = new StringWriter();
+		PrometheusFormat.writeRepresentationCache(5, 2, 3, writer);
+		
+		String text = writer.toString();
+		assertThat(text, containsString("# TYPE openmrs_rest_representation_cache_hits_total counter\n"));
+		assertThat(text, containsString("openmrs_rest_representation_cache_hits_total 5\n"));
+		assertThat(text, containsString("openmrs_rest_representation_cache_misses_total 2\n"));
+		assertThat(text, containsString("# TYPE openmrs_rest_representation_cache_size gauge\n"));
+		assertThat(text, containsString("openmrs_rest_representation_cache_size 3\n"));
+	}
+	
+	private String write(OperationMetrics metrics) throws Exception {
+		StringWriter writer = new StringWriter();
+		PrometheusFormat.write(Arrays.asList(metrics), writer);
+		return writer.toString();
+	}
+}
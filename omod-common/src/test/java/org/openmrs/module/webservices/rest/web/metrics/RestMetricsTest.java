@@ -0,0 +1,93 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest.web.representation.Representation;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+/**
+ * Tests {@link RestMetrics}.
+ */
+public class RestMetricsTest {
+	
+	@Before
+	public void setUp() {
+		RestMetrics.clear();
+	}
+	
+	@After
+	public void tearDown() {
+		RestMetrics.clear();
+	}
+	
+	/**
+	 * @see RestMetrics#record(javax.servlet.http.HttpServletRequest,long,long,boolean)
+	 * @verifies record labelled requests
+	 */
+	@Test
+	public void record_shouldRecordLabelledRequests() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		RestMetrics.label(request, "v1/location", RestOperation.SEARCH, Representation.REF, "default");
+		RestMetrics.results(request, new SimpleObject().add("results", Arrays.asList("a", "b", "c")));
+		RestMetrics.record(request, 2000000, 512, false);
+		
+		request = new MockHttpServletRequest();
+		RestMetrics.label(request, "v1/location", RestOperation.SEARCH, Representation.REF, "default");
+		RestMetrics.record(request, 4000000, -1, true);
+		
+		List<OperationMetrics> all = RestMetrics.getAll();
+		assertEquals(1, all.size());
+		OperationMetrics metrics = all.get(0);
+		assertEquals("v1/location", metrics.getResource());
+		assertEquals(RestOperation.SEARCH, metrics.getOperation());
+		assertEquals(RestConstants.REPRESENTATION_REF, metrics.getRepresentation());
+		assertEquals("default", metrics.getSearchHandler());
+		assertEquals(2, metrics.getLatency().getCount());
+		assertEquals(1, metrics.getErrors());
+		assertEquals(3, metrics.getResults());
+		assertEquals(512, metrics.getAllocatedBytes());
+		assertEquals(1, metrics.getAllocationSamples());
+	}
+	
+	/**
+	 * @see RestMetrics#record(javax.servlet.http.HttpServletRequest,long,long,boolean)
+	 * @verifies not record requests that are not labelled
+	 */
+	@Test
+	public void record_shouldNotRecordRequestsThatAreNotLabelled() throws Exception {
+		RestMetrics.record(new MockHttpServletRequest(), 1000000, -1, false);
+		assertTrue(RestMetrics.getAll().isEmpty());
+	}
+	
+	/**
+	 * @see RestMetrics#record(javax.servlet.http.HttpServletRequest,long,long,boolean)
+	 * @verifies keep at most the maximum number of operation metrics
+	 */
+	@Test
+	public void record_shouldKeepAtMostTheMaximumNumberOfOperationMetrics() throws Exception {
+		for (int i = 0; i <= RestConstants.MAX_OPERATION_METRICS; i++) {
+			MockHttpServletRequest request = new MockHttpServletRequest();
+			RestMetrics.label(request, "v1/resource" + i, RestOperation.RETRIEVE, Representation.DEFAULT);
+			RestMetrics.record(request, 1000000, -1, false);
+		}
+		assertEquals(RestConstants.MAX_OPERATION_METRICS, RestMetrics.getAll().size());
+	}
+}
@@ -0,0 +1,109 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web.representation;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.module.webservices.rest.web.representation.CustomRepresentation.Property;
+import org.openmrs.module.webservices.rest.web.response.ConversionException;
+
+/**
+ * Tests {@link CustomRepresentationParser}.
+ */
+public class CustomRepresentationParserTest {
+	
+	@Before
+	public void setUp() {
+		CustomRepresentationParser.clearCache();
+	}
+	
+	/**
+	 * @see CustomRepresentationParser#parse(String)
+	 * @verifies parse properties with and without a representation
+	 */
+	@Test
+	public void parse_shouldParsePropertiesWithAndWithoutARepresentation() throws Exception {
+		List<Property> properties = CustomRepresentationParser.parse("(uuid, names:REF,datatype:full,links)")
+		        .getProperties();
+		
+		assertThat(properties.size(), is(4));
+		assertThat(properties.get(0).getName(), is("uuid"));
+		assertNull(properties.get(0).getRepresentation());
+		assertThat(properties.get(1).getName(), is("names"));
+		assertSame(Representation.REF, properties.get(1).getRepresentation());
+		assertSame(Representation.FULL, properties.get(2).getRepresentation());
+		assertTrue(properties.get(3).isLinks());
+	}
+	
+	/**
+	 * @see CustomRepresentationParser#parse(String)
+	 * @verifies parse nested custom representations
+	 */
+	@Test
+	public void parse_shouldParseNestedCustomRepresentations() throws Exception {
+		List<Property> properties = CustomRepresentationParser.parse(
+		    "(uuid,identifiers:(identifierType:(name),identifier),person:(age))").getProperties();
+		
+		assertThat(properties.size(), is(3));
+		CustomRepresentation identifiers = (CustomRepresentation) properties.get(1).getRepresentation();
+		assertThat(identifiers.getRepresentation(), is("(identifierType:(name),identifier)"));
+		assertThat(identifiers.getProperties().size(), is(2));
+		CustomRepresentation identifierType = (CustomRepresentation) identifiers.getProperties().get(0).getRepresentation();
+		assertThat(identifierType.getProperties().get(0).getName(), is("name"));
+		assertThat(properties.get(2).getName(), is("person"));
+	}
+	
+	/**
+	 * @see CustomRepresentationParser#parse(String)
+	 * @verifies return the same representation for the same specification
+	 */
+	@Test
+	public void parse_shouldReturnTheSameRepresentationForTheSameSpecification() throws Exception {
+		CustomRepresentation parsed = CustomRepresentationParser.parse("(uuid,display)");
+		
+		assertSame(parsed, CustomRepresentationParser.parse("(uuid,display)"));
+		assertSame(parsed.getProperties(), new CustomRepresentation("(uuid,display)").getProperties());
+	}
+	
+	/**
+	 * @see CustomRepresentationParser#parse(String)
+	 * @verifies fail for unbalanced parentheses
+	 */
+	@Test(expected = ConversionException.class)
+	public void parse_shouldFailForUnbalancedParentheses() throws Exception {
+		CustomRepresentationParser.parse("(uuid,datatype:(uuid,name)");
+	}
+	
+	/**
+	 * @see CustomRepresentationParser#parse(String)
+	 * @verifies fail for an unknown representation
+	 */
+	@Test(expected = ConversionException.class)
+	public void parse_shouldFailForAnUnknownRepresentation() throws Exception {
+		CustomRepresentationParser.parse("(uuid,names:minimal)");
+	}
+	
+	/**
+	 * @see CustomRepresentationParser#parse(String)
+	 * @verifies fail for an empty property name
+	 */
+	@Test(expected = ConversionException.class)
+	public void parse_shouldFailForAnEmptyPropertyName() throws Exception {
+		CustomRepresentationParser.parse("(uuid,,display)");
+	}
+}
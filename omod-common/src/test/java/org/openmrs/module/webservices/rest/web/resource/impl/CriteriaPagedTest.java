@@ -0,0 +1,150 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web.resource.impl;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.criterion.Order;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.Concept;
+import org.openmrs.api.APIAuthenticationException;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.webservices.rest.web.RequestContext;
+import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest.web.api.RestHelperService.ObjectCallback;
+import org.openmrs.web.test.BaseModuleWebContextSensitiveTest;
+
+/**
+ * Tests {@link CriteriaPaged}.
+ */
+public class CriteriaPagedTest extends BaseModuleWebContextSensitiveTest {
+	
+	private RequestContext context;
+	
+	private List<Concept> allConcepts;
+	
+	@Before
+	public void setUp() {
+		context = new RequestContext();
+		allConcepts = Context.getConceptService().getAllConcepts(null, true, true);
+	}
+	
+	private CriteriaPaged<Concept> allConceptsPaged() {
+		return new CriteriaPaged<Concept>(context, Concept.class, "View Concepts").addOrder(Order.asc("conceptId"));
+	}
+	
+	/**
+	 * @see CriteriaPaged#getPageOfResults()
+	 * @verifies return only the requested page
+	 */
+	@Test
+	public void getPageOfResults_shouldReturnOnlyTheRequestedPage() throws Exception {
+		context.setStartIndex(1);
+		context.setLimit(2);
+		
+		List<Concept> page = allConceptsPaged().getPageOfResults();
+		
+		assertThat(page.size(), is(2));
+		assertThat(page.get(0), is(allConcepts.get(1)));
+		assertThat(page.get(1), is(allConcepts.get(2)));
+	}
+	
+	/**
+	 * @see CriteriaPaged#hasMoreResults()
+	 * @verifies tell whether there are results after the requested page
+	 */
+	@Test
+	public void hasMoreResults_shouldTellWhetherThereAreResultsAfterTheRequestedPage() throws Exception {
+		context.setLimit(allConcepts.size() - 1);
+		assertTrue(allConceptsPaged().hasMoreResults());
+		
+		context.setLimit(allConcepts.size());
+		assertFalse(allConceptsPaged().hasMoreResults());
+	}
+	
+	/**
+	 * @see CriteriaPaged#getTotalCount()
+	 * @verifies count all matching objects
+	 */
+	@Test
+	public void getTotalCount_shouldCountAllMatchingObjects() throws Exception {
+		context.setLimit(1);
+		
+		assertThat(allConceptsPaged().getTotalCount(), is((long) allConcepts.size()));
+	}
+	
+	/**
+	 * @see CriteriaPaged#getPageOfResults()
+	 * @verifies fail if the user does not have the required privilege
+	 */
+	@Test(expected = APIAuthenticationException.class)
+	public void getPageOfResults_shouldFailIfTheUserDoesNotHaveTheRequiredPrivilege() throws Exception {
+		CriteriaPaged<Concept> paged = allConceptsPaged();
+		Context.logout();
+		
+		paged.getPageOfResults();
+	}
+	
+	/**
+	 * @see CriteriaPaged#processAll(ObjectCallback)
+	 * @verifies pass all matching objects to the callback
+	 */
+	@Test
+	public void processAll_shouldPassAllMatchingObjectsToTheCallback() throws Exception {
+		List<Integer> expected = new ArrayList<Integer>();
+		for (Concept concept : allConcepts) {
+			expected.add(concept.getConceptId());
+		}
+		final List<Integer> processed = new ArrayList<Integer>();
+		
+		int batchSize = RestConstants.EXPORT_BATCH_SIZE;
+		RestConstants.EXPORT_BATCH_SIZE = 3;
+		try {
+			long count = allConceptsPaged().processAll(new ObjectCallback<Concept>() {
+				
+				@Override
+				public void process(Concept concept) throws IOException {
+					processed.add(concept.getConceptId());
+				}
+			});
+			
+			assertThat(count, is((long) expected.size()));
+			assertThat(processed, is(expected));
+		}
+		finally {
+			RestConstants.EXPORT_BATCH_SIZE = batchSize;
+		}
+	}
+	
+	/**
+	 * @see CriteriaPaged#processAll(ObjectCallback)
+	 * @verifies fail if the user does not have the required privilege
+	 */
+	@Test(expected = APIAuthenticationException.class)
+	public void processAll_shouldFailIfTheUserDoesNotHaveTheRequiredPrivilege() throws Exception {
+		CriteriaPaged<Concept> paged = allConceptsPaged();
+		Context.logout();
+		
+		paged.processAll(new ObjectCallback<Concept>() {
+			
+			@Override
+			public void process(Concept concept) {
+			}
+		});
+	}
+}
@@ -0,0 +1,117 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web.resource.impl;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.Obs;
+import org.openmrs.module.webservices.rest.web.RequestContext;
+import org.openmrs.module.webservices.rest.web.response.InvalidSearchException;
+import org.openmrs.web.test.BaseModuleWebContextSensitiveTest;
+
+/**
+ * Tests {@link CursorPaged}.
+ */
+public class CursorPagedTest extends BaseModuleWebContextSensitiveTest {
+	
+	private RequestContext context;
+	
+	private List<Obs> obs;
+	
+	@Before
+	public void setUp() {
+		context = new RequestContext();
+		context.setLimit(2);
+		obs = new ArrayList<Obs>();
+		for (int id = 1; id <= 3; id++) {
+			obs.add(new Obs(id));
+		}
+	}
+	
+	/**
+	 * @see CursorPaged#CursorPaged(RequestContext, List)
+	 * @verifies return at most limit results
+	 */
+	@Test
+	public void CursorPaged_shouldReturnAtMostLimitResults() throws Exception {
+		CursorPaged<Obs> paged = new CursorPaged<Obs>(context, obs);
+		
+		assertThat(paged.getPageOfResults().size(), is(2));
+		assertTrue(paged.hasMoreResults());
+	}
+	
+	/**
+	 * @see CursorPaged#CursorPaged(RequestContext, List)
+	 * @verifies point the next cursor at the last returned result
+	 */
+	@Test
+	public void CursorPaged_shouldPointTheNextCursorAtTheLastReturnedResult() throws Exception {
+		CursorPaged<Obs> paged = new CursorPaged<Obs>(context, obs);
+		
+		context.setCursor(paged.getNextCursor());
+		
+		assertThat(CursorPaged.getLastId(context), is(2));
+	}
+	
+	/**
+	 * @see CursorPaged#CursorPaged(RequestContext, List)
+	 * @verifies not have a next cursor on the last page
+	 */
+	@Test
+	public void CursorPaged_shouldNotHaveANextCursorOnTheLastPage() throws Exception {
+		CursorPaged<Obs> paged = new CursorPaged<Obs>(context, obs.subList(2, 3));
+		
+		assertFalse(paged.hasMoreResults());
+		assertNull(paged.getNextCursor());
+	}
+	
+	/**
+	 * @see CursorPaged#getLastId(RequestContext)
+	 * @verifies return null for an empty cursor
+	 */
+	@Test
+	public void getLastId_shouldReturnNullForAnEmptyCursor() throws Exception {
+		context.setCursor("");
+		
+		assertNull(CursorPaged.getLastId(context));
+	}
+	
+	/**
+	 * @see CursorPaged#getLastId(RequestContext)
+	 * @verifies decode a cursor created by getNextCursor
+	 */
+	@Test
+	public void getLastId_shouldDecodeACursorCreatedByGetNextCursor() throws Exception {
+		obs.get(1).setObsId(123456789);
+		context.setCursor(new CursorPaged<Obs>(context, obs).getNextCursor());
+		
+		assertThat(CursorPaged.getLastId(context), is(123456789));
+	}
+	
+	/**
+	 * @see CursorPaged#getLastId(RequestContext)
+	 * @verifies fail for a malformed cursor
+	 */
+	@Test(expected = InvalidSearchException.class)
+	public void getLastId_shouldFailForAMalformedCursor() throws Exception {
+		context.setCursor("not a cursor");
+		
+		CursorPaged.getLastId(context);
+	}
+}
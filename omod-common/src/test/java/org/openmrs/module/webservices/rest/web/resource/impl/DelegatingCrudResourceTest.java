@@ -0,0 +1,41 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web.resource.impl;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.Date;
+
+import org.junit.Test;
+import org.openmrs.EncounterType;
+
+/**
+ * Tests {@link DelegatingCrudResource}.
+ */
+public class DelegatingCrudResourceTest {
+	
+	/**
+	 * @see DelegatingCrudResource#getAuditVersionToken(Object)
+	 * @verifies change when a property changes within the same second
+	 */
+	@Test
+	public void getAuditVersionToken_shouldChangeWhenAPropertyChangesWithinTheSameSecond() throws Exception {
+		EncounterType encounterType = new EncounterType("name", "description");
+		encounterType.setUuid("2b31f8a2-2d64-4b1c-9a36-5ff5f3c6a6b4");
+		encounterType.setDateCreated(new Date(1000000000000L));
+		String token = DelegatingCrudResource.getAuditVersionToken(encounterType);
+		
+		encounterType.setDescription("changed description");
+		
+		assertNotNull(token);
+		assertFalse(token.equals(DelegatingCrudResource.getAuditVersionToken(encounterType)));
+	}
+}
@@ -0,0 +1,101 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web.resource.impl;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+
+import java.util.Locale;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest.web.representation.Representation;
+
+/**
+ * Tests {@link RepresentationCache}.
+ */
+public class RepresentationCacheTest {
+	
+	private int cacheSize;
+	
+	@Before
+	public void setUp() {
+		cacheSize = RestConstants.REPRESENTATION_CACHE_SIZE;
+		RepresentationCache.clear();
+	}
+	
+	@After
+	public void tearDown() {
+		RestConstants.REPRESENTATION_CACHE_SIZE = cacheSize;
+		RepresentationCache.clear();
+	}
+	
+	/**
+	 * @see RepresentationCache#get(String,String)
+	 * @verifies return a copy of a cached representation
+	 */
+	@Test
+	public void get_shouldReturnACopyOfACachedRepresentation() throws Exception {
+		String key = getKey("uuid-1");
+		SimpleObject representation = new SimpleObject().add("uuid", "uuid-1");
+		RepresentationCache.put(key, "v1", representation);
+		long hits = RepresentationCache.getHitCount();
+		
+		SimpleObject cached = RepresentationCache.get(key, "v1");
+		cached.add("type", "changed");
+		
+		assertThat(cached.get("uuid"), is((Object) "uuid-1"));
+		assertNotSame(representation, cached);
+		assertNull(RepresentationCache.get(key, "v1").get("type"));
+		assertThat(RepresentationCache.getHitCount(), is(hits + 2));
+	}
+	
+	/**
+	 * @see RepresentationCache#get(String,String)
+	 * @verifies return null if the version changed
+	 */
+	@Test
+	public void get_shouldReturnNullIfTheVersionChanged() throws Exception {
+		String key = getKey("uuid-1");
+		RepresentationCache.put(key, "v1", new SimpleObject());
+		long misses = RepresentationCache.getMissCount();
+		
+		assertNull(RepresentationCache.get(key, "v2"));
+		assertThat(RepresentationCache.getMissCount(), is(misses + 1));
+	}
+	
+	/**
+	 * @see RepresentationCache#get(String,String)
+	 * @verifies evict the least recently used entry
+	 */
+	@Test
+	public void get_shouldEvictTheLeastRecentlyUsedEntry() throws Exception {
+		RestConstants.REPRESENTATION_CACHE_SIZE = 2;
+		RepresentationCache.put(getKey("uuid-1"), "v1", new SimpleObject());
+		RepresentationCache.put(getKey("uuid-2"), "v1", new SimpleObject());
+		RepresentationCache.get(getKey("uuid-1"), "v1");
+		
+		RepresentationCache.put(getKey("uuid-3"), "v1", new SimpleObject());
+		
+		assertThat(RepresentationCache.size(), is(2));
+		assertNotNull(RepresentationCache.get(getKey("uuid-1"), "v1"));
+		assertNull(RepresentationCache.get(getKey("uuid-2"), "v1"));
+	}
+	
+	private String getKey(String uuid) {
+		return RepresentationCache.getKey(getClass(), uuid, Representation.DEFAULT, Locale.ENGLISH);
+	}
+}
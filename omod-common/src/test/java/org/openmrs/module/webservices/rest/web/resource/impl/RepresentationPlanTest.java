@@ -0,0 +1,156 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web.resource.impl;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockingbird.test.Animal;
+import org.mockingbird.test.rest.resource.AnimalResource_1_9;
+import org.openmrs.module.webservices.rest.web.representation.CustomRepresentation;
+import org.openmrs.module.webservices.rest.web.representation.NamedRepresentation;
+import org.openmrs.module.webservices.rest.web.representation.Representation;
+import org.openmrs.module.webservices.rest.web.response.ConversionException;
+
+/**
+ * Tests {@link RepresentationPlan}.
+ */
+public class RepresentationPlanTest {
+	
+	private CountingConverter converter;
+	
+	@Before
+	public void setUp() {
+		RepresentationPlan.clearCache();
+		converter = new CountingConverter();
+	}
+	
+	/**
+	 * @see RepresentationPlan#get(DelegatingPropertyAccessor,Representation)
+	 * @verifies return the same plan for repeated calls
+	 */
+	@Test
+	public void get_shouldReturnTheSamePlanForRepeatedCalls() throws Exception {
+		RepresentationPlan plan = RepresentationPlan.get(converter, Representation.DEFAULT);
+		
+		assertSame(plan, RepresentationPlan.get(converter, Representation.DEFAULT));
+		assertThat(converter.descriptionsBuilt, is(1));
+		assertThat(plan.size(), is(2));
+		assertThat(plan.getPropertyName(0), is("uuid"));
+		assertThat(plan.getPropertyName(1), is("display"));
+	}
+	
+	/**
+	 * @see RepresentationPlan#get(DelegatingPropertyAccessor,Representation)
+	 * @verifies not cache custom representations
+	 */
+	@Test
+	public void get_shouldNotCacheCustomRepresentations() throws Exception {
+		Representation custom = new CustomRepresentation("(uuid)");
+		
+		RepresentationPlan.get(converter, custom);
+		RepresentationPlan.get(converter, custom);
+		
+		assertThat(converter.descriptionsBuilt, is(2));
+	}
+	
+	@Test
+	public void get_shouldNotCacheUnsupportedNamedRepresentations() throws Exception {
+		Representation named = new NamedRepresentation("unknown");
+		
+		assertNull(RepresentationPlan.get(converter, named));
+		assertNull(RepresentationPlan.get(converter, named));
+		
+		assertThat(converter.descriptionsBuilt, is(2));
+	}
+	
+	/**
+	 * @see RepresentationPlan#getCustom(BaseDelegatingResource,DelegatingResourceHandler,Class,CustomRepresentation)
+	 * @verifies return the same plan for repeated calls
+	 */
+	@Test
+	public void getCustom_shouldReturnTheSamePlanForRepeatedCalls() throws Exception {
+		AnimalResource_1_9 resource = new AnimalResource_1_9();
+		
+		RepresentationPlan plan = RepresentationPlan.getCustom(resource, resource, Animal.class, new CustomRepresentation(
+		        "(class,links)"));
+		
+		assertSame(plan, RepresentationPlan.getCustom(resource, resource, Animal.class, new CustomRepresentation(
+		        "(class,links)")));
+		assertThat(plan.isParsed(), is(true));
+		assertThat(plan.size(), is(1));
+		assertThat(plan.getPropertyName(0), is("class"));
+		assertThat(plan.getLinks().length, is(2));
+	}
+	
+	/**
+	 * @see RepresentationPlan#getCustom(BaseDelegatingResource,DelegatingResourceHandler,Class,CustomRepresentation)
+	 * @verifies fail for a property the resource cannot read
+	 */
+	@Test(expected = ConversionException.class)
+	public void getCustom_shouldFailForAPropertyTheResourceCannotRead() throws Exception {
+		AnimalResource_1_9 resource = new AnimalResource_1_9();
+		
+		RepresentationPlan.getCustom(resource, resource, Animal.class, new CustomRepresentation("(class,wings)"));
+	}
+	
+	@Test
+	public void clearCache_shouldForceThePlanToBeRecompiled() throws Exception {
+		RepresentationPlan plan = RepresentationPlan.get(converter, Representation.DEFAULT);
+		
+		RepresentationPlan.clearCache();
+		
+		assertNotSame(plan, RepresentationPlan.get(converter, Representation.DEFAULT));
+		assertThat(converter.descriptionsBuilt, is(2));
+	}
+	
+	@Test
+	public void plan_shouldNotChangeWhenTheDescriptionIsModified() throws Exception {
+		DelegatingResourceDescription description = new DelegatingResourceDescription();
+		description.addProperty("uuid");
+		RepresentationPlan plan = new RepresentationPlan(description);
+		
+		description.addProperty("display");
+		
+		assertThat(plan.size(), is(1));
+	}
+	
+	private static class CountingConverter extends BaseDelegatingConverter<Object> {
+		
+		int descriptionsBuilt = 0;
+		
+		@Override
+		public DelegatingResourceDescription getRepresentationDescription(Representation rep) {
+			descriptionsBuilt++;
+			if (rep instanceof NamedRepresentation) {
+				return null;
+			}
+			DelegatingResourceDescription description = new DelegatingResourceDescription();
+			description.addProperty("uuid");
+			description.addProperty("display");
+			return description;
+		}
+		
+		@Override
+		public Object newInstance(String type) {
+			return null;
+		}
+		
+		@Override
+		public Object getByUniqueId(String string) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,105 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.web.resource.impl;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.DrugOrder;
+import org.openmrs.Order;
+import org.openmrs.module.webservices.rest.web.RequestContext;
+import org.openmrs.module.webservices.rest.web.representation.Representation;
+import org.openmrs.module.webservices.rest.web.response.ResponseException;
+
+/**
+ * Tests the subclass handler lookups of {@link BaseDelegatingResource}.
+ */
+public class SubclassHandlerLookupTest {
+	
+	private MockOrderResource resource;
+	
+	private DelegatingSubclassHandler<Order, DrugOrder> drugOrderHandler;
+	
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		drugOrderHandler = mock(DelegatingSubclassHandler.class);
+		when(drugOrderHandler.getSubclassHandled()).thenReturn(DrugOrder.class);
+		when(drugOrderHandler.getTypeName()).thenReturn("drugorder");
+		
+		resource = new MockOrderResource();
+		resource.registerSubclassHandler(drugOrderHandler);
+	}
+	
+	/**
+	 * @see BaseDelegatingResource#getSubclassHandler(Class)
+	 * @verifies return the handler registered for the exact class
+	 */
+	@Test
+	public void getSubclassHandler_shouldReturnTheHandlerRegisteredForTheExactClass() throws Exception {
+		assertSame(drugOrderHandler, resource.getSubclassHandler(DrugOrder.class));
+		assertSame(drugOrderHandler, resource.getSubclassHandler("drugorder"));
+		assertNull(resource.getSubclassHandler(Order.class));
+		assertNull(resource.getSubclassHandler("order"));
+	}
+	
+	/**
+	 * @see BaseDelegatingResource#getSubclassHandler(Class)
+	 * @verifies fall back to the handler of the closest superclass
+	 */
+	@Test
+	public void getSubclassHandler_shouldFallBackToTheHandlerOfTheClosestSuperclass() throws Exception {
+		assertSame(drugOrderHandler, resource.getSubclassHandler(HivDrugOrder.class));
+		assertSame(drugOrderHandler, resource.getResourceHandler(new HivDrugOrder()));
+	}
+	
+	private static class HivDrugOrder extends DrugOrder {}
+	
+	private static class MockOrderResource extends DelegatingCrudResource<Order> {
+		
+		public MockOrderResource() {
+			subclassHandlers = new ArrayList<DelegatingSubclassHandler<Order, ? extends Order>>();
+		}
+		
+		@Override
+		public Order getByUniqueId(String uniqueId) {
+			return null;
+		}
+		
+		@Override
+		public Order newDelegate() {
+			return new Order();
+		}
+		
+		@Override
+		public Order save(Order delegate) {
+			return null;
+		}
+		
+		@Override
+		protected void delete(Order delegate, String reason, RequestContext context) throws ResponseException {
+		}
+		
+		@Override
+		public void purge(Order delegate, RequestContext context) throws ResponseException {
+		}
+		
+		@Override
+		public DelegatingResourceDescription getRepresentationDescription(Representation rep) {
+			return null;
+		}
+	}
+}
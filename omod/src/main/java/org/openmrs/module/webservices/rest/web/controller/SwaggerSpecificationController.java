@@ -12,7 +12,7 @@ package org.openmrs.module.webservices.rest.web.controller;
 import javax.servlet.http.HttpServletRequest;
 
 import org.openmrs.api.context.Context;
-import org.openmrs.module.webservices.docs.swagger.SwaggerSpecificationCreator;
+import org.openmrs.module.webservices.docs.swagger.SwaggerSpecificationCache;
 import org.openmrs.module.webservices.rest.web.RestConstants;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -60,9 +60,7 @@ public class SwaggerSpecificationController {
 		else if (scheme.equals("https"))
 			urlWithoutScheme = resourcesUrl.replace("https://", "");
 		
-		SwaggerSpecificationCreator creator = new SwaggerSpecificationCreator(urlWithoutScheme);
-		
-		swaggerSpecificationJSON = creator.BuildJSON();
+		swaggerSpecificationJSON = SwaggerSpecificationCache.getJSON(urlWithoutScheme);
 		
 		return swaggerSpecificationJSON;
 		
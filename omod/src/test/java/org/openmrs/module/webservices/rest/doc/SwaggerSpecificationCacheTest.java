@@ -0,0 +1,52 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.webservices.rest.doc;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.webservices.docs.swagger.SwaggerSpecificationCache;
+import org.openmrs.module.webservices.rest.web.api.RestService;
+import org.openmrs.web.test.BaseModuleWebContextSensitiveTest;
+
+/**
+ * Tests {@link SwaggerSpecificationCache}.
+ */
+public class SwaggerSpecificationCacheTest extends BaseModuleWebContextSensitiveTest {
+	
+	@Before
+	public void init() throws Exception {
+		Context.getService(RestService.class).initialize();
+	}
+	
+	/**
+	 * @see SwaggerSpecificationCache#getJSON(String)
+	 * @verifies build the specification once
+	 */
+	@Test
+	public void getJSON_shouldBuildTheSpecificationOnce() throws Exception {
+		String json = SwaggerSpecificationCache.getJSON("/v1/");
+		assertSame(json, SwaggerSpecificationCache.getJSON("/v1/"));
+	}
+	
+	/**
+	 * @see SwaggerSpecificationCache#getJSON(String)
+	 * @verifies build the specification again after being cleared
+	 */
+	@Test
+	public void getJSON_shouldBuildTheSpecificationAgainAfterBeingCleared() throws Exception {
+		String json = SwaggerSpecificationCache.getJSON("/v1/");
+		Context.getService(RestService.class).initialize();
+		assertNotSame(json, SwaggerSpecificationCache.getJSON("/v1/"));
+	}
+}
@@ -12,6 +12,7 @@ package org.openmrs.module.webservices.rest.util;
 import org.junit.Test;
 import org.openmrs.DrugOrder;
 import org.openmrs.Order;
+import org.openmrs.Patient;
 import org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource;
 import org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingSubclassHandler;
 import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingResourceHandler;
@@ -20,6 +21,8 @@ import org.openmrs.module.webservices.rest.web.v1_0.resource.openmrs1_10.DrugOrd
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 public class ReflectionUtilTest {
 	
@@ -63,4 +66,39 @@ public class ReflectionUtilTest {
 		    DrugOrderSubclassHandler1_10.class, 1);
 		assertNull(clazz);
 	}
+	
+	/**
+	 * @verifies find a readable and writable property
+	 * @see ReflectionUtil#findPropertyAccessor(Class, String)
+	 */
+	@Test
+	public void findPropertyAccessor_shouldFindAReadableAndWritableProperty() throws Exception {
+		PropertyAccessor accessor = ReflectionUtil.findPropertyAccessor(Order.class, "instructions");
+		assertTrue(accessor.isReadable());
+		assertTrue(accessor.isWritable());
+		
+		Order order = new Order();
+		accessor.setValue(order, "take with food");
+		assertEquals("take with food", order.getInstructions());
+		assertEquals("take with food", accessor.getValue(order));
+		assertSame(accessor, ReflectionUtil.findPropertyAccessor(Order.class, "instructions"));
+	}
+	
+	/**
+	 * @verifies return null for a nested property name
+	 * @see ReflectionUtil#findPropertyAccessor(Class, String)
+	 */
+	@Test
+	public void findPropertyAccessor_shouldReturnNullForANestedPropertyName() throws Exception {
+		assertNull(ReflectionUtil.findPropertyAccessor(Order.class, "patient.uuid"));
+	}
+	
+	@Test
+	public void getProperty_shouldFallBackToPropertyUtilsForNestedProperties() throws Exception {
+		Order order = new Order();
+		order.setPatient(new Patient());
+		order.getPatient().setUuid("patient-uuid");
+		
+		assertEquals("patient-uuid", ReflectionUtil.getProperty(order, "patient.uuid"));
+	}
 }